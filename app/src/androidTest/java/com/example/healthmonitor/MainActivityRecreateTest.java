@@ -0,0 +1,116 @@
+package com.example.healthmonitor;
+
+import android.content.pm.ActivityInfo;
+import android.os.SystemClock;
+import android.widget.Switch;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * 界面重建（主题切换、旋转、改变窗口大小）时设备开关不能改变设备状态。
+ * 重建后观察者把新的开关同步为开，这一变化不能被当作用户操作再去切换电源。
+ *
+ * 进程被杀死后的恢复无法在同一个进程内自动测试，手动检查：
+ * 1. 开机并打开几个模块，按 Home 键退到后台；
+ * 2. adb shell am kill com.example.healthmonitor；
+ * 3. 从最近任务回到应用：第一帧显示杀死前的波形和体征，开关为开，设备随后继续运行、模块与杀死前一致，
+ *    之后不会自行关机（观察 10 秒以上）；
+ * 4. 旋转屏幕，设备保持运行，开关保持为开。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MainActivityRecreateTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    @After
+    public void tearDown() {
+        DataRepository.getInstance().stopDataSimulation();
+    }
+
+    @Test
+    public void recreate_whilePowered_keepsDeviceOn() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            DataRepository repository = DataRepository.getInstance();
+            repository.startDataSimulation();
+            awaitPower(scenario, true);
+            long version = repository.getDeviceState().getVersion();
+
+            for (int i = 0; i < 3; i++) {
+                scenario.recreate();
+                awaitPower(scenario, true);
+            }
+            settle();
+            // 重建期间没有提交任何电源命令
+            assertEquals(version, repository.getDeviceState().getVersion());
+            assertSwitch(scenario, true);
+        }
+    }
+
+    @Test
+    public void rotation_whilePowered_keepsDeviceOn() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            DataRepository repository = DataRepository.getInstance();
+            repository.startDataSimulation();
+            awaitPower(scenario, true);
+            long version = repository.getDeviceState().getVersion();
+
+            scenario.onActivity(activity ->
+                    activity.setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_LANDSCAPE));
+            settle();
+            scenario.onActivity(activity ->
+                    activity.setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_PORTRAIT));
+            settle();
+            awaitPower(scenario, true);
+            assertEquals(version, repository.getDeviceState().getVersion());
+        }
+    }
+
+    @Test
+    public void userToggle_afterRecreate_switchesPower() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            DataRepository.getInstance().startDataSimulation();
+            awaitPower(scenario, true);
+            scenario.recreate();
+            awaitPower(scenario, true);
+
+            scenario.onActivity(activity -> activity.findViewById(R.id.deviceSwitch).performClick());
+            awaitPower(scenario, false);
+            scenario.onActivity(activity -> activity.findViewById(R.id.deviceSwitch).performClick());
+            awaitPower(scenario, true);
+        }
+    }
+
+    // 等设备状态和界面上的开关都达到 on
+    private static void awaitPower(ActivityScenario<MainActivity> scenario, boolean on) {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        final boolean[] checked = new boolean[1];
+        while (true) {
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+            scenario.onActivity(activity ->
+                    checked[0] = ((Switch) activity.findViewById(R.id.deviceSwitch)).isChecked());
+            if (DataRepository.getInstance().getDeviceState().isPowered() == on && checked[0] == on) {
+                return;
+            }
+            assertTrue("device power " + on, SystemClock.uptimeMillis() < deadline);
+            SystemClock.sleep(20);
+        }
+    }
+
+    private static void assertSwitch(ActivityScenario<MainActivity> scenario, boolean on) {
+        scenario.onActivity(activity ->
+                assertEquals(on, ((Switch) activity.findViewById(R.id.deviceSwitch)).isChecked()));
+    }
+
+    // 等过时的状态通知全部送达
+    private static void settle() {
+        SystemClock.sleep(500);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    }
+}
@@ -2,26 +2,65 @@ package com.example.healthmonitor;
 
 import android.util.Log;
 
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import java.io.File;
+import java.io.IOException;
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 public class DataRepository {
+    // 支持的心电采样率 (Hz)，与 EcgSource 中的定义相同
+    public static final int ECG_RATE_250 = EcgSource.ECG_RATE_250;
+    public static final int ECG_RATE_500 = EcgSource.ECG_RATE_500;
+    public static final int ECG_RATE_1000 = EcgSource.ECG_RATE_1000;
+    // 快照文件保存的波形时长，覆盖最大的显示时间窗口
+    public static final int SNAPSHOT_SECONDS = 30;
+
     private static DataRepository instance;
-    private final MutableLiveData<HealthData> healthData = new MutableLiveData<>();
-    private final MutableLiveData<Boolean> deviceStatus = new MutableLiveData<>();
-    private final Random random = new Random();
-    private ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> dataTask;
-    private int currentHeartRateMax = 0;
-    private int currentHeartRateMin = 0;
+    // 本机只有一个病人，数据流水线见 PatientMonitor
+    private final PatientMonitor monitor;
+    private final EcgStage ecgStage;
+    // 设备和模块状态由事件循环上的 DeviceController 独占修改，这里只把发布的快照转给 LiveData
+    private final DeviceController controller;
+    private final EventLoop loop = new EventLoop("DataRepository");
+    private final SnapshotLiveData healthData;
+    // 初始值通过构造函数设置，构造可以在任意线程上进行（见 prewarm）
+    private final MutableLiveData<Boolean> deviceStatus = new MutableLiveData<>(false);
+    private final MutableLiveData<Integer> moduleStatus = new MutableLiveData<>(0);
+    // 显示用的波形数据，与界面生命周期无关，界面重建时由新的波形视图接管
+    private final WaveformStore waveformStore = new WaveformStore(ECG_RATE_250);
+    // 最近的波形、体征和设备状态的快照文件，进程被杀死后用来恢复显示
+    private volatile WaveformSnapshot snapshot;
+    private boolean snapshotOpened = false;     // 仅主线程访问
 
     private DataRepository() {
-        healthData.setValue(new HealthData());
-        deviceStatus.setValue(false);
+        this(new Random(), Clock.SYSTEM, ExecutorTaskScheduler::new);
+    }
+
+    // 时钟、调度器和随机数可以替换为虚拟时间和固定种子，使模拟结果可以复现；
+    // clock 应与 schedulerFactory 创建的调度器使用同一个时钟
+    DataRepository(Random random, Clock clock, TaskScheduler.Factory schedulerFactory) {
+        monitor = new PatientMonitor("local", random);
+        ecgStage = monitor.getEcgStage();
+        healthData = new SnapshotLiveData(monitor.getSnapshots());
+        monitor.setPublishListener(healthData::signal);
+        controller = new DeviceController(monitor, clock, schedulerFactory, loop);
+        controller.setListener(new DeviceController.Listener() {
+            @Override
+            public void onStateChanged(DeviceState state) {
+                WaveformSnapshot current = snapshot;
+                if (current != null) {
+                    current.putDeviceState(state.isPowered(), state.getModules());
+                }
+                deviceStatus.postValue(state.isPowered());
+                moduleStatus.postValue(state.getModules());
+            }
+
+            @Override
+            public void onRecordingFailed(Throwable failure) {
+                Log.e("DataRepository", "Session recording failed", failure);
+            }
+        });
     }
 
     public static synchronized DataRepository getInstance() {
@@ -31,171 +70,193 @@ public class DataRepository {
         return instance;
     }
 
-    public MutableLiveData<HealthData> getHealthData() {
+    // 在后台线程上创建实例，心跳模板表和流水线的初始化与界面加载并行进行；
+    // 之后主线程调用 getInstance() 时直接取得实例，初始化尚未完成时等待它完成
+    public static void prewarm() {
+        synchronized (DataRepository.class) {
+            if (instance != null) {
+                return;
+            }
+        }
+        new Thread(DataRepository::getInstance, "DataRepository-init").start();
+    }
+
+    public LiveData<HealthData> getHealthData() {
         return healthData;
     }
 
-    public MutableLiveData<Boolean> getDeviceStatus() {
+    public LiveData<Boolean> getDeviceStatus() {
         return deviceStatus;
     }
 
-    // 修改 generateRandomData 方法
-    private HealthData generateRandomData() {
-        HealthData data = new HealthData();
-
-        // 获取当前设备状态
-        Boolean isDeviceOn = deviceStatus.getValue();
-
-        if (isDeviceOn != null && isDeviceOn) {
-            // 设备开启时生成随机数据
-            int newHeartRate = random.nextInt(40) + 60; // 60-100 bpm
-            data
-                    .setEcgData(generateECGWaveform());
-            data
-                    .setTemperature(36.5f + random.nextFloat() * 1.5f); // 36.5-38.0°C
-            data
-                    .setHeartRate(newHeartRate);
-            data
-                    .setBloodOxygen(random.nextInt(6) + 95); // 95-100%
-
-            // 更新心率极值
-            if (newHeartRate > currentHeartRateMax || currentHeartRateMax == 0) {
-                currentHeartRateMax
-                        = newHeartRate;
-            }
-            if (newHeartRate < currentHeartRateMin || currentHeartRateMin == 0) {
-                currentHeartRateMin
-                        = newHeartRate;
-            }
-            data
-                    .setHeartRateMax(currentHeartRateMax);
-            data
-                    .setHeartRateMin(currentHeartRateMin);
-        } else {
-            // 设备关闭时设置默认值或空值
-            data
-                    .setEcgData(0f);
-            data
-                    .setTemperature(0f);
-            data
-                    .setHeartRate(0);
-            data
-                    .setBloodOxygen(0);
-            data
-                    .setHeartRateMax(0);
-            data
-                    .setHeartRateMin(0);
-        }
+    // 模块状态位掩码，按 Module.mask() 解析
+    public LiveData<Integer> getModuleStatus() {
+        return moduleStatus;
+    }
 
-        data
-                .setDeviceOn(deviceStatus.getValue() != null && deviceStatus.getValue());
-
-        // 保持模块状态
-        HealthData currentData = healthData.getValue();
-        if (currentData != null) {
-            data
-                    .setEcgModuleOn(currentData.isEcgModuleOn());
-            data
-                    .setTempModuleOn(currentData.isTempModuleOn());
-            data
-                    .setHrModuleOn(currentData.isHrModuleOn());
-            data
-                    .setOxModuleOn(currentData.isOxModuleOn());
-        }
+    // 最近发布的设备状态，可在任意线程读取
+    public DeviceState getDeviceState() {
+        return controller.getState();
+    }
 
-        return data;
+    public boolean isModuleOn(Module module) {
+        return controller.getState().isModuleOn(module);
     }
 
-    private float generateECGWaveform() {
-        long time = System.currentTimeMillis() % 1000;
-        float timeNormalized = time / 1000.0f;
+    // 设置心率极值、均值等统计字段使用的时间窗口
+    public void setTrendWindow(TrendWindow window) {
+        monitor.setTrendWindow(window);
+    }
 
-        // 模拟典型的心电波形
-        if (timeNormalized < 0.2f) return (float) Math.sin(timeNormalized * 20) * 0.3f; // P波
-        else if (timeNormalized < 0.3f) return (float) Math.sin((timeNormalized - 0.2f) * 50) * 1.5f; // QRS波
-        else if (timeNormalized < 0.5f) return (float) Math.sin((timeNormalized - 0.3f) * 10) * 0.8f; // T波
-        else return 0f + (random.nextFloat() - 0.5f) * 0.1f; // 基线噪声
+    public void addEcgListener(EcgStreamListener listener) {
+        ecgStage.addListener(listener);
     }
 
-    public void startDataSimulation() {
-        stopDataSimulation();
-        scheduler = Executors.newSingleThreadScheduledExecutor();
-        dataTask = scheduler.scheduleAtFixedRate(() -> {
-            if (deviceStatus.getValue() != null && deviceStatus.getValue()) {
-                HealthData newData = generateRandomData();
-                healthData.postValue(newData);
-            }
-        }, 0, 1, TimeUnit.SECONDS);
+    public void removeEcgListener(EcgStreamListener listener) {
+        ecgStage.removeListener(listener);
     }
 
-    public void stopDataSimulation() {
-        if (dataTask != null && !dataTask.isCancelled()) {
-            dataTask.cancel(true);
+    // 心电采样总线，订阅者按各自的策略和节奏读取，丢弃的采样单独计数
+    public SampleBus getSampleBus() {
+        return monitor.getSampleBus();
+    }
+
+    // 开关心电滤波器，下一个数据块生效
+    public void setEcgFilterEnabled(EcgFilterChain.Filter filter, boolean enabled) {
+        ecgStage.getFilters().setEnabled(filter, enabled);
+    }
+
+    public boolean isEcgFilterEnabled(EcgFilterChain.Filter filter) {
+        return ecgStage.getFilters().isEnabled(filter);
+    }
+
+    // 工频陷波频率，50 或 60 Hz
+    public void setMainsFrequency(int frequency) {
+        ecgStage.getFilters().setMainsFrequency(frequency);
+    }
+
+    // 查询体温、心率或血氧在 [from, to) 内的趋势，粒度按 out 的容量自动选择，返回桶数
+    public int queryTrend(Module module, long from, long to, TrendSeries out) {
+        return monitor.queryTrend(module, from, to, out);
+    }
+
+    // 设置会话记录目录，null 表示不记录；下次开机时生效
+    public void setRecordingDirectory(File directory) {
+        controller.setRecordingDirectory(directory);
+    }
+
+    public SessionRecorder getRecorder() {
+        return controller.getRecorder();
+    }
+
+    public WaveformStore getWaveformStore() {
+        return waveformStore;
+    }
+
+    /**
+     * 打开波形快照文件，进程内只有第一次调用生效，之后显示的波形、体征和设备状态都写入该文件。
+     * 进程被杀死前设备正在运行时，用文件中的波形恢复 getWaveformStore()，把最近一帧体征读到 vitals，
+     * 并恢复开机和模块状态继续监护，返回恢复的模块位掩码；否则返回 -1。在主线程上调用。
+     */
+    public int openWaveformSnapshot(File file, HealthData vitals) {
+        if (snapshotOpened) {
+            return -1;
+        }
+        snapshotOpened = true;
+        WaveformSnapshot opened;
+        try {
+            opened = WaveformSnapshot.open(file, SNAPSHOT_SECONDS * ECG_RATE_1000);
+        } catch (IOException e) {
+            Log.e("DataRepository", "Failed to open waveform snapshot " + file, e);
+            return -1;
+        }
+        boolean resume = opened.isPowered() && !controller.getState().isPowered() && opened.restoreVitals(vitals);
+        int modules = opened.getModules();
+        synchronized (waveformStore.getSamples()) {
+            if (resume) {
+                waveformStore.restore(opened);
+            } else {
+                // 用户关机后留下的波形已经过时，不再显示
+                opened.reset(0);
+                waveformStore.setSnapshot(opened);
+            }
         }
-        if (scheduler != null) {
-            scheduler.shutdown();
+        snapshot = opened;
+        if (!resume) {
+            DeviceState state = controller.getState();
+            opened.putDeviceState(state.isPowered(), state.getModules());
+            return -1;
         }
-        // 重置极值
-        currentHeartRateMax = 0;
-        currentHeartRateMin = 0;
-        healthData.postValue(new HealthData());
+        controller.setPower(true);
+        controller.setModules(modules);
+        return modules;
     }
 
-    public void toggleDevicePower() {
-        Boolean currentStatus = deviceStatus.getValue();
-        boolean newStatus = currentStatus == null || !currentStatus;
-        deviceStatus.postValue(newStatus);
-
-        if (newStatus) {
-            startDataSimulation();
-        } else {
-            stopDataSimulation();
+    // 把界面显示的最近一帧体征写入快照文件，在主线程上调用
+    public void saveVitals(HealthData data) {
+        WaveformSnapshot current = snapshot;
+        if (current != null) {
+            current.putVitals(data);
         }
     }
 
-    // 修改 toggleModule 方法，添加设备状态检查
-    public void toggleModule(String module) {
-        HealthData currentData = healthData.getValue();
-        if (currentData == null) return;
+    // 在事件循环线程上把指标快照写到文件，不阻塞调用线程
+    public void dumpMetrics(final File file) {
+        loop.execute(() -> {
+            try {
+                HealthMetrics.REGISTRY.dump(file);
+            } catch (IOException e) {
+                Log.e("DataRepository", "Failed to write metrics to " + file, e);
+            }
+        });
+    }
 
-        // 检查设备是否开启
-        Boolean isDeviceOn = deviceStatus.getValue();
-        if (isDeviceOn == null || !isDeviceOn) {
-            // 设备未开启，不允许开启模块
-            Log.d("DataRepository", "Device is off, cannot toggle module: " + module);
-            return;
-        }
+    public int getEcgSampleRate() {
+        return ecgStage.getSampleRate();
+    }
 
-        HealthData newData = new HealthData();
-        // 复制当前数据
-        newData.setEcgData(currentData.getEcgData());
-        newData.setTemperature(currentData.getTemperature());
-        newData.setHeartRate(currentData.getHeartRate());
-        newData.setHeartRateMax(currentData.getHeartRateMax());
-        newData.setHeartRateMin(currentData.getHeartRateMin());
-        newData.setBloodOxygen(currentData.getBloodOxygen());
-        newData.setDeviceOn(currentData.isDeviceOn());
-        newData.setEcgModuleOn(currentData.isEcgModuleOn());
-        newData.setTempModuleOn(currentData.isTempModuleOn());
-        newData.setHrModuleOn(currentData.isHrModuleOn());
-        newData.setOxModuleOn(currentData.isOxModuleOn());
-
-        // 切换指定模块状态
-        switch (module) {
-            case "ECG":
-                newData.setEcgModuleOn(!currentData.isEcgModuleOn());
-                break;
-            case "TEMP":
-                newData.setTempModuleOn(!currentData.isTempModuleOn());
-                break;
-            case "HR":
-                newData.setHrModuleOn(!currentData.isHrModuleOn());
-                break;
-            case "OX":
-                newData.setOxModuleOn(!currentData.isOxModuleOn());
-                break;
+    // 设置模拟心电的采样率，下一个数据块开始生效
+    public void setEcgSampleRate(int sampleRate) {
+        if (sampleRate != ECG_RATE_250 && sampleRate != ECG_RATE_500 && sampleRate != ECG_RATE_1000) {
+            throw new IllegalArgumentException("Unsupported ECG sample rate: " + sampleRate);
         }
+        monitor.getSimulatedEcg().setSampleRate(sampleRate);
+    }
+
+    // 心电数据源，默认为模拟数据；切换后下一个数据块生效
+    public void setEcgSource(EcgSource source) {
+        ecgStage.setSource(source);
+    }
+
+    public void useSimulatedEcg() {
+        ecgStage.setSource(monitor.getSimulatedEcg());
+    }
+
+    // 心电播放速度倍数，EcgStage.AS_FAST_AS_POSSIBLE 表示不限速
+    public void setEcgPlaybackSpeed(float speed) {
+        ecgStage.setPlaybackSpeed(speed);
+    }
+
+    // 以下命令都提交到事件循环上按顺序执行，可在任意线程调用
+    public void startDataSimulation() {
+        controller.setPower(true);
+    }
+
+    public void stopDataSimulation() {
+        controller.setPower(false);
+    }
+
+    public void toggleDevicePower() {
+        controller.togglePower();
+    }
+
+    // 与当前状态相同时不做任何事，界面按开关的目标状态调用，重复或过时的调用不会来回切换
+    public void setDevicePower(boolean on) {
+        controller.setPower(on);
+    }
 
-        healthData.postValue(newData);
+    // 切换模块只修改位掩码，不拷贝测量数据；设备关机时忽略
+    public void toggleModule(Module module) {
+        controller.toggleModule(module);
     }
-}
\ No newline at end of file
+}
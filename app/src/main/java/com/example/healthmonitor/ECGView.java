@@ -1,25 +1,78 @@
 package com.example.healthmonitor;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
 import android.util.AttributeSet;
-import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.View;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
-public class ECGView extends View {
-    private final List<Float> dataPoints = new ArrayList<>();
+public class ECGView extends View implements EcgStreamListener {
+    // 滚动模式：每帧重建整条波形路径，波形整体向左移动
+    public static final int MODE_SCROLL = 0;
+    // 扫描模式：像监护仪一样从左到右扫描，每帧只绘制新到达的一段
+    public static final int MODE_SWEEP = 1;
+
+    private static final int DEFAULT_CAPACITY = 300;
+    private static final float DEFAULT_WINDOW_SECONDS = 4f;
+    private static final float SWEEP_GAP_RATIO = 0.04f;    // 扫描线前方擦除间隙占宽度的比例
+    // 从采样总线订阅时使用的显示采样率上限 (Hz)
+    public static final int DISPLAY_SAMPLE_RATE = 250;
+
+    // 波形数据和刷新状态保存在 WaveformStore 中，界面重建时由新的视图接管，只在主线程上替换。
+    // 波形数据使用 float 环形缓冲区，避免装箱和 remove(0) 的整体搬移；
+    // 缓冲区 store.getSamples() 同时是同步对象，抽取器等绘制状态也由当前 store 的锁保护
+    private volatile WaveformStore store = new WaveformStore(DEFAULT_CAPACITY);
     private final Paint paint = new Paint();
+    private final Paint gridPaint = new Paint();
+    private final Paint erasePaint = new Paint();
     private final Path path = new Path();
-    private final Random random = new Random();
-    private final int maxDataPoints = 300;
-    private long lastUpdateTime = 0;
-    private boolean isEcgModuleOn = false; // 改为心电模块状态
+    private volatile boolean isEcgModuleOn = false; // 改为心电模块状态
+    private volatile boolean hasNewData = false;    // 数据流写入了新的采样，等待重绘
+    private float windowSeconds = DEFAULT_WINDOW_SECONDS;
+    private int renderMode = MODE_SCROLL;
+
+    // 按屏幕刷新节奏驱动重绘
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            onFrame(frameTimeNanos);
+        }
+    };
+    // 按显示器刷新率计算错过的帧，0 表示还没有上一帧
+    private long frameIntervalNanos = 16_666_667L;
+    private long lastFrameNanos;
+    private long lastSampleTimestamp = -1;  // 本帧读到的最新采样的时间 (ms)，-1 表示没有
+    private boolean renderingEnabled = false;
+    private boolean frameCallbackPosted = false;
+    // 本帧更新了波形，下一次 onDraw 时画上屏幕，用于记录启动后第一帧波形的时间
+    private boolean waveformDrawPending = false;
+    private final EcgBlock frameBlock = new EcgBlock(DISPLAY_SAMPLE_RATE / 4);
+
+    // 网格缓存为背景层，扫描波形绘制在单独的图层上
+    private Bitmap gridBitmap;
+    private Bitmap traceBitmap;
+    private Canvas traceCanvas;
+
+    // 扫描模式状态，仅在主线程访问
+    private long sweepSeq;              // 下一个待绘制采样的序号
+    private int sweepCapacity;
+    private final SweepTrace sweepTrace = new SweepTrace();
+    private float[] sweepSamples = new float[0];
+    private float[] sweepPoints = new float[0];
+    private long sweepColumn;           // 抽取模式下下一个待绘制的列
+
+    // 窗口采样数远大于像素列数时按列抽取最小/最大值包络绘制
+    private final MinMaxDecimator decimator = new MinMaxDecimator();
+    private boolean decimating = false;
+    private int viewWidth = 0;
+    private float[] columnPoints = new float[0];
 
     public ECGView(Context context) {
         super(context);
@@ -37,17 +90,21 @@ public class ECGView extends View {
         paint.setStyle(Paint.Style.STROKE);
         paint.setAntiAlias(true);
 
-        // 初始化一些模拟数据
-        for (int i = 0; i < maxDataPoints; i++) {
-            dataPoints.add(0f);
+        gridPaint.setStrokeWidth(1f);
+        erasePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+
+        // 显示时间窗口随屏幕尺寸配置，平板上显示更长的时间
+        if (getResources() != null) {
+            windowSeconds = getResources().getInteger(R.integer.ecg_window_seconds);
         }
 
-        Log.d("ECGView", "ECGView initialized");
     }
 
     // 设置心电模块状态
     public void setEcgModuleOn(boolean isOn) {
-        Log.d("ECGView", "ECG module status set to: " + isOn);
+        if (isOn == isEcgModuleOn) {
+            return;     // 状态没有变化时不重绘
+        }
         this.isEcgModuleOn = isOn;
         if (!isOn) {
             clearData();
@@ -57,105 +114,525 @@ public class ECGView extends View {
 
     public void addDataPoint(float value) {
         if (!isEcgModuleOn) {
-            Log.d("ECGView", "ECG module is off, skipping data point");
             return; // 心电模块关闭时不添加数据
         }
 
-        dataPoints.add(value);
-        if (dataPoints.size() > maxDataPoints) {
-            dataPoints.remove(0);
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            samples.add(value);
         }
         invalidate(); // 重绘画布
-
-        Log.d("ECGView", "Data point added: " + value + ", total points: " + dataPoints.size());
     }
 
-    public void updateWaveform() {
+    // 接收数据流中的心电块，作为监听者时在数据生产线程上调用，订阅总线时在主线程上调用
+    @Override
+    public void onEcgBlock(EcgBlock block) {
         if (!isEcgModuleOn) {
-            Log.d("ECGView", "ECG module is off, skipping waveform update");
-            return; // 心电模块关闭时不更新波形
+            return; // 心电模块关闭时不添加数据
+        }
+        WaveformStore current = store;
+        synchronized (current.getSamples()) {
+            if (current != store) {
+                return; // 等锁期间视图已接管另一个 store，不再接收原来数据流的数据块
+            }
+            if (block.getSampleRate() != current.getSampleRate()) {
+                // 采样率变化时按显示时间窗口调整容量
+                current.configure(block.getSampleRate(), windowCapacity(block.getSampleRate()));
+                configureDecimator(current.getSamples());
+            }
+            current.append(block);
+            if (decimating) {
+                decimator.add(block.getSamples(), 0, block.getLength());
+            }
+        }
+        hasNewData = true;
+    }
+
+    // 改为在每帧从采样总线读取数据，null 表示不读取；订阅由调用方创建和取消，保存在当前的 WaveformStore 中
+    public void setSubscription(SampleBus.Subscription subscription) {
+        store.setSubscription(subscription);
+        if (subscription != null) {
+            subscription.clear();
+        }
+    }
+
+    /**
+     * 接管界面生命周期之外保存的波形数据、订阅和刷新状态，只交换引用，原有波形在下一帧立即显示。
+     * 在主线程上、开始刷新之前调用；不再以数据流监听者的身份接收数据块。
+     */
+    public void setWaveformStore(WaveformStore next) {
+        if (next == null) {
+            throw new IllegalArgumentException("store == null");
+        }
+        // 持有原来的锁替换，正在写入原 store 的数据块写完之后才换，之后到达的数据块被丢弃
+        synchronized (store.getSamples()) {
+            store = next;
+        }
+        FloatRingBuffer samples = next.getSamples();
+        synchronized (samples) {
+            int rate = next.getSampleRate();
+            if (rate > 0) {
+                // 不同布局的显示时间窗口可能不同，窗口不变时不复制数据
+                samples.resize(windowCapacity(rate));
+            }
         }
+        redrawSweep();
+        invalidate();
+    }
+
+    public WaveformStore getWaveformStore() {
+        return store;
+    }
 
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastUpdateTime < 50) { // 20 FPS
+    private int windowCapacity(int sampleRate) {
+        return Math.max(2, Math.round(windowSeconds * sampleRate));
+    }
+
+    // 设置显示窗口能容纳的采样点数
+    public void setCapacity(int capacity) {
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            samples.resize(capacity);
+            configureDecimator(samples);
+        }
+        invalidate();
+    }
+
+    // 根据视图宽度和窗口容量决定是否抽取，并用缓冲区中的数据重建包络，需持有 samples 的锁
+    private void configureDecimator(FloatRingBuffer samples) {
+        int capacity = samples.capacity();
+        decimating = viewWidth > 0 && capacity >= viewWidth * 2;
+        if (!decimating) {
             return;
         }
-        lastUpdateTime = currentTime;
+        decimator.configure(viewWidth, capacity);
+        int size = samples.size();
+        for (int i = 0; i < size; i++) {
+            decimator.add(samples.get(i));
+        }
+    }
 
-        // 生成模拟心电波形数据
-        float value = generateECGWaveform();
-        addDataPoint(value);
+    // 按时间窗口设置容量，例如 500 Hz 下显示 10 秒
+    public void setWindow(float seconds, int sampleRate) {
+        windowSeconds = seconds;
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            store.configure(sampleRate, windowCapacity(sampleRate));
+            configureDecimator(samples);
+        }
+        invalidate();
+    }
 
-        Log.d("ECGView", "Waveform updated, value: " + value);
+    public int getCapacity() {
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            return samples.capacity();
+        }
     }
 
-    private float generateECGWaveform() {
-        long time = System.currentTimeMillis() % 2000;
-        float timeNormalized = time / 2000.0f;
+    public void setRenderMode(int mode) {
+        if (mode != MODE_SCROLL && mode != MODE_SWEEP) {
+            throw new IllegalArgumentException("Unknown render mode: " + mode);
+        }
+        renderMode = mode;
+        redrawSweep();
+        invalidate();
+    }
+
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    // 开始或停止按帧刷新，停止后主线程上没有任何周期性回调
+    public void setRendering(boolean enabled) {
+        SampleBus.Subscription subscription = store.getSubscription();
+        if (enabled && !renderingEnabled && !store.isRendering() && subscription != null) {
+            // 暂停期间积压的采样不再显示，从最新数据开始；
+            // 接管时上一个视图仍在刷新，积压的是重建期间到达的采样，继续显示
+            subscription.clear();
+        }
+        renderingEnabled = enabled;
+        store.setRendering(enabled);
+        if (enabled) {
+            postFrame();
+        } else if (frameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameCallbackPosted = false;
+        }
+    }
 
-        // 模拟典型的心电波形
-        if (timeNormalized < 0.2f) return (float) Math.sin(timeNormalized * 20) * 0.3f; // P波
-        else if (timeNormalized < 0.3f) return (float) Math.sin((timeNormalized - 0.2f) * 50) * 1.5f; // QRS波
-        else if (timeNormalized < 0.5f) return (float) Math.sin((timeNormalized - 0.3f) * 10) * 0.8f; // T波
-        else return 0f + (random.nextFloat() - 0.5f) * 0.1f; // 基线噪声
+    private void postFrame() {
+        if (renderingEnabled && !frameCallbackPosted && isAttachedToWindow()) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+            frameCallbackPosted = true;
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        if (!renderingEnabled) {
+            lastFrameNanos = 0;
+            return;
+        }
+        boolean measure = HealthMetrics.REGISTRY.isEnabled();
+        if (measure) {
+            countSkippedFrames(frameTimeNanos);
+        }
+        SampleBus.Subscription current = store.getSubscription();
+        if (current != null) {
+            while (current.read(frameBlock) > 0) {
+                onEcgBlock(frameBlock);
+                lastSampleTimestamp = frameBlock.getSampleTimestamp(frameBlock.getLength() - 1);
+            }
+            HealthMetrics.ECG_BACKLOG.set(current.available());
+            if (lastSampleTimestamp >= 0) {
+                HealthMetrics.STARTUP.markFirstSample();
+            }
+        }
+        if (hasNewData && isEcgModuleOn) {
+            hasNewData = false;
+            waveformDrawPending = true;
+            long start = measure ? System.nanoTime() : 0;
+            if (renderMode == MODE_SWEEP) {
+                drawSweepSegment();
+            } else {
+                invalidate();
+            }
+            if (measure) {
+                HealthMetrics.ECG_FRAMES_DRAWN.increment();
+                HealthMetrics.ECG_DRAW_TIME.record(System.nanoTime() - start);
+                if (lastSampleTimestamp >= 0) {
+                    // 采样时间戳来自系统时钟，精度为毫秒
+                    HealthMetrics.ECG_SAMPLE_TO_SCREEN.record(
+                            (System.currentTimeMillis() - lastSampleTimestamp) * 1_000_000L);
+                }
+            }
+        }
+        lastSampleTimestamp = -1;
+        postFrame();
+    }
+
+    // 两次回调之间超过一个半刷新周期时，中间的帧计为错过
+    private void countSkippedFrames(long frameTimeNanos) {
+        if (lastFrameNanos != 0) {
+            long elapsed = frameTimeNanos - lastFrameNanos;
+            if (elapsed > frameIntervalNanos * 3 / 2) {
+                HealthMetrics.ECG_FRAMES_SKIPPED.add((elapsed + frameIntervalNanos / 2) / frameIntervalNanos - 1);
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
     }
 
     public void clearData() {
-        Log.d("ECGView", "Clearing ECG data");
-        dataPoints.clear();
-        for (int i = 0; i < maxDataPoints; i++) {
-            dataPoints.add(0f);
+        synchronized (store.getSamples()) {
+            store.clear();
+            decimator.reset();
         }
+        resetSweep();
         invalidate();
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+    // 清空扫描图层，从当前最新采样开始重新扫描
+    private void resetSweep() {
+        if (traceBitmap != null) {
+            traceBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            sweepSeq = samples.getWrittenCount();
+            sweepCapacity = samples.capacity();
+            sweepColumn = decimator.getCurrentColumn() + 1;
+        }
+        sweepTrace.reset();
+    }
+
+    // 把上次绘制之后到达的采样画到扫描图层上，只使脏区域失效
+    private void drawSweepSegment() {
+        if (traceCanvas == null) {
+            return;
+        }
+        boolean columnMode;
+        synchronized (store.getSamples()) {
+            columnMode = decimating;
+        }
+        if (columnMode) {
+            drawSweepColumns();
+        } else {
+            drawSweepSamples();
+        }
+    }
 
-        if (dataPoints.size() < 2) {
-            Log.d("ECGView", "Not enough data points to draw: " + dataPoints.size());
-            // 即使数据点不够也绘制网格
-            drawGrid(canvas, getWidth(), getHeight());
+    // 逐采样绘制新线段
+    private void drawSweepSamples() {
+        int count;
+        int capacity;
+        long firstSeq;
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            long written = samples.getWrittenCount();
+            capacity = samples.capacity();
+            if (capacity != sweepCapacity) {
+                // 窗口大小变化后横坐标不再连续，重新开始扫描
+                traceBitmap.eraseColor(Color.TRANSPARENT);
+                sweepCapacity = capacity;
+                sweepTrace.reset();
+                invalidate();
+            }
+            long pending = written - sweepSeq;
+            if (pending <= 0) {
+                return;
+            }
+            if (pending > samples.size()) {
+                // 落后超过一个窗口时只画缓冲区中仍然保留的部分
+                pending = samples.size();
+                sweepTrace.reset();
+            }
+            count = (int) pending;
+            if (sweepSamples.length < count) {
+                sweepSamples = new float[capacity];
+            }
+            int start = samples.size() - count;
+            for (int i = 0; i < count; i++) {
+                sweepSamples[i] = samples.get(start + i);
+            }
+            firstSeq = written - count;
+            sweepSeq = written;
+        }
+
+        if (sweepPoints.length < count * 4) {
+            sweepPoints = new float[capacity * 4];
+        }
+        int n = sweepTrace.appendSamples(sweepSamples, count, firstSeq, capacity,
+                traceBitmap.getWidth(), traceBitmap.getHeight(), sweepPoints);
+        applySweep(n);
+    }
+
+    // 抽取模式：每列画一条最小值到最大值的竖线，正在累积的列在下一帧重画
+    private void drawSweepColumns() {
+        int columns;
+        long first;
+        long last;
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            if (samples.capacity() != sweepCapacity) {
+                sweepCapacity = samples.capacity();
+                traceBitmap.eraseColor(Color.TRANSPARENT);
+                sweepColumn = 0;
+                invalidate();
+            }
+            last = decimator.getCurrentColumn();
+            if (last < 0) {
+                return;
+            }
+            columns = decimator.getColumnCount();
+            first = Math.max(sweepColumn, decimator.getOldestColumn());
+            if (first > last) {
+                first = last;
+            }
+            int count = (int) (last - first + 1);
+            if (sweepSamples.length < count * 2) {
+                sweepSamples = new float[columns * 2];
+            }
+            for (int i = 0; i < count; i++) {
+                sweepSamples[i * 2] = decimator.getMin(first + i);
+                sweepSamples[i * 2 + 1] = decimator.getMax(first + i);
+            }
+            sweepColumn = last;
+        }
+
+        int count = (int) (last - first + 1);
+        if (sweepPoints.length < count * 4) {
+            sweepPoints = new float[columns * 4];
+        }
+        int n = sweepTrace.appendColumns(sweepSamples, count, first, columns,
+                traceBitmap.getWidth(), traceBitmap.getHeight(), sweepPoints);
+        applySweep(n);
+    }
+
+    // 擦除脏区域和前方的间隙，画出新线段并使脏区域失效
+    private void applySweep(int pointCount) {
+        float dirtyLeft = sweepTrace.getDirtyLeft();
+        float dirtyRight = sweepTrace.getDirtyRight();
+        boolean wrapped = sweepTrace.isWrapped();
+        float width = traceBitmap.getWidth();
+        float height = traceBitmap.getHeight();
+        float gap = width * SWEEP_GAP_RATIO;
+        if (wrapped) {
+            eraseSweep(dirtyLeft, width, width);
+            eraseSweep(0, dirtyRight + gap, width);
+        } else {
+            eraseSweep(dirtyLeft, dirtyRight + gap, width);
+        }
+        if (pointCount > 0) {
+            traceCanvas.drawLines(sweepPoints, 0, pointCount, paint);
+        }
+
+        if (wrapped || dirtyRight + gap > width) {
+            invalidate();
+        } else {
+            int stroke = (int) Math.ceil(paint.getStrokeWidth());
+            invalidate((int) dirtyLeft - stroke, 0, (int) Math.ceil(dirtyRight + gap) + stroke, (int) height);
+        }
+    }
+
+    // 擦除 [from, to) 区域，超出右边界的部分回绕到左侧
+    private void eraseSweep(float from, float to, float width) {
+        if (to > width) {
+            traceCanvas.drawRect(from, 0, width, traceBitmap.getHeight(), erasePaint);
+            traceCanvas.drawRect(0, 0, to - width, traceBitmap.getHeight(), erasePaint);
+        } else if (to > from) {
+            traceCanvas.drawRect(from, 0, to, traceBitmap.getHeight(), erasePaint);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (gridBitmap != null) {
+            gridBitmap.recycle();
+            gridBitmap = null;
+        }
+        if (traceBitmap != null) {
+            traceBitmap.recycle();
+            traceBitmap = null;
+            traceCanvas = null;
+        }
+        if (w <= 0 || h <= 0) {
             return;
         }
+        gridBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        drawGrid(new Canvas(gridBitmap), w, h);
+        traceBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        traceCanvas = new Canvas(traceBitmap);
+
+        synchronized (store.getSamples()) {
+            viewWidth = w;
+        }
+        redrawSweep();
+    }
+
+    // 尺寸或数据来源变化后，把缓冲区中已有的波形全部重新画到扫描图层上
+    private void redrawSweep() {
+        if (traceBitmap != null) {
+            traceBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            configureDecimator(samples);
+            sweepSeq = samples.getWrittenCount() - samples.size();
+            sweepCapacity = samples.capacity();
+            sweepColumn = decimator.getOldestColumn();
+        }
+        sweepTrace.reset();
+        if (renderMode == MODE_SWEEP && isEcgModuleOn) {
+            drawSweepSegment();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        Display display = getDisplay();
+        if (display != null && display.getRefreshRate() > 0) {
+            frameIntervalNanos = (long) (1e9 / display.getRefreshRate());
+        }
+        postFrame();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (frameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameCallbackPosted = false;
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
 
         float width = getWidth();
         float height = getHeight();
 
         if (width <= 0 || height <= 0) {
-            Log.d("ECGView", "Invalid dimensions: " + width + "x" + height);
             return;
         }
 
-        float centerY = height / 2;
+        // 绘制缓存的网格
+        if (gridBitmap != null) {
+            canvas.drawBitmap(gridBitmap, 0, 0, null);
+        } else {
+            drawGrid(canvas, width, height);
+        }
 
-        Log.d("ECGView", "Drawing waveform, points: " + dataPoints.size() + ", size: " + width + "x" + height);
+        if (waveformDrawPending) {
+            waveformDrawPending = false;
+            HealthMetrics.STARTUP.markFirstFrame();
+        }
 
-        // 绘制网格
-        drawGrid(canvas, width, height);
+        if (renderMode == MODE_SWEEP) {
+            if (traceBitmap != null) {
+                canvas.drawBitmap(traceBitmap, 0, 0, null);
+            }
+            return;
+        }
 
-        // 绘制波形
-        path.reset();
-        float xStep = width / (float) (maxDataPoints - 1);
+        float centerY = height / 2;
 
-        for (int i = 0; i < dataPoints.size(); i++) {
-            float x = i * xStep;
-            float y = centerY - dataPoints.get(i) * height * 0.3f;
+        // 采样数、容量和抽取状态在同一次持锁期间读取，数据线程可能同时改变窗口大小
+        path.reset();
+        FloatRingBuffer samples = store.getSamples();
+        synchronized (samples) {
+            int count = samples.size();
+            if (count < 2) {
+                return;
+            }
+            // 抽取模式下每列画一条竖线，绘制成本与视图宽度成正比
+            if (decimating) {
+                drawColumns(canvas, width, height);
+                return;
+            }
 
-            if (i == 0) {
-                path.moveTo(x, y);
-            } else {
-                path.lineTo(x, y);
+            // 绘制波形
+            float xStep = width / (float) (samples.capacity() - 1);
+            for (int i = 0; i < count; i++) {
+                float x = i * xStep;
+                float y = SweepTrace.toY(samples.get(i), centerY, height);
+
+                if (i == 0) {
+                    path.moveTo(x, y);
+                } else {
+                    path.lineTo(x, y);
+                }
             }
         }
 
         canvas.drawPath(path, paint);
-        Log.d("ECGView", "Waveform drawing completed");
+    }
+
+    // 滚动模式下绘制最近一个窗口的包络，最新的一列在最右侧，需持有 store.getSamples() 的锁
+    private void drawColumns(Canvas canvas, float width, float height) {
+        long last = decimator.getCurrentColumn();
+        if (last < 0) {
+            return;
+        }
+        int columns = decimator.getColumnCount();
+        long first = decimator.getOldestColumn();
+        if (columnPoints.length < columns * 4) {
+            columnPoints = new float[columns * 4];
+        }
+        float xStep = width / columns;
+        float centerY = height / 2;
+        int n = 0;
+        for (long column = first; column <= last; column++) {
+            float x = (columns - 1 - (last - column)) * xStep + xStep / 2;
+            n = SweepTrace.putColumn(columnPoints, n, x, centerY, height, decimator.getMin(column), decimator.getMax(column));
+        }
+        canvas.drawLines(columnPoints, 0, n, paint);
     }
 
     private void drawGrid(Canvas canvas, float width, float height) {
-        Paint gridPaint = new Paint();
         gridPaint.setColor(Color.parseColor("#E0E0E0"));
         gridPaint.setStrokeWidth(1f);
 
@@ -194,8 +671,6 @@ public class ECGView extends View {
 
         int width = MeasureSpec.getSize(widthMeasureSpec);
 
-        Log.d("ECGView", "onMeasure - width: " + width + ", height: " + height);
-
         setMeasuredDimension(width, height);
     }
 
@@ -4,26 +4,91 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+
 public class HealthViewModel extends ViewModel {
     private final DataRepository repository;
+    private final MultiPatientRepository patients;
 
     public HealthViewModel() {
         repository = DataRepository.getInstance();
+        patients = MultiPatientRepository.getInstance();
     }
 
     public LiveData<HealthData> getHealthData() {
         return repository.getHealthData();
     }
 
+    // 中央站：订阅一个床位的数据流
+    public LiveData<HealthData> getPatientHealthData(String patientId) {
+        return patients.getHealthData(patientId);
+    }
+
+    // 中央站：订阅一组床位的数据流，按 patientIds 的顺序返回
+    public Map<String, LiveData<HealthData>> getPatientHealthData(Collection<String> patientIds) {
+        return patients.getHealthData(patientIds);
+    }
+
     public LiveData<Boolean> getDeviceStatus() {
         return repository.getDeviceStatus();
     }
 
+    public LiveData<Integer> getModuleStatus() {
+        return repository.getModuleStatus();
+    }
+
+    public void addEcgListener(EcgStreamListener listener) {
+        repository.addEcgListener(listener);
+    }
+
+    public void removeEcgListener(EcgStreamListener listener) {
+        repository.removeEcgListener(listener);
+    }
+
+    public SampleBus getSampleBus() {
+        return repository.getSampleBus();
+    }
+
+    public WaveformStore getWaveformStore() {
+        return repository.getWaveformStore();
+    }
+
+    public int openWaveformSnapshot(File file, HealthData vitals) {
+        return repository.openWaveformSnapshot(file, vitals);
+    }
+
+    public void saveVitals(HealthData data) {
+        repository.saveVitals(data);
+    }
+
+    public void dumpMetrics(File file) {
+        repository.dumpMetrics(file);
+    }
+
+    public int queryTrend(Module module, long from, long to, TrendSeries out) {
+        return repository.queryTrend(module, from, to, out);
+    }
+
+    public void setRecordingDirectory(File directory) {
+        repository.setRecordingDirectory(directory);
+    }
+
     public void toggleDevicePower() {
         repository.toggleDevicePower();
     }
 
-    public void toggleModule(String module) {
+    public void setDevicePower(boolean on) {
+        repository.setDevicePower(on);
+    }
+
+    // 最近发布的设备状态，可在任意线程读取
+    public DeviceState getDeviceState() {
+        return repository.getDeviceState();
+    }
+
+    public void toggleModule(Module module) {
         repository.toggleModule(module);
     }
 }
\ No newline at end of file
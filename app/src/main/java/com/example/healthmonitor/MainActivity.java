@@ -1,9 +1,10 @@
 package com.example.healthmonitor;
 
 import android.content.SharedPreferences;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -13,16 +14,26 @@ import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.lifecycle.ViewModelProvider;
-import androidx.core.content.ContextCompat;
-import android.content.res.ColorStateList;
-import android.graphics.Color;
+
+import java.io.File;
 
 public class MainActivity extends AppCompatActivity {
 
+    // 恢复的画面最多保持的时间，超时后按实时数据显示
+    private static final long RESTORE_HOLD_MS = 2000;
+
     private HealthViewModel viewModel;
     private ECGView ecgView;
-    private Handler ecgHandler;
-    private Runnable ecgRunnable;
+    // 只更新内容有变化的数值和状态控件
+    private VitalsBinder vitalsBinder;
+    private int moduleMask = 0;     // 当前模块状态位掩码
+    // 观察者同步开关状态期间置位，开关监听据此忽略不是用户发起的变化
+    private boolean bindingDeviceSwitch;
+    // 进程被杀死后恢复的体征和模块状态，在设备重新开机、模块状态一致之前代替实时数据显示
+    private HealthData restoredVitals;
+    private int restoredMask;
+    // 本进程中是否已经创建过界面，用于区分冷启动和热启动
+    private static boolean processStarted = false;
 
     // 所有视图控件声明
     private TextView ecgValue, temperatureValue, heartRateValue, heartRateMaxValue, heartRateMinValue, bloodOxygenValue;
@@ -36,23 +47,17 @@ public class MainActivity extends AppCompatActivity {
 
 
 
-    // 根据用户偏好设置主题
+    // 根据用户偏好设置主题，模式不变时不调用，避免触发已创建的界面重建
     private void setThemeFromPreferences() {
         boolean isNightMode = sharedPreferences.getBoolean("nightMode", false);
-        if (isNightMode) {
-            AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
-        } else {
-            AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
+        int mode = isNightMode ? AppCompatDelegate.MODE_NIGHT_YES : AppCompatDelegate.MODE_NIGHT_NO;
+        if (AppCompatDelegate.getDefaultNightMode() != mode) {
+            AppCompatDelegate.setDefaultNightMode(mode);
         }
     }
 
-    // 在类变量中添加
-    private boolean isThemeChanging = false;
-
-    // 修改 toggleTheme 方法
+    // 切换主题后重建界面，波形和设备状态由新的界面接管
     private void toggleTheme() {
-        isThemeChanging = true;
-
         if (AppCompatDelegate.getDefaultNightMode() == AppCompatDelegate.MODE_NIGHT_YES) {
             AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
             saveThemePreference(false);
@@ -63,55 +68,87 @@ public class MainActivity extends AppCompatActivity {
         recreate();
     }
 
+    // 退到后台时把指标快照写到应用私有目录
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (viewModel != null && HealthMetrics.REGISTRY.isEnabled()) {
+            viewModel.dumpMetrics(new File(getFilesDir(), "metrics.txt"));
+        }
+    }
+
     // 修改 onDestroy 方法
     @Override
     protected void onDestroy() {
         super.onDestroy();
         Log.d("MainActivity", "=== ACTIVITY DESTROYED ===");
+        // 启动测量尚未完成时放弃，并且不再持有本界面
+        HealthMetrics.STARTUP.cancel();
+        HealthMetrics.STARTUP.setListener(null);
 
         try {
-            if (ecgHandler != null && ecgRunnable != null) {
-                ecgHandler.removeCallbacks(ecgRunnable);
+            // 主题切换、旋转等重建界面时，波形数据、订阅和刷新状态都留在 WaveformStore 中由新的界面接管，
+            // 设备也继续运行；视图离开窗口时已停止按帧刷新
+            if (isChangingConfigurations()) {
+                return;
             }
-            // 只有在不是主题切换时才停止数据模拟
-            if (!isThemeChanging) {
-                DataRepository.getInstance().stopDataSimulation();
+            if (ecgView != null) {
+                ecgView.setRendering(false);
+            }
+            if (viewModel != null) {
+                WaveformStore store = viewModel.getWaveformStore();
+                if (store.getSubscription() != null) {
+                    viewModel.getSampleBus().unsubscribe(store.getSubscription());
+                    store.setSubscription(null);
+                }
             }
+            DataRepository.getInstance().stopDataSimulation();
         } catch (Exception e) {
             Log.e("MainActivity", "ERROR in onDestroy: " + e.getMessage(), e);
         }
     }
 
-    // 修改 onCreate 方法
+    // 分阶段启动：加载布局之前确定主题，数据仓库在后台线程上与布局加载并行初始化，
+    // 布局加载后立即绑定视图和观察者，不再等待固定的延迟
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        beginStartupTrace();
+        // 调试版本记录热路径指标，发布版本中记录操作直接返回
+        HealthMetrics.REGISTRY.setEnabled(BuildConfig.DEBUG);
+        DataRepository.prewarm();
+
+        // 在 super.onCreate 之前设置白天/黑夜模式，避免布局加载后再重建一次
+        sharedPreferences = getSharedPreferences("appPreferences", MODE_PRIVATE);
+        setThemeFromPreferences();
         super.onCreate(savedInstanceState);
 
         Log.d("MainActivity", "=== APPLICATION START ===");
-        isThemeChanging = false; // 重置标志
 
         // 设置布局
         setContentView(R.layout.activity_main);
-        Log.d("MainActivity", "Layout set to activity_main");
 
-        // 初始化 SharedPreferences
-        sharedPreferences = getSharedPreferences("appPreferences", MODE_PRIVATE);
-
-        // 设置白天/黑夜模式
-        setThemeFromPreferences();
+        initAllViews();
+        setupListeners();
+        setupViewModel();
+        startECGUpdate();
+        restoreSnapshot();
+        HealthMetrics.STARTUP.markUiReady();
+    }
 
-        // 初始化 Handler
-        ecgHandler = new Handler(Looper.getMainLooper());
-
-        // 延迟初始化
-        new Handler().postDelayed(() -> {
-            Log.d("MainActivity", "Starting delayed initialization...");
-            initAllViews();
-            setupListeners();
-            setupViewModel();
-            startECGUpdate();
-            Log.d("MainActivity", "Delayed initialization completed successfully");
-        }, 200);
+    // 进程新启动时从进程创建算起（API 24 起可以取得进程启动时间），否则从 onCreate 算起
+    private void beginStartupTrace() {
+        long now = System.nanoTime();
+        boolean cold = !processStarted;
+        processStarted = true;
+        long start = now;
+        if (cold && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            start = now - (SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime()) * 1_000_000L;
+        }
+        HealthMetrics.STARTUP.setListener(timer -> {
+            Log.i("Startup", timer.toString());
+            reportFullyDrawn();
+        });
+        HealthMetrics.STARTUP.begin(start, cold);
     }
     // 保存用户的主题选择
     private void saveThemePreference(boolean isNightMode) {
@@ -144,6 +181,13 @@ public class MainActivity extends AppCompatActivity {
             oxToggleBtn = findViewById(R.id.oxToggleBtn);
             btnToggleTheme = findViewById(R.id.btnToggleTheme);
 
+            vitalsBinder = new VitalsBinder(this, ecgValue, temperatureValue, heartRateValue,
+                    heartRateMaxValue, heartRateMinValue, bloodOxygenValue);
+            vitalsBinder.setModuleViews(Module.ECG, ecgStatus, ecgToggleBtn);
+            vitalsBinder.setModuleViews(Module.TEMP, tempStatus, tempToggleBtn);
+            vitalsBinder.setModuleViews(Module.HR, hrStatus, hrToggleBtn);
+            vitalsBinder.setModuleViews(Module.OX, oxStatus, oxToggleBtn);
+
         } catch (Exception e) {
             Log.e("MainActivity", "ERROR in initAllViews: " + e.getMessage(), e);
         }
@@ -160,21 +204,39 @@ public class MainActivity extends AppCompatActivity {
                 deviceSwitch.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
                     @Override
                     public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                        // 重建界面或恢复开机后观察者把开关同步到设备状态，这不是用户操作；
+                        // 按开关的目标状态设置电源而不是切换，设备已处于该状态时什么也不做
+                        if (bindingDeviceSwitch || isChecked == viewModel.getDeviceState().isPowered()) {
+                            return;
+                        }
                         Log.d("MainActivity", "Device switch toggled: " + isChecked);
-                        viewModel.toggleDevicePower();
+                        releaseRestoredState();
+                        if (isChecked) {
+                            // 启动时设备关机，采样和波形的耗时从用户开机时算起
+                            HealthMetrics.STARTUP.markPowerOn();
+                        }
+                        viewModel.setDevicePower(isChecked);
                     }
                 });
             }
 
             // 模块按钮监听
-            setClickListenerSafe(ecgToggleBtn, "ECG");
-            setClickListenerSafe(tempToggleBtn, "TEMP");
-            setClickListenerSafe(hrToggleBtn, "HR");
-            setClickListenerSafe(oxToggleBtn, "OX");
+            setClickListenerSafe(ecgToggleBtn, Module.ECG);
+            setClickListenerSafe(tempToggleBtn, Module.TEMP);
+            setClickListenerSafe(hrToggleBtn, Module.HR);
+            setClickListenerSafe(oxToggleBtn, Module.OX);
 
             // 添加白天/黑夜模式切换的按钮监听
             btnToggleTheme.setOnClickListener(v -> toggleTheme());
 
+            // 长按连接状态输出一份指标快照
+            if (connectionStatus != null) {
+                connectionStatus.setOnLongClickListener(v -> {
+                    Log.i("Metrics", HealthMetrics.REGISTRY.dump());
+                    return true;
+                });
+            }
+
         } catch (Exception e) {
             Log.e("MainActivity", "ERROR in setupListeners: " + e.getMessage(), e);
         }
@@ -182,10 +244,11 @@ public class MainActivity extends AppCompatActivity {
         Log.d("MainActivity", "=== LISTENERS SETUP COMPLETE ===");
     }
 
-    private void setClickListenerSafe(Button button, final String module) {
+    private void setClickListenerSafe(Button button, final Module module) {
         if (button != null) {
             button.setOnClickListener(v -> {
                 Log.d("MainActivity", module + " module button clicked");
+                releaseRestoredState();
                 viewModel.toggleModule(module);
             });
         }
@@ -197,13 +260,20 @@ public class MainActivity extends AppCompatActivity {
         try {
             viewModel = new ViewModelProvider(this).get(HealthViewModel.class);
             Log.d("MainActivity", "ViewModel obtained");
+            // 重建的界面从当前的模块状态开始，接管的波形不会因为等待观察者回调而暂停刷新
+            Integer currentMask = viewModel.getModuleStatus().getValue();
+            moduleMask = currentMask != null ? currentMask : 0;
+
+            // 每次开机记录一个会话，保存在应用私有目录下
+            viewModel.setRecordingDirectory(new File(getFilesDir(), "sessions"));
 
             // 观察设备状态 - 正确的代码位置
             viewModel.getDeviceStatus().observe(this, isOn -> {
                 if (isOn != null) {
-                    Log.d("MainActivity", "Device status changed: " + isOn);
                     if (deviceSwitch != null) {
+                        bindingDeviceSwitch = true;
                         deviceSwitch.setChecked(isOn);
+                        bindingDeviceSwitch = false;
                     }
                     if (connectionStatus != null) {
                         connectionStatus.setText(isOn ? "设备运行中" : "设备已关闭");
@@ -211,10 +281,31 @@ public class MainActivity extends AppCompatActivity {
                 }
             });
 
+            // 观察模块状态，模块切换时用最近一帧数据刷新界面
+            viewModel.getModuleStatus().observe(this, mask -> {
+                if (mask != null) {
+                    moduleMask = mask;
+                    HealthData latest = viewModel.getHealthData().getValue();
+                    if (latest != null) {
+                        updateHealthDataUI(latest);
+                    }
+                }
+            });
+
+            // 波形数据保存在与界面生命周期无关的 WaveformStore 中，重建后的视图直接接管；
+            // 订阅心电采样总线，波形视图每帧在主线程上读取，界面卡顿时丢弃的采样由订阅计数
+            WaveformStore store = viewModel.getWaveformStore();
+            if (store.getSubscription() == null) {
+                store.setSubscription(viewModel.getSampleBus().subscribeDecimated(ECGView.DISPLAY_SAMPLE_RATE,
+                        ECGView.DISPLAY_SAMPLE_RATE * 2));
+            }
+            if (ecgView != null) {
+                ecgView.setWaveformStore(store);
+            }
+
             // 观察健康数据
             viewModel.getHealthData().observe(this, newData -> {
                 if (newData != null) {
-                    Log.d("MainActivity", "New data received: " + newData.toString());
                     updateHealthDataUI(newData);
                 }
             });
@@ -226,122 +317,103 @@ public class MainActivity extends AppCompatActivity {
         Log.d("MainActivity", "=== VIEWMODEL SETUP COMPLETE ===");
     }
 
-    private void updateHealthDataUI(HealthData data) {
-        try {
-            boolean isDeviceOn = data.isDeviceOn();
-            boolean isEcgModuleOn = data.isEcgModuleOn() && isDeviceOn;
-            boolean isTempModuleOn = data.isTempModuleOn() && isDeviceOn;
-            boolean isHrModuleOn = data.isHrModuleOn() && isDeviceOn;
-            boolean isOxModuleOn = data.isOxModuleOn() && isDeviceOn;
-
-            // 更新数值显示 - 只有设备开启且模块开启时才显示数据
-            setTextSafe(ecgValue, isEcgModuleOn ?
-                    String.format("%.2f", data.getEcgData()) + " mV" : "-- mV");
-
-            setTextSafe(temperatureValue, isTempModuleOn ?
-                    String.format("%.1f", data.getTemperature()) + " °C" : "-- °C");
-
-            setTextSafe(heartRateValue, isHrModuleOn ?
-                    data.getHeartRate() + " bpm" : "-- bpm");
-
-            setTextSafe(heartRateMaxValue, isHrModuleOn ?
-                    data.getHeartRateMax() + " bpm" : "-- bpm");
-
-            setTextSafe(heartRateMinValue, isHrModuleOn ?
-                    data.getHeartRateMin() + " bpm" : "-- bpm");
-
-            setTextSafe(bloodOxygenValue, isOxModuleOn ?
-                    data.getBloodOxygen() + " %" : "-- %");
-
-            // 更新状态显示 - 如果设备关闭，模块状态也显示为关闭
-            updateStatusViewSafe(ecgStatus, isEcgModuleOn);
-            updateStatusViewSafe(tempStatus, isTempModuleOn);
-            updateStatusViewSafe(hrStatus, isHrModuleOn);
-            updateStatusViewSafe(oxStatus, isOxModuleOn);
-
-            updateButtonTextSafe(ecgToggleBtn, data.isEcgModuleOn());
-            updateButtonTextSafe(tempToggleBtn, data.isTempModuleOn());
-            updateButtonTextSafe(hrToggleBtn, data.isHrModuleOn());
-            updateButtonTextSafe(oxToggleBtn, data.isOxModuleOn());
-
-            // 同步心电模块状态到心电图视图
-            if (ecgView != null) {
-                ecgView.setEcgModuleOn(isEcgModuleOn);
-            }
-
-        } catch (Exception e) {
-            Log.e("MainActivity", "ERROR in updateHealthDataUI: " + e.getMessage(), e);
+    // 进程被杀死前设备正在运行时，第一帧就显示快照中的波形和体征，设备随后在后台恢复运行
+    private void restoreSnapshot() {
+        if (viewModel == null) {
+            return;
         }
-    }
-
-    private void updateModuleStatusUI(HealthData data) {
-        try {
-            updateStatusViewSafe(ecgStatus, data.isEcgModuleOn());
-            updateStatusViewSafe(tempStatus, data.isTempModuleOn());
-            updateStatusViewSafe(hrStatus, data.isHrModuleOn());
-            updateStatusViewSafe(oxStatus, data.isOxModuleOn());
-
-            updateButtonTextSafe(ecgToggleBtn, data.isEcgModuleOn());
-            updateButtonTextSafe(tempToggleBtn, data.isTempModuleOn());
-            updateButtonTextSafe(hrToggleBtn, data.isHrModuleOn());
-            updateButtonTextSafe(oxToggleBtn, data.isOxModuleOn());
-
-        } catch (Exception e) {
-            Log.e("MainActivity", "ERROR in updateModuleStatusUI: " + e.getMessage(), e);
+        HealthData vitals = new HealthData();
+        int mask = viewModel.openWaveformSnapshot(new File(getFilesDir(), "waveform.snapshot"), vitals);
+        if (mask < 0) {
+            return;
+        }
+        restoredVitals = vitals;
+        restoredMask = mask;
+        moduleMask = mask;
+        if (vitalsBinder != null) {
+            vitalsBinder.bind(vitals, mask);
+        }
+        if (ecgView != null) {
+            // 恢复的波形写入了同一个 WaveformStore，重新接管一次，按本布局的时间窗口整理后画出
+            ecgView.setWaveformStore(viewModel.getWaveformStore());
+            boolean ecgOn = Module.ECG.isOn(mask);
+            ecgView.setEcgModuleOn(ecgOn);
+            setECGUpdateEnabled(ecgOn);
+            ecgView.postDelayed(this::releaseRestoredState, RESTORE_HOLD_MS);
         }
     }
 
-    // 安全的辅助方法
-    private void setTextSafe(TextView textView, String text) {
-        if (textView != null) {
-            textView.setText(text);
+    // 不再保持恢复的画面，按最近的实时数据刷新
+    private void releaseRestoredState() {
+        if (restoredVitals == null) {
+            return;
+        }
+        restoredVitals = null;
+        HealthData latest = viewModel != null ? viewModel.getHealthData().getValue() : null;
+        if (latest != null) {
+            updateHealthDataUI(latest);
         }
     }
 
-    private void updateStatusViewSafe(TextView statusView, boolean isOn) {
-        if (statusView != null) {
-            if (isOn) {
-                statusView.setText("运行中");
-                statusView.setBackgroundResource(R.drawable.status_bg_on);
-            } else {
-                statusView.setText("关闭");
-                statusView.setBackgroundResource(R.drawable.status_bg_off);
+    private void updateHealthDataUI(HealthData data) {
+        try {
+            if (restoredVitals != null) {
+                // 设备恢复运行、模块状态与恢复前一致之前，保持恢复的画面，避免闪现空白
+                if (!data.isDeviceOn() || moduleMask != restoredMask) {
+                    return;
+                }
+                restoredVitals = null;
+            }
+            boolean changed = true;
+            if (vitalsBinder != null) {
+                boolean measure = HealthMetrics.REGISTRY.isEnabled();
+                long start = measure ? System.nanoTime() : 0;
+                changed = vitalsBinder.bind(data, moduleMask);
+                if (measure) {
+                    HealthMetrics.UI_BINDS.increment();
+                    HealthMetrics.UI_BIND_TIME.record(System.nanoTime() - start);
+                }
+            }
+            // 只在显示的体征变化时写快照，心电数据块每秒几十帧不逐帧写入；
+            // 心电读数随下一次体征变化一起保存，波形本身由 WaveformStore 保存
+            if (changed && viewModel != null) {
+                viewModel.saveVitals(data);
             }
-            statusView.setTextColor(Color.WHITE);
-        }
-    }
 
-    private void updateButtonTextSafe(Button button, boolean isOn) {
-        if (button != null) {
-            button.setText(isOn ? "关闭" : "开启");
-            int color = isOn ? android.R.color.holo_red_dark : android.R.color.holo_green_dark;
-            button.setBackgroundTintList(ColorStateList.valueOf(
-                    ContextCompat.getColor(this, color)));
+            // 同步心电模块状态到心电图视图，状态不变时视图不重绘
+            boolean isEcgModuleOn = data.isDeviceOn() && Module.ECG.isOn(moduleMask);
+            if (ecgView != null) {
+                ecgView.setEcgModuleOn(isEcgModuleOn);
+            }
+            setECGUpdateEnabled(isEcgModuleOn);
+
+        } catch (Exception e) {
+            Log.e("MainActivity", "ERROR in updateHealthDataUI: " + e.getMessage(), e);
         }
     }
 
-
-
     private void startECGUpdate() {
         Log.d("MainActivity", "=== STARTING ECG UPDATE ===");
 
         try {
-            ecgRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    if (ecgView != null) {
-                        ecgView.updateWaveform();
-                    }
-                    if (ecgHandler != null) {
-                        ecgHandler.postDelayed(this, 50);
-                    }
-                }
-            };
-            ecgHandler.post(ecgRunnable);
-            Log.d("MainActivity", "ECG update started");
+            if (ecgView != null) {
+                // 扫描模式按屏幕刷新节奏增量绘制
+                ecgView.setRenderMode(ECGView.MODE_SWEEP);
+            }
+            // 只有设备和心电模块都开启时才刷新，由 updateHealthDataUI 启停
+            HealthData latest = viewModel != null ? viewModel.getHealthData().getValue() : null;
+            setECGUpdateEnabled(latest != null && latest.isDeviceOn() && Module.ECG.isOn(moduleMask));
+            Log.d("MainActivity", "ECG update ready");
 
         } catch (Exception e) {
             Log.e("MainActivity", "ERROR in startECGUpdate: " + e.getMessage(), e);
         }
     }
+
+    // 启动或停止波形刷新，关闭时主线程上没有周期性任务
+    private void setECGUpdateEnabled(boolean enabled) {
+        if (ecgView != null) {
+            ecgView.setRendering(enabled);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.example.healthmonitor;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 中央站的多病人仓库，按病人（设备）ID 管理多条数据流，每条流有自己的 LiveData。
+ * 数据流水线由 PatientMonitorPool 分片运行，分片数不超过 CPU 核数。
+ */
+public class MultiPatientRepository {
+    private static final int MAX_SHARDS = 4;
+
+    private static MultiPatientRepository instance;
+    private final PatientMonitorPool pool;
+    private final Map<String, SnapshotLiveData> healthData = new ConcurrentHashMap<>();
+
+    private MultiPatientRepository() {
+        this(new PatientMonitorPool(Math.min(MAX_SHARDS, Runtime.getRuntime().availableProcessors()),
+                ExecutorTaskScheduler::new, new Random().nextLong()));
+    }
+
+    MultiPatientRepository(PatientMonitorPool pool) {
+        this.pool = pool;
+    }
+
+    public static synchronized MultiPatientRepository getInstance() {
+        if (instance == null) {
+            instance = new MultiPatientRepository();
+        }
+        return instance;
+    }
+
+    // 加入一个病人，中央站已启动时立即开始产生数据
+    public void addPatient(String id) {
+        PatientMonitor monitor = pool.addPatient(id);
+        SnapshotLiveData data = new SnapshotLiveData(monitor.getSnapshots());
+        healthData.put(id, data);
+        monitor.setPublishListener(data::signal);
+    }
+
+    public void removePatient(String id) {
+        pool.removePatient(id);
+        healthData.remove(id);
+    }
+
+    public List<String> getPatientIds() {
+        return pool.getPatientIds();
+    }
+
+    // 订阅一个病人的数据流，病人不存在时抛出 IllegalArgumentException
+    public LiveData<HealthData> getHealthData(String id) {
+        SnapshotLiveData data = healthData.get(id);
+        if (data == null) {
+            throw new IllegalArgumentException("Unknown patient " + id);
+        }
+        return data;
+    }
+
+    // 订阅一组病人的数据流，按 ids 的顺序返回
+    public Map<String, LiveData<HealthData>> getHealthData(Collection<String> ids) {
+        Map<String, LiveData<HealthData>> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            result.put(id, getHealthData(id));
+        }
+        return result;
+    }
+
+    public void toggleModule(String id, Module module) {
+        monitor(id).toggleModule(module);
+    }
+
+    public boolean isModuleOn(String id, Module module) {
+        return monitor(id).isModuleOn(module);
+    }
+
+    public void addEcgListener(String id, EcgStreamListener listener) {
+        monitor(id).getEcgStage().addListener(listener);
+    }
+
+    public void removeEcgListener(String id, EcgStreamListener listener) {
+        monitor(id).getEcgStage().removeListener(listener);
+    }
+
+    public SampleBus getSampleBus(String id) {
+        return monitor(id).getSampleBus();
+    }
+
+    public int queryTrend(String id, Module module, long from, long to, TrendSeries out) {
+        return monitor(id).queryTrend(module, from, to, out);
+    }
+
+    // 所有病人开机
+    public void start() {
+        pool.start();
+    }
+
+    // 所有病人关机，释放工作线程
+    public void stop() {
+        pool.stop();
+    }
+
+    private PatientMonitor monitor(String id) {
+        PatientMonitor monitor = pool.getPatient(id);
+        if (monitor == null) {
+            throw new IllegalArgumentException("Unknown patient " + id);
+        }
+        return monitor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.healthmonitor;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 把 HealthSnapshotBuffer 接到 LiveData 上：生产线程发布后调用 signal()，
+ * 主线程上再从缓冲区取最新一帧分发，多次 signal() 会合并为一次分发。
+ */
+public class SnapshotLiveData extends LiveData<HealthData> {
+    private final HealthSnapshotBuffer buffer;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean dispatchPending = new AtomicBoolean(false);
+    private final Runnable dispatch = new Runnable() {
+        @Override
+        public void run() {
+            dispatchPending.set(false);
+            setValue(buffer.acquire());
+        }
+    };
+
+    public SnapshotLiveData(HealthSnapshotBuffer buffer) {
+        super(buffer.acquire());
+        this.buffer = buffer;
+    }
+
+    // 可在任意线程调用
+    public void signal() {
+        if (dispatchPending.compareAndSet(false, true)) {
+            mainHandler.post(dispatch);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.healthmonitor;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import android.widget.Button;
+import android.widget.TextView;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * 把体征数据绑定到界面控件：记住每个控件上次显示的内容，只更新有变化的控件。
+ * 数值格式化到每个控件复用的字符缓冲区；状态背景和按钮着色只在模块开关翻转时重新设置。
+ * 只在主线程上使用。
+ */
+class VitalsBinder {
+    private final ValueText ecgValue;
+    private final ValueText temperatureValue;
+    private final ValueText heartRateValue;
+    private final ValueText heartRateMaxValue;
+    private final ValueText heartRateMinValue;
+    private final ValueText bloodOxygenValue;
+    private final ModuleViews[] modules = new ModuleViews[Module.values().length];
+    private final ColorStateList onTint;
+    private final ColorStateList offTint;
+
+    VitalsBinder(Context context, TextView ecgValue, TextView temperatureValue, TextView heartRateValue,
+                 TextView heartRateMaxValue, TextView heartRateMinValue, TextView bloodOxygenValue) {
+        this.ecgValue = new ValueText(ecgValue, " mV");
+        this.temperatureValue = new ValueText(temperatureValue, " °C");
+        this.heartRateValue = new ValueText(heartRateValue, " bpm");
+        this.heartRateMaxValue = new ValueText(heartRateMaxValue, " bpm");
+        this.heartRateMinValue = new ValueText(heartRateMinValue, " bpm");
+        this.bloodOxygenValue = new ValueText(bloodOxygenValue, " %");
+        onTint = ColorStateList.valueOf(ContextCompat.getColor(context, android.R.color.holo_red_dark));
+        offTint = ColorStateList.valueOf(ContextCompat.getColor(context, android.R.color.holo_green_dark));
+    }
+
+    // 模块的状态标签和开关按钮，任一个可以为 null
+    void setModuleViews(Module module, TextView status, Button toggle) {
+        modules[module.ordinal()] = new ModuleViews(status, toggle);
+    }
+
+    // 按设备和模块状态刷新所有控件，只有设备开启且模块开启时才显示数值。
+    // 返回除心电读数以外是否有控件内容变化；心电读数随每个数据块变化，不计入
+    boolean bind(HealthData data, int moduleMask) {
+        boolean deviceOn = data.isDeviceOn();
+        boolean ecgOn = deviceOn && Module.ECG.isOn(moduleMask);
+        boolean tempOn = deviceOn && Module.TEMP.isOn(moduleMask);
+        // 心率为 0 表示还没有读数，显示占位符
+        boolean hrOn = deviceOn && Module.HR.isOn(moduleMask) && data.getHeartRate() > 0;
+        boolean oxOn = deviceOn && Module.OX.isOn(moduleMask);
+
+        if (ecgOn) {
+            ecgValue.setFixed(data.getEcgData(), 2);
+        } else {
+            ecgValue.clear();
+        }
+        boolean changed = false;
+        if (tempOn) {
+            changed |= temperatureValue.setFixed(data.getTemperature(), 1);
+        } else {
+            changed |= temperatureValue.clear();
+        }
+        if (hrOn) {
+            changed |= heartRateValue.setInt(data.getHeartRate());
+            changed |= heartRateMaxValue.setInt(data.getHeartRateMax());
+            changed |= heartRateMinValue.setInt(data.getHeartRateMin());
+        } else {
+            changed |= heartRateValue.clear();
+            changed |= heartRateMaxValue.clear();
+            changed |= heartRateMinValue.clear();
+        }
+        if (oxOn) {
+            changed |= bloodOxygenValue.setInt(data.getBloodOxygen());
+        } else {
+            changed |= bloodOxygenValue.clear();
+        }
+
+        for (Module module : Module.values()) {
+            ModuleViews views = modules[module.ordinal()];
+            if (views != null) {
+                // 设备关闭时状态标签显示关闭，按钮仍然反映模块开关
+                changed |= views.bind(deviceOn && module.isOn(moduleMask), module.isOn(moduleMask));
+            }
+        }
+        return changed;
+    }
+
+    // 数值文本控件，值按显示精度换算后与上次相同时不调用 setText；各方法返回显示内容是否变化
+    private static final class ValueText {
+        private static final long UNSET = Long.MIN_VALUE;
+        private static final long PLACEHOLDER = Long.MIN_VALUE + 1;
+
+        private final TextView view;
+        private final String suffix;
+        private final String placeholder;
+        private final char[] buffer = new char[24];
+        private long shown = UNSET;
+        private int shownDecimals;
+
+        ValueText(TextView view, String suffix) {
+            this.view = view;
+            this.suffix = suffix;
+            placeholder = "--" + suffix;
+        }
+
+        boolean setFixed(float value, int decimals) {
+            long scaled = NumberFormatter.quantize(value, decimals);
+            if (scaled == shown && decimals == shownDecimals) {
+                return false;
+            }
+            shown = scaled;
+            shownDecimals = decimals;
+            int length = NumberFormatter.formatScaled(scaled, decimals, buffer, 0);
+            show(NumberFormatter.append(suffix, buffer, length));
+            return true;
+        }
+
+        boolean setInt(int value) {
+            return setFixed(value, 0);
+        }
+
+        boolean clear() {
+            if (shown == PLACEHOLDER) {
+                return false;
+            }
+            shown = PLACEHOLDER;
+            if (view != null) {
+                view.setText(placeholder);
+            }
+            return true;
+        }
+
+        private void show(int length) {
+            if (view != null) {
+                // TextView 引用字符数组而不拷贝，下次修改缓冲区后总是再次调用 setText
+                view.setText(buffer, 0, length);
+            }
+        }
+    }
+
+    // 模块的状态标签和按钮，开关没有翻转时不重新设置文本、背景和着色
+    private final class ModuleViews {
+        private final TextView status;
+        private final Button toggle;
+        // 上次显示的状态：-1 尚未显示，0 关，1 开
+        private int statusShown = -1;
+        private int toggleShown = -1;
+
+        ModuleViews(TextView status, Button toggle) {
+            this.status = status;
+            this.toggle = toggle;
+            if (status != null) {
+                status.setTextColor(Color.WHITE);
+            }
+        }
+
+        // 返回是否有控件内容变化
+        boolean bind(boolean running, boolean enabled) {
+            boolean changed = false;
+            if (status != null && statusShown != (running ? 1 : 0)) {
+                statusShown = running ? 1 : 0;
+                status.setText(running ? "运行中" : "关闭");
+                status.setBackgroundResource(running ? R.drawable.status_bg_on : R.drawable.status_bg_off);
+                changed = true;
+            }
+            if (toggle != null && toggleShown != (enabled ? 1 : 0)) {
+                toggleShown = enabled ? 1 : 0;
+                toggle.setText(enabled ? "关闭" : "开启");
+                toggle.setBackgroundTintList(enabled ? onTint : offTint);
+                changed = true;
+            }
+            return changed;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备控制命令经事件循环执行的开销：命令为切换体温模块，调度器使用虚拟时间，各阶段不实际运行。
+ * roundTrip 是单个命令从提交到执行完的延迟，包括唤醒挂起的循环线程；
+ * submitBatch 是多个线程同时连续提交时每个命令的平均耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceControllerBenchmark {
+    private static final int BATCH = 1024;
+
+    private EventLoop loop;
+    private DeviceController controller;
+
+    // 每个提交线程自己的完成标记，循环线程执行到标记时计数
+    @State(Scope.Thread)
+    public static class Producer {
+        long submitted;
+        volatile long executed;
+        final Runnable marker = () -> executed++;
+
+        // 提交标记并等待循环线程执行完它之前的全部命令
+        void awaitExecuted(EventLoop loop) {
+            long target = ++submitted;
+            loop.execute(marker);
+            while (executed < target) {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        loop = new EventLoop("benchmark-loop");
+        PatientMonitor monitor = new PatientMonitor("bed", new Random(6));
+        controller = new DeviceController(monitor, Clock.SYSTEM, () -> new VirtualScheduler(0), loop);
+        controller.setPower(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        controller.setPower(false);
+        loop.shutdown();
+        loop.awaitTermination(5000);
+    }
+
+    @Benchmark
+    public void roundTrip(Producer producer) {
+        controller.toggleModule(Module.TEMP);
+        producer.awaitExecuted(loop);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public void submitBatch(Producer producer) {
+        for (int i = 0; i < BATCH; i++) {
+            controller.toggleModule(Module.TEMP);
+        }
+        producer.awaitExecuted(loop);
+    }
+}
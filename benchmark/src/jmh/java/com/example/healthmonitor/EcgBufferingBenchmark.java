@@ -0,0 +1,75 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 心电数据从生产者到波形视图的缓冲：显示窗口的环形缓冲区、最小/最大值抽取和采样总线。
+ * 每次操作处理一个 1000 Hz、40 ms 的数据块。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EcgBufferingBenchmark {
+    private static final int RATE = EcgSource.ECG_RATE_1000;
+    private static final int WINDOW_SAMPLES = RATE * 4;
+    private static final int VIEW_COLUMNS = 1080;
+
+    private final EcgBlock block = new EcgBlock(RATE * EcgStage.BLOCK_PERIOD_MS / 1000);
+    private final EcgBlock out = new EcgBlock(RATE * EcgStage.BLOCK_PERIOD_MS / 1000);
+    private final FloatRingBuffer window = new FloatRingBuffer(WINDOW_SAMPLES);
+    private final MinMaxDecimator decimator = new MinMaxDecimator();
+    private SampleBus bus;
+    private SampleBus.Subscription full;
+    private SampleBus.Subscription display;
+    private SampleBus.Subscription latest;
+    private long timestamp;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < block.getCapacity(); i++) {
+            block.getSamples()[i] = (float) Math.sin(i * 0.1);
+        }
+        block.setLength(block.getCapacity());
+        block.setSampleRate(RATE);
+        decimator.configure(VIEW_COLUMNS, WINDOW_SAMPLES);
+        bus = new SampleBus();
+        full = bus.subscribeFullRate(RATE);
+        display = bus.subscribeDecimated(250, RATE);
+        latest = bus.subscribeLatest();
+    }
+
+    @Benchmark
+    public FloatRingBuffer ringBuffer() {
+        window.add(block.getSamples(), 0, block.getLength());
+        return window;
+    }
+
+    @Benchmark
+    public MinMaxDecimator minMaxDecimator() {
+        decimator.add(block.getSamples(), 0, block.getLength());
+        return decimator;
+    }
+
+    // 一个全速、一个抽取、一个只取最新值的订阅者，各自读完本块
+    @Benchmark
+    public long sampleBusFanOut() {
+        block.setStartTimestamp(timestamp += EcgStage.BLOCK_PERIOD_MS);
+        bus.onEcgBlock(block);
+        long read = 0;
+        while (full.read(out) > 0) {
+            read += out.getLength();
+        }
+        while (display.read(out) > 0) {
+            read += out.getLength();
+        }
+        return read + latest.read(out);
+    }
+}
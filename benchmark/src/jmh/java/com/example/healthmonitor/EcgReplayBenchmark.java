@@ -0,0 +1,89 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回放 MIT-BIH 格式 212 的 360 Hz 记录：读取解包、滤波、QRS 检测和分发。
+ * 以 25 倍速运行，每次操作是一个周期，读取 1 秒的记录；耗时除以 1 秒即为回放能达到的实时倍数的倒数。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EcgReplayBenchmark {
+    private static final int RATE = 360;
+    private static final int SECONDS = 600;
+    private static final float SPEED = 1000f / EcgStage.BLOCK_PERIOD_MS;
+
+    private File directory;
+    private EcgStage stage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mit").toFile();
+        File header = writeRecord(directory, "synthetic");
+        stage = new EcgStage(Mit212EcgSource.open(header, 0), new HealthSnapshotBuffer(), () -> { });
+        stage.setPlaybackSpeed(SPEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long oneSecond() {
+        stage.tick();
+        return stage.getSamplesProduced();
+    }
+
+    // 用模拟心电生成单通道记录，按格式 212 每两个采样打包成 3 字节
+    private static File writeRecord(File dir, String name) throws IOException {
+        int frames = RATE * SECONDS;
+        int[] adu = new int[frames];
+        EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(3));
+        EcgBlock block = new EcgBlock(RATE);
+        for (int offset = 0; offset < frames; offset += RATE) {
+            generator.fill(block, RATE, RATE, 0L);
+            for (int i = 0; i < RATE; i++) {
+                adu[offset + i] = Math.round(block.getSamples()[i] * 200);
+            }
+        }
+        byte[] bytes = new byte[(frames + 1) / 2 * 3];
+        for (int k = 0; k < frames; k += 2) {
+            int a = adu[k] & 0xFFF;
+            int b = k + 1 < frames ? adu[k + 1] & 0xFFF : 0;
+            int p = k / 2 * 3;
+            bytes[p] = (byte) a;
+            bytes[p + 1] = (byte) (((a >> 8) & 0x0F) | ((b >> 4) & 0xF0));
+            bytes[p + 2] = (byte) b;
+        }
+        try (FileOutputStream out = new FileOutputStream(new File(dir, name + ".dat"))) {
+            out.write(bytes);
+        }
+        File header = new File(dir, name + ".hea");
+        try (FileWriter out = new FileWriter(header)) {
+            out.write(name + " 1 " + RATE + " " + frames + "\n");
+            out.write(name + ".dat 212 200 12 0 0 0 0 lead0\n");
+        }
+        return header;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟心电的生成：每次操作生成一个 40 ms 的数据块，与 EcgStage 每个周期的工作量相同。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EcgWaveformBenchmark {
+    @Param({"250", "500", "1000"})
+    public int sampleRate;
+
+    private EcgWaveformGenerator generator;
+    private EcgBlock block;
+    private int samplesPerBlock;
+
+    @Setup
+    public void setUp() {
+        generator = new EcgWaveformGenerator(new Random(1));
+        generator.setArtifacts(2f, 0.5f);
+        block = new EcgBlock(EcgSource.ECG_RATE_1000 * EcgStage.BLOCK_PERIOD_MS / 1000);
+        samplesPerBlock = sampleRate * EcgStage.BLOCK_PERIOD_MS / 1000;
+    }
+
+    @Benchmark
+    public EcgBlock fillBlock() {
+        generator.fill(block, samplesPerBlock, sampleRate, 0L);
+        return block;
+    }
+
+    @Benchmark
+    public float[] beatTemplate() {
+        return EcgBeatTemplates.forHeartRate(72f);
+    }
+}
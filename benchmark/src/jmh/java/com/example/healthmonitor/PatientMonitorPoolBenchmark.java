@@ -0,0 +1,77 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多病人监护池的吞吐量：每个分片 8 个病人全速生成心电，测量整个池每个采样的平均耗时。
+ * 分片数翻倍时耗时应接近减半（受核数限制），用来观察分片的扩展性。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PatientMonitorPoolBenchmark {
+    private static final int ALL_MODULES = Module.ECG.mask() | Module.TEMP.mask() | Module.HR.mask() | Module.OX.mask();
+    private static final int BEDS_PER_SHARD = 8;
+    private static final int SAMPLES = 1_000_000;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private PatientMonitorPool pool;
+    private final List<EcgStage> stages = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new PatientMonitorPool(shards, ExecutorTaskScheduler::new, 7);
+        for (int i = 0; i < BEDS_PER_SHARD * shards; i++) {
+            PatientMonitor monitor = pool.addPatient("bed-" + i);
+            monitor.getEcgStage().setPlaybackSpeed(EcgStage.AS_FAST_AS_POSSIBLE);
+            stages.add(monitor.getEcgStage());
+        }
+        pool.start();
+        for (String id : pool.getPatientIds()) {
+            pool.getPatient(id).setModules(ALL_MODULES);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.stop();
+        stages.clear();
+    }
+
+    // 等待整个池再生成 SAMPLES 个采样
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public long produceSamples() {
+        long target = produced() + SAMPLES;
+        long current;
+        while ((current = produced()) < target) {
+            LockSupport.parkNanos(100_000);
+        }
+        return current;
+    }
+
+    private long produced() {
+        long total = 0;
+        for (EcgStage stage : stages) {
+            total += stage.getSamplesProduced();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个病人的完整流水线在虚拟时间上运行一秒：心电生成、滤波、检测、分发，体征生成、统计和快照发布。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PipelineBenchmark {
+    private static final int ALL_MODULES = Module.ECG.mask() | Module.TEMP.mask() | Module.HR.mask() | Module.OX.mask();
+
+    private VirtualScheduler scheduler;
+    private PatientMonitor monitor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        scheduler = new VirtualScheduler(0);
+        monitor = new PatientMonitor("bed", new Random(4));
+        monitor.getSimulatedEcg().setSampleRate(EcgSource.ECG_RATE_500);
+        monitor.start(scheduler);
+        monitor.setModules(ALL_MODULES);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        monitor.stop();
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public long oneSecond() {
+        scheduler.advanceBy(1000);
+        return monitor.getEcgStage().getSamplesProduced();
+    }
+}
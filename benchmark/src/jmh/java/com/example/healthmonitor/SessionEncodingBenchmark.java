@@ -0,0 +1,88 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话记录的压缩编码：心电数据块的差分编码，以及体征列的差分游程编码。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionEncodingBenchmark {
+    private static final int RATE = EcgSource.ECG_RATE_500;
+    private static final int VITALS = 1024;
+
+    private final EcgSampleCodec codec = new EcgSampleCodec();
+    private EcgBlock block;
+    private EcgBlock decoded;
+    private ByteBuffer encodedBlock;
+    private ByteBuffer buffer;
+    private long[] timestamps;
+    private float[] temperatures;
+    private long[] timestampsOut;
+    private float[] temperaturesOut;
+
+    @Setup
+    public void setUp() {
+        int length = RATE * EcgStage.BLOCK_PERIOD_MS / 1000;
+        block = new EcgBlock(length);
+        decoded = new EcgBlock(length);
+        new EcgWaveformGenerator(new Random(3)).fill(block, length, RATE, 0L);
+        buffer = ByteBuffer.allocate(Math.max(EcgSampleCodec.maxEncodedSize(length), VITALS * 24));
+        encodedBlock = ByteBuffer.allocate(EcgSampleCodec.maxEncodedSize(length));
+        codec.encode(block, encodedBlock);
+        encodedBlock.flip();
+
+        timestamps = new long[VITALS];
+        temperatures = new float[VITALS];
+        for (int i = 0; i < VITALS; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 200L;
+            temperatures[i] = 36.5f + (i / 50) * 0.1f;
+        }
+        timestampsOut = new long[VITALS];
+        temperaturesOut = new float[VITALS];
+    }
+
+    @Benchmark
+    public int encodeEcgBlock() {
+        buffer.clear();
+        codec.encode(block, buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public EcgBlock decodeEcgBlock() {
+        encodedBlock.rewind();
+        codec.decode(encodedBlock, decoded);
+        return decoded;
+    }
+
+    @Benchmark
+    public int encodeVitalsColumns() {
+        buffer.clear();
+        DeltaRunLengthCodec.encode(timestamps, 0, VITALS, buffer);
+        DeltaRunLengthCodec.encode(temperatures, 0, VITALS, 0.01f, buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public float decodeVitalsColumns() {
+        buffer.clear();
+        DeltaRunLengthCodec.encode(timestamps, 0, VITALS, buffer);
+        DeltaRunLengthCodec.encode(temperatures, 0, VITALS, 0.01f, buffer);
+        buffer.flip();
+        DeltaRunLengthCodec.decode(buffer, timestampsOut, 0, VITALS);
+        DeltaRunLengthCodec.decode(buffer, temperaturesOut, 0, VITALS, 0.01f);
+        return temperaturesOut[VITALS - 1];
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在 3 小时的会话记录中按时间定位：用索引找到位置，再从该位置读到目标时间之后的第一条心电记录。
+ * 分段已压缩，读取包含紧凑分段的块解码。每次操作定位到一个随机时间。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionIndexBenchmark {
+    private static final long START = 1_700_000_000_000L;
+    private static final int HOURS = 3;
+    private static final int RATE = 250;
+    private static final int RING = 4096;
+
+    private File directory;
+    private SessionIndex index;
+    private SessionLogReader[] readers;
+    private final Random random = new Random(9);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("index").toFile();
+        record(directory);
+        index = SessionIndex.open(directory, START);
+        int segments = 0;
+        while (SessionLog.segmentExists(directory, START, segments)) {
+            segments++;
+        }
+        readers = new SessionLogReader[segments];
+        for (int i = 0; i < segments; i++) {
+            readers[i] = SessionLogReader.open(directory, START, i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (SessionLogReader reader : readers) {
+            reader.close();
+        }
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    // 返回目标时间之后第一条心电记录的时间
+    @Benchmark
+    public long seek() throws IOException {
+        long target = START + (long) (random.nextDouble() * (HOURS * 3600_000L - 1000));
+        long position = index.seek(target);
+        int segment = TimeIndex.segmentOf(position);
+        long record = TimeIndex.recordOf(position);
+        for (; segment < readers.length; segment++, record = 1) {
+            SessionLogReader reader = readers[segment];
+            reader.seek(record);
+            while (reader.next()) {
+                if (reader.getType() == SessionLog.TYPE_ECG && reader.getTimestamp() >= target) {
+                    return reader.getTimestamp();
+                }
+            }
+        }
+        return -1;
+    }
+
+    // 每秒一个心电块，每 800 ms 一次 R 波
+    private static void record(File dir) throws Exception {
+        SessionRecorder recorder = new SessionRecorder(dir, START, RING, 10_000, 1000);
+        recorder.start();
+        EcgBlock block = new EcgBlock(RATE);
+        block.setSampleRate(RATE);
+        block.setLength(RATE);
+        long produced = 0;
+        long samples = 0;
+        long nextBeat = START;
+        for (int second = 0; second < HOURS * 3600; second++) {
+            long t = START + second * 1000L;
+            block.setStartTimestamp(t);
+            recorder.onEcgBlock(block);
+            samples += RATE;
+            while (nextBeat < t + 1000) {
+                recorder.onBeat(nextBeat, 800);
+                nextBeat += 800;
+                produced++;
+            }
+            // 不让环形缓冲区溢出
+            while (produced + samples / SessionLog.PAYLOAD_VALUES - recorder.getWrittenRecords() > RING / 2) {
+                Thread.yield();
+            }
+        }
+        recorder.stop();
+        if (!recorder.awaitTermination(60_000) || recorder.getFailure() != null) {
+            throw new IllegalStateException("recording failed", recorder.getFailure());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 信号调理和 R 波检测：每次操作处理一个 40 ms 的数据块。
+ * 输入是预先生成的一段循环使用的模拟心电，生成本身不计入耗时。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignalProcessingBenchmark {
+    private static final int SECONDS = 60;
+
+    @Param({"250", "1000"})
+    public int sampleRate;
+
+    private float[] signal;
+    private int blockLength;
+    private int position;
+    private EcgBlock block;
+    private EcgFilterChain filters;
+    private QrsDetector detector;
+
+    @Setup
+    public void setUp() {
+        blockLength = sampleRate * EcgStage.BLOCK_PERIOD_MS / 1000;
+        signal = new float[sampleRate * SECONDS];
+        EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(2));
+        generator.setNoise(0.03f, 0.2f);
+        EcgBlock source = new EcgBlock(blockLength);
+        for (int i = 0; i < signal.length; i += blockLength) {
+            generator.fill(source, blockLength, sampleRate, 0L);
+            System.arraycopy(source.getSamples(), 0, signal, i, blockLength);
+        }
+        block = new EcgBlock(blockLength);
+        block.setSampleRate(sampleRate);
+        filters = new EcgFilterChain();
+        detector = new QrsDetector(sampleRate, null);
+    }
+
+    // 取下一段输入，到结尾后从头循环
+    private EcgBlock nextBlock() {
+        System.arraycopy(signal, position, block.getSamples(), 0, blockLength);
+        block.setLength(blockLength);
+        position += blockLength;
+        if (position == signal.length) {
+            position = 0;
+        }
+        return block;
+    }
+
+    @Benchmark
+    public EcgBlock filterChain() {
+        EcgBlock next = nextBlock();
+        filters.process(next);
+        return next;
+    }
+
+    @Benchmark
+    public int qrsDetector() {
+        detector.process(nextBlock());
+        return detector.getHeartRate();
+    }
+
+    // EcgStage 每个数据块的全部信号处理
+    @Benchmark
+    public int filterAndDetect() {
+        EcgBlock next = nextBlock();
+        filters.process(next);
+        detector.process(next);
+        return detector.getHeartRate();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HealthData 的三缓冲发布：单线程的一次写入和读取，以及生产线程与界面线程并发时各自的开销。
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapshotPublishBenchmark {
+    private final HealthSnapshotBuffer snapshots = new HealthSnapshotBuffer();
+    private int beat;
+
+    // 与 VitalStage 相同：拷贝上一帧，修改几个字段后发布
+    @Benchmark
+    public void publish() {
+        HealthData data = snapshots.beginWrite();
+        data.setHeartRate(60 + (beat++ & 31));
+        data.setTimestamp(beat);
+        snapshots.publish();
+    }
+
+    @Benchmark
+    public int publishAndAcquire() {
+        publish();
+        return snapshots.acquire().getHeartRate();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void producer() {
+        publish();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int reader() {
+        return snapshots.acquire().getHeartRate();
+    }
+}
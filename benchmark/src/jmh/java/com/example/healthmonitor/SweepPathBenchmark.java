@@ -0,0 +1,80 @@
+package com.example.healthmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 波形视图每帧的线段计算：扫描模式下把一帧（60 Hz 约 17 ms）新到达的采样或抽取列换算成线段端点。
+ * 实际绘制由 Canvas 完成，不在这里测量。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SweepPathBenchmark {
+    private static final float WIDTH = 1080f;
+    private static final float HEIGHT = 600f;
+    private static final int COLUMNS = 1080;
+
+    @Param({"250", "1000"})
+    public int sampleRate;
+
+    private final SweepTrace trace = new SweepTrace();
+    private int capacity;
+    private int samplesPerFrame;
+    private float[] samples;
+    private float[] minMax;
+    private float[] points;
+    private long sequence;
+    private long column;
+
+    @Setup
+    public void setUp() {
+        capacity = sampleRate * 4;
+        samplesPerFrame = Math.max(1, sampleRate / 60);
+        samples = new float[samplesPerFrame];
+        for (int i = 0; i < samplesPerFrame; i++) {
+            samples[i] = (float) Math.sin(i * 0.2);
+        }
+        minMax = new float[COLUMNS * 2];
+        for (int i = 0; i < COLUMNS; i++) {
+            minMax[i * 2] = -0.2f;
+            minMax[i * 2 + 1] = (i % 50 == 0) ? 1.5f : 0.1f;
+        }
+        points = new float[Math.max(capacity, COLUMNS) * 4];
+    }
+
+    @Benchmark
+    public int appendSamples() {
+        int n = trace.appendSamples(samples, samplesPerFrame, sequence, capacity, WIDTH, HEIGHT, points);
+        sequence += samplesPerFrame;
+        return n;
+    }
+
+    // 抽取模式下每帧约新增 COLUMNS / (4 s * 60) 列，这里取 5 列
+    @Benchmark
+    public int appendColumns() {
+        int n = trace.appendColumns(minMax, 5, column, COLUMNS, WIDTH, HEIGHT, points);
+        column += 5;
+        return n;
+    }
+
+    // 滚动模式每帧重算整个窗口的包络
+    @Benchmark
+    public int scrollEnvelope() {
+        int n = 0;
+        float xStep = WIDTH / COLUMNS;
+        for (int i = 0; i < COLUMNS; i++) {
+            n = SweepTrace.putColumn(points, n, i * xStep + xStep / 2, HEIGHT / 2, HEIGHT,
+                    minMax[i * 2], minMax[i * 2 + 1]);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.healthmonitor;
+
+import java.util.Arrays;
+
+/**
+ * 按时间排序的事件标注，每条包含时间和一个数值（如 RR 间期、模块位掩码），保存在基本类型数组中。
+ * 按时间范围查询用二分查找定位，返回的是下标区间，不创建结果对象。
+ */
+public class AnnotationStore {
+    private long[] times = new long[256];
+    private float[] values = new float[256];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    public float getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    // 按时间插入；通常按时间顺序到达，直接追加
+    public void add(long time, float value) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int index = size;
+        if (size > 0 && time < times[size - 1]) {
+            index = firstAfter(time);
+            System.arraycopy(times, index, times, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+        }
+        times[index] = time;
+        values[index] = value;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // 第一个时间不早于 time 的下标，没有时返回 size()
+    public int firstAtOrAfter(long time) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // 第一个时间晚于 time 的下标，没有时返回 size()
+    public int firstAfter(long time) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // [from, to) 内的标注数，对应下标从 firstAtOrAfter(from) 开始
+    public int countInRange(long from, long to) {
+        return Math.max(0, firstAtOrAfter(to) - firstAtOrAfter(from));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
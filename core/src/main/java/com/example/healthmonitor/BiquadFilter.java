@@ -0,0 +1,67 @@
+package com.example.healthmonitor;
+
+/**
+ * 二阶 IIR 滤波器（biquad），直接 II 型转置结构，系数按 RBJ Audio EQ Cookbook 计算。
+ * 系数和状态都是 double 字段，低截止频率（0.5 Hz）在高采样率下也不会因精度损失而失稳。
+ * 修改系数不分配内存，可以在数据生产线程上随时调用。
+ */
+public class BiquadFilter {
+    private double b0 = 1, b1, b2, a1, a2;
+    private double z1, z2;
+
+    public void setHighPass(int sampleRate, float cutoffHz, float q) {
+        double w0 = omega(sampleRate, cutoffHz);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        setCoefficients((1 + cos) / 2, -(1 + cos), (1 + cos) / 2, 1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    public void setLowPass(int sampleRate, float cutoffHz, float q) {
+        double w0 = omega(sampleRate, cutoffHz);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        setCoefficients((1 - cos) / 2, 1 - cos, (1 - cos) / 2, 1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    public void setNotch(int sampleRate, float centerHz, float q) {
+        double w0 = omega(sampleRate, centerHz);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        setCoefficients(1, -2 * cos, 1, 1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    // 清空内部状态，系数不变
+    public void reset() {
+        z1 = 0;
+        z2 = 0;
+    }
+
+    public float process(float x) {
+        double y = b0 * x + z1;
+        z1 = b1 * x - a1 * y + z2;
+        z2 = b2 * x - a2 * y;
+        return (float) y;
+    }
+
+    // 原地处理一段采样
+    public void process(float[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            samples[i] = process(samples[i]);
+        }
+    }
+
+    private static double omega(int sampleRate, float frequencyHz) {
+        if (sampleRate <= 0 || frequencyHz <= 0 || frequencyHz >= sampleRate / 2f) {
+            throw new IllegalArgumentException("frequency " + frequencyHz + " Hz at " + sampleRate + " Hz");
+        }
+        return 2 * Math.PI * frequencyHz / sampleRate;
+    }
+
+    private void setCoefficients(double nb0, double nb1, double nb2, double na0, double na1, double na2) {
+        b0 = nb0 / na0;
+        b1 = nb1 / na0;
+        b2 = nb2 / na0;
+        a1 = na1 / na0;
+        a2 = na2 / na0;
+    }
+}
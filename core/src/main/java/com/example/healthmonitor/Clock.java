@@ -0,0 +1,25 @@
+package com.example.healthmonitor;
+
+/**
+ * 时间来源。数据生产代码通过它读取时间，测试和基准测试用 VirtualScheduler 提供的虚拟时间替换。
+ */
+public interface Clock {
+    // 系统时钟
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    // 墙上时间 (ms)，用作数据时间戳
+    long currentTimeMillis();
+
+    // 单调时间 (ns)，只用于计算间隔
+    long nanoTime();
+}
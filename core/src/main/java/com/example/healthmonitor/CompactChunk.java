@@ -0,0 +1,184 @@
+package com.example.healthmonitor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 紧凑分段中的一块记录（格式见 SessionLog）。压缩时逐条加入原格式记录后编码，
+ * 读取时解码整块，再逐条还原为原格式记录。数组按满载的心电记录预先分配，编解码过程中不再分配。
+ */
+final class CompactChunk {
+    static final int CAPACITY = SessionLog.COMPACT_CHUNK_RECORDS;
+
+    // 最坏情况下一块编码后的字节数
+    static final int MAX_ENCODED_SIZE = 2 * VarInt.MAX_LONG_BYTES + CAPACITY
+            + 4 * CAPACITY * 2 * VarInt.MAX_LONG_BYTES
+            + EcgSampleCodec.maxEncodedSize(CAPACITY * SessionLog.PAYLOAD_VALUES)
+            + VarInt.MAX_LONG_BYTES + VitalsColumns.Column.values().length * (4 + CAPACITY * 2 * VarInt.MAX_LONG_BYTES);
+
+    // 体征载荷中第 i 个数值（SessionLog.VITAL_*）对应的列
+    private static final VitalsColumns.Column[] VITAL_COLUMNS = {
+            VitalsColumns.Column.TEMPERATURE,
+            VitalsColumns.Column.HEART_RATE,
+            VitalsColumns.Column.HEART_RATE_MAX,
+            VitalsColumns.Column.HEART_RATE_MIN,
+            VitalsColumns.Column.BLOOD_OXYGEN,
+            VitalsColumns.Column.HEART_RATE_MEAN,
+            VitalsColumns.Column.HEART_RATE_STD_DEV,
+            VitalsColumns.Column.TEMPERATURE_MEAN,
+            VitalsColumns.Column.BLOOD_OXYGEN_MEAN,
+    };
+
+    private final EcgSampleCodec codec = new EcgSampleCodec();
+    private final byte[] types = new byte[CAPACITY];
+    private final long[] counts = new long[CAPACITY];
+    private final long[] args = new long[CAPACITY];
+    // 心电和事件记录的时间戳，体征记录的时间戳在 VitalsColumns 中
+    private final long[] timestamps = new long[CAPACITY];
+    private final float[] samples = new float[CAPACITY * SessionLog.PAYLOAD_VALUES];
+    private final long[] eventBits = new long[CAPACITY];
+    private final VitalsColumns vitals = new VitalsColumns(CAPACITY);
+    private final HealthData frame = new HealthData();
+    // 解码后的体征记录
+    private final long[] vitalTimestamps = new long[CAPACITY];
+    private final float[][] vitalValues = new float[SessionLog.VITAL_VALUE_COUNT][CAPACITY];
+    // 每条记录的时间戳序号，以及在采样、事件或体征数组中的起始位置
+    private final int[] timestampIndex = new int[CAPACITY];
+    private final int[] payloadIndex = new int[CAPACITY];
+    private int size;
+    private int timestampCount;
+    private int sampleCount;
+    private int eventCount;
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    void clear() {
+        size = 0;
+        timestampCount = 0;
+        sampleCount = 0;
+        eventCount = 0;
+        vitals.clear();
+    }
+
+    // 加入 reader 的当前记录
+    void add(SessionLogReader reader) throws IOException {
+        byte type = reader.getType();
+        int count = reader.getCount();
+        types[size] = type;
+        counts[size] = count;
+        args[size] = reader.getArg();
+        if (type == SessionLog.TYPE_ECG) {
+            if (count < 0 || count > SessionLog.PAYLOAD_VALUES) {
+                throw new IOException("Corrupt ECG record count " + count);
+            }
+            timestamps[timestampCount++] = reader.getTimestamp();
+            sampleCount += reader.getValues(samples, sampleCount);
+        } else if (type == SessionLog.TYPE_EVENT) {
+            timestamps[timestampCount++] = reader.getTimestamp();
+            eventBits[eventCount++] = Float.floatToRawIntBits(reader.getValue(0));
+        } else if (type == SessionLog.TYPE_VITALS) {
+            frame.setTimestamp(reader.getTimestamp());
+            frame.setTemperature(reader.getValue(SessionLog.VITAL_TEMPERATURE));
+            frame.setHeartRate(Math.round(reader.getValue(SessionLog.VITAL_HEART_RATE)));
+            frame.setHeartRateMax(Math.round(reader.getValue(SessionLog.VITAL_HEART_RATE_MAX)));
+            frame.setHeartRateMin(Math.round(reader.getValue(SessionLog.VITAL_HEART_RATE_MIN)));
+            frame.setBloodOxygen(Math.round(reader.getValue(SessionLog.VITAL_BLOOD_OXYGEN)));
+            frame.setHeartRateMean(reader.getValue(SessionLog.VITAL_HEART_RATE_MEAN));
+            frame.setHeartRateStdDev(reader.getValue(SessionLog.VITAL_HEART_RATE_STD_DEV));
+            frame.setTemperatureMean(reader.getValue(SessionLog.VITAL_TEMPERATURE_MEAN));
+            frame.setBloodOxygenMean(reader.getValue(SessionLog.VITAL_BLOOD_OXYGEN_MEAN));
+            vitals.add(frame);
+        } else {
+            throw new IOException("Unknown record type " + type);
+        }
+        size++;
+    }
+
+    void encode(ByteBuffer out) {
+        VarInt.putUnsigned(out, size);
+        out.put(types, 0, size);
+        DeltaRunLengthCodec.encode(counts, 0, size, out);
+        DeltaRunLengthCodec.encode(args, 0, size, out);
+        DeltaRunLengthCodec.encode(timestamps, 0, timestampCount, out);
+        VarInt.putUnsigned(out, sampleCount);
+        codec.encode(samples, 0, sampleCount, out);
+        vitals.encode(out);
+        DeltaRunLengthCodec.encode(eventBits, 0, eventCount, out);
+    }
+
+    // 解码 in 当前位置的一块；数据损坏时抛出 IOException
+    void decode(ByteBuffer in) throws IOException {
+        try {
+            size = (int) VarInt.getUnsigned(in);
+            if (size < 0 || size > CAPACITY) {
+                throw new IOException("Corrupt chunk size " + size);
+            }
+            in.get(types, 0, size);
+            DeltaRunLengthCodec.decode(in, counts, 0, size);
+            DeltaRunLengthCodec.decode(in, args, 0, size);
+            timestampCount = 0;
+            sampleCount = 0;
+            eventCount = 0;
+            int vitalCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (types[i] == SessionLog.TYPE_ECG) {
+                    if (counts[i] < 0 || counts[i] > SessionLog.PAYLOAD_VALUES) {
+                        throw new IOException("Corrupt ECG record count " + counts[i]);
+                    }
+                    timestampIndex[i] = timestampCount++;
+                    payloadIndex[i] = sampleCount;
+                    sampleCount += (int) counts[i];
+                } else if (types[i] == SessionLog.TYPE_EVENT) {
+                    timestampIndex[i] = timestampCount++;
+                    payloadIndex[i] = eventCount++;
+                } else if (types[i] == SessionLog.TYPE_VITALS) {
+                    payloadIndex[i] = vitalCount++;
+                } else {
+                    throw new IOException("Unknown record type " + types[i]);
+                }
+            }
+            DeltaRunLengthCodec.decode(in, timestamps, 0, timestampCount);
+            if (VarInt.getUnsigned(in) != sampleCount) {
+                throw new IOException("Corrupt ECG sample count");
+            }
+            codec.decode(in, samples, 0, sampleCount);
+            if (VitalsColumns.decodeTimestamps(in, vitalTimestamps) != vitalCount) {
+                throw new IOException("Corrupt vitals row count");
+            }
+            for (int v = 0; v < SessionLog.VITAL_VALUE_COUNT; v++) {
+                VitalsColumns.decodeColumn(in, VITAL_COLUMNS[v], vitalValues[v]);
+            }
+            in.position(in.position() + VitalsColumns.encodedLength(in));
+            DeltaRunLengthCodec.decode(in, eventBits, 0, eventCount);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt compact chunk", e);
+        }
+    }
+
+    // 把解码后的第 row 条记录按原格式写入 record 的开头
+    void putRecord(int row, ByteBuffer record) {
+        byte type = types[row];
+        int count = (int) counts[row];
+        int index = payloadIndex[row];
+        long timestamp = type == SessionLog.TYPE_VITALS ? vitalTimestamps[index] : timestamps[timestampIndex[row]];
+        SessionLog.putHeader(record, 0, type, count, (int) args[row], timestamp);
+        int p = SessionLog.OFFSET_PAYLOAD;
+        for (int i = 0; i < SessionLog.PAYLOAD_VALUES; i++) {
+            float value = 0f;
+            if (type == SessionLog.TYPE_ECG) {
+                value = i < count ? samples[index + i] : 0f;
+            } else if (type == SessionLog.TYPE_VITALS) {
+                value = i < SessionLog.VITAL_VALUE_COUNT ? vitalValues[i][index] : 0f;
+            } else if (i == 0) {
+                value = Float.intBitsToFloat((int) eventBits[index]);
+            }
+            record.putFloat(p + i * 4, value);
+        }
+    }
+}
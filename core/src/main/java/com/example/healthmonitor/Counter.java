@@ -0,0 +1,41 @@
+package com.example.healthmonitor;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单调递增的计数器，可在任意线程记录。由 MetricsRegistry 创建，注册表关闭时不记录。
+ */
+public final class Counter extends Metric {
+    private final AtomicLong value = new AtomicLong();
+
+    Counter(MetricsRegistry registry, String name) {
+        super(registry, name);
+    }
+
+    public void increment() {
+        if (registry.enabled) {
+            value.incrementAndGet();
+        }
+    }
+
+    public void add(long delta) {
+        if (registry.enabled) {
+            value.addAndGet(delta);
+        }
+    }
+
+    public long get() {
+        return value.get();
+    }
+
+    @Override
+    void reset() {
+        value.set(0);
+    }
+
+    @Override
+    void appendTo(Appendable out) throws IOException {
+        out.append(getName()).append(" count=").append(Long.toString(value.get()));
+    }
+}
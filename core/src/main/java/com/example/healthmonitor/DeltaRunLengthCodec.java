@@ -0,0 +1,96 @@
+package com.example.healthmonitor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 缓慢变化数值的编码：量化后做差分，连续相同的差值合并为 (差值, 次数) 一对变长整数。
+ * 体温、血氧等大多数时间不变或匀速变化，固定间隔的时间戳差值恒定，一整段通常只需要几个字节。
+ */
+public final class DeltaRunLengthCodec {
+    private DeltaRunLengthCodec() {
+    }
+
+    public static void encode(long[] values, int offset, int count, ByteBuffer out) {
+        long previous = 0;
+        long runDelta = 0;
+        int run = 0;
+        for (int i = offset; i < offset + count; i++) {
+            long delta = values[i] - previous;
+            previous = values[i];
+            if (run > 0 && delta == runDelta) {
+                run++;
+                continue;
+            }
+            if (run > 0) {
+                putRun(out, runDelta, run);
+            }
+            runDelta = delta;
+            run = 1;
+        }
+        if (run > 0) {
+            putRun(out, runDelta, run);
+        }
+    }
+
+    public static void decode(ByteBuffer in, long[] values, int offset, int count) {
+        long previous = 0;
+        int i = offset;
+        while (i < offset + count) {
+            long delta = VarInt.getSigned(in);
+            long run = VarInt.getUnsigned(in);
+            if (run <= 0 || run > offset + count - i) {
+                throw new IllegalArgumentException("Corrupt run length " + run);
+            }
+            for (long r = 0; r < run; r++) {
+                previous += delta;
+                values[i++] = previous;
+            }
+        }
+    }
+
+    // 按分辨率量化后编码浮点数
+    public static void encode(float[] values, int offset, int count, float resolution, ByteBuffer out) {
+        float inverse = 1f / resolution;
+        long previous = 0;
+        long runDelta = 0;
+        int run = 0;
+        for (int i = offset; i < offset + count; i++) {
+            long q = Math.round(values[i] * inverse);
+            long delta = q - previous;
+            previous = q;
+            if (run > 0 && delta == runDelta) {
+                run++;
+                continue;
+            }
+            if (run > 0) {
+                putRun(out, runDelta, run);
+            }
+            runDelta = delta;
+            run = 1;
+        }
+        if (run > 0) {
+            putRun(out, runDelta, run);
+        }
+    }
+
+    public static void decode(ByteBuffer in, float[] values, int offset, int count, float resolution) {
+        long previous = 0;
+        int i = offset;
+        while (i < offset + count) {
+            long delta = VarInt.getSigned(in);
+            long run = VarInt.getUnsigned(in);
+            if (run <= 0 || run > offset + count - i) {
+                throw new IllegalArgumentException("Corrupt run length " + run);
+            }
+            for (long r = 0; r < run; r++) {
+                previous += delta;
+                values[i++] = previous * resolution;
+            }
+        }
+    }
+
+    private static void putRun(ByteBuffer out, long delta, int run) {
+        VarInt.putSigned(out, delta);
+        VarInt.putUnsigned(out, run);
+    }
+}
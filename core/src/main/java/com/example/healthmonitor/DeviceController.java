@@ -0,0 +1,191 @@
+package com.example.healthmonitor;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 设备开关、模块开关和会话记录的唯一所有者。
+ *
+ * 所有修改都作为命令提交到 EventLoop，在循环线程上依次执行，状态字段只有这一个写线程，不需要加锁；
+ * 每次变化后发布一个不可变的 DeviceState，任意线程都可以通过 getState() 无锁读取。
+ * 快速连续的开关机等操作按提交顺序串行生效，不会出现读到旧状态后再写回的竞争。
+ */
+public class DeviceController {
+    public interface Listener {
+        // 以下回调都在循环线程上调用
+        void onStateChanged(DeviceState state);
+
+        // 会话记录出错，记录器已停止写入；写线程结束后才能确定，可能在关机之后调用。
+        // 循环线程因 Error 结束时也以该 Error 调用一次，之后的命令和记录错误都不再处理
+        void onRecordingFailed(Throwable failure);
+    }
+
+    private final PatientMonitor monitor;
+    private final Clock clock;
+    private final TaskScheduler.Factory schedulerFactory;
+    private final EventLoop loop;
+    private final AtomicReference<DeviceState> state = new AtomicReference<>(DeviceState.OFF);
+    private volatile Listener listener;
+    private volatile SessionRecorder recorder;
+    // 命令对象预先创建，提交命令只分配队列节点
+    private final Runnable togglePower = () -> setPowerNow(!state.get().isPowered());
+    private final Runnable powerOn = () -> setPowerNow(true);
+    private final Runnable powerOff = () -> setPowerNow(false);
+    private final Runnable[] moduleToggles = new Runnable[Module.values().length];
+    // 记录器在写线程上报告错误，转到循环线程上通知
+    private final SessionRecorder.FailureListener recordingFailed;
+
+    // 以下字段只在循环线程上访问
+    private TaskScheduler scheduler;
+    private File recordingDirectory;
+
+    // clock 应与 schedulerFactory 创建的调度器使用同一个时钟
+    public DeviceController(PatientMonitor monitor, Clock clock, TaskScheduler.Factory schedulerFactory,
+                            EventLoop loop) {
+        this.monitor = monitor;
+        this.clock = clock;
+        this.schedulerFactory = schedulerFactory;
+        this.loop = loop;
+        for (final Module module : Module.values()) {
+            moduleToggles[module.ordinal()] = () -> toggleModuleNow(module);
+        }
+        recordingFailed = (failed, failure) -> loop.execute(() -> notifyRecordingFailed(failure));
+        loop.setFailureListener(this::notifyRecordingFailed);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // 最近发布的状态，可在任意线程调用
+    public DeviceState getState() {
+        return state.get();
+    }
+
+    public SessionRecorder getRecorder() {
+        return recorder;
+    }
+
+    public void togglePower() {
+        loop.execute(togglePower);
+    }
+
+    public void setPower(boolean on) {
+        loop.execute(on ? powerOn : powerOff);
+    }
+
+    // 设备关机时忽略
+    public void toggleModule(Module module) {
+        loop.execute(moduleToggles[module.ordinal()]);
+    }
+
+    // 一次设置所有模块的开关状态，按 Module.mask() 组合，例如恢复进程被杀死前的状态；设备关机时忽略
+    public void setModules(final int mask) {
+        loop.execute(() -> setModulesNow(mask));
+    }
+
+    // 设置会话记录目录，null 表示不记录；下次开机时生效
+    public void setRecordingDirectory(final File directory) {
+        loop.execute(() -> recordingDirectory = directory);
+    }
+
+    private void setPowerNow(boolean on) {
+        DeviceState current = state.get();
+        if (current.isPowered() == on) {
+            return;
+        }
+        if (on) {
+            scheduler = schedulerFactory.create();
+            startRecording();
+            monitor.start(scheduler);
+        } else {
+            // 停止各阶段并重置数据，设备关闭时所有模块一并关闭
+            monitor.stop();
+            stopRecording();
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        publish(current.withPower(on));
+    }
+
+    // 切换模块只修改位掩码，不拷贝测量数据
+    private void toggleModuleNow(Module module) {
+        DeviceState current = state.get();
+        if (!current.isPowered()) {
+            return;
+        }
+        int mask = monitor.toggleModule(module);
+        recordEvent(SessionLog.EVENT_MODULE, mask);
+        publish(current.withModules(mask));
+    }
+
+    private void setModulesNow(int mask) {
+        DeviceState current = state.get();
+        if (!current.isPowered() || current.getModules() == mask) {
+            return;
+        }
+        monitor.setModules(mask);
+        recordEvent(SessionLog.EVENT_MODULE, mask);
+        publish(current.withModules(mask));
+    }
+
+    private void publish(DeviceState next) {
+        state.set(next);
+        Listener current = listener;
+        if (current != null) {
+            current.onStateChanged(next);
+        }
+    }
+
+    private void startRecording() {
+        if (recordingDirectory == null) {
+            return;
+        }
+        SessionRecorder started = new SessionRecorder(recordingDirectory, clock.currentTimeMillis());
+        started.setFailureListener(recordingFailed);
+        started.start();
+        if (started.getFailure() != null) {
+            // 目录无法创建，已通知失败，本次开机不记录
+            return;
+        }
+        EcgStage ecgStage = monitor.getEcgStage();
+        ecgStage.addListener(started);
+        ecgStage.setBeatListener(started);
+        monitor.setFrameListener(started);
+        recorder = started;
+        recordEvent(SessionLog.EVENT_DEVICE_POWER, 1f);
+    }
+
+    // 阶段已停止后、调度器关闭前调用；关机事件和停止都在调度线程上排在已提交的任务之后执行，
+    // 写线程在后台写完剩余记录，出错时通过 recordingFailed 通知
+    private void stopRecording() {
+        SessionRecorder stopping = recorder;
+        if (stopping == null) {
+            return;
+        }
+        EcgStage ecgStage = monitor.getEcgStage();
+        ecgStage.removeListener(stopping);
+        ecgStage.setBeatListener(null);
+        monitor.setFrameListener(null);
+        recordEvent(SessionLog.EVENT_DEVICE_POWER, 0f);
+        scheduler.execute(stopping::stop);
+        recorder = null;
+    }
+
+    private void notifyRecordingFailed(Throwable failure) {
+        Listener current = listener;
+        if (current != null) {
+            current.onRecordingFailed(failure);
+        }
+    }
+
+    // 记录器只接受调度线程上的写入，事件转到调度线程上记录
+    private void recordEvent(final int event, final float value) {
+        final SessionRecorder target = recorder;
+        if (target == null || scheduler == null) {
+            return;
+        }
+        final long timestamp = clock.currentTimeMillis();
+        scheduler.execute(() -> target.recordEvent(event, timestamp, value));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.healthmonitor;
+
+/**
+ * 设备开关和模块状态的不可变快照，由 DeviceController 的事件循环发布，可在任意线程读取。
+ * 关机时模块位掩码总是 0；version 每次状态变化加一。
+ */
+public final class DeviceState {
+    public static final DeviceState OFF = new DeviceState(false, 0, 0);
+
+    private final boolean powered;
+    private final int modules;
+    private final long version;
+
+    private DeviceState(boolean powered, int modules, long version) {
+        this.powered = powered;
+        this.modules = modules;
+        this.version = version;
+    }
+
+    public boolean isPowered() {
+        return powered;
+    }
+
+    // 按 Module.mask() 解析
+    public int getModules() {
+        return modules;
+    }
+
+    public boolean isModuleOn(Module module) {
+        return module.isOn(modules);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    DeviceState withPower(boolean powered) {
+        return new DeviceState(powered, powered ? modules : 0, version + 1);
+    }
+
+    DeviceState withModules(int modules) {
+        return new DeviceState(powered, modules, version + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceState{powered=" + powered + ", modules=" + modules + ", version=" + version + "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.healthmonitor;
+
+/**
+ * 预先计算的单个心跳波形查找表，按心率分档，所有模拟源共享，构建后只读。
+ *
+ * 波形取自 McSharry 等人 (2003) 的动力学模型：极限环上的相位 θ 每拍转过 2π，
+ * P、Q、R、S、T 五个波分别是以 θ_i 为中心、宽度 b_i 的高斯核。
+ * 与 ECGSYN 一样按心率放大 θ_i 和 b_i，使换算成时间后 QRS 波群的宽度不随心率变化，
+ * P、T 波的位置和宽度按 Bazett 公式随 sqrt(RR) 缩放，而不是随整拍等比压缩。
+ * 每张表覆盖一拍（相位 0-1，R 波位于 0.5），末尾多存一个点，插值时不用回绕。
+ */
+public final class EcgBeatTemplates {
+    public static final int TABLE_SIZE = 1024;
+    public static final float R_PEAK_PHASE = 0.5f;
+    public static final int MIN_HEART_RATE = 30;
+    public static final int MAX_HEART_RATE = 240;
+    private static final int HEART_RATE_STEP = 5;
+
+    // P, Q, R, S, T：中心相位 (rad)、幅度 (mV)、宽度 (rad)
+    private static final double[] THETA = {-Math.PI / 3, -Math.PI / 12, 0, Math.PI / 12, Math.PI / 2};
+    private static final double[] AMPLITUDE = {0.2, -0.25, 1.5, -0.4, 0.4};
+    private static final double[] WIDTH = {0.25, 0.1, 0.1, 0.1, 0.4};
+    // 中心相位和宽度按 sqrt(HR/60) 的几次方放大：2 次方时时间上不变，1 次方时随 sqrt(RR) 缩放
+    private static final double[] THETA_EXPONENT = {1, 2, 0, 2, 1};
+    private static final double[] WIDTH_EXPONENT = {1, 2, 2, 2, 1};
+
+    private static final float[][] TABLES = build();
+
+    private EcgBeatTemplates() {
+    }
+
+    // 最接近 heartRate 的一张表，长度 TABLE_SIZE + 1
+    public static float[] forHeartRate(float heartRate) {
+        int index = Math.round((heartRate - MIN_HEART_RATE) / HEART_RATE_STEP);
+        return TABLES[Math.max(0, Math.min(TABLES.length - 1, index))];
+    }
+
+    // 在 phase (0-1) 处线性插值
+    public static float sample(float[] table, double phase) {
+        double position = phase * TABLE_SIZE;
+        int i = (int) position;
+        float a = table[i];
+        return a + (table[i + 1] - a) * (float) (position - i);
+    }
+
+    private static float[][] build() {
+        float[][] tables = new float[(MAX_HEART_RATE - MIN_HEART_RATE) / HEART_RATE_STEP + 1][];
+        for (int t = 0; t < tables.length; t++) {
+            double heartRate = MIN_HEART_RATE + t * HEART_RATE_STEP;
+            double factor = Math.sqrt(heartRate / 60);
+            float[] table = new float[TABLE_SIZE + 1];
+            for (int i = 0; i <= TABLE_SIZE; i++) {
+                double theta = (i / (double) TABLE_SIZE - R_PEAK_PHASE) * 2 * Math.PI;
+                double z = 0;
+                for (int w = 0; w < THETA.length; w++) {
+                    double center = THETA[w] * Math.pow(factor, THETA_EXPONENT[w]);
+                    double width = WIDTH[w] * Math.pow(factor, WIDTH_EXPONENT[w]);
+                    double d = theta - center;
+                    // 相位差回绕到 [-π, π)
+                    if (d < -Math.PI) {
+                        d += 2 * Math.PI;
+                    } else if (d >= Math.PI) {
+                        d -= 2 * Math.PI;
+                    }
+                    z += AMPLITUDE[w] * Math.exp(-d * d / (2 * width * width));
+                }
+                table[i] = (float) z;
+            }
+            tables[t] = table;
+        }
+        return tables;
+    }
+}
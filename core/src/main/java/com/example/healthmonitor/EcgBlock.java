@@ -0,0 +1,49 @@
+package com.example.healthmonitor;
+
+/**
+ * 一段连续的心电采样。samples 中前 length 个为有效数据，
+ * 第 i 个采样的时间为 startTimestamp + i * 采样间隔。
+ * 数据块由生产者复用，监听者如需保留数据必须自行拷贝。
+ */
+public class EcgBlock {
+    private final float[] samples;
+    private int length;
+    private long startTimestamp;    // 第一个采样的时间 (ms)
+    private int sampleRate;         // 采样率 (Hz)
+
+    public EcgBlock(int capacity) {
+        samples = new float[capacity];
+    }
+
+    public float[] getSamples() { return samples; }
+
+    public int getCapacity() { return samples.length; }
+
+    public int getLength() { return length; }
+    public void setLength(int length) {
+        if (length < 0 || length > samples.length) {
+            throw new IllegalArgumentException("length " + length + ", capacity " + samples.length);
+        }
+        this.length = length;
+    }
+
+    public long getStartTimestamp() { return startTimestamp; }
+    public void setStartTimestamp(long startTimestamp) { this.startTimestamp = startTimestamp; }
+
+    public int getSampleRate() { return sampleRate; }
+    public void setSampleRate(int sampleRate) { this.sampleRate = sampleRate; }
+
+    // 采样间隔 (微秒)
+    public long getSampleIntervalMicros() {
+        return sampleRate > 0 ? 1_000_000L / sampleRate : 0;
+    }
+
+    // 第 index 个采样的时间 (ms)
+    public long getSampleTimestamp(int index) {
+        return startTimestamp + index * getSampleIntervalMicros() / 1000;
+    }
+
+    public float getLastSample() {
+        return length == 0 ? 0f : samples[length - 1];
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.healthmonitor;
+
+/**
+ * 心电信号调理：基线漂移高通、工频陷波、低通三级 biquad 级联，按块原地处理。
+ *
+ * 每一级无论开关都持续运行，状态始终是“热”的；开关只改变该级输出与输入的混合比例，
+ * 混合比例在 FADE_MS 内线性过渡，切换时波形不会跳变。
+ * 开关和工频可以在任意线程设置，在下一个数据块开始时生效；process() 只能在数据生产线程上调用，不分配对象。
+ */
+public class EcgFilterChain {
+    public enum Filter {
+        HIGH_PASS,  // 0.5 Hz 高通，去除基线漂移
+        NOTCH,      // 50/60 Hz 工频陷波
+        LOW_PASS;   // 40 Hz 低通，去除肌电等高频噪声
+
+        public int mask() {
+            return 1 << ordinal();
+        }
+
+        public boolean isOn(int filterMask) {
+            return (filterMask & mask()) != 0;
+        }
+    }
+
+    public static final int MAINS_50_HZ = 50;
+    public static final int MAINS_60_HZ = 60;
+    public static final int ALL_FILTERS = (1 << Filter.values().length) - 1;
+
+    private static final float HIGH_PASS_HZ = 0.5f;
+    private static final float LOW_PASS_HZ = 40f;
+    private static final float BUTTERWORTH_Q = 0.7071f;
+    private static final float NOTCH_Q = 30f;
+    private static final int FADE_MS = 50;
+
+    private static final int STAGE_COUNT = Filter.values().length;
+
+    private final BiquadFilter[] stages = new BiquadFilter[STAGE_COUNT];
+    // 每级输出的混合比例，0 为旁路，1 为完全滤波
+    private final float[] mix = new float[STAGE_COUNT];
+
+    private volatile int enabledMask = ALL_FILTERS;
+    private volatile int mainsFrequency = MAINS_50_HZ;
+    private int activeSampleRate;
+    private int activeMainsFrequency;
+    private float fadeStep;
+
+    public EcgFilterChain() {
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            stages[i] = new BiquadFilter();
+            mix[i] = 1f;
+        }
+    }
+
+    public int getEnabledMask() {
+        return enabledMask;
+    }
+
+    public boolean isEnabled(Filter filter) {
+        return filter.isOn(enabledMask);
+    }
+
+    public synchronized void setEnabled(Filter filter, boolean enabled) {
+        enabledMask = enabled ? (enabledMask | filter.mask()) : (enabledMask & ~filter.mask());
+    }
+
+    public int getMainsFrequency() {
+        return mainsFrequency;
+    }
+
+    public void setMainsFrequency(int frequency) {
+        if (frequency != MAINS_50_HZ && frequency != MAINS_60_HZ) {
+            throw new IllegalArgumentException("mains frequency " + frequency);
+        }
+        this.mainsFrequency = frequency;
+    }
+
+    // 清空滤波器状态，混合比例直接跳到当前开关状态；用于重新开始一段数据
+    public void reset() {
+        int mask = enabledMask;
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            stages[i].reset();
+            mix[i] = (mask & (1 << i)) != 0 ? 1f : 0f;
+        }
+    }
+
+    public void process(EcgBlock block) {
+        process(block.getSamples(), 0, block.getLength(), block.getSampleRate());
+    }
+
+    // 原地处理一段采样；采样率或工频变化时重新计算系数并清空状态
+    public void process(float[] samples, int offset, int length, int sampleRate) {
+        int mains = mainsFrequency;
+        if (sampleRate != activeSampleRate || mains != activeMainsFrequency) {
+            configure(sampleRate, mains);
+        }
+        int mask = enabledMask;
+        for (int s = 0; s < STAGE_COUNT; s++) {
+            BiquadFilter stage = stages[s];
+            float target = (mask & (1 << s)) != 0 ? 1f : 0f;
+            float m = mix[s];
+            if (m == target) {
+                if (m == 1f) {
+                    stage.process(samples, offset, length);
+                } else {
+                    // 旁路时也更新状态，重新开启时没有启动瞬态
+                    for (int i = offset; i < offset + length; i++) {
+                        stage.process(samples[i]);
+                    }
+                }
+                continue;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                float x = samples[i];
+                float y = stage.process(x);
+                if (m < target) {
+                    m = Math.min(target, m + fadeStep);
+                } else if (m > target) {
+                    m = Math.max(target, m - fadeStep);
+                }
+                samples[i] = x + m * (y - x);
+            }
+            mix[s] = m;
+        }
+    }
+
+    private void configure(int sampleRate, int mains) {
+        stages[Filter.HIGH_PASS.ordinal()].setHighPass(sampleRate, HIGH_PASS_HZ, BUTTERWORTH_Q);
+        stages[Filter.NOTCH.ordinal()].setNotch(sampleRate, mains, NOTCH_Q);
+        stages[Filter.LOW_PASS.ordinal()].setLowPass(sampleRate, LOW_PASS_HZ, BUTTERWORTH_Q);
+        activeSampleRate = sampleRate;
+        activeMainsFrequency = mains;
+        fadeStep = 1000f / (FADE_MS * sampleRate);
+        reset();
+    }
+}
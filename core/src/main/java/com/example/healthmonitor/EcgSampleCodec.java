@@ -0,0 +1,72 @@
+package com.example.healthmonitor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 心电采样编码：按固定分辨率量化为整数，对相邻采样做差分，再以 zig-zag 变长整数写出。
+ * 默认分辨率 5 µV 与常见心电 ADC 的量化步长相当，量化误差不超过半个分辨率。
+ * 500 Hz 心电的相邻差值绝大多数在 ±63 个量化单位以内，每个采样约 1 个字节（原始 float 为 4 个字节）。
+ */
+public class EcgSampleCodec {
+    public static final float DEFAULT_RESOLUTION_MV = 0.005f;
+
+    private final float resolution;
+    private final float inverseResolution;
+
+    public EcgSampleCodec() {
+        this(DEFAULT_RESOLUTION_MV);
+    }
+
+    public EcgSampleCodec(float resolution) {
+        if (!(resolution > 0)) {
+            throw new IllegalArgumentException("resolution " + resolution);
+        }
+        this.resolution = resolution;
+        this.inverseResolution = 1f / resolution;
+    }
+
+    public float getResolution() {
+        return resolution;
+    }
+
+    // 最坏情况下编码 count 个采样需要的字节数
+    public static int maxEncodedSize(int count) {
+        return count * VarInt.MAX_LONG_BYTES;
+    }
+
+    // 把 count 个采样编码到 out 的当前位置；out 剩余空间不足时抛出 BufferOverflowException
+    public void encode(float[] samples, int offset, int count, ByteBuffer out) {
+        long previous = 0;
+        for (int i = offset; i < offset + count; i++) {
+            long q = Math.round(samples[i] * inverseResolution);
+            VarInt.putSigned(out, q - previous);
+            previous = q;
+        }
+    }
+
+    // 编码整个数据块：起始时间、采样率、采样数，随后是采样
+    public void encode(EcgBlock block, ByteBuffer out) {
+        VarInt.putUnsigned(out, block.getStartTimestamp());
+        VarInt.putUnsigned(out, block.getSampleRate());
+        VarInt.putUnsigned(out, block.getLength());
+        encode(block.getSamples(), 0, block.getLength(), out);
+    }
+
+    // 解码 encode(EcgBlock, ByteBuffer) 写出的数据块，block 容量不足时抛出 IllegalArgumentException
+    public void decode(ByteBuffer in, EcgBlock block) {
+        block.setStartTimestamp(VarInt.getUnsigned(in));
+        block.setSampleRate((int) VarInt.getUnsigned(in));
+        int count = (int) VarInt.getUnsigned(in);
+        block.setLength(count);
+        decode(in, block.getSamples(), 0, count);
+    }
+
+    // 从 in 的当前位置解码 count 个采样
+    public void decode(ByteBuffer in, float[] samples, int offset, int count) {
+        long previous = 0;
+        for (int i = offset; i < offset + count; i++) {
+            previous += VarInt.getSigned(in);
+            samples[i] = previous * resolution;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.healthmonitor;
+
+/**
+ * 心电数据源。EcgStage 在数据生产线程上按播放速度从数据源读取采样，
+ * 数据源可以是模拟发生器，也可以是回放的记录文件。
+ */
+public interface EcgSource {
+    // 支持的心电采样率 (Hz)
+    int ECG_RATE_250 = 250;
+    int ECG_RATE_500 = 500;
+    int ECG_RATE_1000 = 1000;
+
+    // 接下来读取的采样的采样率 (Hz)
+    int getSampleRate();
+
+    // 读取最多 maxSamples 个同一采样率的连续采样写入 block（含时间和采样率），
+    // 返回读取的个数；数据已经读完时返回 0
+    int read(EcgBlock block, int maxSamples);
+
+    // 回到数据开头；模拟数据源重新开始计时
+    void reset();
+}
@@ -0,0 +1,200 @@
+package com.example.healthmonitor;
+
+/**
+ * 心电生产阶段：按数据块周期从数据源读取采样，经滤波链调理后交给 QRS 检测器并同步分发给监听者，
+ * 每秒把最新采样值写入一帧 HealthData 用于数值显示。
+ *
+ * 播放速度为 N 时每个周期读取 N 个周期的采样，分成多个数据块分发；
+ * 速度为 AS_FAST_AS_POSSIBLE 时每个周期在时间预算内尽可能多地读取，用于压力测试。
+ * 数据源读完后从头循环播放。
+ */
+public class EcgStage extends SensorStage {
+    // 心电数据块周期，每个块包含 采样率 * 周期 个采样
+    public static final int BLOCK_PERIOD_MS = 40;
+    private static final int VALUE_PUBLISH_INTERVAL_MS = 1000;
+    public static final float AS_FAST_AS_POSSIBLE = 0f;
+    // 全速播放时每个周期占用调度线程的时间上限，留出时间给体征阶段
+    private static final long FAST_BUDGET_NANOS = BLOCK_PERIOD_MS * 1_000_000L * 3 / 4;
+    // 全速播放时每个周期最多读取的块数；虚拟时钟在周期内不走，靠它结束周期
+    private static final int FAST_MAX_BLOCKS = 1000;
+
+    private final EcgBlock block = new EcgBlock(EcgSource.ECG_RATE_1000 * BLOCK_PERIOD_MS / 1000);
+    private volatile EcgSource source;
+    private EcgSource activeSource;
+    private volatile float playbackSpeed = 1f;
+    private double samplesDue;
+    private volatile long samplesProduced;
+    private final EcgFilterChain filters = new EcgFilterChain();
+    private final HealthSnapshotBuffer snapshots;
+    private final Runnable onPublished;
+    // 监听者数组写时复制，分发时不创建迭代器
+    private volatile EcgStreamListener[] listeners = new EcgStreamListener[0];
+    private int activeSampleRate;
+    private int msSinceValuePublish;
+    // 从心电数据流检测 R 波，心率由 RR 间期计算
+    private volatile QrsDetector qrsDetector;
+    private volatile QrsDetector.Listener beatListener;
+
+    public EcgStage(EcgSource source, HealthSnapshotBuffer snapshots, Runnable onPublished) {
+        super(BLOCK_PERIOD_MS);
+        this.source = source;
+        this.snapshots = snapshots;
+        this.onPublished = onPublished;
+    }
+
+    public synchronized void addListener(EcgStreamListener listener) {
+        for (EcgStreamListener existing : listeners) {
+            if (existing == listener) {
+                return;
+            }
+        }
+        EcgStreamListener[] next = new EcgStreamListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, next, 0, listeners.length);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public synchronized void removeListener(EcgStreamListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                EcgStreamListener[] next = new EcgStreamListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, next, 0, i);
+                System.arraycopy(listeners, i + 1, next, i, listeners.length - i - 1);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    // R 波回调，在数据生产线程上调用，下次启动时生效
+    public void setBeatListener(QrsDetector.Listener listener) {
+        this.beatListener = listener;
+    }
+
+    // 最近检测到的心率 (bpm)，尚未检测到时为 0
+    public int getHeartRate() {
+        QrsDetector detector = qrsDetector;
+        return detector == null ? 0 : detector.getHeartRate();
+    }
+
+    // 信号调理链，显示和 QRS 检测都使用滤波后的数据
+    public EcgFilterChain getFilters() {
+        return filters;
+    }
+
+    // 当前数据源的采样率
+    public int getSampleRate() {
+        return source.getSampleRate();
+    }
+
+    public EcgSource getSource() {
+        return source;
+    }
+
+    // 切换数据源，下一个周期生效，新数据源从头开始读取
+    public void setSource(EcgSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source == null");
+        }
+        this.source = source;
+    }
+
+    public float getPlaybackSpeed() {
+        return playbackSpeed;
+    }
+
+    // 播放速度倍数，AS_FAST_AS_POSSIBLE 表示不限速
+    public void setPlaybackSpeed(float speed) {
+        if (speed < 0 || Float.isNaN(speed) || Float.isInfinite(speed)) {
+            throw new IllegalArgumentException("speed " + speed);
+        }
+        this.playbackSpeed = speed;
+    }
+
+    // 累计分发的采样数，用于计算实际达到的播放倍速
+    public long getSamplesProduced() {
+        return samplesProduced;
+    }
+
+    @Override
+    protected void onStart() {
+        activeSource = null;
+        msSinceValuePublish = VALUE_PUBLISH_INTERVAL_MS;
+    }
+
+    @Override
+    protected void tick() {
+        EcgSource current = source;
+        if (current != activeSource) {
+            // 切换数据源或重新启动时从头读取
+            activeSource = current;
+            current.reset();
+            activeSampleRate = 0;
+            samplesDue = 0;
+        }
+
+        float speed = playbackSpeed;
+        if (speed > 0) {
+            samplesDue += current.getSampleRate() * speed * BLOCK_PERIOD_MS / 1000.0;
+            while (samplesDue >= 1) {
+                int read = readBlock(current, (int) Math.min(block.getCapacity(), samplesDue));
+                if (read == 0) {
+                    samplesDue = 0;
+                    break;
+                }
+                samplesDue -= read;
+                dispatch();
+            }
+        } else {
+            Clock clock = getClock();
+            long deadline = clock.nanoTime() + FAST_BUDGET_NANOS;
+            int blocks = 0;
+            do {
+                if (readBlock(current, block.getCapacity()) == 0) {
+                    break;
+                }
+                dispatch();
+            } while (++blocks < FAST_MAX_BLOCKS && clock.nanoTime() < deadline);
+        }
+
+        msSinceValuePublish += BLOCK_PERIOD_MS;
+        if (msSinceValuePublish >= VALUE_PUBLISH_INTERVAL_MS) {
+            msSinceValuePublish = 0;
+            synchronized (snapshots) {
+                HealthData data = snapshots.beginWrite();
+                data.setEcgData(block.getLastSample());
+                data.setTimestamp(getClock().currentTimeMillis());
+                snapshots.publish();
+            }
+            onPublished.run();
+        }
+    }
+
+    // 读取一个数据块，数据源读完时回到开头再读一次
+    private int readBlock(EcgSource current, int maxSamples) {
+        int read = current.read(block, maxSamples);
+        if (read == 0) {
+            current.reset();
+            read = current.read(block, maxSamples);
+        }
+        return read;
+    }
+
+    private void dispatch() {
+        int rate = block.getSampleRate();
+        if (rate != activeSampleRate) {
+            activeSampleRate = rate;
+            filters.reset();
+            // 检测器的滤波器系数与采样率相关，只在采样率变化或重新启动时重新创建
+            qrsDetector = new QrsDetector(rate, beatListener);
+        }
+        filters.process(block);
+        qrsDetector.process(block);
+
+        EcgStreamListener[] current = listeners;
+        for (EcgStreamListener listener : current) {
+            listener.onEcgBlock(block);
+        }
+        samplesProduced += block.getLength();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.healthmonitor;
+
+/**
+ * 心电数据流监听者。回调在数据生产线程上同步执行，
+ * block 在回调返回后会被复用，实现中不要持有它的引用。
+ */
+public interface EcgStreamListener {
+    void onEcgBlock(EcgBlock block);
+}
@@ -0,0 +1,245 @@
+package com.example.healthmonitor;
+
+import java.util.Random;
+
+/**
+ * 模拟心电波形发生器，按采样序号计算时间，按块输出，不依赖系统时钟。
+ *
+ * 每个采样在 EcgBeatTemplates 的心跳模板上按相位线性插值，再叠加测量噪声、基线漂移和运动伪迹；
+ * 随机数只在每拍开始时使用，逐采样的计算只有查表和几次乘加，生成过程不分配对象。
+ * 平均心率在设定范围内逐拍随机游走，RR 间期再叠加 0.1 Hz (Mayer 波) 和 0.25 Hz (呼吸性窦性心律不齐)
+ * 两个频段的心率变异。可以设置 R 波回调，作为 QRS 检测等算法的标准答案。
+ * 配置方法可以在任意线程调用，下一拍生效；fill() 只能在一个线程上调用。
+ */
+public class EcgWaveformGenerator {
+    private static final float INITIAL_HEART_RATE = 75f;
+    private static final float BASELINE_WANDER_HZ = 0.3f;
+    private static final double MAYER_WAVE_HZ = 0.1;
+    private static final double RESPIRATION_HZ = 0.25;
+    private static final int MIN_ARTIFACT_MS = 200;
+    private static final int MAX_ARTIFACT_MS = 1000;
+
+    // 标准正态噪声表，所有发生器共享；每拍随机选择步长，不同的拍走不同的序列
+    private static final int NOISE_SIZE = 4096;
+    private static final float[] NOISE = buildNoise();
+
+    private final Random random;
+    private volatile float minHeartRate = 60f;
+    private volatile float maxHeartRate = 100f;
+    private volatile float variability = 0.03f;     // RR 间期调制深度，占 RR 的比例
+    private volatile float noiseLevel = 0.01f;      // 测量噪声标准差 (mV)
+    private volatile float wanderLevel = 0.03f;     // 基线漂移幅度 (mV)
+    private volatile float artifactsPerMinute = 0f;
+    private volatile float artifactLevel = 0.5f;    // 伪迹幅度 (mV)
+    private volatile int pendingArtifactMs;
+    private volatile QrsDetector.Listener beatListener;
+
+    private long sampleIndex = 0;   // 自会话开始以来生成的采样数
+    private double beatPhase = 0;   // 当前心跳内的相位 0-1，R 波位于 EcgBeatTemplates.R_PEAK_PHASE
+    private double phaseStep;
+    private float meanHeartRate = INITIAL_HEART_RATE;
+    private float rrMs = 60_000f / INITIAL_HEART_RATE;
+    private float[] template = EcgBeatTemplates.forHeartRate(INITIAL_HEART_RATE);
+    private long lastPeakSample = -1;
+    private int noisePosition;
+    private int noiseStride = 1;
+    private int activeSampleRate;
+    // 基线漂移用旋转向量递推，不逐采样调用 Math.sin
+    private float wanderRe = 1f;
+    private float wanderIm = 0f;
+    private float wanderCos = 1f;
+    private float wanderSin = 0f;
+    private int artifactRemaining;
+    private float artifactGain;
+    private float artifactOffset;
+    private float artifactDecay;
+
+    public EcgWaveformGenerator(Random random) {
+        this.random = random;
+    }
+
+    public void reset() {
+        sampleIndex = 0;
+        beatPhase = 0;
+        meanHeartRate = Math.max(minHeartRate, Math.min(maxHeartRate, INITIAL_HEART_RATE));
+        rrMs = 60_000f / meanHeartRate;
+        template = EcgBeatTemplates.forHeartRate(meanHeartRate);
+        lastPeakSample = -1;
+        noisePosition = 0;
+        noiseStride = 1;
+        activeSampleRate = 0;
+        wanderRe = 1f;
+        wanderIm = 0f;
+        artifactRemaining = 0;
+        artifactOffset = 0f;
+    }
+
+    // 当前模拟的心率 (bpm)，由当前一拍的 RR 间期换算
+    public float getHeartRate() {
+        return 60_000f / rrMs;
+    }
+
+    public long getSampleIndex() {
+        return sampleIndex;
+    }
+
+    // 平均心率的游走范围 (bpm)，min == max 时心率只受心率变异调制
+    public void setHeartRateRange(float min, float max) {
+        if (min < EcgBeatTemplates.MIN_HEART_RATE || max > EcgBeatTemplates.MAX_HEART_RATE || min > max) {
+            throw new IllegalArgumentException("heart rate range " + min + "-" + max);
+        }
+        minHeartRate = min;
+        maxHeartRate = max;
+    }
+
+    // 心率变异深度，占 RR 间期的比例，0 表示没有变异
+    public void setHeartRateVariability(float fraction) {
+        if (fraction < 0 || fraction > 0.5f) {
+            throw new IllegalArgumentException("variability " + fraction);
+        }
+        variability = fraction;
+    }
+
+    // 测量噪声标准差和基线漂移幅度 (mV)
+    public void setNoise(float noiseMv, float baselineWanderMv) {
+        if (noiseMv < 0 || baselineWanderMv < 0) {
+            throw new IllegalArgumentException("noise " + noiseMv + ", wander " + baselineWanderMv);
+        }
+        noiseLevel = noiseMv;
+        wanderLevel = baselineWanderMv;
+    }
+
+    // 随机运动伪迹：平均每分钟 perMinute 次，每次 200-1000 ms，幅度 amplitudeMv
+    public void setArtifacts(float perMinute, float amplitudeMv) {
+        if (perMinute < 0 || amplitudeMv < 0) {
+            throw new IllegalArgumentException("artifacts " + perMinute + "/min, " + amplitudeMv + " mV");
+        }
+        artifactsPerMinute = perMinute;
+        artifactLevel = amplitudeMv;
+    }
+
+    // 在下一次 fill() 开始时注入一段持续 durationMs 的伪迹
+    public void injectArtifact(int durationMs) {
+        if (durationMs <= 0) {
+            throw new IllegalArgumentException("durationMs " + durationMs);
+        }
+        pendingArtifactMs = durationMs;
+    }
+
+    // 每个 R 波的时间和与上一个 R 波的间隔，在 fill() 的线程上调用；null 表示不回调
+    public void setBeatListener(QrsDetector.Listener listener) {
+        this.beatListener = listener;
+    }
+
+    // 生成 count 个采样写入 block，时间基于 sessionStart 与采样序号
+    public void fill(EcgBlock block, int count, int sampleRate, long sessionStart) {
+        if (sampleRate != activeSampleRate) {
+            setSampleRate(sampleRate);
+        }
+        int artifactMs = pendingArtifactMs;
+        if (artifactMs > 0) {
+            pendingArtifactMs = 0;
+            startArtifact(artifactMs, sampleRate);
+        }
+
+        float[] samples = block.getSamples();
+        block.setSampleRate(sampleRate);
+        block.setStartTimestamp(sessionStart + sampleIndex * 1000 / sampleRate);
+        QrsDetector.Listener listener = beatListener;
+        float noise = noiseLevel;
+        float wander = wanderLevel;
+        for (int i = 0; i < count; i++) {
+            double previous = beatPhase;
+            beatPhase += phaseStep;
+            if (beatPhase >= 1) {
+                beatPhase -= 1;
+                previous = 0;
+                nextBeat(sampleRate);
+            }
+            if (previous < EcgBeatTemplates.R_PEAK_PHASE && beatPhase >= EcgBeatTemplates.R_PEAK_PHASE) {
+                onRPeak(listener, sampleRate, sessionStart);
+            }
+
+            float value = EcgBeatTemplates.sample(template, beatPhase);
+            value += NOISE[noisePosition] * noise;
+            noisePosition = (noisePosition + noiseStride) & (NOISE_SIZE - 1);
+
+            float re = wanderRe * wanderCos - wanderIm * wanderSin;
+            wanderIm = wanderRe * wanderSin + wanderIm * wanderCos;
+            wanderRe = re;
+            value += wanderIm * wander;
+
+            if (artifactRemaining > 0) {
+                artifactRemaining--;
+                value += artifactOffset + NOISE[(noisePosition * 7 + 11) & (NOISE_SIZE - 1)] * artifactGain;
+                artifactOffset *= artifactDecay;
+            }
+            samples[i] = value;
+            sampleIndex++;
+        }
+        block.setLength(count);
+    }
+
+    private void setSampleRate(int sampleRate) {
+        activeSampleRate = sampleRate;
+        double w = 2 * Math.PI * BASELINE_WANDER_HZ / sampleRate;
+        wanderCos = (float) Math.cos(w);
+        wanderSin = (float) Math.sin(w);
+        phaseStep = 1000.0 / (rrMs * sampleRate);
+    }
+
+    // 新的一拍：平均心率小幅游走，叠加心率变异得到本拍的 RR 间期
+    private void nextBeat(int sampleRate) {
+        float min = minHeartRate;
+        float max = maxHeartRate;
+        meanHeartRate = Math.max(min, Math.min(max, meanHeartRate + (random.nextFloat() - 0.5f) * 4f));
+
+        double seconds = sampleIndex / (double) sampleRate;
+        double modulation = 0.5 * Math.sin(2 * Math.PI * MAYER_WAVE_HZ * seconds)
+                + 0.5 * Math.sin(2 * Math.PI * RESPIRATION_HZ * seconds)
+                + 0.25 * random.nextGaussian();
+        float rr = (float) (60_000.0 / meanHeartRate * (1 + variability * modulation));
+        rrMs = Math.max(60_000f / EcgBeatTemplates.MAX_HEART_RATE, Math.min(60_000f / EcgBeatTemplates.MIN_HEART_RATE, rr));
+        template = EcgBeatTemplates.forHeartRate(60_000f / rrMs);
+        phaseStep = 1000.0 / (rrMs * sampleRate);
+        noiseStride = 1 + 2 * random.nextInt(NOISE_SIZE / 2);
+
+        // 旋转向量递推的幅度误差每拍校正一次
+        float norm = (float) (1 / Math.sqrt(wanderRe * wanderRe + wanderIm * wanderIm));
+        wanderRe *= norm;
+        wanderIm *= norm;
+
+        float perMinute = artifactsPerMinute;
+        if (perMinute > 0 && artifactRemaining == 0 && random.nextFloat() < perMinute * rrMs / 60_000f) {
+            startArtifact(MIN_ARTIFACT_MS + random.nextInt(MAX_ARTIFACT_MS - MIN_ARTIFACT_MS), sampleRate);
+        }
+    }
+
+    // 运动伪迹：电极移动造成的阶跃偏移按指数衰减，同时叠加宽带噪声
+    private void startArtifact(int durationMs, int sampleRate) {
+        float level = artifactLevel;
+        artifactRemaining = durationMs * sampleRate / 1000;
+        artifactGain = level * 0.5f;
+        // 偏移方向取自噪声表，注入伪迹不消耗随机数，不改变之后的心律
+        artifactOffset = NOISE[noisePosition] * level;
+        artifactDecay = (float) Math.exp(-3.0 / Math.max(1, artifactRemaining));
+    }
+
+    private void onRPeak(QrsDetector.Listener listener, int sampleRate, long sessionStart) {
+        long peak = sampleIndex;
+        if (listener != null) {
+            int rr = lastPeakSample < 0 ? 0 : (int) ((peak - lastPeakSample) * 1000 / sampleRate);
+            listener.onBeat(sessionStart + peak * 1000 / sampleRate, rr);
+        }
+        lastPeakSample = peak;
+    }
+
+    private static float[] buildNoise() {
+        Random random = new Random(0x45434721L);
+        float[] noise = new float[NOISE_SIZE];
+        for (int i = 0; i < NOISE_SIZE; i++) {
+            noise[i] = (float) random.nextGaussian();
+        }
+        return noise;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.healthmonitor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单线程事件循环：任务经无锁 MPSC 队列提交，由唯一的循环线程按提交顺序执行。
+ * 由循环线程独占的状态不需要加锁。队列为空时循环线程挂起，提交任务时只有它在挂起才需要唤醒。
+ * 任务抛出的异常不会终止循环，第一个异常保存下来供查询。
+ * 任务抛出 Error（如内存不足）时无法继续：保存该 Error 并通知 FailureListener 后重新抛出，循环线程结束。
+ */
+public class EventLoop {
+    public interface FailureListener {
+        // 在循环线程结束前、在循环线程上调用
+        void onLoopFailed(Throwable failure);
+    }
+
+    private final MpscQueue<Runnable> queue = new MpscQueue<>();
+    private final AtomicBoolean sleeping = new AtomicBoolean(false);
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Throwable failure;
+    private volatile FailureListener failureListener;
+
+    public EventLoop(String name) {
+        thread = new Thread(this::loop, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 可在任意线程调用，关闭后提交的任务被丢弃
+    public void execute(Runnable task) {
+        queue.offer(task);
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    public boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    // 执行完已提交的任务后结束循环线程
+    public void shutdown() {
+        execute(() -> running = false);
+    }
+
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        thread.join(timeoutMs);
+        return !thread.isAlive();
+    }
+
+    // 第一个任务异常；循环线程因 Error 结束时为该 Error
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public void setFailureListener(FailureListener listener) {
+        failureListener = listener;
+    }
+
+    private void loop() {
+        try {
+            runTasks();
+        } catch (Throwable e) {
+            // 线程边界：Error 不能恢复，保存并通知后重新抛出，之后提交的任务不再执行
+            running = false;
+            failure = e;
+            FailureListener listener = failureListener;
+            if (listener != null) {
+                listener.onLoopFailed(e);
+            }
+            throw e;
+        }
+    }
+
+    private void runTasks() {
+        while (running) {
+            Runnable task = queue.poll();
+            if (task != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                continue;
+            }
+            // 先声明要挂起再检查队列，生产者在此之后入队必定看到 sleeping 并唤醒
+            sleeping.set(true);
+            if (queue.isEmpty()) {
+                // 没有超时：空闲时不周期性唤醒；虚假唤醒回到循环开头重新检查
+                LockSupport.park(this);
+            }
+            sleeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.healthmonitor;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于单线程 ScheduledThreadPoolExecutor 的实时调度器，使用系统时钟。
+ */
+public class ExecutorTaskScheduler implements TaskScheduler {
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+
+    public ExecutorTaskScheduler() {
+        // 取消的周期任务立即移出队列，停止的阶段不再唤醒调度线程
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public Clock getClock() {
+        return Clock.SYSTEM;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public Cancellable scheduleAtFixedRate(Runnable task, long periodMs) {
+        final ScheduledFuture<?> future = executor.scheduleAtFixedRate(task, 0, periodMs, TimeUnit.MILLISECONDS);
+        return () -> future.cancel(false);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // 队列中等待执行的任务数，包括周期任务
+    public int getPendingTaskCount() {
+        return executor.getQueue().size();
+    }
+}
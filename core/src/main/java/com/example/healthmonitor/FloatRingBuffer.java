@@ -0,0 +1,110 @@
+package com.example.healthmonitor;
+
+/**
+ * 基于 float[] 的环形缓冲区，追加和按下标读取都是 O(1)，不产生装箱和垃圾对象。
+ * 下标 0 表示最旧的数据，size() - 1 表示最新的数据。
+ */
+public class FloatRingBuffer {
+    private float[] data;
+    private int head;   // 下一个写入位置
+    private int size;   // 当前有效数据个数
+    private long written;   // 累计写入的数据个数，可作为采样序号
+
+    public FloatRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+        }
+        data = new float[capacity];
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 累计写入个数；最新数据的序号为 getWrittenCount() - 1
+    public long getWrittenCount() {
+        return written;
+    }
+
+    public boolean isFull() {
+        return size == data.length;
+    }
+
+    public void add(float value) {
+        data[head] = value;
+        head++;
+        if (head == data.length) {
+            head = 0;
+        }
+        if (size < data.length) {
+            size++;
+        }
+        written++;
+    }
+
+    public void add(float[] values, int offset, int length) {
+        written += length;
+        // 超过容量时只保留最后 capacity 个
+        if (length > data.length) {
+            offset += length - data.length;
+            length = data.length;
+        }
+        int firstPart = Math.min(length, data.length - head);
+        System.arraycopy(values, offset, data, head, firstPart);
+        System.arraycopy(values, offset + firstPart, data, 0, length - firstPart);
+        head = (head + length) % data.length;
+        size = Math.min(size + length, data.length);
+    }
+
+    // 按时间顺序读取，0 为最旧
+    public float get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        int pos = head - size + index;
+        if (pos < 0) {
+            pos += data.length;
+        }
+        return data[pos];
+    }
+
+    public float getLatest() {
+        return size == 0 ? 0f : get(size - 1);
+    }
+
+    // 用固定值填满整个缓冲区（用于显示一条基线）
+    public void fill(float value) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = value;
+        }
+        head = 0;
+        size = data.length;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    // 修改容量，保留最新的数据；容量不变时不分配内存
+    public void resize(int newCapacity) {
+        if (newCapacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0: " + newCapacity);
+        }
+        if (newCapacity == data.length) {
+            return;
+        }
+        float[] newData = new float[newCapacity];
+        int keep = Math.min(size, newCapacity);
+        for (int i = 0; i < keep; i++) {
+            newData[i] = get(size - keep + i);
+        }
+        data = newData;
+        size = keep;
+        head = keep % newCapacity;
+    }
+}
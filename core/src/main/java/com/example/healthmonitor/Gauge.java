@@ -0,0 +1,34 @@
+package com.example.healthmonitor;
+
+import java.io.IOException;
+
+/**
+ * 记录最近一次设置的值，例如缓冲区积压的采样数。由 MetricsRegistry 创建，注册表关闭时不记录。
+ */
+public final class Gauge extends Metric {
+    private volatile long value;
+
+    Gauge(MetricsRegistry registry, String name) {
+        super(registry, name);
+    }
+
+    public void set(long value) {
+        if (registry.enabled) {
+            this.value = value;
+        }
+    }
+
+    public long get() {
+        return value;
+    }
+
+    @Override
+    void reset() {
+        value = 0;
+    }
+
+    @Override
+    void appendTo(Appendable out) throws IOException {
+        out.append(getName()).append(" value=").append(Long.toString(value));
+    }
+}
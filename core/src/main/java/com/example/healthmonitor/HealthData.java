@@ -8,25 +8,46 @@ public class HealthData {
     private int heartRateMax;       // 心率最高值
     private int heartRateMin;       // 心率最低值
     private int bloodOxygen;        // 血氧浓度
+    private float heartRateMean;    // 统计窗口内的平均心率
+    private float heartRateStdDev;  // 统计窗口内的心率标准差
+    private float temperatureMean;  // 统计窗口内的平均体温
+    private float bloodOxygenMean;  // 统计窗口内的平均血氧
     private boolean isDeviceOn;     // 设备开关状态
-    private boolean ecgModuleOn;    // 心电模块状态
-    private boolean tempModuleOn;   // 体温模块状态
-    private boolean hrModuleOn;     // 心率模块状态
-    private boolean oxModuleOn;     // 血氧模块状态
 
     public HealthData() {
         this.timestamp = System.currentTimeMillis();
+        reset();
+    }
+
+    // 清空所有字段（时间戳除外），用于复用对象
+    public void reset() {
         this.ecgData = 0f;
         this.temperature = 0f;
         this.heartRate = 0;
         this.heartRateMax = 0;
         this.heartRateMin = 0;
         this.bloodOxygen = 0;
+        this.heartRateMean = 0f;
+        this.heartRateStdDev = 0f;
+        this.temperatureMean = 0f;
+        this.bloodOxygenMean = 0f;
         this.isDeviceOn = false;
-        this.ecgModuleOn = false;
-        this.tempModuleOn = false;
-        this.hrModuleOn = false;
-        this.oxModuleOn = false;
+    }
+
+    // 拷贝另一帧的全部字段，不分配新对象
+    public void copyFrom(HealthData other) {
+        this.timestamp = other.timestamp;
+        this.ecgData = other.ecgData;
+        this.temperature = other.temperature;
+        this.heartRate = other.heartRate;
+        this.heartRateMax = other.heartRateMax;
+        this.heartRateMin = other.heartRateMin;
+        this.bloodOxygen = other.bloodOxygen;
+        this.heartRateMean = other.heartRateMean;
+        this.heartRateStdDev = other.heartRateStdDev;
+        this.temperatureMean = other.temperatureMean;
+        this.bloodOxygenMean = other.bloodOxygenMean;
+        this.isDeviceOn = other.isDeviceOn;
     }
 
     // Getter 和 Setter 方法
@@ -51,18 +72,18 @@ public class HealthData {
     public int getBloodOxygen() { return bloodOxygen; }
     public void setBloodOxygen(int bloodOxygen) { this.bloodOxygen = bloodOxygen; }
 
-    public boolean isDeviceOn() { return isDeviceOn; }
-    public void setDeviceOn(boolean deviceOn) { isDeviceOn = deviceOn; }
+    public float getHeartRateMean() { return heartRateMean; }
+    public void setHeartRateMean(float heartRateMean) { this.heartRateMean = heartRateMean; }
 
-    public boolean isEcgModuleOn() { return ecgModuleOn; }
-    public void setEcgModuleOn(boolean ecgModuleOn) { this.ecgModuleOn = ecgModuleOn; }
+    public float getHeartRateStdDev() { return heartRateStdDev; }
+    public void setHeartRateStdDev(float heartRateStdDev) { this.heartRateStdDev = heartRateStdDev; }
 
-    public boolean isTempModuleOn() { return tempModuleOn; }
-    public void setTempModuleOn(boolean tempModuleOn) { this.tempModuleOn = tempModuleOn; }
+    public float getTemperatureMean() { return temperatureMean; }
+    public void setTemperatureMean(float temperatureMean) { this.temperatureMean = temperatureMean; }
 
-    public boolean isHrModuleOn() { return hrModuleOn; }
-    public void setHrModuleOn(boolean hrModuleOn) { this.hrModuleOn = hrModuleOn; }
+    public float getBloodOxygenMean() { return bloodOxygenMean; }
+    public void setBloodOxygenMean(float bloodOxygenMean) { this.bloodOxygenMean = bloodOxygenMean; }
 
-    public boolean isOxModuleOn() { return oxModuleOn; }
-    public void setOxModuleOn(boolean oxModuleOn) { this.oxModuleOn = oxModuleOn; }
+    public boolean isDeviceOn() { return isDeviceOn; }
+    public void setDeviceOn(boolean deviceOn) { isDeviceOn = deviceOn; }
 }
\ No newline at end of file
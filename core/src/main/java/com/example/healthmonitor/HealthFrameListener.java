@@ -0,0 +1,9 @@
+package com.example.healthmonitor;
+
+/**
+ * 体温、心率、血氧帧的监听者。回调在数据生产线程上、帧发布之前同步执行，
+ * frame 随后会被复用，实现中不要持有它的引用。
+ */
+public interface HealthFrameListener {
+    void onHealthFrame(Module source, HealthData frame);
+}
@@ -0,0 +1,39 @@
+package com.example.healthmonitor;
+
+/**
+ * 应用内各热路径使用的指标，全部注册在 REGISTRY 中。默认关闭，调试版本启动时打开。
+ * 多个病人的流水线共用同一组指标，数值为所有病人的合计。
+ */
+public final class HealthMetrics {
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry(false);
+
+    // 生产阶段：实际执行时间相对计划时间的延迟，以及每次 tick 的耗时
+    public static final Counter STAGE_TICKS = REGISTRY.counter("stage.ticks");
+    public static final LatencyHistogram STAGE_TICK_LATENESS = REGISTRY.histogram("stage.tick_lateness");
+    public static final LatencyHistogram STAGE_TICK_TIME = REGISTRY.histogram("stage.tick_time");
+
+    // 采样总线：缓冲区满而没有写入订阅者的采样
+    public static final Counter BUS_DROPPED = REGISTRY.counter("bus.dropped_samples");
+
+    // 心电波形：采样时间到画上屏幕的延迟，绘制和错过的帧，每帧读取后的积压
+    public static final LatencyHistogram ECG_SAMPLE_TO_SCREEN = REGISTRY.histogram("ecg.sample_to_screen");
+    public static final Counter ECG_FRAMES_DRAWN = REGISTRY.counter("ecg.frames_drawn");
+    public static final Counter ECG_FRAMES_SKIPPED = REGISTRY.counter("ecg.frames_skipped");
+    public static final LatencyHistogram ECG_DRAW_TIME = REGISTRY.histogram("ecg.draw_time");
+    public static final Gauge ECG_BACKLOG = REGISTRY.gauge("ecg.backlog_samples");
+
+    // 数值界面：每帧绑定的次数和耗时
+    public static final Counter UI_BINDS = REGISTRY.counter("ui.binds");
+    public static final LatencyHistogram UI_BIND_TIME = REGISTRY.histogram("ui.bind_time");
+
+    // 启动：最近一次启动到界面可交互、第一个采样和第一帧波形的耗时 (ms)
+    public static final Gauge STARTUP_UI_READY = REGISTRY.gauge("startup.ui_ready_ms");
+    public static final Gauge STARTUP_FIRST_SAMPLE = REGISTRY.gauge("startup.first_sample_ms");
+    public static final Gauge STARTUP_FIRST_FRAME = REGISTRY.gauge("startup.first_frame_ms");
+    // 启动计时不受注册表开关影响，发布版本同样可以测量
+    public static final StartupTimer STARTUP = new StartupTimer(Clock.SYSTEM,
+            STARTUP_UI_READY, STARTUP_FIRST_SAMPLE, STARTUP_FIRST_FRAME);
+
+    private HealthMetrics() {
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.healthmonitor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HealthData 三缓冲：生产者在写槽中填写下一帧，publish() 与中间槽交换；
+ * 读者 acquire() 时把中间槽换到读槽。整个过程只交换下标，不分配对象。
+ *
+ * 写端同一时刻只能有一个线程（调用方自行加锁），读端同样只能有一个线程。
+ * acquire() 返回的对象在下一次 acquire() 之前保持不变，之后会被生产者复用。
+ */
+public class HealthSnapshotBuffer {
+    private static final int INDEX_MASK = 0x3;
+    private static final int DIRTY = 0x4;   // 中间槽有尚未被读取的新帧
+
+    private final HealthData[] slots = {new HealthData(), new HealthData(), new HealthData()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int writeIndex = 0;     // 仅写线程访问
+    private int lastWritten = 2;    // 最近一次发布的槽，仅写线程访问
+    private int readIndex = 2;      // 仅读线程访问
+
+    // 取得写槽，内容已拷贝为最近发布的一帧，调用方只需修改变化的字段
+    public HealthData beginWrite() {
+        HealthData data = slots[writeIndex];
+        data.copyFrom(slots[lastWritten]);
+        return data;
+    }
+
+    // 发布 beginWrite() 返回的帧
+    public void publish() {
+        lastWritten = writeIndex;
+        writeIndex = middle.getAndSet(writeIndex | DIRTY) & INDEX_MASK;
+    }
+
+    // 取得最新发布的帧；没有新帧时返回上一次的结果
+    public HealthData acquire() {
+        if ((middle.get() & DIRTY) != 0) {
+            readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return slots[readIndex];
+    }
+
+    public boolean hasNewFrame() {
+        return (middle.get() & DIRTY) != 0;
+    }
+}
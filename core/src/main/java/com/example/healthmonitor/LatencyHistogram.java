@@ -0,0 +1,111 @@
+package com.example.healthmonitor;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定分桶的延迟直方图，可在任意线程无锁记录。
+ *
+ * 第 0 个桶为不足 1 微秒，第 i 个桶为 [2^(i-1), 2^i) 微秒，最后一个桶收纳所有更大的值（约 4 秒以上）。
+ * 分位数按所在桶的上界估计，相对误差不超过一倍，足够看出延迟的量级和长尾。
+ * 由 MetricsRegistry 创建，注册表关闭时不记录。
+ */
+public final class LatencyHistogram extends Metric {
+    public static final int BUCKET_COUNT = 24;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(MetricsRegistry registry, String name) {
+        super(registry, name);
+    }
+
+    // 记录一次耗时 (ns)，负值按 0 记录
+    public void record(long nanos) {
+        if (!registry.enabled) {
+            return;
+        }
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / (double) n;
+    }
+
+    public long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    // 分位数 (0~1) 的估计值 (ns)：所在桶的上界，不超过记录到的最大值
+    public long getPercentileNanos(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile " + quantile);
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i == BUCKET_COUNT - 1 ? max.get() : Math.min(upperBoundNanos(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // 第 bucket 个桶的上界 (ns，不含)
+    public static long upperBoundNanos(int bucket) {
+        return (1L << bucket) * 1000L;
+    }
+
+    static int bucketOf(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return bucket < BUCKET_COUNT ? bucket : BUCKET_COUNT - 1;
+    }
+
+    @Override
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    void appendTo(Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "%s count=%d mean=%.1fus p50=%dus p90=%dus p99=%dus max=%dus",
+                getName(), getCount(), getMeanNanos() / 1000, getPercentileNanos(0.5) / 1000,
+                getPercentileNanos(0.9) / 1000, getPercentileNanos(0.99) / 1000, getMaxNanos() / 1000));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.healthmonitor;
+
+import java.io.IOException;
+
+/**
+ * 注册在 MetricsRegistry 中的一个指标，记录操作在注册表关闭时直接返回。
+ */
+public abstract class Metric {
+    final MetricsRegistry registry;
+    private final String name;
+
+    Metric(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    abstract void reset();
+
+    // 输出一行文本快照，不含换行
+    abstract void appendTo(Appendable out) throws IOException;
+}
@@ -0,0 +1,97 @@
+package com.example.healthmonitor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 运行时指标的注册表：计数器、数值和固定分桶的延迟直方图。
+ *
+ * 记录操作无锁、不分配对象，可以在采样和绘制的热路径上调用；
+ * 关闭时每次记录只多读一个 volatile 字段，代替原来逐采样、逐帧拼接字符串的日志。
+ * 需要时用 dump() 输出一份文本快照，或写到文件。
+ */
+public class MetricsRegistry {
+    private final List<Metric> metrics = new ArrayList<>();
+    volatile boolean enabled;
+
+    public MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 关闭后各指标保留已有的值，不再记录
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized Counter counter(String name) {
+        Counter counter = new Counter(this, name);
+        register(counter);
+        return counter;
+    }
+
+    public synchronized Gauge gauge(String name) {
+        Gauge gauge = new Gauge(this, name);
+        register(gauge);
+        return gauge;
+    }
+
+    public synchronized LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = new LatencyHistogram(this, name);
+        register(histogram);
+        return histogram;
+    }
+
+    // 所有指标清零
+    public synchronized void reset() {
+        for (Metric metric : metrics) {
+            metric.reset();
+        }
+    }
+
+    // 按注册顺序每行输出一个指标，延迟单位为微秒
+    public synchronized void dump(Appendable out) throws IOException {
+        for (Metric metric : metrics) {
+            metric.appendTo(out);
+            out.append('\n');
+        }
+    }
+
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        try {
+            dump(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);     // StringBuilder 不会抛出
+        }
+        return out.toString();
+    }
+
+    // 把快照写到文件，覆盖原有内容
+    public void dump(File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            dump(writer);
+        }
+    }
+
+    private void register(Metric metric) {
+        String name = metric.getName();
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("name " + name);
+        }
+        for (Metric existing : metrics) {
+            if (name.equals(existing.getName())) {
+                throw new IllegalArgumentException("Duplicate metric " + name);
+            }
+        }
+        metrics.add(metric);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.healthmonitor;
+
+/**
+ * 按像素列抽取的最小/最大值包络。每列覆盖 窗口采样数 / 列数 个采样，
+ * 采样到达时增量更新当前列，绘制成本只与列数（视图宽度）有关，与采样数无关。
+ * 每列的范围会延伸到上一列的最后一个采样，竖线首尾相接，QRS 峰值不会丢失。
+ *
+ * 列按绝对序号编号，第 b 列在扫描模式下的横坐标为 b % 列数。
+ */
+public class MinMaxDecimator {
+    private float[] mins = new float[1];
+    private float[] maxs = new float[1];
+    private int columns = 1;
+    private double samplesPerColumn = 1;
+    private long sampleSeq;         // 已输入的采样数
+    private long currentColumn = -1;
+    private float lastValue;
+    private boolean hasLast = false;
+
+    // 设置列数和窗口采样数，会清空已有数据；尺寸不变时不分配内存
+    public void configure(int columnCount, int windowSamples) {
+        if (columnCount <= 0 || windowSamples <= 0) {
+            throw new IllegalArgumentException("columns " + columnCount + ", window " + windowSamples);
+        }
+        if (columnCount != mins.length) {
+            mins = new float[columnCount];
+            maxs = new float[columnCount];
+        }
+        columns = columnCount;
+        samplesPerColumn = (double) windowSamples / columnCount;
+        reset();
+    }
+
+    public void reset() {
+        sampleSeq = 0;
+        currentColumn = -1;
+        hasLast = false;
+    }
+
+    public int getColumnCount() {
+        return columns;
+    }
+
+    public double getSamplesPerColumn() {
+        return samplesPerColumn;
+    }
+
+    public void add(float value) {
+        long column = (long) (sampleSeq / samplesPerColumn);
+        sampleSeq++;
+        if (column != currentColumn) {
+            // 新的一列从上一列的最后一个采样开始，保证竖线连续
+            currentColumn = column;
+            int slot = (int) (column % columns);
+            float start = hasLast ? lastValue : value;
+            mins[slot] = Math.min(start, value);
+            maxs[slot] = Math.max(start, value);
+        } else {
+            int slot = (int) (column % columns);
+            if (value < mins[slot]) {
+                mins[slot] = value;
+            } else if (value > maxs[slot]) {
+                maxs[slot] = value;
+            }
+        }
+        lastValue = value;
+        hasLast = true;
+    }
+
+    public void add(float[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            add(values[offset + i]);
+        }
+    }
+
+    // 正在累积的列，-1 表示还没有数据
+    public long getCurrentColumn() {
+        return currentColumn;
+    }
+
+    // 仍然保留在窗口内的最旧一列
+    public long getOldestColumn() {
+        return Math.max(0, currentColumn - columns + 1);
+    }
+
+    public float getMin(long column) {
+        return mins[(int) (column % columns)];
+    }
+
+    public float getMax(long column) {
+        return maxs[(int) (column % columns)];
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.healthmonitor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 回放 PhysioNet/MIT-BIH 格式 212 记录（.hea 头文件 + .dat 数据文件）中的一路心电。
+ *
+ * 格式 212 把相邻两个 12 位采样打包为 3 个字节，多路信号按帧交错存放。
+ * 数据文件以只读方式内存映射，读取时按需解包，不整体载入内存。
+ * 采样时间从记录开头计起 (ms)，读完后返回 0。
+ */
+public class Mit212EcgSource implements EcgSource {
+    private static final float DEFAULT_GAIN = 200f;        // adu/mV
+    private static final int DEFAULT_SAMPLE_RATE = 250;     // 头文件未给出采样率时的默认值
+
+    private final MappedByteBuffer data;
+    private final int signals;
+    private final int channel;
+    private final int sampleRate;
+    private final float gain;
+    private final int baseline;
+    private final long frames;
+    private long frame;
+
+    private Mit212EcgSource(MappedByteBuffer data, int signals, int channel, int sampleRate,
+                            float gain, int baseline, long frames) {
+        this.data = data;
+        this.signals = signals;
+        this.channel = channel;
+        this.sampleRate = sampleRate;
+        this.gain = gain;
+        this.baseline = baseline;
+        this.frames = frames;
+    }
+
+    // 打开 header 描述的记录中的第 channel 路信号，数据文件与头文件在同一目录
+    public static Mit212EcgSource open(File header, int channel) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(header))) {
+            String[] record = nextFields(reader, header);
+            if (record.length < 2) {
+                throw new IOException("Malformed record line in " + header);
+            }
+            int signals = Integer.parseInt(record[1]);
+            int sampleRate = record.length > 2 ? Math.round(leadingNumber(record[2])) : DEFAULT_SAMPLE_RATE;
+            long declaredFrames = record.length > 3 ? Long.parseLong(record[3]) : -1;
+            if (signals <= 0 || channel < 0 || channel >= signals || sampleRate <= 0) {
+                throw new IOException("Unsupported record " + header + ": signals " + signals
+                        + ", channel " + channel + ", rate " + sampleRate);
+            }
+
+            String dataFile = null;
+            long byteOffset = 0;
+            float gain = DEFAULT_GAIN;
+            int baseline = 0;
+            for (int s = 0; s < signals; s++) {
+                String[] fields = nextFields(reader, header);
+                if (fields.length < 2 || !fields[1].startsWith("212")) {
+                    throw new IOException("Only format 212 is supported: " + header);
+                }
+                if (dataFile == null) {
+                    dataFile = fields[0];
+                    int plus = fields[1].indexOf('+');
+                    if (plus >= 0) {
+                        byteOffset = Long.parseLong(fields[1].substring(plus + 1));
+                    }
+                } else if (!dataFile.equals(fields[0])) {
+                    throw new IOException("Signals in separate files are not supported: " + header);
+                }
+                if (s == channel) {
+                    // 基线优先取增益字段括号中的值，否则为 ADC 零点
+                    baseline = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+                    if (fields.length > 2) {
+                        String g = fields[2];
+                        float parsed = leadingNumber(g);
+                        if (parsed > 0) {
+                            gain = parsed;
+                        }
+                        int open = g.indexOf('(');
+                        if (open >= 0) {
+                            baseline = Integer.parseInt(g.substring(open + 1, g.indexOf(')', open)));
+                        }
+                    }
+                }
+            }
+
+            File dat = new File(header.getParentFile(), dataFile);
+            try (RandomAccessFile file = new RandomAccessFile(dat, "r")) {
+                long length = file.length() - byteOffset;
+                long available = length * 2 / 3 / signals;
+                long frames = declaredFrames >= 0 ? Math.min(declaredFrames, available) : available;
+                MappedByteBuffer mapped = file.getChannel().map(FileChannel.MapMode.READ_ONLY, byteOffset, length);
+                return new Mit212EcgSource(mapped, signals, channel, sampleRate, gain, baseline, frames);
+            }
+        }
+    }
+
+    public long getFrameCount() {
+        return frames;
+    }
+
+    public float getGain() {
+        return gain;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int read(EcgBlock block, int maxSamples) {
+        int count = (int) Math.min(Math.min(maxSamples, block.getCapacity()), frames - frame);
+        float[] samples = block.getSamples();
+        block.setSampleRate(sampleRate);
+        block.setStartTimestamp(frame * 1000 / sampleRate);
+        for (int i = 0; i < count; i++) {
+            samples[i] = (sampleAt((frame + i) * signals + channel) - baseline) / gain;
+        }
+        block.setLength(count);
+        frame += count;
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        frame = 0;
+    }
+
+    // 第 index 个采样（按帧交错计数）的 12 位有符号值
+    private int sampleAt(long index) {
+        int offset = (int) (index / 2 * 3);
+        int value;
+        if ((index & 1) == 0) {
+            value = (data.get(offset) & 0xFF) | ((data.get(offset + 1) & 0x0F) << 8);
+        } else {
+            value = (data.get(offset + 2) & 0xFF) | ((data.get(offset + 1) & 0xF0) << 4);
+        }
+        return value > 2047 ? value - 4096 : value;
+    }
+
+    private static String[] nextFields(BufferedReader reader, File header) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                return line.split("\\s+");
+            }
+        }
+        throw new IOException("Unexpected end of " + header);
+    }
+
+    // "360/1000(0)" 之类字段开头的数值
+    private static float leadingNumber(String field) {
+        int end = 0;
+        while (end < field.length() && (Character.isDigit(field.charAt(end)) || field.charAt(end) == '.')) {
+            end++;
+        }
+        return end == 0 ? 0f : Float.parseFloat(field.substring(0, end));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.healthmonitor;
+
+/**
+ * 监测模块，每个模块占模块状态位掩码中的一位。
+ */
+public enum Module {
+    ECG,    // 心电
+    TEMP,   // 体温
+    HR,     // 心率
+    OX;     // 血氧
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public boolean isOn(int moduleMask) {
+        return (moduleMask & mask()) != 0;
+    }
+}
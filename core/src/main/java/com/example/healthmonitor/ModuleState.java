@@ -0,0 +1,39 @@
+package com.example.healthmonitor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模块开关状态，以原子位掩码保存，切换一个模块只需一次 CAS。
+ */
+public class ModuleState {
+    private final AtomicInteger bits = new AtomicInteger(0);
+
+    public int get() {
+        return bits.get();
+    }
+
+    public boolean isOn(Module module) {
+        return module.isOn(bits.get());
+    }
+
+    // 切换模块状态，返回切换后的位掩码
+    public int toggle(Module module) {
+        int current;
+        int next;
+        do {
+            current = bits.get();
+            next = current ^ module.mask();
+        } while (!bits.compareAndSet(current, next));
+        return next;
+    }
+
+    // 一次设置所有模块，返回之前的位掩码
+    public int set(int mask) {
+        return bits.getAndSet(mask);
+    }
+
+    // 关闭所有模块，返回之前的位掩码
+    public int clear() {
+        return bits.getAndSet(0);
+    }
+}
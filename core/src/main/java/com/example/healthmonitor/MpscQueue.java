@@ -0,0 +1,56 @@
+package com.example.healthmonitor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 无锁的多生产者单消费者队列（Vyukov 链表队列）。
+ *
+ * offer() 可在任意线程调用，只有一次 getAndSet，生产者之间不互相等待；
+ * poll() 只能在唯一的消费线程上调用。生产者交换尾指针后、链接节点前的短暂窗口内，
+ * 新元素对消费者暂不可见，poll() 返回 null，生产者完成链接后即可取到。
+ */
+public class MpscQueue<T> {
+    private final AtomicReference<Node<T>> tail;
+    private Node<T> head;
+
+    public MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    public void offer(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value == null");
+        }
+        Node<T> node = new Node<>(value);
+        Node<T> previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    // 只能在消费线程上调用，队列为空时返回 null
+    public T poll() {
+        Node<T> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        T value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    // 只能在消费线程上调用
+    public boolean isEmpty() {
+        return head.next == null && head == tail.get();
+    }
+
+    private static final class Node<T> {
+        T value;
+        volatile Node<T> next;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.healthmonitor;
+
+/**
+ * 把数值格式化到调用方复用的字符数组中，代替界面刷新时的 String.format，不创建任何对象。
+ * 小数按四舍五入保留固定位数，结果与 String.format("%.Nf") 一致，只是 -0.00 写作 0.00。
+ */
+public final class NumberFormatter {
+    private static final long[] POWERS = {1L, 10L, 100L, 1000L, 10000L};
+    public static final int MAX_DECIMALS = POWERS.length - 1;
+
+    private NumberFormatter() {
+    }
+
+    // 按小数位数换算成整数，例如 36.57 保留 1 位为 366；两个值换算结果相同时显示也相同
+    public static long quantize(float value, int decimals) {
+        checkDecimals(decimals);
+        return Math.round((double) value * POWERS[decimals]);
+    }
+
+    // 写入 value 保留 decimals 位小数的文本，返回写入后的下标
+    public static int formatFixed(float value, int decimals, char[] out, int offset) {
+        return formatScaled(quantize(value, decimals), decimals, out, offset);
+    }
+
+    // 写入 quantize 换算后的整数 scaled 对应的小数文本，返回写入后的下标
+    public static int formatScaled(long scaled, int decimals, char[] out, int offset) {
+        checkDecimals(decimals);
+        if (scaled < 0) {
+            out[offset++] = '-';
+            scaled = -scaled;
+        }
+        long integer = scaled / POWERS[decimals];
+        offset = formatLong(integer, out, offset);
+        if (decimals > 0) {
+            out[offset++] = '.';
+            long fraction = scaled - integer * POWERS[decimals];
+            for (int i = decimals - 1; i >= 0; i--) {
+                out[offset + i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            offset += decimals;
+        }
+        return offset;
+    }
+
+    // 写入整数的十进制文本，返回写入后的下标
+    public static int formatInt(int value, char[] out, int offset) {
+        if (value < 0) {
+            out[offset++] = '-';
+            return formatLong(-(long) value, out, offset);
+        }
+        return formatLong(value, out, offset);
+    }
+
+    // 写入字符串，返回写入后的下标
+    public static int append(String text, char[] out, int offset) {
+        text.getChars(0, text.length(), out, offset);
+        return offset + text.length();
+    }
+
+    private static int formatLong(long value, char[] out, int offset) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+
+    private static void checkDecimals(int decimals) {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("decimals " + decimals);
+        }
+    }
+}
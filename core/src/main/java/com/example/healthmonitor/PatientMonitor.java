@@ -0,0 +1,179 @@
+package com.example.healthmonitor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 一个病人（一台设备）的数据生产流水线：模拟数据源、各模块的生产阶段、统计和三缓冲快照。
+ * 不依赖 Android，运行在调用方提供的 TaskScheduler 上；多个病人可以共用一个调度器。
+ * 开关机和模块切换可以在任意线程调用，每个病人单独加锁。
+ */
+public class PatientMonitor {
+    private final String id;
+    // 时间戳取自当前调度器的时钟，未开机时为系统时钟
+    private Clock clock = Clock.SYSTEM;
+    // 健康数据通过三缓冲发布，生产线程每帧不分配对象
+    private final HealthSnapshotBuffer snapshots = new HealthSnapshotBuffer();
+    // 模块开关状态与测量数据分开，单独以位掩码保存
+    private final ModuleState moduleState = new ModuleState();
+    private final VitalsSimulator vitalsSimulator;
+    private final SimulatedEcgSource simulatedEcg;
+    // 滑动窗口统计，只在调度线程上访问
+    private final VitalStatistics vitalStatistics = new VitalStatistics(1000f / VitalStage.DEFAULT_PERIOD_MS);
+    private final Runnable signal = new Runnable() {
+        @Override
+        public void run() {
+            Runnable listener = publishListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    };
+    private volatile Runnable publishListener;
+    private TaskScheduler scheduler;
+
+    // 每个模块对应一个生产阶段，只有模块开启时才运行
+    private final EcgStage ecgStage;
+    private final Map<Module, SensorStage> stages = new EnumMap<>(Module.class);
+    // 心电采样按订阅者各自的策略分发，没有订阅者时不复制数据
+    private final SampleBus sampleBus = new SampleBus();
+
+    public PatientMonitor(String id, Random random) {
+        this.id = id;
+        vitalsSimulator = new VitalsSimulator(random);
+        simulatedEcg = new SimulatedEcgSource(random);
+        ecgStage = new EcgStage(simulatedEcg, snapshots, signal);
+        vitalsSimulator.setEcgStage(ecgStage);
+        ecgStage.addListener(sampleBus);
+        stages.put(Module.ECG, ecgStage);
+        stages.put(Module.TEMP, new VitalStage(Module.TEMP, vitalsSimulator, vitalStatistics, snapshots, signal));
+        stages.put(Module.HR, new VitalStage(Module.HR, vitalsSimulator, vitalStatistics, snapshots, signal));
+        stages.put(Module.OX, new VitalStage(Module.OX, vitalsSimulator, vitalStatistics, snapshots, signal));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public HealthSnapshotBuffer getSnapshots() {
+        return snapshots;
+    }
+
+    // 每发布一帧在生产线程上回调一次，null 表示不回调
+    public void setPublishListener(Runnable listener) {
+        this.publishListener = listener;
+    }
+
+    public EcgStage getEcgStage() {
+        return ecgStage;
+    }
+
+    public SampleBus getSampleBus() {
+        return sampleBus;
+    }
+
+    public SimulatedEcgSource getSimulatedEcg() {
+        return simulatedEcg;
+    }
+
+    public int getModules() {
+        return moduleState.get();
+    }
+
+    public boolean isModuleOn(Module module) {
+        return moduleState.isOn(module);
+    }
+
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    // 设置心率极值、均值等统计字段使用的时间窗口
+    public void setTrendWindow(TrendWindow window) {
+        for (SensorStage stage : stages.values()) {
+            if (stage instanceof VitalStage) {
+                ((VitalStage) stage).setTrendWindow(window);
+            }
+        }
+    }
+
+    // 每生成一帧体征数据回调一次，null 表示不回调
+    public void setFrameListener(HealthFrameListener listener) {
+        for (SensorStage stage : stages.values()) {
+            if (stage instanceof VitalStage) {
+                ((VitalStage) stage).setFrameListener(listener);
+            }
+        }
+    }
+
+    // 查询体温、心率或血氧在 [from, to) 内的趋势，粒度按 out 的容量自动选择，返回桶数
+    public int queryTrend(Module module, long from, long to, TrendSeries out) {
+        TrendRollup rollup = vitalStatistics.getRollup(module);
+        if (rollup == null) {
+            throw new IllegalArgumentException("No trend for module " + module);
+        }
+        return rollup.query(from, to, out);
+    }
+
+    // 开机：发布设备开启的一帧，按当前模块状态启动各生产阶段；已开机时先停在原来的调度器上
+    public synchronized void start(TaskScheduler scheduler) {
+        this.scheduler = null;
+        updateStages(0);
+        this.scheduler = scheduler;
+        clock = scheduler.getClock();
+        simulatedEcg.setClock(clock);
+        // 重置统计，在调度线程上先于任何阶段执行
+        scheduler.execute(vitalStatistics::reset);
+        synchronized (snapshots) {
+            HealthData data = snapshots.beginWrite();
+            data.setDeviceOn(true);
+            data.setTimestamp(clock.currentTimeMillis());
+            snapshots.publish();
+        }
+        signal.run();
+        updateStages(moduleState.get());
+    }
+
+    // 关机：停止所有阶段，发布清空的一帧，所有模块一并关闭；返回关机前的模块位掩码
+    public synchronized int stop() {
+        scheduler = null;
+        updateStages(0);
+        synchronized (snapshots) {
+            HealthData data = snapshots.beginWrite();
+            data.reset();
+            data.setTimestamp(clock.currentTimeMillis());
+            snapshots.publish();
+        }
+        signal.run();
+        return moduleState.clear();
+    }
+
+    // 切换模块只修改位掩码，不拷贝测量数据；返回切换后的位掩码
+    public synchronized int toggleModule(Module module) {
+        int mask = moduleState.toggle(module);
+        updateStages(mask);
+        return mask;
+    }
+
+    // 一次设置所有模块的开关状态，按 Module.mask() 组合
+    public synchronized void setModules(int mask) {
+        moduleState.set(mask);
+        updateStages(mask);
+    }
+
+    // 按模块状态启动或停止各生产阶段
+    private void updateStages(int mask) {
+        // 心率由心电数据计算，心率模块开启时心电阶段也要运行
+        if (Module.HR.isOn(mask)) {
+            mask |= Module.ECG.mask();
+        }
+        for (Map.Entry<Module, SensorStage> entry : stages.entrySet()) {
+            if (scheduler != null && entry.getKey().isOn(mask)) {
+                entry.getValue().start(scheduler);
+            } else {
+                entry.getValue().stop();
+            }
+        }
+    }
+}
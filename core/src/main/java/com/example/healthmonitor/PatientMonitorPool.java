@@ -0,0 +1,162 @@
+package com.example.healthmonitor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 中央站的多病人数据源：每个病人一条 PatientMonitor 流水线，分片到少量工作线程上运行。
+ *
+ * 每个分片有自己的调度器和锁，新病人分配到当前病人最少的分片；
+ * 病人到分片的映射保存在 ConcurrentHashMap 中，查找不经过全局锁，不同分片的操作互不阻塞。
+ * 每个病人的随机数由池的种子和病人 ID 决定，与分片数和加入顺序无关。
+ */
+public class PatientMonitorPool {
+    private final Shard[] shards;
+    private final Map<String, Shard> assignment = new ConcurrentHashMap<>();
+    private final TaskScheduler.Factory schedulerFactory;
+    private final long seed;
+
+    public PatientMonitorPool(int shardCount, TaskScheduler.Factory schedulerFactory, long seed) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount " + shardCount);
+        }
+        this.schedulerFactory = schedulerFactory;
+        this.seed = seed;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // 加入一个病人，池已启动时立即开机；ID 已存在时抛出 IllegalArgumentException
+    public PatientMonitor addPatient(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("id == null");
+        }
+        Shard shard = leastLoaded();
+        synchronized (shard) {
+            if (assignment.putIfAbsent(id, shard) != null) {
+                throw new IllegalArgumentException("Duplicate patient " + id);
+            }
+            PatientMonitor monitor = new PatientMonitor(id, new Random(seed * 31 + id.hashCode()));
+            shard.monitors.put(id, monitor);
+            if (shard.scheduler != null) {
+                monitor.start(shard.scheduler);
+            }
+            return monitor;
+        }
+    }
+
+    // 移除并关闭一个病人，返回是否存在
+    public boolean removePatient(String id) {
+        Shard shard = assignment.get(id);
+        if (shard == null) {
+            return false;
+        }
+        synchronized (shard) {
+            PatientMonitor monitor = shard.monitors.remove(id);
+            assignment.remove(id);
+            if (monitor == null) {
+                return false;
+            }
+            monitor.stop();
+            return true;
+        }
+    }
+
+    // 不存在时返回 null
+    public PatientMonitor getPatient(String id) {
+        Shard shard = assignment.get(id);
+        if (shard == null) {
+            return null;
+        }
+        synchronized (shard) {
+            return shard.monitors.get(id);
+        }
+    }
+
+    // 病人所在的分片序号，不存在时返回 -1
+    public int shardOf(String id) {
+        Shard shard = assignment.get(id);
+        return shard == null ? -1 : shard.index;
+    }
+
+    public List<String> getPatientIds() {
+        List<String> ids = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                ids.addAll(shard.monitors.keySet());
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return assignment.size();
+    }
+
+    // 为每个分片创建调度器，所有病人开机
+    public void start() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                if (shard.scheduler != null) {
+                    continue;
+                }
+                shard.scheduler = schedulerFactory.create();
+                for (PatientMonitor monitor : shard.monitors.values()) {
+                    monitor.start(shard.scheduler);
+                }
+            }
+        }
+    }
+
+    // 所有病人关机，关闭各分片的调度器
+    public void stop() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (PatientMonitor monitor : shard.monitors.values()) {
+                    monitor.stop();
+                }
+                if (shard.scheduler != null) {
+                    shard.scheduler.shutdown();
+                    shard.scheduler = null;
+                }
+            }
+        }
+    }
+
+    private Shard leastLoaded() {
+        Shard best = shards[0];
+        int bestSize = Integer.MAX_VALUE;
+        for (Shard shard : shards) {
+            int size;
+            synchronized (shard) {
+                size = shard.monitors.size();
+            }
+            if (size < bestSize) {
+                best = shard;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    // 一个工作线程及其上运行的病人，所有字段由分片自身的锁保护
+    private static final class Shard {
+        final int index;
+        final Map<String, PatientMonitor> monitors = new LinkedHashMap<>();
+        TaskScheduler scheduler;
+
+        Shard(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.healthmonitor;
+
+import java.util.Arrays;
+
+/**
+ * 流式 QRS 检测器，思路来自 Pan-Tompkins：
+ * 高通去基线 -> 差分 -> 平方 -> 150 ms 滑动窗口积分 -> 自适应阈值判定峰值。
+ * 检测到 QRS 后在原始信号上回溯定位 R 波，输出 R 波时间和 RR 间期，心率取最近 8 个 RR 的均值。
+ *
+ * 所有状态保存在构造时分配的基本类型数组中，处理过程不分配对象；
+ * 每个采样的计算量固定，只有确认一次心跳时回溯一个积分窗口。非线程安全，只能在一个线程上调用 process()。
+ */
+public class QrsDetector {
+    public interface Listener {
+        // rrIntervalMs 为与上一次 R 波的间隔，第一次检测到时为 0
+        void onBeat(long rPeakTimestamp, int rrIntervalMs);
+    }
+
+    private static final float LEARNING_SECONDS = 2f;
+    private static final float REFRACTORY_SECONDS = 0.2f;
+    private static final float INTEGRATION_SECONDS = 0.15f;
+    private static final int RR_AVERAGE_COUNT = 8;
+
+    private final int sampleRate;
+    private final Listener listener;
+
+    // 一阶高通去除基线漂移
+    private final float highPassAlpha;
+    private float highPassPrevIn;
+    private float highPassPrevOut;
+
+    // 五点差分，按 200 Hz 的间隔换算为 step 个采样
+    private final int step;
+    private final float[] derivativeHistory;
+    private int derivativePos;
+
+    // 滑动窗口积分
+    private final float[] integrationWindow;
+    private int integrationPos;
+    private double integrationSum;
+
+    // 高通后信号的历史，用于回溯定位 R 波
+    private final float[] signalHistory;
+
+    // 积分信号的局部峰检测
+    private float mwiPrev;
+    private float mwiPrevPrev;
+
+    // 自适应阈值
+    private final long learningSamples;
+    private float learningMax;
+    private double learningSum;
+    private float signalPeak;
+    private float noisePeak;
+    private float threshold;
+
+    // 回溯检测：上次 R 波之后最大的噪声峰及其对应的 R 波位置
+    private float searchBackPeak;
+    private long searchBackIndex = -1;
+    private long searchBackRPeak = -1;
+
+    private long sampleIndex;           // 已处理的采样数
+    private long lastRIndex = -1;       // 上一次 QRS 在积分信号上的位置
+    private long lastRPeakIndex = -1;   // 上一次 R 波在原始信号上的位置
+    private final int refractorySamples;
+
+    // 采样序号到时间的换算，取自最近的数据块
+    private long blockStartIndex;
+    private long blockStartTimestamp;
+
+    private final int[] rrIntervals = new int[RR_AVERAGE_COUNT];
+    private int rrCount;
+    private int rrPos;
+    private int averageRrMs;
+    private volatile int heartRate;
+    private volatile long beatCount;
+
+    public QrsDetector(int sampleRate, Listener listener) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.listener = listener;
+
+        float rc = 1f / (2f * (float) Math.PI * 0.5f);
+        float dt = 1f / sampleRate;
+        highPassAlpha = rc / (rc + dt);
+
+        step = Math.max(1, Math.round(sampleRate / 200f));
+        derivativeHistory = new float[4 * step + 1];
+
+        int integrationLength = Math.max(1, Math.round(INTEGRATION_SECONDS * sampleRate));
+        integrationWindow = new float[integrationLength];
+        signalHistory = new float[integrationLength + 4 * step + 1];
+
+        learningSamples = Math.round(LEARNING_SECONDS * sampleRate);
+        refractorySamples = Math.round(REFRACTORY_SECONDS * sampleRate);
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    // 最近 8 个 RR 间期对应的心率 (bpm)，尚未检测到两次心跳时为 0
+    public int getHeartRate() {
+        return heartRate;
+    }
+
+    public long getBeatCount() {
+        return beatCount;
+    }
+
+    public void reset() {
+        highPassPrevIn = highPassPrevOut = 0f;
+        Arrays.fill(derivativeHistory, 0f);
+        Arrays.fill(integrationWindow, 0f);
+        Arrays.fill(signalHistory, 0f);
+        derivativePos = integrationPos = 0;
+        integrationSum = 0;
+        mwiPrev = mwiPrevPrev = 0f;
+        learningMax = 0f;
+        learningSum = 0;
+        signalPeak = noisePeak = threshold = 0f;
+        searchBackPeak = 0f;
+        searchBackIndex = searchBackRPeak = -1;
+        sampleIndex = 0;
+        lastRIndex = lastRPeakIndex = -1;
+        rrCount = rrPos = averageRrMs = 0;
+        heartRate = 0;
+        beatCount = 0;
+    }
+
+    public void process(EcgBlock block) {
+        blockStartIndex = sampleIndex;
+        blockStartTimestamp = block.getStartTimestamp();
+        process(block.getSamples(), 0, block.getLength());
+    }
+
+    public void process(float[] samples, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            processSample(samples[offset + i]);
+        }
+    }
+
+    private void processSample(float x) {
+        // 高通
+        float hp = highPassAlpha * (highPassPrevOut + x - highPassPrevIn);
+        highPassPrevIn = x;
+        highPassPrevOut = hp;
+        signalHistory[(int) (sampleIndex % signalHistory.length)] = hp;
+
+        // 五点差分 (2x[n] + x[n-s] - x[n-3s] - 2x[n-4s]) / 8
+        derivativeHistory[derivativePos] = hp;
+        int len = derivativeHistory.length;
+        float d = (2f * hp
+                + derivativeHistory[(derivativePos - step + len) % len]
+                - derivativeHistory[(derivativePos - 3 * step + len) % len]
+                - 2f * derivativeHistory[(derivativePos - 4 * step + len) % len]) / 8f;
+        derivativePos = (derivativePos + 1) % len;
+
+        // 平方并做滑动窗口积分
+        float squared = d * d * sampleRate;
+        integrationSum += squared - integrationWindow[integrationPos];
+        integrationWindow[integrationPos] = squared;
+        integrationPos = (integrationPos + 1) % integrationWindow.length;
+        float mwi = (float) (integrationSum / integrationWindow.length);
+
+        if (sampleIndex < learningSamples) {
+            // 学习阶段只统计积分信号的幅度
+            learningMax = Math.max(learningMax, mwi);
+            learningSum += mwi;
+            if (sampleIndex == learningSamples - 1) {
+                signalPeak = learningMax / 3f;
+                noisePeak = (float) (learningSum / learningSamples) / 2f;
+                updateThreshold();
+            }
+        } else if (mwiPrev > mwiPrevPrev && mwiPrev >= mwi) {
+            onIntegratedPeak(mwiPrev, sampleIndex - 1);
+        }
+        mwiPrevPrev = mwiPrev;
+        mwiPrev = mwi;
+
+        // 超过平均 RR 的 1.66 倍仍未检测到心跳时，用半阈值回溯最大的噪声峰
+        long averageRr = (long) averageRrMs * sampleRate / 1000;
+        if (averageRr > 0 && lastRIndex >= 0 && searchBackIndex > lastRIndex
+                && sampleIndex - lastRIndex > averageRr * 166 / 100
+                && searchBackPeak > threshold / 2f) {
+            signalPeak = 0.25f * searchBackPeak + 0.75f * signalPeak;
+            updateThreshold();
+            acceptBeat(searchBackIndex, searchBackRPeak);
+        }
+
+        sampleIndex++;
+    }
+
+    private void onIntegratedPeak(float peak, long index) {
+        boolean refractory = lastRIndex >= 0 && index - lastRIndex < refractorySamples;
+        if (peak > threshold && !refractory) {
+            signalPeak = 0.125f * peak + 0.875f * signalPeak;
+            updateThreshold();
+            acceptBeat(index, locateRPeak());
+        } else if (!refractory) {
+            noisePeak = 0.125f * peak + 0.875f * noisePeak;
+            updateThreshold();
+            if (peak > searchBackPeak || searchBackIndex <= lastRIndex) {
+                searchBackPeak = peak;
+                searchBackIndex = index;
+                searchBackRPeak = locateRPeak();
+            }
+        }
+    }
+
+    private void updateThreshold() {
+        threshold = noisePeak + 0.25f * (signalPeak - noisePeak);
+    }
+
+    // 在积分窗口和差分延迟覆盖的范围内找绝对值最大的采样作为 R 波
+    private long locateRPeak() {
+        long from = Math.max(0, sampleIndex - signalHistory.length + 1);
+        long peakIndex = from;
+        float peakValue = -1f;
+        for (long i = from; i <= sampleIndex; i++) {
+            float v = Math.abs(signalHistory[(int) (i % signalHistory.length)]);
+            if (v > peakValue) {
+                peakValue = v;
+                peakIndex = i;
+            }
+        }
+        return peakIndex;
+    }
+
+    private void acceptBeat(long mwiIndex, long peakIndex) {
+        lastRIndex = mwiIndex;
+        searchBackPeak = 0f;
+        searchBackIndex = -1;
+
+        if (lastRPeakIndex >= 0 && peakIndex - lastRPeakIndex < refractorySamples) {
+            return;
+        }
+
+        int rrMs = 0;
+        if (lastRPeakIndex >= 0) {
+            rrMs = (int) ((peakIndex - lastRPeakIndex) * 1000 / sampleRate);
+            rrIntervals[rrPos] = rrMs;
+            rrPos = (rrPos + 1) % RR_AVERAGE_COUNT;
+            if (rrCount < RR_AVERAGE_COUNT) {
+                rrCount++;
+            }
+            int sum = 0;
+            for (int i = 0; i < rrCount; i++) {
+                sum += rrIntervals[i];
+            }
+            averageRrMs = sum / rrCount;
+            heartRate = averageRrMs > 0 ? Math.round(60000f / averageRrMs) : 0;
+        }
+        lastRPeakIndex = peakIndex;
+        beatCount++;
+
+        if (listener != null) {
+            long timestamp = blockStartTimestamp + (peakIndex - blockStartIndex) * 1000 / sampleRate;
+            listener.onBeat(timestamp, rrMs);
+        }
+    }
+}
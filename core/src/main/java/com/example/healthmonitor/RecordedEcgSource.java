@@ -0,0 +1,130 @@
+package com.example.healthmonitor;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 回放本应用记录的会话（SessionLog 格式）中的心电数据，保留原始时间戳。
+ * 通过 SessionLogReader 按顺序读取各分段（原格式或紧凑格式）的心电记录，跳过体征和事件记录；
+ * 同一时间只打开一个分段。读取出错时按数据结束处理，错误可由 getFailure() 查询。
+ */
+public class RecordedEcgSource implements EcgSource {
+    private final File directory;
+    private final long sessionStart;
+    private final int segments;
+    private SessionLogReader reader;    // 当前分段，未打开时为 null
+    private int segment;
+    private int consumed;               // 当前心电记录中已读取的采样数
+    private boolean positioned;         // 是否已停在一条心电记录上
+    private IOException failure;
+
+    public RecordedEcgSource(File directory, long sessionStart) throws IOException {
+        int count = 0;
+        while (SessionLog.segmentExists(directory, sessionStart, count)) {
+            count++;
+        }
+        if (count == 0) {
+            throw new IOException("No session " + sessionStart + " in " + directory);
+        }
+        this.directory = directory;
+        this.sessionStart = sessionStart;
+        this.segments = count;
+        // 打开的分段停在分段头之后
+        reader = SessionLogReader.open(directory, sessionStart, 0);
+    }
+
+    // 读取分段时遇到的错误，没有错误时为 null
+    public IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return advance() ? reader.getArg() : 0;
+    }
+
+    @Override
+    public int read(EcgBlock block, int maxSamples) {
+        if (!advance()) {
+            block.setLength(0);
+            return 0;
+        }
+        int rate = reader.getArg();
+        int available = reader.getCount() - consumed;
+        int count = Math.min(Math.min(maxSamples, block.getCapacity()), available);
+        float[] samples = block.getSamples();
+        for (int i = 0; i < count; i++) {
+            samples[i] = reader.getValue(consumed + i);
+        }
+        block.setSampleRate(rate);
+        block.setStartTimestamp(reader.getTimestamp() + consumed * 1000L / rate);
+        block.setLength(count);
+        consumed += count;
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        consumed = 0;
+        failure = null;
+        try {
+            switchTo(0);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // 停在下一条还有未读采样的心电记录上，没有时返回 false
+    private boolean advance() {
+        if (positioned && consumed < reader.getCount()) {
+            return true;
+        }
+        try {
+            while (reader != null) {
+                while (reader.next()) {
+                    if (reader.getType() == SessionLog.TYPE_ECG && reader.getCount() > 0) {
+                        positioned = true;
+                        consumed = 0;
+                        return true;
+                    }
+                }
+                positioned = false;
+                if (segment + 1 >= segments) {
+                    return false;
+                }
+                switchTo(segment + 1);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+        return false;
+    }
+
+    // 关闭当前分段，打开第 next 个分段并停在分段头之后
+    private void switchTo(int next) throws IOException {
+        positioned = false;
+        if (reader != null && segment == next) {
+            reader.seek(1);
+            return;
+        }
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        reader = SessionLogReader.open(directory, sessionStart, next);
+        segment = next;
+    }
+
+    private void fail(IOException e) {
+        failure = e;
+        positioned = false;
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+                // 已经按数据结束处理
+            }
+            reader = null;
+        }
+    }
+}
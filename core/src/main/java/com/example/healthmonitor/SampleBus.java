@@ -0,0 +1,259 @@
+package com.example.healthmonitor;
+
+/**
+ * 心电采样的多消费者总线：挂在 EcgStage 上，把每个数据块分发到各订阅者自己的环形缓冲区。
+ *
+ * 每个订阅者选择一种策略：
+ * FULL_RATE 接收全部采样（记录、检测、报警）；DECIMATED 按最高采样率抽取（界面按显示速率读取）；
+ * LATEST_ONLY 只保留最新一个采样（状态小部件）。
+ *
+ * 缓冲区在订阅时一次分配，生产线程（单写者）写入后以序号发布，订阅者在各自的线程上按自己的节奏读取。
+ * 缓冲区满时新采样不写入，计入该订阅者的 getDropped()；LATEST_ONLY 被新值覆盖的采样计入 getSkipped()。
+ * 生产线程从不等待消费者。
+ */
+public class SampleBus implements EcgStreamListener {
+    public enum Policy { FULL_RATE, DECIMATED, LATEST_ONLY }
+
+    // 订阅者数组写时复制，分发时不创建迭代器
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private volatile long published;
+
+    // 接收全部采样，capacity 为缓冲区能容纳的采样数
+    public Subscription subscribeFullRate(int capacity) {
+        return add(new Subscription(Policy.FULL_RATE, 0, capacity));
+    }
+
+    // 抽取到不超过 maxSampleRate，例如 1000 Hz 的数据流按 250 Hz 读取时每 4 个采样取 1 个
+    public Subscription subscribeDecimated(int maxSampleRate, int capacity) {
+        if (maxSampleRate <= 0) {
+            throw new IllegalArgumentException("maxSampleRate " + maxSampleRate);
+        }
+        return add(new Subscription(Policy.DECIMATED, maxSampleRate, capacity));
+    }
+
+    // 只保留最新一个采样
+    public Subscription subscribeLatest() {
+        return add(new Subscription(Policy.LATEST_ONLY, 0, 1));
+    }
+
+    public synchronized void unsubscribe(Subscription subscription) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i] == subscription) {
+                Subscription[] next = new Subscription[subscriptions.length - 1];
+                System.arraycopy(subscriptions, 0, next, 0, i);
+                System.arraycopy(subscriptions, i + 1, next, i, subscriptions.length - i - 1);
+                subscriptions = next;
+                return;
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    // 累计发布的采样数，即下一个采样的序号
+    public long getPublished() {
+        return published;
+    }
+
+    private synchronized Subscription add(Subscription subscription) {
+        Subscription[] next = new Subscription[subscriptions.length + 1];
+        System.arraycopy(subscriptions, 0, next, 0, subscriptions.length);
+        next[subscriptions.length] = subscription;
+        subscriptions = next;
+        return subscription;
+    }
+
+    // 只能在数据生产线程上调用
+    @Override
+    public void onEcgBlock(EcgBlock block) {
+        Subscription[] current = subscriptions;
+        for (Subscription subscription : current) {
+            subscription.write(block);
+        }
+        published += block.getLength();
+    }
+
+    /**
+     * 一个订阅者的缓冲区和计数。read 和 clear 只能在同一个消费线程上调用，计数可在任意线程读取。
+     */
+    public static final class Subscription {
+        private final Policy policy;
+        private final int maxSampleRate;
+        private final int mask;
+        private final float[] samples;
+        private final long[] timestamps;
+        private final int[] rates;
+        // head 由生产线程写，tail 由消费线程写；两者都是单调递增的采样序号
+        private volatile long head;
+        private volatile long tail;
+        private volatile long dropped;
+        private volatile long skipped;
+        private volatile long delivered;
+        // 抽取相位，只在生产线程上访问
+        private int phase;
+
+        Subscription(Policy policy, int maxSampleRate, int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity " + capacity);
+            }
+            int size = Integer.highestOneBit(capacity);
+            if (size < capacity) {
+                size <<= 1;
+            }
+            this.policy = policy;
+            this.maxSampleRate = maxSampleRate;
+            mask = size - 1;
+            samples = new float[size];
+            timestamps = new long[size];
+            rates = new int[size];
+        }
+
+        public Policy getPolicy() {
+            return policy;
+        }
+
+        // 缓冲区容量，向上取整到 2 的幂
+        public int getCapacity() {
+            return samples.length;
+        }
+
+        // 尚未读取的采样数，LATEST_ONLY 最多为 1
+        public int available() {
+            int count = (int) (head - tail);
+            return policy == Policy.LATEST_ONLY ? Math.min(count, 1) : count;
+        }
+
+        // 已读取的采样数
+        public long getDelivered() {
+            return delivered;
+        }
+
+        // 缓冲区满而没有写入的采样数
+        public long getDropped() {
+            return dropped;
+        }
+
+        // 按策略跳过的采样数：LATEST_ONLY 被覆盖的和 clear 丢弃的
+        public long getSkipped() {
+            return skipped;
+        }
+
+        // 把未读取的采样读入 out，返回读取的采样数，没有新数据时返回 0。
+        // 一次只读取采样率相同的连续采样，out 的采样率为抽取后的采样率
+        public int read(EcgBlock out) {
+            if (policy == Policy.LATEST_ONLY) {
+                return readLatest(out);
+            }
+            long from = tail;
+            int count = (int) Math.min(head - from, out.getCapacity());
+            if (count == 0) {
+                return 0;
+            }
+            float[] target = out.getSamples();
+            int first = (int) from & mask;
+            int rate = rates[first];
+            int length = 0;
+            while (length < count) {
+                int index = (int) (from + length) & mask;
+                if (rates[index] != rate) {
+                    break;
+                }
+                target[length++] = samples[index];
+            }
+            out.setStartTimestamp(timestamps[first]);
+            out.setSampleRate(rate);
+            out.setLength(length);
+            tail = from + length;
+            delivered += length;
+            return length;
+        }
+
+        // 丢弃未读取的采样，计入 getSkipped()；例如界面暂停后恢复时从最新数据开始
+        public void clear() {
+            long from = tail;
+            long to = head;
+            tail = to;
+            skipped += to - from;
+        }
+
+        private int readLatest(EcgBlock out) {
+            float sample;
+            long timestamp;
+            int rate;
+            long version;
+            synchronized (this) {
+                version = head;
+                if (version == tail) {
+                    return 0;
+                }
+                sample = samples[0];
+                timestamp = timestamps[0];
+                rate = rates[0];
+            }
+            out.getSamples()[0] = sample;
+            out.setStartTimestamp(timestamp);
+            out.setSampleRate(rate);
+            out.setLength(1);
+            // 读取之前被新值覆盖的采样
+            skipped += version - tail - 1;
+            tail = version;
+            delivered++;
+            return 1;
+        }
+
+        // 生产线程上调用
+        void write(EcgBlock block) {
+            int length = block.getLength();
+            if (length == 0) {
+                return;
+            }
+            if (policy == Policy.LATEST_ONLY) {
+                // 只有一个槽位，与读取互斥；每个数据块加锁一次，没有竞争时开销很小
+                synchronized (this) {
+                    samples[0] = block.getLastSample();
+                    timestamps[0] = block.getSampleTimestamp(length - 1);
+                    rates[0] = block.getSampleRate();
+                    head += length;
+                }
+                return;
+            }
+
+            int rate = block.getSampleRate();
+            int step = 1;
+            if (policy == Policy.DECIMATED && rate > maxSampleRate) {
+                step = (rate + maxSampleRate - 1) / maxSampleRate;
+            }
+            int outputRate = rate / step;
+            float[] source = block.getSamples();
+            long position = head;
+            long limit = tail + samples.length;
+            long lost = 0;
+            for (int i = 0; i < length; i++) {
+                if (step > 1) {
+                    if (phase != 0) {
+                        phase = phase + 1 < step ? phase + 1 : 0;
+                        continue;
+                    }
+                    phase = 1;
+                }
+                if (position == limit) {
+                    lost++;
+                    continue;
+                }
+                int index = (int) position & mask;
+                samples[index] = source[i];
+                timestamps[index] = block.getSampleTimestamp(i);
+                rates[index] = outputRate;
+                position++;
+            }
+            if (lost > 0) {
+                dropped += lost;
+                HealthMetrics.BUS_DROPPED.add(lost);
+            }
+            // 写入数据之后再发布序号，消费线程读到新的 head 时一定能看到对应的采样
+            head = position;
+        }
+    }
+}
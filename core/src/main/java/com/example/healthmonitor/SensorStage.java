@@ -0,0 +1,84 @@
+package com.example.healthmonitor;
+
+/**
+ * 一个传感器的数据生产阶段，由对应的模块开关启动和停止。
+ * 停止后不再占用调度线程，所有阶段都停止时进程没有任何周期性唤醒。
+ */
+public abstract class SensorStage {
+    private final long periodMs;
+    private final Runnable tickTask = new Runnable() {
+        @Override
+        public void run() {
+            boolean measure = HealthMetrics.REGISTRY.isEnabled();
+            long startNanos = measure ? clock.nanoTime() : 0;
+            if (restartPending) {
+                restartPending = false;
+                nextDueNanos = 0;
+                onStart();
+            }
+            tick();
+            if (measure) {
+                record(startNanos);
+            } else {
+                nextDueNanos = 0;
+            }
+        }
+    };
+    // 下一次 tick 的计划时间 (ns)，0 表示从下一次 tick 开始重新计时；只在调度线程上访问
+    private long nextDueNanos;
+    private TaskScheduler.Cancellable task;
+    private volatile boolean restartPending = false;
+    private volatile Clock clock = Clock.SYSTEM;
+
+    protected SensorStage(long periodMs) {
+        this.periodMs = periodMs;
+    }
+
+    public long getPeriodMs() {
+        return periodMs;
+    }
+
+    public synchronized void start(TaskScheduler scheduler) {
+        if (task != null) {
+            return;
+        }
+        clock = scheduler.getClock();
+        // onStart() 放到调度线程上执行，避免与 tick() 并发
+        restartPending = true;
+        task = scheduler.scheduleAtFixedRate(tickTask, periodMs);
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return task != null;
+    }
+
+    // 当前调度器的时钟，数据时间戳都取自这里
+    protected Clock getClock() {
+        return clock;
+    }
+
+    // 记录相对固定周期计划时间的延迟和本次耗时
+    private void record(long startNanos) {
+        if (nextDueNanos != 0) {
+            HealthMetrics.STAGE_TICK_LATENESS.record(startNanos - nextDueNanos);
+            nextDueNanos += periodMs * 1_000_000L;
+        } else {
+            nextDueNanos = startNanos + periodMs * 1_000_000L;
+        }
+        HealthMetrics.STAGE_TICKS.increment();
+        HealthMetrics.STAGE_TICK_TIME.record(clock.nanoTime() - startNanos);
+    }
+
+    // 每次启动后、第一次 tick() 之前在调度线程上调用
+    protected void onStart() {
+    }
+
+    protected abstract void tick();
+}
@@ -0,0 +1,73 @@
+package com.example.healthmonitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * 把写完的会话分段压缩为紧凑分段（格式见 SessionLog），成功后删除原分段。
+ * 心电采样按 5 µV 量化后差分编码，约 1 字节/采样；体征和事件按列做差分游程编码。
+ * 先写临时文件再改名，中途失败或崩溃时原分段保持不变，仍可正常读取。
+ *
+ * 编码缓冲区在对象内复用，一个对象只在一个线程上使用（会话记录器的写线程）。
+ */
+public class SessionCompactor {
+    private final CompactChunk chunk = new CompactChunk();
+    private final ByteBuffer buffer = ByteBuffer.allocate(CompactChunk.MAX_ENCODED_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    // 压缩一个已关闭的分段，返回紧凑分段文件
+    public File compact(File directory, long sessionStart, int segment) throws IOException {
+        File raw = SessionLog.segmentFile(directory, sessionStart, segment);
+        File target = SessionLog.compactFile(directory, sessionStart, segment);
+        File temp = new File(target.getPath() + ".tmp");
+        try (SessionLogReader reader = new SessionLogReader(raw);
+             RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            long records = reader.getRecordCount();
+            int chunks = (int) ((records - 1 + CompactChunk.CAPACITY - 1) / CompactChunk.CAPACITY);
+            ByteBuffer header = ByteBuffer.allocate(SessionLog.COMPACT_HEADER_SIZE + chunks * 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, SessionLog.COMPACT_MAGIC);
+            header.putInt(4, SessionLog.FORMAT_VERSION);
+            header.putInt(8, segment);
+            header.putLong(12, sessionStart);
+            header.putInt(20, (int) records);
+            header.putInt(24, chunks);
+            channel.position(header.capacity());
+            for (int c = 0; c < chunks; c++) {
+                header.putInt(SessionLog.COMPACT_HEADER_SIZE + c * 4, (int) channel.position());
+                chunk.clear();
+                while (!chunk.isFull() && reader.next()) {
+                    chunk.add(reader);
+                }
+                buffer.clear();
+                chunk.encode(buffer);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Cannot rename " + temp + " to " + target);
+        }
+        // 紧凑分段已就绪，读取时优先使用；删除失败只是多占空间
+        if (!raw.delete()) {
+            throw new IOException("Cannot delete " + raw);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.healthmonitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 一个记录会话的时间索引和事件标注。
+ *
+ * 记录器的写线程在写入记录时同步更新索引，并在切换分段和结束时保存到索引文件；
+ * 索引文件记录了它覆盖到的位置，open() 加载后只需扫描其后写入的记录。
+ * 索引文件缺失或损坏（例如崩溃）时从分段文件完整重建。
+ * 构建在一个线程上进行，建好之后只读，可以在任意线程查询。
+ */
+public class SessionIndex {
+    // 每隔多久（记录时间）添加一个索引项，seek 后最多向后扫描这么长的记录
+    public static final long INDEX_INTERVAL_MS = 1000;
+
+    private static final int INDEX_MAGIC = 0x484d5349;    // "HMSI"
+
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final AnnotationStore[] events = new AnnotationStore[SessionLog.EVENT_TYPE_COUNT];
+    // 已索引到的位置：分段序号和该分段中已处理的记录数
+    private int coveredSegment;
+    private long coveredRecords;
+
+    public SessionIndex() {
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new AnnotationStore();
+        }
+    }
+
+    public TimeIndex getTimeIndex() {
+        return timeIndex;
+    }
+
+    // 指定类型（SessionLog.EVENT_*）的事件标注
+    public AnnotationStore getEvents(int eventType) {
+        if (eventType < 0 || eventType >= events.length) {
+            throw new IllegalArgumentException("event type " + eventType);
+        }
+        return events[eventType];
+    }
+
+    // 时间 time 之前最近的索引位置，见 TimeIndex.seek()
+    public long seek(long time) {
+        return timeIndex.seek(time);
+    }
+
+    // 处理一条记录，必须按写入顺序调用
+    public void onRecord(int segment, long record, byte type, int arg, long timestamp, float value) {
+        coveredSegment = segment;
+        coveredRecords = record + 1;
+        if (type == SessionLog.TYPE_SEGMENT) {
+            return;
+        }
+        if (type == SessionLog.TYPE_EVENT) {
+            if (arg >= 0 && arg < events.length) {
+                events[arg].add(timestamp, value);
+            }
+            return;
+        }
+        long last = timeIndex.getLastTime();
+        if (timeIndex.size() == 0 || timestamp >= last + INDEX_INTERVAL_MS) {
+            timeIndex.add(timestamp, TimeIndex.position(segment, record));
+        }
+    }
+
+    // 先写临时文件再改名，崩溃时不会留下写了一半的索引
+    public void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(SessionLog.FORMAT_VERSION);
+            out.writeInt(coveredSegment);
+            out.writeLong(coveredRecords);
+            out.writeInt(timeIndex.size());
+            for (int i = 0; i < timeIndex.size(); i++) {
+                out.writeLong(timeIndex.getTime(i));
+                out.writeLong(timeIndex.getPosition(i));
+            }
+            out.writeInt(events.length);
+            for (AnnotationStore store : events) {
+                out.writeInt(store.size());
+                for (int i = 0; i < store.size(); i++) {
+                    out.writeLong(store.getTime(i));
+                    out.writeFloat(store.getValue(i));
+                }
+            }
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Cannot rename " + temp + " to " + file);
+        }
+    }
+
+    // 加载会话的索引文件并补上其后写入的记录；索引文件不可用时从分段文件重建
+    public static SessionIndex open(File directory, long sessionStart) throws IOException {
+        SessionIndex index = new SessionIndex();
+        File file = SessionLog.indexFile(directory, sessionStart);
+        if (file.exists() && !index.load(file)) {
+            index = new SessionIndex();
+        }
+        index.catchUp(directory, sessionStart);
+        return index;
+    }
+
+    // 忽略索引文件，从分段文件完整重建
+    public static SessionIndex rebuild(File directory, long sessionStart) throws IOException {
+        SessionIndex index = new SessionIndex();
+        index.catchUp(directory, sessionStart);
+        return index;
+    }
+
+    private boolean load(File file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != SessionLog.FORMAT_VERSION) {
+                return false;
+            }
+            coveredSegment = in.readInt();
+            coveredRecords = in.readLong();
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                timeIndex.add(in.readLong(), in.readLong());
+            }
+            int types = in.readInt();
+            if (types != events.length) {
+                return false;
+            }
+            for (AnnotationStore store : events) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    store.add(in.readLong(), in.readFloat());
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void catchUp(File directory, long sessionStart) throws IOException {
+        for (int segment = coveredSegment; ; segment++) {
+            if (!SessionLog.segmentExists(directory, sessionStart, segment)) {
+                return;
+            }
+            try (SessionLogReader reader = SessionLogReader.open(directory, sessionStart, segment)) {
+                long start = segment == coveredSegment ? Math.max(1, coveredRecords) : 1;
+                reader.seek(start);
+                while (reader.next()) {
+                    onRecord(segment, reader.getRecordIndex(), reader.getType(), reader.getArg(),
+                            reader.getTimestamp(), reader.getValue(0));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.healthmonitor;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * 会话记录文件格式。每个分段文件由定长记录组成，小端字节序，每条记录 RECORD_SIZE 字节：
+ *
+ * <pre>
+ * 0   byte  type       记录类型 TYPE_*
+ * 1   byte  reserved
+ * 2   short count      有效载荷中的数值个数
+ * 4   int   arg        心电为采样率，体温/心率/血氧为 Module 序号，事件为 EVENT_*，分段头为分段序号
+ * 8   long  timestamp  第一个采样或该帧的时间 (ms)，分段头为会话开始时间
+ * 16  float[64]        有效载荷
+ * </pre>
+ *
+ * 每个分段的第一条记录是分段头，载荷第一个 int 为 MAGIC。
+ * 心电记录装满连续的采样后才写入，时间戳可能早于排在它前面的体征和事件记录，相差不超过一条记录的时长。
+ * 定长记录意味着第 n 条记录的位置为 n * RECORD_SIZE，崩溃后截断的尾部记录可以直接丢弃。
+ *
+ * 写完的分段由 SessionCompactor 压缩为紧凑分段（compactFile），之后删除原分段。紧凑分段保留记录序号，
+ * 索引中的位置仍然有效；SessionLogReader 读取两种格式，读出的记录与原分段相同（数值在编码分辨率以内）。
+ *
+ * <pre>
+ * 0   int   COMPACT_MAGIC
+ * 4   int   FORMAT_VERSION
+ * 8   int   分段序号
+ * 12  long  会话开始时间
+ * 20  int   记录条数，含分段头
+ * 24  int   块数
+ * 28  int[] 各块在文件中的位置
+ * </pre>
+ *
+ * 分段头之后的记录每 COMPACT_CHUNK_RECORDS 条编码为一块，块内按列存放：
+ * 记录条数 (varint)、类型 (每条 1 字节)、数值个数、arg、心电和事件记录的时间戳（DeltaRunLengthCodec），
+ * 心电采样总数 (varint) 和全部心电采样（EcgSampleCodec），体征记录（VitalsColumns），
+ * 事件数值的位模式（DeltaRunLengthCodec）。
+ */
+public final class SessionLog {
+    public static final int MAGIC = 0x484d5331;    // "HMS1"
+    public static final int FORMAT_VERSION = 1;
+    public static final int COMPACT_MAGIC = 0x484d4331;    // "HMC1"
+    public static final int COMPACT_CHUNK_RECORDS = 256;
+    public static final int COMPACT_HEADER_SIZE = 28;
+
+    public static final int HEADER_SIZE = 16;
+    public static final int PAYLOAD_VALUES = 64;
+    public static final int RECORD_SIZE = HEADER_SIZE + PAYLOAD_VALUES * 4;
+
+    public static final byte TYPE_SEGMENT = 0;
+    public static final byte TYPE_ECG = 1;
+    public static final byte TYPE_VITALS = 2;
+    public static final byte TYPE_EVENT = 3;
+
+    // 事件类型，载荷第一个数值为事件参数
+    public static final int EVENT_R_PEAK = 0;          // RR 间期 (ms)
+    public static final int EVENT_ALARM = 1;           // 报警代码
+    public static final int EVENT_MODULE = 2;          // 切换后的模块位掩码
+    public static final int EVENT_DEVICE_POWER = 3;    // 1 开机，0 关机
+    public static final int EVENT_TYPE_COUNT = 4;
+
+    public static final int OFFSET_TYPE = 0;
+    public static final int OFFSET_COUNT = 2;
+    public static final int OFFSET_ARG = 4;
+    public static final int OFFSET_TIMESTAMP = 8;
+    public static final int OFFSET_PAYLOAD = HEADER_SIZE;
+
+    // 体温/心率/血氧帧载荷中各字段的位置
+    public static final int VITAL_TEMPERATURE = 0;
+    public static final int VITAL_HEART_RATE = 1;
+    public static final int VITAL_HEART_RATE_MAX = 2;
+    public static final int VITAL_HEART_RATE_MIN = 3;
+    public static final int VITAL_BLOOD_OXYGEN = 4;
+    public static final int VITAL_HEART_RATE_MEAN = 5;
+    public static final int VITAL_HEART_RATE_STD_DEV = 6;
+    public static final int VITAL_TEMPERATURE_MEAN = 7;
+    public static final int VITAL_BLOOD_OXYGEN_MEAN = 8;
+    public static final int VITAL_VALUE_COUNT = 9;
+
+    private static final String SEGMENT_PREFIX = "session-";
+    private static final String SEGMENT_SUFFIX = ".rec";
+    private static final String COMPACT_SUFFIX = ".recz";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private SessionLog() {
+    }
+
+    public static File segmentFile(File directory, long sessionStart, int segment) {
+        return new File(directory, String.format(Locale.US, "%s%d-%04d%s",
+                SEGMENT_PREFIX, sessionStart, segment, SEGMENT_SUFFIX));
+    }
+
+    public static File compactFile(File directory, long sessionStart, int segment) {
+        return new File(directory, String.format(Locale.US, "%s%d-%04d%s",
+                SEGMENT_PREFIX, sessionStart, segment, COMPACT_SUFFIX));
+    }
+
+    // 分段以原格式或紧凑格式存在
+    public static boolean segmentExists(File directory, long sessionStart, int segment) {
+        return compactFile(directory, sessionStart, segment).exists()
+                || segmentFile(directory, sessionStart, segment).exists();
+    }
+
+    // 会话的时间索引和事件标注，可由分段文件重建
+    public static File indexFile(File directory, long sessionStart) {
+        return new File(directory, SEGMENT_PREFIX + sessionStart + INDEX_SUFFIX);
+    }
+
+    // 在 buffer 的 position 处写入记录头，载荷由调用方填写
+    static void putHeader(ByteBuffer buffer, int position, byte type, int count, int arg, long timestamp) {
+        buffer.put(position + OFFSET_TYPE, type);
+        buffer.put(position + OFFSET_TYPE + 1, (byte) 0);
+        buffer.putShort(position + OFFSET_COUNT, (short) count);
+        buffer.putInt(position + OFFSET_ARG, arg);
+        buffer.putLong(position + OFFSET_TIMESTAMP, timestamp);
+    }
+
+    static void putEvent(ByteBuffer buffer, int position, int event, long timestamp, float value) {
+        putHeader(buffer, position, TYPE_EVENT, 1, event, timestamp);
+        buffer.putFloat(position + OFFSET_PAYLOAD, value);
+    }
+
+    static void putVitals(ByteBuffer buffer, int position, Module source, HealthData frame) {
+        putHeader(buffer, position, TYPE_VITALS, VITAL_VALUE_COUNT, source.ordinal(), frame.getTimestamp());
+        int p = position + OFFSET_PAYLOAD;
+        buffer.putFloat(p + VITAL_TEMPERATURE * 4, frame.getTemperature());
+        buffer.putFloat(p + VITAL_HEART_RATE * 4, frame.getHeartRate());
+        buffer.putFloat(p + VITAL_HEART_RATE_MAX * 4, frame.getHeartRateMax());
+        buffer.putFloat(p + VITAL_HEART_RATE_MIN * 4, frame.getHeartRateMin());
+        buffer.putFloat(p + VITAL_BLOOD_OXYGEN * 4, frame.getBloodOxygen());
+        buffer.putFloat(p + VITAL_HEART_RATE_MEAN * 4, frame.getHeartRateMean());
+        buffer.putFloat(p + VITAL_HEART_RATE_STD_DEV * 4, frame.getHeartRateStdDev());
+        buffer.putFloat(p + VITAL_TEMPERATURE_MEAN * 4, frame.getTemperatureMean());
+        buffer.putFloat(p + VITAL_BLOOD_OXYGEN_MEAN * 4, frame.getBloodOxygenMean());
+    }
+}
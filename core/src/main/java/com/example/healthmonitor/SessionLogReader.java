@@ -0,0 +1,181 @@
+package com.example.healthmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 按顺序读取一个会话记录分段。next() 把下一条完整记录读入内部缓冲区，
+ * 不完整的尾部记录（写入中途崩溃）会被忽略。读取过程复用同一个缓冲区。
+ * 紧凑分段（见 SessionLog）按块解码后还原为同样的记录，记录序号与原分段一致。
+ */
+public class SessionLogReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(SessionLog.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long recordIndex = -1;
+    // 以下字段仅用于紧凑分段，原分段时 compact 为 null
+    private final MappedByteBuffer compact;
+    private final CompactChunk chunk;
+    private long compactRecords;
+    private int decodedChunk = -1;
+
+    public SessionLogReader(File segment) throws IOException {
+        channel = new FileInputStream(segment).getChannel();
+        try {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            boolean isCompact = channel.read(magic, 0) == 4 && magic.getInt(0) == SessionLog.COMPACT_MAGIC;
+            compact = isCompact ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) : null;
+            chunk = isCompact ? new CompactChunk() : null;
+            if (isCompact) {
+                openCompact(segment);
+            }
+            if (!next() || getType() != SessionLog.TYPE_SEGMENT
+                    || record.getInt(SessionLog.OFFSET_PAYLOAD) != SessionLog.MAGIC) {
+                throw new IOException("Not a session log segment: " + segment);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // 打开会话的第 segment 个分段，已压缩时读取紧凑分段
+    public static SessionLogReader open(File directory, long sessionStart, int segment) throws IOException {
+        File compactFile = SessionLog.compactFile(directory, sessionStart, segment);
+        if (!compactFile.exists()) {
+            try {
+                return new SessionLogReader(SessionLog.segmentFile(directory, sessionStart, segment));
+            } catch (FileNotFoundException e) {
+                // 恰好在检查之后压缩完成，原分段已被删除
+            }
+        }
+        return new SessionLogReader(compactFile);
+    }
+
+    // 读取下一条记录，到达文件末尾时返回 false
+    public boolean next() throws IOException {
+        if (compact != null) {
+            return nextCompact();
+        }
+        record.clear();
+        while (record.hasRemaining()) {
+            if (channel.read(record) < 0) {
+                return false;
+            }
+        }
+        recordIndex++;
+        return true;
+    }
+
+    // 定位到第 index 条记录之前，下一次 next() 读取该记录
+    public void seek(long index) throws IOException {
+        if (index < 0) {
+            throw new IllegalArgumentException("index " + index);
+        }
+        if (compact == null) {
+            channel.position(index * SessionLog.RECORD_SIZE);
+        }
+        recordIndex = index - 1;
+    }
+
+    // 分段中完整记录的条数，含分段头
+    public long getRecordCount() throws IOException {
+        return compact != null ? compactRecords : channel.size() / SessionLog.RECORD_SIZE;
+    }
+
+    // 当前记录在分段中的序号，分段头为 0
+    public long getRecordIndex() {
+        return recordIndex;
+    }
+
+    // 是否为紧凑分段
+    public boolean isCompact() {
+        return compact != null;
+    }
+
+    public byte getType() {
+        return record.get(SessionLog.OFFSET_TYPE);
+    }
+
+    public int getCount() {
+        return record.getShort(SessionLog.OFFSET_COUNT);
+    }
+
+    public int getArg() {
+        return record.getInt(SessionLog.OFFSET_ARG);
+    }
+
+    public long getTimestamp() {
+        return record.getLong(SessionLog.OFFSET_TIMESTAMP);
+    }
+
+    public float getValue(int index) {
+        if (index < 0 || index >= SessionLog.PAYLOAD_VALUES) {
+            throw new IndexOutOfBoundsException("index " + index);
+        }
+        return record.getFloat(SessionLog.OFFSET_PAYLOAD + index * 4);
+    }
+
+    // 把当前记录的前 getCount() 个数值拷贝到 dest，返回拷贝的个数
+    public int getValues(float[] dest, int offset) {
+        int count = getCount();
+        for (int i = 0; i < count; i++) {
+            dest[offset + i] = record.getFloat(SessionLog.OFFSET_PAYLOAD + i * 4);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void openCompact(File segment) throws IOException {
+        compact.order(ByteOrder.LITTLE_ENDIAN);
+        if (compact.capacity() < SessionLog.COMPACT_HEADER_SIZE
+                || compact.getInt(4) != SessionLog.FORMAT_VERSION) {
+            throw new IOException("Unsupported compact segment: " + segment);
+        }
+        compactRecords = compact.getInt(20);
+        int chunks = compact.getInt(24);
+        if (compactRecords < 1 || chunks != (compactRecords - 1 + CompactChunk.CAPACITY - 1) / CompactChunk.CAPACITY
+                || compact.capacity() < SessionLog.COMPACT_HEADER_SIZE + chunks * 4) {
+            throw new IOException("Corrupt compact segment: " + segment);
+        }
+    }
+
+    private boolean nextCompact() throws IOException {
+        long index = recordIndex + 1;
+        if (index >= compactRecords) {
+            return false;
+        }
+        record.clear();
+        if (index == 0) {
+            // 分段头不单独保存，由文件头还原
+            SessionLog.putHeader(record, 0, SessionLog.TYPE_SEGMENT, SessionLog.FORMAT_VERSION,
+                    compact.getInt(8), compact.getLong(12));
+            record.putInt(SessionLog.OFFSET_PAYLOAD, SessionLog.MAGIC);
+        } else {
+            int c = (int) ((index - 1) / CompactChunk.CAPACITY);
+            if (c != decodedChunk) {
+                decodedChunk = -1;
+                compact.position(compact.getInt(SessionLog.COMPACT_HEADER_SIZE + c * 4));
+                chunk.decode(compact);
+                decodedChunk = c;
+            }
+            int row = (int) ((index - 1) % CompactChunk.CAPACITY);
+            if (row >= chunk.size()) {
+                throw new IOException("Corrupt compact segment: chunk " + c);
+            }
+            chunk.putRecord(row, record);
+        }
+        recordIndex = index;
+        return true;
+    }
+}
@@ -0,0 +1,511 @@
+package com.example.healthmonitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 会话记录器：把心电数据块和体温/心率/血氧帧追加到定长记录的分段文件中（格式见 SessionLog）。
+ *
+ * 连续的心电采样跨数据块拼进同一条记录，写满 PAYLOAD_VALUES 个采样才提交；采样率变化或时间不连续、
+ * 暂存的采样超过 flushIntervalMs（按采样时间）、切换模块、开关机或 stop() 时提交未写满的记录。
+ *
+ * 生产线程只把记录编码进预分配的环形缓冲区，不做任何 IO，也不分配对象；缓冲区满时丢弃记录并计数，
+ * 不会阻塞生产线程。独立的写线程把缓冲区批量写入 FileChannel，有未落盘的数据时每隔 flushIntervalMs
+ * 强制落盘一次，崩溃时最多丢失最近一个刷新间隔的数据。分段写满 segmentRecords 条记录后切换到新文件。
+ * 缓冲区为空时写线程挂起，直到提交新记录或下一次落盘的时间；没有记录时不会周期性唤醒。
+ * 写线程是守护线程，不阻止进程退出；需要保证数据写完时调用 stop() 后等待 awaitTermination()。
+ * 写线程同时维护 SessionIndex，在切换分段和结束时保存索引文件。
+ * 关闭的分段由单独的压缩线程按顺序用 SessionCompactor 压缩为紧凑格式（可用 setCompaction 关闭），
+ * 记录序号不变，索引和 SessionLogReader 照常使用；压缩期间写线程继续清空环形缓冲区。
+ * 写线程结束前压缩最后一个分段，并等待所有压缩完成。
+ *
+ * 写线程结束时如果出错（写入、压缩或保存索引失败），通过 FailureListener 通知一次。
+ * 写线程或压缩线程遇到 Error（如内存不足）时同样通知，之后重新抛出，该线程结束。
+ *
+ * 回调必须来自同一个线程（调度线程），环形缓冲区按单生产者单消费者实现。
+ */
+public class SessionRecorder implements EcgStreamListener, HealthFrameListener, QrsDetector.Listener {
+    public interface FailureListener {
+        // 在写线程结束前调用；目录无法创建时在调用 start() 的线程上调用
+        void onRecorderFailed(SessionRecorder recorder, Throwable failure);
+    }
+
+    public static final int DEFAULT_RING_RECORDS = 1024;
+    // 1 kHz 心电约 16 条记录/秒，一个分段约 1 小时
+    public static final int DEFAULT_SEGMENT_RECORDS = 64 * 1024;
+    public static final int DEFAULT_FLUSH_INTERVAL_MS = 1000;
+
+    private final File directory;
+    private final long sessionStart;
+    private final int segmentRecords;
+    private final long flushIntervalNanos;
+
+    // 环形缓冲区：生产者写 head，写线程写 tail
+    private final int ringRecords;
+    private final ByteBuffer ring;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long producerHead;          // 仅生产线程访问
+    private long cachedTail;            // 仅生产线程访问，减少对 tail 的读取
+    // 暂存尚未写满一条记录的连续心电采样，仅生产线程访问
+    private final float[] pendingEcg = new float[SessionLog.PAYLOAD_VALUES];
+    private int pendingCount;
+    private int pendingRate;
+    private long pendingStart;
+    private final long flushIntervalMs;
+
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicLong writtenRecords = new AtomicLong();
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private volatile Throwable failure;
+    private volatile Thread writer;
+    private volatile boolean compaction = true;
+    private volatile FailureListener failureListener;
+    // 写线程准备挂起时置位，提交记录的生产者看到后唤醒它
+    private final AtomicBoolean sleeping = new AtomicBoolean(false);
+
+    // 以下字段仅写线程访问
+    private FileChannel channel;
+    private int segment = -1;
+    private int recordsInSegment;
+    private final SessionIndex index = new SessionIndex();
+    private long lastForceNanos;
+    private boolean dirty;              // 上次落盘后写入过数据
+    // 压缩线程，第一次切换分段时创建，写线程结束时关闭
+    private ExecutorService compactionExecutor;
+    // 压缩线程遇到的第一个错误，写线程等压缩结束后合并到 failure
+    private volatile Throwable compactionFailure;
+    private SessionCompactor compactor;     // start() 之后仅压缩线程访问
+
+    public SessionRecorder(File directory, long sessionStart) {
+        this(directory, sessionStart, DEFAULT_RING_RECORDS, DEFAULT_SEGMENT_RECORDS, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    public SessionRecorder(File directory, long sessionStart, int ringRecords, int segmentRecords,
+                           int flushIntervalMs) {
+        if (ringRecords <= 0 || segmentRecords < 2 || flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("ring " + ringRecords + ", segment " + segmentRecords
+                    + ", flush " + flushIntervalMs);
+        }
+        this.directory = directory;
+        this.sessionStart = sessionStart;
+        this.ringRecords = ringRecords;
+        this.segmentRecords = segmentRecords;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        ring = ByteBuffer.allocate(ringRecords * SessionLog.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public long getSessionStart() {
+        return sessionStart;
+    }
+
+    // 因缓冲区满、记录器未启动或写入失败而丢弃的记录数
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    // 已写入文件的记录数，不含分段头
+    public long getWrittenRecords() {
+        return writtenRecords.get();
+    }
+
+    // 写线程或压缩线程遇到的错误，没有错误时为 null
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    // 是否压缩关闭的分段，在 start() 之前设置；关闭时保留定长记录的原分段
+    public void setCompaction(boolean enabled) {
+        compaction = enabled;
+    }
+
+    // 压缩分段使用的 SessionCompactor，在 start() 之前设置；不设置时使用默认实现
+    public void setCompactor(SessionCompactor compactor) {
+        this.compactor = compactor;
+    }
+
+    // 在 start() 之前设置
+    public void setFailureListener(FailureListener listener) {
+        failureListener = listener;
+    }
+
+    public synchronized void start() {
+        if (writer != null) {
+            throw new IllegalStateException("already started");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            failure = new IOException("Cannot create " + directory);
+            notifyFailure();
+            return;
+        }
+        running = true;
+        accepting = true;
+        Thread thread = new Thread(this::runWriter, "session-recorder");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * 提交暂存的心电采样后停止接收新记录，写线程写完缓冲区中剩余的记录后落盘并关闭文件；不等待写线程结束。
+     * 与回调一样在生产线程上调用，或在生产者不再回调之后调用。
+     */
+    public synchronized void stop() {
+        if (accepting) {
+            flushEcg();
+        }
+        accepting = false;
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+        }
+        if (thread == null) {
+            return true;
+        }
+        thread.join(timeoutMs);
+        return !thread.isAlive();
+    }
+
+    @Override
+    public void onEcgBlock(EcgBlock block) {
+        float[] samples = block.getSamples();
+        int length = block.getLength();
+        if (length == 0) {
+            return;
+        }
+        if (pendingCount > 0 && !continuesPending(block)) {
+            flushEcg();
+        }
+        for (int offset = 0; offset < length; ) {
+            if (pendingCount == 0) {
+                pendingRate = block.getSampleRate();
+                pendingStart = block.getSampleTimestamp(offset);
+            }
+            int count = Math.min(SessionLog.PAYLOAD_VALUES - pendingCount, length - offset);
+            System.arraycopy(samples, offset, pendingEcg, pendingCount, count);
+            pendingCount += count;
+            offset += count;
+            if (pendingCount == SessionLog.PAYLOAD_VALUES) {
+                flushEcg();
+            }
+        }
+    }
+
+    // 数据块与暂存的采样采样率相同、时间相接（允许毫秒取整带来的一个采样间隔的误差）
+    private boolean continuesPending(EcgBlock block) {
+        if (block.getSampleRate() != pendingRate) {
+            return false;
+        }
+        long interval = block.getSampleIntervalMicros();
+        long expected = pendingStart + pendingCount * interval / 1000;
+        return Math.abs(block.getStartTimestamp() - expected) * 1000 <= interval;
+    }
+
+    // 把暂存的心电采样作为一条记录提交
+    private void flushEcg() {
+        if (pendingCount == 0) {
+            return;
+        }
+        int position = claim();
+        if (position >= 0) {
+            SessionLog.putHeader(ring, position, SessionLog.TYPE_ECG, pendingCount, pendingRate, pendingStart);
+            int p = position + SessionLog.OFFSET_PAYLOAD;
+            for (int i = 0; i < pendingCount; i++) {
+                ring.putFloat(p + i * 4, pendingEcg[i]);
+            }
+            commit();
+        }
+        pendingCount = 0;
+    }
+
+    // 暂存的采样按采样时间已超过刷新间隔时提交，心电停止而其他记录继续时不会一直留在内存中
+    private void flushEcgIfDue(long timestamp) {
+        if (pendingCount > 0 && timestamp - pendingStart >= flushIntervalMs) {
+            flushEcg();
+        }
+    }
+
+    @Override
+    public void onBeat(long rPeakTimestamp, int rrIntervalMs) {
+        recordEvent(SessionLog.EVENT_R_PEAK, rPeakTimestamp, rrIntervalMs);
+    }
+
+    // 记录一个事件（SessionLog.EVENT_*），与其他回调一样必须在生产线程上调用
+    public void recordEvent(int event, long timestamp, float value) {
+        if (event == SessionLog.EVENT_MODULE || event == SessionLog.EVENT_DEVICE_POWER) {
+            // 切换模块和开关机是数据流的边界
+            flushEcg();
+        } else {
+            flushEcgIfDue(timestamp);
+        }
+        int position = claim();
+        if (position < 0) {
+            return;
+        }
+        SessionLog.putEvent(ring, position, event, timestamp, value);
+        commit();
+    }
+
+    @Override
+    public void onHealthFrame(Module source, HealthData frame) {
+        flushEcgIfDue(frame.getTimestamp());
+        int position = claim();
+        if (position < 0) {
+            return;
+        }
+        SessionLog.putVitals(ring, position, source, frame);
+        commit();
+    }
+
+    // 取得下一个空闲槽的字节位置，没有空闲槽时计数并返回 -1
+    private int claim() {
+        if (!accepting) {
+            droppedRecords.incrementAndGet();
+            return -1;
+        }
+        if (producerHead - cachedTail >= ringRecords) {
+            cachedTail = tail.get();
+            if (producerHead - cachedTail >= ringRecords) {
+                droppedRecords.incrementAndGet();
+                return -1;
+            }
+        }
+        return (int) (producerHead % ringRecords) * SessionLog.RECORD_SIZE;
+    }
+
+    private void commit() {
+        producerHead++;
+        // 与写线程的 sleeping 构成先写后读的握手，这里不能用 lazySet
+        head.set(producerHead);
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void runWriter() {
+        // 写线程自己的视图，只用来搬运字节
+        ByteBuffer view = ring.duplicate();
+        ByteBuffer header = ByteBuffer.allocate(SessionLog.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long consumed = tail.get();
+        try {
+            while (true) {
+                long available = head.get() - consumed;
+                if (available == 0) {
+                    if (!running) {
+                        break;
+                    }
+                    long wait = forceIfDue();
+                    // 先声明要挂起再检查缓冲区，生产者在此之后提交必定看到 sleeping 并唤醒
+                    sleeping.set(true);
+                    if (head.get() == consumed && running) {
+                        if (wait < 0) {
+                            LockSupport.park(this);
+                        } else {
+                            LockSupport.parkNanos(this, wait);
+                        }
+                    }
+                    sleeping.set(false);
+                    continue;
+                }
+                if (channel == null || recordsInSegment == segmentRecords) {
+                    openNextSegment(header);
+                }
+                int slot = (int) (consumed % ringRecords);
+                int count = (int) Math.min(available, Math.min(ringRecords - slot, segmentRecords - recordsInSegment));
+                view.limit((slot + count) * SessionLog.RECORD_SIZE);
+                view.position(slot * SessionLog.RECORD_SIZE);
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+                dirty = true;
+                indexRecords(slot, count);
+                recordsInSegment += count;
+                writtenRecords.addAndGet(count);
+                consumed += count;
+                tail.lazySet(consumed);
+                forceIfDue();
+            }
+        } catch (IOException e) {
+            abandon(e, consumed);
+        } catch (Throwable e) {
+            // 线程边界：Error 无法恢复，同样丢弃剩余记录，在 finally 中通知后重新抛出
+            abandon(e, consumed);
+            throw e;
+        } finally {
+            closeSegment();
+            if (failure == null && segment >= 0) {
+                compactSegment(segment);
+            }
+            awaitCompaction();
+            saveIndex();
+            notifyFailure();
+        }
+    }
+
+    // 写线程出错：停止接收记录，缓冲区中剩余的记录计为丢弃
+    private void abandon(Throwable error, long consumed) {
+        failure = error;
+        long remaining = head.get() - consumed;
+        droppedRecords.addAndGet(remaining);
+        tail.lazySet(consumed + remaining);
+        accepting = false;
+    }
+
+    private void notifyFailure() {
+        FailureListener listener = failureListener;
+        Throwable error = failure;
+        if (listener != null && error != null) {
+            listener.onRecorderFailed(this, error);
+        }
+    }
+
+    // 把刚写入的记录加入索引，槽位在 tail 前进之前不会被生产者覆盖
+    private void indexRecords(int slot, int count) {
+        for (int i = 0; i < count; i++) {
+            int p = (slot + i) * SessionLog.RECORD_SIZE;
+            index.onRecord(segment, recordsInSegment + i, ring.get(p + SessionLog.OFFSET_TYPE),
+                    ring.getInt(p + SessionLog.OFFSET_ARG), ring.getLong(p + SessionLog.OFFSET_TIMESTAMP),
+                    ring.getFloat(p + SessionLog.OFFSET_PAYLOAD));
+        }
+    }
+
+    // 把已关闭的分段交给压缩线程，写线程不等待；失败时原分段保持不变，可以照常读取
+    private void compactSegment(final int closed) {
+        if (!compaction) {
+            return;
+        }
+        if (compactionExecutor == null) {
+            compactionExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "session-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compactionExecutor.execute(() -> {
+            try {
+                if (compactor == null) {
+                    compactor = new SessionCompactor();
+                }
+                compactor.compact(directory, sessionStart, closed);
+            } catch (IOException e) {
+                if (compactionFailure == null) {
+                    compactionFailure = e;
+                }
+            } catch (Throwable e) {
+                // 线程边界：保存后重新抛出，写线程结束时通知
+                if (compactionFailure == null) {
+                    compactionFailure = e;
+                }
+                throw e;
+            }
+        });
+    }
+
+    // 等待已提交的压缩全部完成，并把压缩错误合并到 failure
+    private void awaitCompaction() {
+        ExecutorService executor = compactionExecutor;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // 分段很大时压缩可能超过一分钟，继续等待
+            }
+        } catch (InterruptedException e) {
+            // 不再等待，压缩线程是守护线程，未完成的分段保持原格式
+            Thread.currentThread().interrupt();
+        }
+        Throwable error = compactionFailure;
+        if (failure == null && error != null) {
+            failure = error;
+        }
+    }
+
+    private void saveIndex() {
+        if (segment < 0) {
+            return;
+        }
+        try {
+            index.save(SessionLog.indexFile(directory, sessionStart));
+        } catch (IOException e) {
+            // 索引可以从分段文件重建，保存失败不影响记录
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    // 有未落盘的数据且距上次落盘已超过刷新间隔时落盘；返回距下一次落盘的时间 (ns)，不需要再落盘时返回 -1
+    private long forceIfDue() throws IOException {
+        if (channel == null || !dirty) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        long wait = lastForceNanos + flushIntervalNanos - now;
+        if (wait > 0) {
+            return wait;
+        }
+        channel.force(false);
+        lastForceNanos = now;
+        dirty = false;
+        return -1;
+    }
+
+    private void openNextSegment(ByteBuffer header) throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            saveIndex();
+            compactSegment(segment);
+        }
+        segment++;
+        File file = SessionLog.segmentFile(directory, sessionStart, segment);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        channel = raf.getChannel();
+
+        header.clear();
+        SessionLog.putHeader(header, 0, SessionLog.TYPE_SEGMENT, SessionLog.FORMAT_VERSION, segment, sessionStart);
+        header.putInt(SessionLog.OFFSET_PAYLOAD, SessionLog.MAGIC);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        recordsInSegment = 1;
+        lastForceNanos = System.nanoTime();
+    }
+
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.healthmonitor;
+
+import java.util.Random;
+
+/**
+ * 模拟心电数据源，采样率可以随时修改，修改后从下一次读取开始重新计时。
+ */
+public class SimulatedEcgSource implements EcgSource {
+    private final EcgWaveformGenerator generator;
+    private volatile Clock clock;
+    private volatile int sampleRate = ECG_RATE_500;
+    private int activeSampleRate;
+    private long sessionStart;
+
+    public SimulatedEcgSource(Random random) {
+        this(random, Clock.SYSTEM);
+    }
+
+    // 采样时间从每次重新开始时的 clock 时间计起
+    public SimulatedEcgSource(Random random, Clock clock) {
+        this.generator = new EcgWaveformGenerator(random);
+        this.clock = clock;
+    }
+
+    // 更换时钟，下一次重新开始时生效
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    // 心率范围、心率变异、噪声和伪迹等波形参数在发生器上设置
+    public EcgWaveformGenerator getGenerator() {
+        return generator;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public int read(EcgBlock block, int maxSamples) {
+        int rate = sampleRate;
+        if (rate != activeSampleRate) {
+            restart(rate);
+        }
+        int count = Math.min(maxSamples, block.getCapacity());
+        generator.fill(block, count, rate, sessionStart);
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        restart(sampleRate);
+    }
+
+    private void restart(int rate) {
+        activeSampleRate = rate;
+        sessionStart = clock.currentTimeMillis();
+        generator.reset();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.healthmonitor;
+
+/**
+ * 时间窗口内的最小值、最大值、均值和方差。
+ * 最小/最大值用单调队列维护，均值和方差用累计和维护，每次更新均摊 O(1)，不分配对象。
+ * 窗口内的采样数超过容量时丢弃最旧的采样。非线程安全，应只在一个线程上使用。
+ */
+public class SlidingWindowStats {
+    private final long windowMs;
+    private final int capacity;
+    private final long[] times;
+    private final float[] values;
+    private long head;      // 最旧采样的序号
+    private long tail;      // 下一个采样的序号
+
+    // 单调队列，保存采样序号
+    private final long[] minQueue;
+    private final long[] maxQueue;
+    private long minHead, minTail;
+    private long maxHead, maxTail;
+
+    private double sum;
+    private double sumSquares;
+
+    public SlidingWindowStats(long windowMs, int capacity) {
+        if (windowMs <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("window " + windowMs + ", capacity " + capacity);
+        }
+        this.windowMs = windowMs;
+        this.capacity = capacity;
+        times = new long[capacity];
+        values = new float[capacity];
+        minQueue = new long[capacity];
+        maxQueue = new long[capacity];
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public void add(long timestamp, float value) {
+        expire(timestamp);
+        if (tail - head == capacity) {
+            removeOldest();
+        }
+        int slot = (int) (tail % capacity);
+        times[slot] = timestamp;
+        values[slot] = value;
+
+        while (minTail > minHead && values[(int) (minQueue[(int) ((minTail - 1) % capacity)] % capacity)] >= value) {
+            minTail--;
+        }
+        minQueue[(int) (minTail % capacity)] = tail;
+        minTail++;
+        while (maxTail > maxHead && values[(int) (maxQueue[(int) ((maxTail - 1) % capacity)] % capacity)] <= value) {
+            maxTail--;
+        }
+        maxQueue[(int) (maxTail % capacity)] = tail;
+        maxTail++;
+
+        sum += value;
+        sumSquares += (double) value * value;
+        tail++;
+    }
+
+    // 移除时间早于 now - windowMs 的采样
+    public void expire(long now) {
+        long cutoff = now - windowMs;
+        while (tail > head && times[(int) (head % capacity)] <= cutoff) {
+            removeOldest();
+        }
+    }
+
+    private void removeOldest() {
+        float value = values[(int) (head % capacity)];
+        if (minQueue[(int) (minHead % capacity)] == head) {
+            minHead++;
+        }
+        if (maxQueue[(int) (maxHead % capacity)] == head) {
+            maxHead++;
+        }
+        head++;
+        if (head == tail) {
+            // 窗口为空时清零，避免累计误差
+            sum = 0;
+            sumSquares = 0;
+        } else {
+            sum -= value;
+            sumSquares -= (double) value * value;
+        }
+    }
+
+    public void reset() {
+        head = tail = 0;
+        minHead = minTail = 0;
+        maxHead = maxTail = 0;
+        sum = 0;
+        sumSquares = 0;
+    }
+
+    public int getCount() {
+        return (int) (tail - head);
+    }
+
+    public float getMin() {
+        return minTail == minHead ? 0f : values[(int) (minQueue[(int) (minHead % capacity)] % capacity)];
+    }
+
+    public float getMax() {
+        return maxTail == maxHead ? 0f : values[(int) (maxQueue[(int) (maxHead % capacity)] % capacity)];
+    }
+
+    public float getMean() {
+        int count = getCount();
+        return count == 0 ? 0f : (float) (sum / count);
+    }
+
+    // 总体方差
+    public float getVariance() {
+        int count = getCount();
+        if (count == 0) {
+            return 0f;
+        }
+        double mean = sum / count;
+        return (float) Math.max(0, sumSquares / count - mean * mean);
+    }
+
+    public float getStdDev() {
+        return (float) Math.sqrt(getVariance());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.healthmonitor;
+
+/**
+ * 启动耗时：从启动开始到界面可交互、第一个心电采样送达界面、第一帧波形绘制完成的时间。
+ *
+ * 每次启动先调用 begin()，之后每个标记只有第一次调用生效，已标记后只剩一次字段比较，可以放在每帧的路径上。
+ * 设备在启动时处于关机状态、由用户开机时，采样和波形的耗时从开机时刻算起（见 markPowerOn），
+ * 不把等待用户操作的时间算进去。三个时间都有了以后回调一次监听器，同时写入注册表中的指标。
+ *
+ * 所有方法只在主线程上调用。
+ */
+public class StartupTimer {
+    public interface Listener {
+        void onStartupMeasured(StartupTimer timer);
+    }
+
+    private final Clock clock;
+    private final Gauge uiReadyGauge;
+    private final Gauge firstSampleGauge;
+    private final Gauge firstFrameGauge;
+    private Listener listener;
+
+    private boolean started = false;
+    private boolean cold;
+    private long startNanos;
+    private long powerOnNanos;
+    private boolean fromPowerOn;
+    // 各阶段相对起点的耗时 (ns)，-1 表示还没有到达
+    private long uiReadyNanos = -1;
+    private long firstSampleNanos = -1;
+    private long firstFrameNanos = -1;
+
+    public StartupTimer(Clock clock, Gauge uiReady, Gauge firstSample, Gauge firstFrame) {
+        this.clock = clock;
+        this.uiReadyGauge = uiReady;
+        this.firstSampleGauge = firstSample;
+        this.firstFrameGauge = firstFrame;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 开始一次测量，startNanos 取自同一个时钟的 nanoTime()，可以早于调用时刻（例如进程启动时间）。
+     * cold 表示进程新启动，否则为进程仍在时重新创建界面。
+     */
+    public void begin(long startNanos, boolean cold) {
+        this.started = true;
+        this.cold = cold;
+        this.startNanos = startNanos;
+        this.powerOnNanos = startNanos;
+        this.fromPowerOn = false;
+        uiReadyNanos = -1;
+        firstSampleNanos = -1;
+        firstFrameNanos = -1;
+    }
+
+    // 放弃本次测量，之后的标记都不生效
+    public void cancel() {
+        started = false;
+    }
+
+    // 视图已绑定、观察者已注册，界面可以响应操作
+    public void markUiReady() {
+        if (started && uiReadyNanos < 0) {
+            uiReadyNanos = clock.nanoTime() - startNanos;
+            uiReadyGauge.set(uiReadyNanos / 1_000_000L);
+            reportIfComplete();
+        }
+    }
+
+    // 设备在启动后才开机：还没有收到采样时，采样和波形的耗时改从现在算起
+    public void markPowerOn() {
+        if (started && firstSampleNanos < 0) {
+            powerOnNanos = clock.nanoTime();
+            fromPowerOn = true;
+        }
+    }
+
+    public void markFirstSample() {
+        if (started && firstSampleNanos < 0) {
+            firstSampleNanos = clock.nanoTime() - powerOnNanos;
+            firstSampleGauge.set(firstSampleNanos / 1_000_000L);
+            reportIfComplete();
+        }
+    }
+
+    // 第一帧带波形的画面绘制完成；先于第一个采样的调用不生效
+    public void markFirstFrame() {
+        if (started && firstFrameNanos < 0 && firstSampleNanos >= 0) {
+            firstFrameNanos = clock.nanoTime() - powerOnNanos;
+            firstFrameGauge.set(firstFrameNanos / 1_000_000L);
+            reportIfComplete();
+        }
+    }
+
+    public boolean isCold() {
+        return cold;
+    }
+
+    // 采样和波形的耗时是否从用户开机时算起
+    public boolean isFromPowerOn() {
+        return fromPowerOn;
+    }
+
+    public boolean isComplete() {
+        return uiReadyNanos >= 0 && firstSampleNanos >= 0 && firstFrameNanos >= 0;
+    }
+
+    // 以下耗时单位为 ms，-1 表示还没有到达
+    public long getUiReadyMillis() {
+        return toMillis(uiReadyNanos);
+    }
+
+    public long getFirstSampleMillis() {
+        return toMillis(firstSampleNanos);
+    }
+
+    public long getFirstFrameMillis() {
+        return toMillis(firstFrameNanos);
+    }
+
+    // 例如 "cold start: ui 182 ms, first sample 310 ms, first frame 326 ms"
+    @Override
+    public String toString() {
+        return (cold ? "cold" : "warm") + " start: ui " + getUiReadyMillis()
+                + " ms, first sample " + getFirstSampleMillis()
+                + " ms, first frame " + getFirstFrameMillis() + " ms"
+                + (fromPowerOn ? " (from power-on)" : "");
+    }
+
+    private void reportIfComplete() {
+        if (isComplete()) {
+            started = false;
+            Listener current = listener;
+            if (current != null) {
+                current.onStartupMeasured(this);
+            }
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1_000_000L;
+    }
+}
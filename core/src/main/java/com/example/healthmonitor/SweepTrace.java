@@ -0,0 +1,116 @@
+package com.example.healthmonitor;
+
+/**
+ * 扫描模式波形的几何计算：把新到达的采样或抽取列换算成 Canvas.drawLines 使用的线段端点，
+ * 并给出需要擦除和重绘的脏区域。不依赖 Android，绘制由调用方完成；只在绘制线程上使用。
+ *
+ * 横坐标按采样序号对窗口容量取模，扫描到右边缘后从左边缘继续，wrapped 表示本次跨过了右边缘。
+ */
+public class SweepTrace {
+    // 1 mV 对应视图高度的比例
+    public static final float VERTICAL_SCALE = 0.3f;
+
+    private boolean hasLast = false;
+    private float lastX;
+    private float lastY;
+    private float dirtyLeft;
+    private float dirtyRight;
+    private boolean wrapped;
+
+    // 下一段不与上次的终点相连，例如清屏或落后超过一个窗口之后
+    public void reset() {
+        hasLast = false;
+    }
+
+    // 采样值在视图中的纵坐标
+    public static float toY(float sample, float centerY, float height) {
+        return centerY - sample * height * VERTICAL_SCALE;
+    }
+
+    /**
+     * 逐采样模式：samples 中前 count 个采样的序号从 firstSeq 开始，窗口容纳 capacity 个采样。
+     * 把与上次终点相连的线段写入 points，返回写入的坐标个数（每条线段 4 个）。
+     */
+    public int appendSamples(float[] samples, int count, long firstSeq, int capacity,
+                             float width, float height, float[] points) {
+        float centerY = height / 2;
+        float xStep = width / capacity;
+        dirtyLeft = hasLast ? lastX : (firstSeq % capacity) * xStep;
+        wrapped = false;
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int position = (int) ((firstSeq + i) % capacity);
+            float x = position * xStep;
+            float y = toY(samples[i], centerY, height);
+            if (position == 0 && i > 0) {
+                wrapped = true;
+            }
+            if (hasLast && x > lastX) {
+                points[n++] = lastX;
+                points[n++] = lastY;
+                points[n++] = x;
+                points[n++] = y;
+            }
+            lastX = x;
+            lastY = y;
+            hasLast = true;
+        }
+        dirtyRight = lastX;
+        if (dirtyRight < dirtyLeft) {
+            wrapped = true;
+        }
+        return n;
+    }
+
+    /**
+     * 抽取模式：minMax 中依次是第 firstColumn 列起 count 列的最小值和最大值，窗口共 columns 列。
+     * 每列写一条竖线，返回写入的坐标个数。
+     */
+    public int appendColumns(float[] minMax, int count, long firstColumn, int columns,
+                             float width, float height, float[] points) {
+        float centerY = height / 2;
+        float xStep = width / columns;
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            float x = ((firstColumn + i) % columns) * xStep + xStep / 2;
+            n = putColumn(points, n, x, centerY, height, minMax[i * 2], minMax[i * 2 + 1]);
+        }
+        long lastColumn = firstColumn + count - 1;
+        dirtyLeft = (firstColumn % columns) * xStep;
+        dirtyRight = (lastColumn % columns + 1) * xStep;
+        wrapped = dirtyRight <= dirtyLeft || count >= columns;
+        return n;
+    }
+
+    // 写入一列竖线的端点，返回新的写入位置
+    public static int putColumn(float[] points, int n, float x, float centerY, float height,
+                                float min, float max) {
+        float top = toY(max, centerY, height);
+        float bottom = toY(min, centerY, height);
+        if (bottom - top < 1f) {
+            // 平坦段至少画 1 像素高
+            float mid = (top + bottom) / 2;
+            top = mid - 0.5f;
+            bottom = mid + 0.5f;
+        }
+        points[n++] = x;
+        points[n++] = top;
+        points[n++] = x;
+        points[n++] = bottom;
+        return n;
+    }
+
+    // 最近一次 append 的脏区域左边界
+    public float getDirtyLeft() {
+        return dirtyLeft;
+    }
+
+    // 最近一次 append 的脏区域右边界；wrapped 时为跨过右边缘之后的终点
+    public float getDirtyRight() {
+        return dirtyRight;
+    }
+
+    public boolean isWrapped() {
+        return wrapped;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.healthmonitor;
+
+/**
+ * 数据生产线程的调度器：所有任务在同一个线程上按时间顺序串行执行。
+ * 实时运行使用 ExecutorTaskScheduler，测试和基准测试使用按虚拟时间运行的 VirtualScheduler。
+ */
+public interface TaskScheduler {
+    // 调度器的时间来源，任务中的时间戳都应取自这里
+    Clock getClock();
+
+    // 尽快执行一次，排在已到期的任务之后
+    void execute(Runnable task);
+
+    // 立即执行一次，之后每隔 periodMs 执行一次（按固定速率，不累计执行耗时）
+    Cancellable scheduleAtFixedRate(Runnable task, long periodMs);
+
+    // 取消所有周期任务，已提交的一次性任务仍会执行，之后不再接受新任务
+    void shutdown();
+
+    interface Cancellable {
+        // 取消后任务不再执行，也不再占用调度队列
+        void cancel();
+    }
+
+    // 每次开机创建一个新的调度器
+    interface Factory {
+        TaskScheduler create();
+    }
+}
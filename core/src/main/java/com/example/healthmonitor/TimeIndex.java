@@ -0,0 +1,77 @@
+package com.example.healthmonitor;
+
+import java.util.Arrays;
+
+/**
+ * 稀疏时间索引：按时间顺序保存 (时间, 记录位置) 对，位置由分段序号和分段内记录序号组成。
+ * seek() 二分查找不晚于目标时间的最后一个索引项，调用方再从该位置向后扫描少量记录即可定位。
+ */
+public class TimeIndex {
+    private long[] times = new long[256];
+    private long[] positions = new long[256];
+    private int size;
+
+    public static long position(int segment, long record) {
+        return ((long) segment << 32) | record;
+    }
+
+    public static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    public static long recordOf(long position) {
+        return position & 0xFFFFFFFFL;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public long getPosition(int index) {
+        return positions[index];
+    }
+
+    public long getLastTime() {
+        return size == 0 ? Long.MIN_VALUE : times[size - 1];
+    }
+
+    // 时间必须不早于上一个索引项，否则忽略
+    public void add(long time, long position) {
+        if (size > 0 && time < times[size - 1]) {
+            return;
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        times[size] = time;
+        positions[size] = position;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // 不晚于 time 的最后一个索引项的位置；time 早于所有索引项时返回第一项，索引为空时返回 -1
+    public long seek(long time) {
+        if (size == 0) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return positions[Math.max(0, lo - 1)];
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.healthmonitor;
+
+/**
+ * 趋势汇总的时间粒度及每一级保留的桶数，保留时长 = 桶长 * 桶数。
+ */
+public enum TrendResolution {
+    ONE_SECOND(1000L, 3600),                // 保留 1 小时
+    ONE_MINUTE(60_000L, 24 * 60),           // 保留 24 小时
+    FIFTEEN_MINUTES(15 * 60_000L, 7 * 96),  // 保留 7 天
+    ONE_HOUR(60 * 60_000L, 30 * 24);        // 保留 30 天
+
+    private final long bucketMillis;
+    private final int retainedBuckets;
+
+    TrendResolution(long bucketMillis, int retainedBuckets) {
+        this.bucketMillis = bucketMillis;
+        this.retainedBuckets = retainedBuckets;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getRetainedBuckets() {
+        return retainedBuckets;
+    }
+
+    public long getRetainedMillis() {
+        return bucketMillis * retainedBuckets;
+    }
+}
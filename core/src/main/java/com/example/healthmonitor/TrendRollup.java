@@ -0,0 +1,165 @@
+package com.example.healthmonitor;
+
+/**
+ * 单个生命体征的多级趋势汇总（1 秒、1 分钟、15 分钟、1 小时）。
+ * 每个采样同时计入各级的当前桶，桶保存最小值、最大值、累计和与采样数；
+ * 每一级是固定容量的环形缓冲区，内存占用与会话时长无关。
+ *
+ * query() 选择能覆盖查询范围、且桶数不超过结果容量的最细粒度，
+ * 用二分查找定位起点，复杂度 O(log n + k)，不分配对象。
+ * 写入和查询可以在不同线程上进行，方法之间互斥。
+ */
+public class TrendRollup {
+    private static final class Level {
+        final TrendResolution resolution;
+        final long[] starts;
+        final float[] mins;
+        final float[] maxs;
+        final double[] sums;
+        final int[] counts;
+        long written;   // 累计创建的桶数，最新的桶序号为 written - 1
+
+        Level(TrendResolution resolution) {
+            this.resolution = resolution;
+            int capacity = resolution.getRetainedBuckets();
+            starts = new long[capacity];
+            mins = new float[capacity];
+            maxs = new float[capacity];
+            sums = new double[capacity];
+            counts = new int[capacity];
+        }
+
+        int capacity() {
+            return starts.length;
+        }
+
+        long oldest() {
+            return Math.max(0, written - capacity());
+        }
+
+        int slot(long bucket) {
+            return (int) (bucket % capacity());
+        }
+
+        void add(long timestamp, float value) {
+            long offset = timestamp % resolution.getBucketMillis();
+            long start = timestamp - (offset < 0 ? offset + resolution.getBucketMillis() : offset);
+            if (written > 0) {
+                int current = slot(written - 1);
+                // 时间倒退的采样计入当前桶
+                if (start <= starts[current]) {
+                    if (value < mins[current]) {
+                        mins[current] = value;
+                    }
+                    if (value > maxs[current]) {
+                        maxs[current] = value;
+                    }
+                    sums[current] += value;
+                    counts[current]++;
+                    return;
+                }
+            }
+            int slot = slot(written);
+            starts[slot] = start;
+            mins[slot] = value;
+            maxs[slot] = value;
+            sums[slot] = value;
+            counts[slot] = 1;
+            written++;
+        }
+
+        // 第一个结束时间晚于 time 的桶序号
+        long firstEndingAfter(long time) {
+            long lo = oldest();
+            long hi = written;
+            long bucketMillis = resolution.getBucketMillis();
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (starts[slot(mid)] + bucketMillis <= time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // 第一个起始时间不早于 time 的桶序号
+        long firstStartingAt(long time) {
+            long lo = oldest();
+            long hi = written;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (starts[slot(mid)] < time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // 保留的数据是否覆盖 from 之后的全部时间
+        boolean covers(long from) {
+            return written <= capacity() || starts[slot(oldest())] <= from;
+        }
+    }
+
+    private final Level[] levels;
+
+    public TrendRollup() {
+        TrendResolution[] resolutions = TrendResolution.values();
+        levels = new Level[resolutions.length];
+        for (TrendResolution resolution : resolutions) {
+            levels[resolution.ordinal()] = new Level(resolution);
+        }
+    }
+
+    public synchronized void add(long timestamp, float value) {
+        for (Level level : levels) {
+            level.add(timestamp, value);
+        }
+    }
+
+    public synchronized void reset() {
+        for (Level level : levels) {
+            level.written = 0;
+        }
+    }
+
+    // 查询 [from, to) 内的趋势，写入 out 并返回桶数。
+    // 没有任何粒度能在 out 容量内覆盖整个范围时，使用最粗粒度并只返回最新的 out.capacity() 个桶。
+    public synchronized int query(long from, long to, TrendSeries out) {
+        if (from >= to) {
+            throw new IllegalArgumentException("from " + from + " >= to " + to);
+        }
+        Level chosen = null;
+        long first = 0;
+        long end = 0;
+        for (Level level : levels) {
+            if (level.written == 0) {
+                continue;
+            }
+            long levelFirst = level.firstEndingAfter(from);
+            long levelEnd = level.firstStartingAt(to);
+            chosen = level;
+            first = levelFirst;
+            end = levelEnd;
+            if (level.covers(from) && levelEnd - levelFirst <= out.capacity()) {
+                break;
+            }
+        }
+        if (chosen == null) {
+            out.clear(null);
+            return 0;
+        }
+        out.clear(chosen.resolution);
+        first = Math.max(first, end - out.capacity());
+        for (long bucket = first; bucket < end; bucket++) {
+            int slot = chosen.slot(bucket);
+            out.add(chosen.starts[slot], chosen.mins[slot], chosen.maxs[slot],
+                    (float) (chosen.sums[slot] / chosen.counts[slot]), chosen.counts[slot]);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.healthmonitor;
+
+/**
+ * 趋势查询结果：按时间顺序排列的桶，每个桶包含起始时间、最小值、最大值、均值和采样数。
+ * 数组在构造时分配，重复查询时复用，capacity 即单次查询最多返回的桶数。
+ */
+public class TrendSeries {
+    private final long[] starts;
+    private final float[] mins;
+    private final float[] maxs;
+    private final float[] means;
+    private final int[] counts;
+    private int size;
+    private TrendResolution resolution;
+
+    public TrendSeries(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+        }
+        starts = new long[capacity];
+        mins = new float[capacity];
+        maxs = new float[capacity];
+        means = new float[capacity];
+        counts = new int[capacity];
+    }
+
+    public int capacity() {
+        return starts.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 本次结果使用的粒度，没有数据时为 null
+    public TrendResolution getResolution() {
+        return resolution;
+    }
+
+    public long getStart(int index) {
+        return starts[checkIndex(index)];
+    }
+
+    public float getMin(int index) {
+        return mins[checkIndex(index)];
+    }
+
+    public float getMax(int index) {
+        return maxs[checkIndex(index)];
+    }
+
+    public float getMean(int index) {
+        return means[checkIndex(index)];
+    }
+
+    public int getCount(int index) {
+        return counts[checkIndex(index)];
+    }
+
+    void clear(TrendResolution resolution) {
+        this.resolution = resolution;
+        size = 0;
+    }
+
+    void add(long start, float min, float max, float mean, int count) {
+        starts[size] = start;
+        mins[size] = min;
+        maxs[size] = max;
+        means[size] = mean;
+        counts[size] = count;
+        size++;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.healthmonitor;
+
+/**
+ * 生命体征统计的滑动时间窗口。
+ */
+public enum TrendWindow {
+    ONE_MINUTE(60_000L),
+    FIVE_MINUTES(5 * 60_000L),
+    ONE_HOUR(60 * 60_000L);
+
+    private final long millis;
+
+    TrendWindow(long millis) {
+        this.millis = millis;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+}
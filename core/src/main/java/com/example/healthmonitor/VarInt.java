@@ -0,0 +1,51 @@
+package com.example.healthmonitor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 变长整数和 zig-zag 编码。小的绝对值只占 1 个字节，
+ * 差分后的心电采样和缓慢变化的体征绝大多数落在这个范围内。读写都直接操作 ByteBuffer，不分配对象。
+ */
+public final class VarInt {
+    // 64 位数值最多 10 个字节
+    public static final int MAX_LONG_BYTES = 10;
+
+    private VarInt() {
+    }
+
+    public static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    public static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void putUnsigned(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static long getUnsigned(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public static void putSigned(ByteBuffer out, long value) {
+        putUnsigned(out, zigZag(value));
+    }
+
+    public static long getSigned(ByteBuffer in) {
+        return unZigZag(getUnsigned(in));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.healthmonitor;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 按虚拟时间运行的调度器，同时作为任务的时钟。
+ *
+ * 时间只在调用 advanceBy() / advanceTo() 时前进，到期的任务在调用线程上按
+ * （到期时间，提交顺序）依次执行，执行期间时钟停在该任务的到期时间。
+ * 配合固定种子的 Random，同样的操作序列总是产生完全相同的输出，
+ * 几天的模拟数据可以在几秒内跑完。任务抛出的异常直接传给调用方。
+ * 可以从任意线程提交任务，但同一时刻只应有一个线程推进时间。
+ */
+public class VirtualScheduler implements TaskScheduler, Clock {
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private volatile long now;
+    private long sequence;
+    private long tasksRun;
+    private boolean shutdown;
+
+    public VirtualScheduler(long startMillis) {
+        this.now = startMillis;
+    }
+
+    @Override
+    public Clock getClock() {
+        return this;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public long nanoTime() {
+        return now * 1_000_000L;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task, 0);
+    }
+
+    @Override
+    public Cancellable scheduleAtFixedRate(Runnable task, long periodMs) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("periodMs " + periodMs);
+        }
+        return submit(task, periodMs);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        Iterator<Entry> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next().period > 0) {
+                it.remove();
+            }
+        }
+    }
+
+    // 时间前进 millis，执行期间到期的所有任务
+    public void advanceBy(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("millis " + millis);
+        }
+        advanceTo(now + millis);
+    }
+
+    // 时间前进到 time，执行期间到期的所有任务，包括执行中新提交且在 time 之前到期的任务
+    public void advanceTo(long time) {
+        if (time < now) {
+            throw new IllegalArgumentException("time " + time + " < now " + now);
+        }
+        while (true) {
+            Entry entry;
+            synchronized (this) {
+                entry = queue.peek();
+                if (entry == null || entry.time > time) {
+                    break;
+                }
+                queue.poll();
+                now = entry.time;
+                tasksRun++;
+            }
+            entry.task.run();
+            synchronized (this) {
+                // 周期任务复用同一个队列项，下一次执行按固定速率计算
+                if (entry.period > 0 && !entry.cancelled && !shutdown) {
+                    entry.time += entry.period;
+                    entry.sequence = sequence++;
+                    queue.offer(entry);
+                }
+            }
+        }
+        synchronized (this) {
+            now = time;
+        }
+    }
+
+    // 执行当前时刻已到期的任务，不推进时间
+    public void runPending() {
+        advanceTo(now);
+    }
+
+    // 队列中等待执行的任务数，包括周期任务
+    public synchronized int getPendingTaskCount() {
+        return queue.size();
+    }
+
+    // 累计执行的任务次数
+    public synchronized long getTasksRun() {
+        return tasksRun;
+    }
+
+    private synchronized Entry submit(Runnable task, long period) {
+        if (task == null) {
+            throw new IllegalArgumentException("task == null");
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        Entry entry = new Entry(task, now, period, sequence++);
+        queue.offer(entry);
+        return entry;
+    }
+
+    private final class Entry implements Comparable<Entry>, Cancellable {
+        final Runnable task;
+        final long period;
+        long time;
+        long sequence;
+        boolean cancelled;
+
+        Entry(Runnable task, long time, long period, long sequence) {
+            this.task = task;
+            this.time = time;
+            this.period = period;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (VirtualScheduler.this) {
+                cancelled = true;
+                queue.remove(this);
+            }
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (time != other.time) {
+                return time < other.time ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
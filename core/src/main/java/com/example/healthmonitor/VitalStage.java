@@ -0,0 +1,59 @@
+package com.example.healthmonitor;
+
+/**
+ * 体温、心率、血氧的生产阶段，每个周期只生成本模块的字段并发布一帧。
+ */
+public class VitalStage extends SensorStage {
+    public static final long DEFAULT_PERIOD_MS = 1000;
+
+    private final Module module;
+    private final VitalsSimulator simulator;
+    private final VitalStatistics statistics;
+    private volatile TrendWindow trendWindow = TrendWindow.ONE_HOUR;
+    private final HealthSnapshotBuffer snapshots;
+    private final Runnable onPublished;
+    private volatile HealthFrameListener frameListener;
+
+    public VitalStage(Module module, VitalsSimulator simulator, VitalStatistics statistics,
+                      HealthSnapshotBuffer snapshots, Runnable onPublished) {
+        super(DEFAULT_PERIOD_MS);
+        this.module = module;
+        this.simulator = simulator;
+        this.statistics = statistics;
+        this.snapshots = snapshots;
+        this.onPublished = onPublished;
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    // 极值、均值等统计字段使用的时间窗口
+    public void setTrendWindow(TrendWindow trendWindow) {
+        this.trendWindow = trendWindow;
+    }
+
+    // 每生成一帧回调一次，null 表示不回调
+    public void setFrameListener(HealthFrameListener listener) {
+        this.frameListener = listener;
+    }
+
+    @Override
+    protected void tick() {
+        synchronized (snapshots) {
+            HealthData data = snapshots.beginWrite();
+            // 没有读数时不发布，也不计入统计；写槽在下次 beginWrite() 时重新拷贝
+            if (!simulator.generate(module, data)) {
+                return;
+            }
+            data.setTimestamp(getClock().currentTimeMillis());
+            statistics.record(module, data, trendWindow);
+            HealthFrameListener listener = frameListener;
+            if (listener != null) {
+                listener.onHealthFrame(module, data);
+            }
+            snapshots.publish();
+        }
+        onPublished.run();
+    }
+}
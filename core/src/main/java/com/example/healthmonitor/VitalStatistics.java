@@ -0,0 +1,92 @@
+package com.example.healthmonitor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 体温、心率、血氧在各个时间窗口上的滑动统计，以及用于长时间趋势的多级汇总。
+ * record() 和 reset() 只应在数据生产线程上调用；趋势汇总可以在其他线程查询。
+ */
+public class VitalStatistics {
+    private final Map<Module, SlidingWindowStats[]> stats = new EnumMap<>(Module.class);
+    private final Map<Module, TrendRollup> rollups = new EnumMap<>(Module.class);
+
+    // maxSampleRateHz 为每个生命体征的最高更新频率，决定各窗口的容量
+    public VitalStatistics(float maxSampleRateHz) {
+        TrendWindow[] windows = TrendWindow.values();
+        for (Module module : new Module[]{Module.TEMP, Module.HR, Module.OX}) {
+            SlidingWindowStats[] perWindow = new SlidingWindowStats[windows.length];
+            for (TrendWindow window : windows) {
+                int capacity = (int) Math.ceil(window.getMillis() / 1000.0 * maxSampleRateHz) + 1;
+                perWindow[window.ordinal()] = new SlidingWindowStats(window.getMillis(), capacity);
+            }
+            stats.put(module, perWindow);
+            rollups.put(module, new TrendRollup());
+        }
+    }
+
+    public SlidingWindowStats get(Module module, TrendWindow window) {
+        SlidingWindowStats[] perWindow = stats.get(module);
+        return perWindow == null ? null : perWindow[window.ordinal()];
+    }
+
+    public TrendRollup getRollup(Module module) {
+        return rollups.get(module);
+    }
+
+    // 把 data 中该模块的当前值加入所有窗口和趋势汇总，并把 trendWindow 上的统计写回 data
+    public void record(Module module, HealthData data, TrendWindow trendWindow) {
+        SlidingWindowStats[] perWindow = stats.get(module);
+        if (perWindow == null) {
+            return;
+        }
+        long timestamp = data.getTimestamp();
+        float value;
+        switch (module) {
+            case TEMP:
+                value = data.getTemperature();
+                break;
+            case HR:
+                value = data.getHeartRate();
+                break;
+            case OX:
+                value = data.getBloodOxygen();
+                break;
+            default:
+                return;
+        }
+        for (SlidingWindowStats windowStats : perWindow) {
+            windowStats.add(timestamp, value);
+        }
+        rollups.get(module).add(timestamp, value);
+
+        SlidingWindowStats trend = perWindow[trendWindow.ordinal()];
+        switch (module) {
+            case TEMP:
+                data.setTemperatureMean(trend.getMean());
+                break;
+            case HR:
+                data.setHeartRateMax(Math.round(trend.getMax()));
+                data.setHeartRateMin(Math.round(trend.getMin()));
+                data.setHeartRateMean(trend.getMean());
+                data.setHeartRateStdDev(trend.getStdDev());
+                break;
+            case OX:
+                data.setBloodOxygenMean(trend.getMean());
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void reset() {
+        for (SlidingWindowStats[] perWindow : stats.values()) {
+            for (SlidingWindowStats windowStats : perWindow) {
+                windowStats.reset();
+            }
+        }
+        for (TrendRollup rollup : rollups.values()) {
+            rollup.reset();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.healthmonitor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 一段体征帧的列式编码。时间戳、体温、心率、血氧及其统计值各自独立编码为一列，
+ * 每列前有 4 字节长度，解码某一列时直接跳过其他列，不需要解码它们。
+ * 数值按各列的分辨率量化，误差不超过半个分辨率。
+ *
+ * <pre>
+ * varint 行数
+ * 对每一列：int 字节数，随后为 DeltaRunLengthCodec 编码的数据
+ * </pre>
+ */
+public class VitalsColumns {
+    public enum Column {
+        TIMESTAMP(1f),          // ms
+        TEMPERATURE(0.01f),     // 0.01 °C
+        HEART_RATE(1f),         // bpm
+        BLOOD_OXYGEN(1f),       // %
+        HEART_RATE_MAX(1f),
+        HEART_RATE_MIN(1f),
+        HEART_RATE_MEAN(0.01f),
+        HEART_RATE_STD_DEV(0.01f),
+        TEMPERATURE_MEAN(0.001f),
+        BLOOD_OXYGEN_MEAN(0.01f);
+
+        private final float resolution;
+
+        Column(float resolution) {
+            this.resolution = resolution;
+        }
+
+        public float getResolution() {
+            return resolution;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final long[] timestamps;
+    // 除时间戳外的各列，按 Column 的序号减 1 排列
+    private final float[][] values;
+    private int size;
+
+    public VitalsColumns(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+        }
+        timestamps = new long[capacity];
+        values = new float[COLUMNS.length - 1][capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    public boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(HealthData frame) {
+        add(frame.getTimestamp(), frame.getTemperature(), frame.getHeartRate(), frame.getBloodOxygen());
+        int row = size - 1;
+        values[Column.HEART_RATE_MAX.ordinal() - 1][row] = frame.getHeartRateMax();
+        values[Column.HEART_RATE_MIN.ordinal() - 1][row] = frame.getHeartRateMin();
+        values[Column.HEART_RATE_MEAN.ordinal() - 1][row] = frame.getHeartRateMean();
+        values[Column.HEART_RATE_STD_DEV.ordinal() - 1][row] = frame.getHeartRateStdDev();
+        values[Column.TEMPERATURE_MEAN.ordinal() - 1][row] = frame.getTemperatureMean();
+        values[Column.BLOOD_OXYGEN_MEAN.ordinal() - 1][row] = frame.getBloodOxygenMean();
+    }
+
+    // 只有体温、心率、血氧，统计值各列为 0
+    public void add(long timestamp, float temperatureValue, float heartRateValue, float bloodOxygenValue) {
+        if (size == timestamps.length) {
+            throw new IllegalStateException("full: " + size);
+        }
+        timestamps[size] = timestamp;
+        for (float[] column : values) {
+            column[size] = 0f;
+        }
+        values[Column.TEMPERATURE.ordinal() - 1][size] = temperatureValue;
+        values[Column.HEART_RATE.ordinal() - 1][size] = heartRateValue;
+        values[Column.BLOOD_OXYGEN.ordinal() - 1][size] = bloodOxygenValue;
+        size++;
+    }
+
+    // 最坏情况下编码后的字节数
+    public int maxEncodedSize() {
+        return VarInt.MAX_LONG_BYTES + COLUMNS.length * (4 + size * 2 * VarInt.MAX_LONG_BYTES);
+    }
+
+    public void encode(ByteBuffer out) {
+        VarInt.putUnsigned(out, size);
+        int lengthPosition = beginColumn(out);
+        DeltaRunLengthCodec.encode(timestamps, 0, size, out);
+        endColumn(out, lengthPosition);
+        for (int c = 1; c < COLUMNS.length; c++) {
+            lengthPosition = beginColumn(out);
+            DeltaRunLengthCodec.encode(values[c - 1], 0, size, COLUMNS[c].resolution, out);
+            endColumn(out, lengthPosition);
+        }
+    }
+
+    // 编码数据的总字节数，不移动 in 的位置；用于跳过整段编码
+    public static int encodedLength(ByteBuffer in) {
+        int start = in.position();
+        VarInt.getUnsigned(in);
+        for (int c = 0; c < COLUMNS.length; c++) {
+            int length = in.getInt();
+            in.position(in.position() + length);
+        }
+        int length = in.position() - start;
+        in.position(start);
+        return length;
+    }
+
+    // 编码数据的行数，不移动 in 的位置
+    public static int readSize(ByteBuffer in) {
+        int start = in.position();
+        int count = (int) VarInt.getUnsigned(in);
+        in.position(start);
+        return count;
+    }
+
+    // 只解码时间戳列，返回行数；不移动 in 的位置
+    public static int decodeTimestamps(ByteBuffer in, long[] dest) {
+        int start = in.position();
+        int count = seekColumn(in, Column.TIMESTAMP);
+        DeltaRunLengthCodec.decode(in, dest, 0, count);
+        in.position(start);
+        return count;
+    }
+
+    // 只解码一列数值，返回行数；不移动 in 的位置
+    public static int decodeColumn(ByteBuffer in, Column column, float[] dest) {
+        if (column == Column.TIMESTAMP) {
+            throw new IllegalArgumentException("use decodeTimestamps()");
+        }
+        int start = in.position();
+        int count = seekColumn(in, column);
+        DeltaRunLengthCodec.decode(in, dest, 0, count, column.resolution);
+        in.position(start);
+        return count;
+    }
+
+    // 跳到指定列的数据开头，返回行数
+    private static int seekColumn(ByteBuffer in, Column column) {
+        int count = (int) VarInt.getUnsigned(in);
+        for (int c = 0; c < column.ordinal(); c++) {
+            int length = in.getInt();
+            in.position(in.position() + length);
+        }
+        in.getInt();
+        return count;
+    }
+
+    private static int beginColumn(ByteBuffer out) {
+        int position = out.position();
+        out.putInt(0);
+        return position;
+    }
+
+    private static void endColumn(ByteBuffer out, int lengthPosition) {
+        out.putInt(lengthPosition, out.position() - lengthPosition - 4);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.healthmonitor;
+
+import java.util.Random;
+
+/**
+ * 模拟体温、心率、血氧数据，直接写入调用方提供的 HealthData，不分配对象。
+ * 设置了心电阶段时，心率取自心电数据流的 QRS 检测结果。
+ */
+public class VitalsSimulator {
+    private final Random random;
+    private EcgStage ecgStage;
+
+    public VitalsSimulator(Random random) {
+        this.random = random;
+    }
+
+    public void setEcgStage(EcgStage ecgStage) {
+        this.ecgStage = ecgStage;
+    }
+
+    // 设备开启时生成随机数据
+    public void generate(HealthData data) {
+        generate(Module.TEMP, data);
+        generate(Module.HR, data);
+        generate(Module.OX, data);
+    }
+
+    // 只生成指定模块对应的字段；该模块暂时没有读数时不修改 data，返回 false
+    public boolean generate(Module module, HealthData data) {
+        switch (module) {
+            case TEMP:
+                data.setTemperature(36.5f + random.nextFloat() * 1.5f); // 36.5-38.0°C
+                return true;
+            case HR:
+                if (ecgStage != null) {
+                    // QRS 检测到至少两次 R 波之前心率为 0，表示还没有读数
+                    int heartRate = ecgStage.getHeartRate();
+                    if (heartRate <= 0) {
+                        return false;
+                    }
+                    data.setHeartRate(heartRate);
+                } else {
+                    data.setHeartRate(random.nextInt(40) + 60); // 60-100 bpm
+                }
+                return true;
+            case OX:
+                data.setBloodOxygen(random.nextInt(6) + 95); // 95-100%
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.healthmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 最近一段心电波形和体征的快照文件，进程被杀死后重新启动时用来立即恢复显示。
+ *
+ * 文件以读写方式整体映射到内存，写入只是内存访问，不做系统调用也不分配对象；
+ * 映射页属于系统页缓存，进程被杀死时已写入的内容不会丢失（系统掉电不在保护范围内，不调用 force）。
+ * 采样按 1 µV 量化为 16 位整数，保存在定长的环形区域中。
+ *
+ * 进程可能在任意两次写入之间被杀死，读取时据此取舍：
+ * 写一批采样前先把目标序号写入 intent，写完后再更新 written，恢复时跳过可能已被覆盖的最旧采样；
+ * 体征交替写入两个槽位，写入期间槽位序号为 -1，恢复时取序号较大的完整槽位。
+ *
+ * 采样和体征只能在同一个线程上写入；设备状态只有一个字段，可以在另一个线程上写入。
+ */
+public class WaveformSnapshot implements Closeable {
+    public static final int MAGIC = 0x45434757;     // "ECGW"
+    public static final int FORMAT_VERSION = 1;
+    // 每 mV 的量化级数，16 位可表示 ±32.767 mV
+    public static final float SAMPLE_SCALE = 1000f;
+
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_VERSION = 4;
+    static final int OFFSET_CAPACITY = 8;
+    static final int OFFSET_SAMPLE_RATE = 12;
+    static final int OFFSET_INTENT = 16;
+    static final int OFFSET_WRITTEN = 24;
+    static final int OFFSET_LAST_TIMESTAMP = 32;
+    static final int OFFSET_DEVICE_STATE = 40;
+    static final int OFFSET_VITALS = 64;
+    static final int VITALS_SLOT_SIZE = 64;
+    static final int OFFSET_SAMPLES = OFFSET_VITALS + 2 * VITALS_SLOT_SIZE;
+
+    // 体征槽位内的偏移
+    private static final int SLOT_SEQUENCE = 0;
+    private static final int SLOT_TIMESTAMP = 8;
+    private static final int SLOT_DEVICE_ON = 16;
+    private static final int SLOT_ECG = 20;
+    private static final int SLOT_TEMPERATURE = 24;
+    private static final int SLOT_HEART_RATE = 28;
+    private static final int SLOT_HEART_RATE_MAX = 32;
+    private static final int SLOT_HEART_RATE_MIN = 36;
+    private static final int SLOT_BLOOD_OXYGEN = 40;
+    private static final int SLOT_HEART_RATE_MEAN = 44;
+    private static final int SLOT_HEART_RATE_STD_DEV = 48;
+    private static final int SLOT_TEMPERATURE_MEAN = 52;
+    private static final int SLOT_BLOOD_OXYGEN_MEAN = 56;
+    // 设备状态字段的最高位为开机标志，其余为模块位掩码
+    private static final int POWERED = 1 << 31;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer map;
+    private final int capacity;
+    // 以下字段仅写线程访问
+    private long written;
+    private int vitalsSequence;
+
+    private WaveformSnapshot(RandomAccessFile file, MappedByteBuffer map, int capacity) {
+        this.file = file;
+        this.map = map;
+        this.capacity = capacity;
+        written = map.getLong(OFFSET_WRITTEN);
+        vitalsSequence = Math.max(map.getInt(OFFSET_VITALS + SLOT_SEQUENCE),
+                map.getInt(OFFSET_VITALS + VITALS_SLOT_SIZE + SLOT_SEQUENCE));
+    }
+
+    /**
+     * 打开或创建快照文件，最多保存 capacity 个采样。文件中已有内容在容量、版本一致时保留，
+     * 可以先 restore 再继续写入；否则按空快照重新初始化。
+     */
+    public static WaveformSnapshot open(File path, int capacity) throws IOException {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / 2 - OFFSET_SAMPLES) {
+            throw new IllegalArgumentException("capacity " + capacity);
+        }
+        int size = OFFSET_SAMPLES + capacity * 2;
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            boolean valid = file.length() == size;
+            file.setLength(size);
+            MappedByteBuffer map = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            valid = valid && map.getInt(OFFSET_MAGIC) == MAGIC && map.getInt(OFFSET_VERSION) == FORMAT_VERSION
+                    && map.getInt(OFFSET_CAPACITY) == capacity;
+            if (!valid) {
+                for (int i = 0; i < OFFSET_SAMPLES; i += 4) {
+                    map.putInt(i, 0);
+                }
+                map.putInt(OFFSET_VITALS + SLOT_SEQUENCE, -1);
+                map.putInt(OFFSET_VITALS + VITALS_SLOT_SIZE + SLOT_SEQUENCE, -1);
+                map.putInt(OFFSET_VERSION, FORMAT_VERSION);
+                map.putInt(OFFSET_CAPACITY, capacity);
+                map.putInt(OFFSET_MAGIC, MAGIC);
+            }
+            return new WaveformSnapshot(file, map, capacity);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 保存的采样率，0 表示还没有采样
+    public int getSampleRate() {
+        return map.getInt(OFFSET_SAMPLE_RATE);
+    }
+
+    // 最新采样的时间戳 (ms)
+    public long getLastTimestamp() {
+        return map.getLong(OFFSET_LAST_TIMESTAMP);
+    }
+
+    // 可以完整恢复的采样个数
+    public int getRestorableCount() {
+        long intent = map.getLong(OFFSET_INTENT);
+        long done = map.getLong(OFFSET_WRITTEN);
+        // intent 超过 written 时上一批写到一半，[intent - capacity, written) 之外的位置可能已被覆盖
+        long oldest = Math.max(0, Math.max(intent, done) - capacity);
+        return (int) Math.max(0, done - oldest);
+    }
+
+    // 开始一段新的波形，例如采样率变化或波形被清空；之前的采样不再恢复
+    public void reset(int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("sampleRate " + sampleRate);
+        }
+        map.putLong(OFFSET_WRITTEN, 0);
+        map.putLong(OFFSET_INTENT, 0);
+        map.putInt(OFFSET_SAMPLE_RATE, sampleRate);
+        written = 0;
+    }
+
+    // 追加 length 个采样，lastTimestamp 为最后一个采样的时间戳 (ms)
+    public void append(float[] samples, int offset, int length, long lastTimestamp) {
+        if (length > capacity) {
+            offset += length - capacity;
+            length = capacity;
+        }
+        map.putLong(OFFSET_INTENT, written + length);
+        for (int i = 0; i < length; i++) {
+            int position = (int) ((written + i) % capacity);
+            map.putShort(OFFSET_SAMPLES + position * 2, quantize(samples[offset + i]));
+        }
+        written += length;
+        map.putLong(OFFSET_LAST_TIMESTAMP, lastTimestamp);
+        map.putLong(OFFSET_WRITTEN, written);
+    }
+
+    // 保存设备开关和模块位掩码，进程被杀死后据此决定是否继续监护
+    public void putDeviceState(boolean powered, int modules) {
+        map.putInt(OFFSET_DEVICE_STATE, (powered ? POWERED : 0) | (modules & ~POWERED));
+    }
+
+    public boolean isPowered() {
+        return (map.getInt(OFFSET_DEVICE_STATE) & POWERED) != 0;
+    }
+
+    public int getModules() {
+        return map.getInt(OFFSET_DEVICE_STATE) & ~POWERED;
+    }
+
+    // 保存最近一帧体征
+    public void putVitals(HealthData data) {
+        int sequence = vitalsSequence + 1;
+        if (sequence < 0) {
+            // 序号用完后从 0 重新开始，先作废保存着最大序号的另一个槽位
+            map.putInt(OFFSET_VITALS + VITALS_SLOT_SIZE + SLOT_SEQUENCE, -1);
+            sequence = 0;
+        }
+        int slot = OFFSET_VITALS + (sequence & 1) * VITALS_SLOT_SIZE;
+        map.putInt(slot + SLOT_SEQUENCE, -1);
+        map.putLong(slot + SLOT_TIMESTAMP, data.getTimestamp());
+        map.putInt(slot + SLOT_DEVICE_ON, data.isDeviceOn() ? 1 : 0);
+        map.putFloat(slot + SLOT_ECG, data.getEcgData());
+        map.putFloat(slot + SLOT_TEMPERATURE, data.getTemperature());
+        map.putInt(slot + SLOT_HEART_RATE, data.getHeartRate());
+        map.putInt(slot + SLOT_HEART_RATE_MAX, data.getHeartRateMax());
+        map.putInt(slot + SLOT_HEART_RATE_MIN, data.getHeartRateMin());
+        map.putInt(slot + SLOT_BLOOD_OXYGEN, data.getBloodOxygen());
+        map.putFloat(slot + SLOT_HEART_RATE_MEAN, data.getHeartRateMean());
+        map.putFloat(slot + SLOT_HEART_RATE_STD_DEV, data.getHeartRateStdDev());
+        map.putFloat(slot + SLOT_TEMPERATURE_MEAN, data.getTemperatureMean());
+        map.putFloat(slot + SLOT_BLOOD_OXYGEN_MEAN, data.getBloodOxygenMean());
+        map.putInt(slot + SLOT_SEQUENCE, sequence);
+        vitalsSequence = sequence;
+    }
+
+    /**
+     * 把保存的采样按时间顺序追加到 out，超过 out 容量时只保留最新的部分；返回恢复的采样个数。
+     */
+    public int restore(FloatRingBuffer out) {
+        int count = getRestorableCount();
+        long done = map.getLong(OFFSET_WRITTEN);
+        for (long seq = done - count; seq < done; seq++) {
+            int position = (int) (seq % capacity);
+            out.add(map.getShort(OFFSET_SAMPLES + position * 2) / SAMPLE_SCALE);
+        }
+        return count;
+    }
+
+    // 读取最近一帧完整的体征到 out；没有保存过体征时返回 false，out 不变
+    public boolean restoreVitals(HealthData out) {
+        int first = map.getInt(OFFSET_VITALS + SLOT_SEQUENCE);
+        int second = map.getInt(OFFSET_VITALS + VITALS_SLOT_SIZE + SLOT_SEQUENCE);
+        if (first < 0 && second < 0) {
+            return false;
+        }
+        int slot = OFFSET_VITALS + (second > first ? VITALS_SLOT_SIZE : 0);
+        out.setTimestamp(map.getLong(slot + SLOT_TIMESTAMP));
+        out.setDeviceOn(map.getInt(slot + SLOT_DEVICE_ON) != 0);
+        out.setEcgData(map.getFloat(slot + SLOT_ECG));
+        out.setTemperature(map.getFloat(slot + SLOT_TEMPERATURE));
+        out.setHeartRate(map.getInt(slot + SLOT_HEART_RATE));
+        out.setHeartRateMax(map.getInt(slot + SLOT_HEART_RATE_MAX));
+        out.setHeartRateMin(map.getInt(slot + SLOT_HEART_RATE_MIN));
+        out.setBloodOxygen(map.getInt(slot + SLOT_BLOOD_OXYGEN));
+        out.setHeartRateMean(map.getFloat(slot + SLOT_HEART_RATE_MEAN));
+        out.setHeartRateStdDev(map.getFloat(slot + SLOT_HEART_RATE_STD_DEV));
+        out.setTemperatureMean(map.getFloat(slot + SLOT_TEMPERATURE_MEAN));
+        out.setBloodOxygenMean(map.getFloat(slot + SLOT_BLOOD_OXYGEN_MEAN));
+        return true;
+    }
+
+    // 关闭文件；映射在对象被回收前保持有效，已写入的内容由系统写回
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private static short quantize(float sample) {
+        float scaled = sample * SAMPLE_SCALE;
+        if (scaled >= Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (scaled <= Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) Math.round(scaled);
+    }
+}
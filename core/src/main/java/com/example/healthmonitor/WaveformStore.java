@@ -0,0 +1,115 @@
+package com.example.healthmonitor;
+
+/**
+ * 波形显示的数据和状态，与界面的生命周期无关：主题切换、旋转等重建界面时，
+ * 新的波形视图直接接管同一个对象，只交换引用，已显示的波形和尚未读取的采样都不丢失。
+ *
+ * 采样缓冲区同时是同步对象，读写缓冲区和采样率时需持有 getSamples() 的锁。
+ * 设置了 WaveformSnapshot 时，追加和清空同时写入快照文件。
+ */
+public class WaveformStore {
+    private final FloatRingBuffer samples;
+    private int sampleRate = 0;
+    private long lastTimestamp = -1;
+    private WaveformSnapshot snapshot;
+    // 以下字段只在主线程访问
+    private SampleBus.Subscription subscription;
+    private boolean rendering = false;
+
+    public WaveformStore(int capacity) {
+        samples = new FloatRingBuffer(capacity);
+        // 初始化为一条基线
+        samples.fill(0f);
+    }
+
+    public FloatRingBuffer getSamples() {
+        return samples;
+    }
+
+    // 缓冲区中采样的采样率，0 表示还没有收到数据；需持有 getSamples() 的锁
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    // 最新采样的时间戳 (ms)，-1 表示没有；需持有 getSamples() 的锁
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    // 采样率变化时调整容量，快照从新的采样率重新开始；需持有 getSamples() 的锁
+    public void configure(int sampleRate, int capacity) {
+        if (sampleRate != this.sampleRate) {
+            this.sampleRate = sampleRate;
+            if (snapshot != null) {
+                snapshot.reset(sampleRate);
+            }
+        }
+        samples.resize(capacity);
+    }
+
+    // 追加一个数据块；需持有 getSamples() 的锁
+    public void append(EcgBlock block) {
+        int length = block.getLength();
+        samples.add(block.getSamples(), 0, length);
+        if (length > 0) {
+            lastTimestamp = block.getSampleTimestamp(length - 1);
+            if (snapshot != null) {
+                snapshot.append(block.getSamples(), 0, length, lastTimestamp);
+            }
+        }
+    }
+
+    // 清空为基线；需持有 getSamples() 的锁
+    public void clear() {
+        samples.fill(0f);
+        lastTimestamp = -1;
+        if (snapshot != null) {
+            snapshot.reset(sampleRate);
+        }
+    }
+
+    /**
+     * 用快照文件中的内容恢复波形，例如进程被杀死后重新启动；返回恢复的采样个数。
+     * 之后追加的采样继续写入该快照。需持有 getSamples() 的锁。
+     */
+    public int restore(WaveformSnapshot from) {
+        snapshot = from;
+        int count = from.getRestorableCount();
+        if (from.getSampleRate() <= 0 || count == 0) {
+            return 0;
+        }
+        sampleRate = from.getSampleRate();
+        lastTimestamp = from.getLastTimestamp();
+        // 容量先放大到能容纳全部采样，接管的视图再按自己的显示时间窗口调整
+        samples.resize(Math.max(samples.capacity(), count));
+        samples.fill(0f);
+        return from.restore(samples);
+    }
+
+    // 设置快照文件，null 表示不保存；需持有 getSamples() 的锁
+    public void setSnapshot(WaveformSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public WaveformSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // 波形视图读取的采样总线订阅，随数据一起在重建时交接
+    public SampleBus.Subscription getSubscription() {
+        return subscription;
+    }
+
+    public void setSubscription(SampleBus.Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    // 上一个视图是否正在刷新；为 true 时订阅中积压的采样是重建期间到达的，接管后继续显示
+    public boolean isRendering() {
+        return rendering;
+    }
+
+    public void setRendering(boolean rendering) {
+        this.rendering = rendering;
+    }
+}
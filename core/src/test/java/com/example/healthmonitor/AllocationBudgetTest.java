@@ -0,0 +1,169 @@
+package com.example.healthmonitor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 热路径的分配预算：每个采样分配的字节数超过预算时测试失败，构建随之失败。
+ * 输入全部来自固定种子的模拟数据源并运行在虚拟时间上，结果与机器负载无关。
+ * 各路径稳态下都不分配对象，预算为 0；JIT 编译过渡造成的零星分配由 AllocationMeter 取多个窗口的最小值排除。
+ * 需要放宽预算时请先确认新增的分配不可避免。
+ */
+public class AllocationBudgetTest {
+    // 每次迭代推进 1 秒虚拟时间
+    private static final int STEP_MS = 1000;
+    private static final int WARMUP_SECONDS = 300;
+    private static final int MEASURED_SECONDS = 600;
+
+    private VirtualScheduler scheduler;
+    private PatientMonitor monitor;
+
+    @After
+    public void tearDown() {
+        if (monitor != null) {
+            monitor.stop();
+        }
+        HealthMetrics.REGISTRY.setEnabled(false);
+        HealthMetrics.REGISTRY.reset();
+    }
+
+    @Test
+    public void meter_detectsBoxing() throws Exception {
+        // 确认测量本身有效：装箱的采样列表每个采样至少分配一个 Float
+        final List<Float> samples = new ArrayList<>();
+        double bytes = AllocationMeter.bytesPerUnit(10, 100, 1000, new AllocationMeter.Workload() {
+            @Override
+            public void run(int iteration) {
+                samples.clear();
+                for (int i = 0; i < 1000; i++) {
+                    samples.add(i * 0.001f + iteration);
+                }
+            }
+        });
+        assertTrue("bytes/sample " + bytes, bytes >= 16);
+    }
+
+    @Test
+    public void pipeline_allModules() throws Exception {
+        startMonitor(EcgSource.ECG_RATE_500);
+        assertPerSample("pipeline", 0);
+    }
+
+    // 指标记录本身不分配。前面的测试已在关闭指标时把 tick 编译好，打开后走到从未执行过的分支，
+    // 触发去优化和重新编译，第一个测量窗口会计入约 1 KB（约 0.003 字节/采样），之后的窗口为 0
+    @Test
+    public void pipeline_withMetricsEnabled() throws Exception {
+        HealthMetrics.REGISTRY.setEnabled(true);
+        startMonitor(EcgSource.ECG_RATE_500);
+        assertPerSample("pipeline+metrics", 0);
+    }
+
+    @Test
+    public void pipeline_atHighestSampleRate() throws Exception {
+        startMonitor(EcgSource.ECG_RATE_1000);
+        assertPerSample("pipeline@1kHz", 0);
+    }
+
+    @Test
+    public void sampleBus_fanOutToDisplayConsumers() throws Exception {
+        startMonitor(EcgSource.ECG_RATE_1000);
+        SampleBus bus = monitor.getSampleBus();
+        final SampleBus.Subscription waveform = bus.subscribeDecimated(250, 512);
+        final SampleBus.Subscription recorder = bus.subscribeFullRate(2048);
+        final SampleBus.Subscription latest = bus.subscribeLatest();
+        final EcgBlock block = new EcgBlock(256);
+        // 与 ECGView 相同的消费端：环形缓冲区、抽取包络和扫描线段
+        final FloatRingBuffer ring = new FloatRingBuffer(250 * 5);
+        final MinMaxDecimator decimator = new MinMaxDecimator();
+        decimator.configure(600, ring.capacity());
+        final SweepTrace trace = new SweepTrace();
+        final float[] points = new float[block.getCapacity() * 4];
+        monitor.setPublishListener(new Runnable() {
+            @Override
+            public void run() {
+                while (waveform.read(block) > 0) {
+                    trace.appendSamples(block.getSamples(), block.getLength(), ring.getWrittenCount(),
+                            ring.capacity(), 1080f, 400f, points);
+                    ring.add(block.getSamples(), 0, block.getLength());
+                    decimator.add(block.getSamples(), 0, block.getLength());
+                }
+                while (recorder.read(block) > 0) {
+                    // 全速率订阅者只取走数据
+                }
+                latest.read(block);
+            }
+        });
+        assertPerSample("sampleBus+display", 0);
+    }
+
+    @Test
+    public void vitals_snapshotAndFormatting() throws Exception {
+        startMonitor(EcgSource.ECG_RATE_250);
+        final HealthSnapshotBuffer snapshots = monitor.getSnapshots();
+        final char[] text = new char[32];
+        monitor.setPublishListener(new Runnable() {
+            @Override
+            public void run() {
+                // 与 VitalsBinder 相同：取最新快照，把数值格式化进复用的字符数组
+                HealthData data = snapshots.acquire();
+                NumberFormatter.formatFixed(data.getEcgData(), 2, text, 0);
+                NumberFormatter.formatFixed(data.getTemperature(), 1, text, 0);
+                NumberFormatter.formatInt(data.getHeartRate(), text, 0);
+                NumberFormatter.formatInt(data.getBloodOxygen(), text, 0);
+                NumberFormatter.formatFixed(data.getHeartRateMean(), 1, text, 0);
+            }
+        });
+        assertPerSample("vitals", 0);
+    }
+
+    @Test
+    public void sessionRecorder_producerPath() throws Exception {
+        File dir = File.createTempFile("alloc", "");
+        dir.delete();
+        dir.mkdirs();
+        startMonitor(EcgSource.ECG_RATE_1000);
+        // 环形缓冲区足够大，写线程落后时也不丢记录；写线程自身的分配不计入
+        SessionRecorder recorder = new SessionRecorder(dir, 0L, 16 * 1024,
+                SessionRecorder.DEFAULT_SEGMENT_RECORDS, SessionRecorder.DEFAULT_FLUSH_INTERVAL_MS);
+        recorder.start();
+        try {
+            monitor.getEcgStage().addListener(recorder);
+            monitor.setFrameListener(recorder);
+            assertPerSample("sessionRecorder", 0);
+        } finally {
+            recorder.stop();
+            recorder.awaitTermination(5000);
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    private void startMonitor(int ecgRate) {
+        scheduler = new VirtualScheduler(0);
+        monitor = new PatientMonitor("bed", new Random(7));
+        monitor.getSimulatedEcg().setSampleRate(ecgRate);
+        monitor.start(scheduler);
+        monitor.setModules(Module.ECG.mask() | Module.TEMP.mask() | Module.HR.mask() | Module.OX.mask());
+    }
+
+    // 以心电采样为单位测量整条流水线，每秒虚拟时间产生 ecgRate 个采样
+    private void assertPerSample(String name, double budget) throws Exception {
+        AllocationMeter.assertWithinBudget(name, budget, WARMUP_SECONDS, MEASURED_SECONDS,
+                monitor.getSimulatedEcg().getSampleRate() * (STEP_MS / 1000),
+                new AllocationMeter.Workload() {
+                    @Override
+                    public void run(int iteration) {
+                        scheduler.advanceBy(STEP_MS);
+                    }
+                });
+    }
+}
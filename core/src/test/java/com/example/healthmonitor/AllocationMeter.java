@@ -0,0 +1,81 @@
+package com.example.healthmonitor;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 热路径分配量测量：先预热让 JIT 完成编译，再用 ThreadMXBean 统计调用线程在测量期间分配的字节数，
+ * 换算成每个采样（或每次调用）的平均字节数。只统计调用线程，写线程等其他线程的分配不计入。
+ * JVM 不支持按线程统计分配量时跳过测试。
+ *
+ * 预热后 JIT 仍可能在测量期间安装新代码或去优化重编译（例如分支走向在预热后改变），
+ * 这些过渡会在调用线程上零星分配几十到几百字节，与被测代码无关：只解释执行或只用 C1 时不出现。
+ * 因此连续测量最多 WINDOWS 个窗口，取最小值；真正的稳态分配每个窗口都有，不会被掩盖。
+ */
+final class AllocationMeter {
+    private static final int WINDOWS = 5;
+
+    // 一次迭代的工作量，iteration 从 0 开始，预热和每个测量窗口分别计数
+    interface Workload {
+        void run(int iteration) throws Exception;
+    }
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * 预热 warmupIterations 次后测量 iterations 次，每次迭代处理 unitsPerIteration 个采样，
+     * 返回每个采样平均分配的字节数；取最多 WINDOWS 个测量窗口中的最小值，测得 0 时提前结束。
+     */
+    static double bytesPerUnit(int warmupIterations, int iterations, long unitsPerIteration,
+                               Workload workload) throws Exception {
+        return measure(0, warmupIterations, iterations, unitsPerIteration, workload);
+    }
+
+    // 测量并断言每个采样的分配量不超过 budget 字节，超出时测试失败；有窗口不超过预算时提前结束
+    static void assertWithinBudget(String name, double budget, int warmupIterations, int iterations,
+                                   long unitsPerIteration, Workload workload) throws Exception {
+        double bytes = measure(budget, warmupIterations, iterations, unitsPerIteration, workload);
+        assertTrue(String.format("%s allocates %.3f bytes/unit, budget %.3f", name, bytes, budget),
+                bytes <= budget);
+    }
+
+    // 逐个窗口测量，窗口结果不超过 enough 时停止，返回各窗口的最小值
+    private static double measure(double enough, int warmupIterations, int iterations, long unitsPerIteration,
+                                  Workload workload) throws Exception {
+        if (warmupIterations < 0 || iterations <= 0 || unitsPerIteration <= 0) {
+            throw new IllegalArgumentException("warmup " + warmupIterations + ", iterations " + iterations
+                    + ", units " + unitsPerIteration);
+        }
+        com.sun.management.ThreadMXBean threads = threads();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < warmupIterations; i++) {
+            workload.run(i);
+        }
+        // 第一次调用本身可能分配，先调用一次
+        threads.getThreadAllocatedBytes(threadId);
+
+        double min = Double.MAX_VALUE;
+        for (int w = 0; w < WINDOWS && min > enough; w++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                workload.run(i);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            min = Math.min(min, (double) allocated / ((double) iterations * unitsPerIteration));
+        }
+        return min;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("thread allocation tracking unavailable",
+                bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("thread allocation tracking unavailable", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
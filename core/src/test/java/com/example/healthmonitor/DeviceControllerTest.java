@@ -0,0 +1,323 @@
+package com.example.healthmonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DeviceControllerTest {
+    private static final int PRODUCERS = 8;
+
+    private EventLoop loop;
+    private PatientMonitor monitor;
+    private DeviceController controller;
+    private final List<VirtualScheduler> schedulers = new ArrayList<>();
+    private final List<DeviceState> published = new ArrayList<>();
+    private volatile String violation;
+
+    @Before
+    public void setUp() {
+        loop = new EventLoop("test-loop");
+        monitor = new PatientMonitor("bed", new Random(1));
+        controller = new DeviceController(monitor, Clock.SYSTEM, () -> {
+            VirtualScheduler scheduler = new VirtualScheduler(0);
+            schedulers.add(scheduler);
+            return scheduler;
+        }, loop);
+        // 在循环线程上检查每个发布的状态与流水线的实际状态一致
+        controller.setListener(new DeviceController.Listener() {
+            @Override
+            public void onStateChanged(DeviceState state) {
+                DeviceState previous = published.isEmpty() ? DeviceState.OFF : published.get(published.size() - 1);
+                if (state.getVersion() != previous.getVersion() + 1) {
+                    violation = "version " + previous + " -> " + state;
+                } else if (!state.isPowered() && state.getModules() != 0) {
+                    violation = "modules on while off: " + state;
+                } else if (monitor.isRunning() != state.isPowered() || monitor.getModules() != state.getModules()) {
+                    violation = "pipeline out of sync: " + state;
+                }
+                published.add(state);
+            }
+
+            @Override
+            public void onRecordingFailed(Throwable failure) {
+                violation = "recording failed: " + failure;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5000));
+    }
+
+    @Test
+    public void mpscQueue_keepsPerProducerOrderWithoutLoss() throws Exception {
+        final MpscQueue<long[]> queue = new MpscQueue<>();
+        final int perProducer = 100_000;
+        final CyclicBarrier barrier = new CyclicBarrier(PRODUCERS);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            producers[p] = new Thread(() -> {
+                await(barrier);
+                for (int i = 0; i < perProducer; i++) {
+                    queue.offer(new long[]{producer, i});
+                }
+            });
+            producers[p].start();
+        }
+        long[] next = new long[PRODUCERS];
+        long received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < (long) PRODUCERS * perProducer) {
+            long[] item = queue.poll();
+            if (item == null) {
+                assertTrue("timed out", System.nanoTime() < deadline);
+                Thread.yield();
+                continue;
+            }
+            assertEquals(next[(int) item[0]]++, item[1]);
+            received++;
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void rapidPowerToggles_areNeverLost() throws Exception {
+        // 每个线程切换偶数次，总次数为偶数，最终必须是关机
+        int perProducer = 2_000;
+        hammer(perProducer, (random, i) -> controller.togglePower());
+        drain();
+
+        assertNull(violation, violation);
+        assertNull(loop.getFailure());
+        assertEquals(PRODUCERS * perProducer, published.size());
+        assertFalse(controller.getState().isPowered());
+        assertEquals(PRODUCERS * perProducer / 2, schedulers.size());
+        assertNoPeriodicWork();
+    }
+
+    @Test
+    public void mixedCommandsFromManyThreads_keepStateConsistent() throws Exception {
+        final Module[] modules = Module.values();
+        hammer(5_000, (random, i) -> {
+            int op = random.nextInt(10);
+            if (op == 0) {
+                controller.togglePower();
+            } else if (op == 1) {
+                controller.setPower(random.nextBoolean());
+            } else {
+                controller.toggleModule(modules[random.nextInt(modules.length)]);
+            }
+        });
+        controller.setPower(true);
+        controller.toggleModule(Module.HR);
+        drain();
+
+        assertNull(violation, violation);
+        assertNull(loop.getFailure());
+        DeviceState state = controller.getState();
+        assertTrue(state.isPowered());
+        assertEquals(monitor.getModules(), state.getModules());
+        assertEquals(published.get(published.size() - 1), state);
+
+        // 心率模块开启时心电和心率阶段在运行
+        VirtualScheduler current = schedulers.get(schedulers.size() - 1);
+        current.advanceBy(5_000);
+        assertTrue(monitor.getSnapshots().acquire().isDeviceOn());
+        controller.setPower(false);
+        drain();
+        assertNoPeriodicWork();
+    }
+
+    @Test
+    public void setModules_appliesMaskOnlyWhilePowered() throws Exception {
+        int mask = Module.ECG.mask() | Module.OX.mask();
+        controller.setModules(mask);
+        controller.setPower(true);
+        controller.setModules(mask);
+        controller.setModules(mask);
+        drain();
+
+        assertNull(violation, violation);
+        // 关机时的设置被忽略，重复的设置不发布新状态
+        assertEquals(2, published.size());
+        assertEquals(mask, controller.getState().getModules());
+        assertEquals(mask, monitor.getModules());
+        controller.setPower(false);
+        drain();
+        assertNoPeriodicWork();
+    }
+
+    @Test
+    public void idleLoop_parksWithoutTimeout() throws Exception {
+        drain();
+        Thread thread = null;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("test-loop") && t.isAlive()) {
+                thread = t;
+            }
+        }
+        assertNotNull(thread);
+        // 空闲时无限期挂起，不定时唤醒
+        awaitState(thread, Thread.State.WAITING);
+
+        // 提交命令即唤醒
+        controller.setPower(true);
+        drain();
+        assertTrue(controller.getState().isPowered());
+        awaitState(thread, Thread.State.WAITING);
+        controller.setPower(false);
+        drain();
+        assertNull(violation, violation);
+    }
+
+    @Test
+    public void recordingFailure_reportedOnLoopThread() throws Exception {
+        final List<Throwable> failures = new ArrayList<>();
+        final List<Boolean> onLoop = new ArrayList<>();
+        controller.setListener(new DeviceController.Listener() {
+            @Override
+            public void onStateChanged(DeviceState state) {
+            }
+
+            @Override
+            public void onRecordingFailed(Throwable failure) {
+                onLoop.add(loop.inLoop());
+                failures.add(failure);
+            }
+        });
+        // 记录目录的位置是一个普通文件，无法创建目录
+        controller.setRecordingDirectory(File.createTempFile("recording", ".rec"));
+        controller.setPower(true);
+        drain();
+        drain();
+
+        assertEquals(1, failures.size());
+        assertEquals(Collections.singletonList(true), onLoop);
+        assertNull(controller.getRecorder());
+        controller.setPower(false);
+        drain();
+        assertEquals(1, failures.size());
+        assertNoPeriodicWork();
+    }
+
+    @Test
+    public void loopError_reportedBeforeLoopThreadEnds() throws Exception {
+        final List<Throwable> failures = new ArrayList<>();
+        final List<Boolean> onLoop = new ArrayList<>();
+        controller.setListener(new DeviceController.Listener() {
+            @Override
+            public void onStateChanged(DeviceState state) {
+            }
+
+            @Override
+            public void onRecordingFailed(Throwable failure) {
+                onLoop.add(loop.inLoop());
+                failures.add(failure);
+            }
+        });
+        final Error error = new OutOfMemoryError("test");
+        loop.execute(() -> {
+            throw error;
+        });
+        assertTrue(loop.awaitTermination(5000));
+
+        assertEquals(Collections.singletonList(error), failures);
+        assertEquals(Collections.singletonList(true), onLoop);
+        assertSame(error, loop.getFailure());
+    }
+
+    @Test
+    public void recording_reportsNoFailureAfterWriterEnds() throws Exception {
+        File dir = Files.createTempDirectory("recording").toFile();
+        controller.setRecordingDirectory(dir);
+        controller.setPower(true);
+        drain();
+        SessionRecorder recorder = controller.getRecorder();
+        assertNotNull(recorder);
+        schedulers.get(0).advanceBy(2_000);
+        controller.setPower(false);
+        drain();
+        // 停止在调度线程上执行，关机时调度器上剩余的任务已执行完
+        schedulers.get(0).runPending();
+        assertTrue(recorder.awaitTermination(5000));
+        drain();
+
+        assertNull(recorder.getFailure());
+        assertNull(violation, violation);
+        assertTrue(SessionLog.segmentExists(dir, recorder.getSessionStart(), 0));
+    }
+
+    private interface Command {
+        void run(Random random, int index);
+    }
+
+    // 多个线程同时提交命令；提交耗时见 DeviceControllerBenchmark
+    private void hammer(final int perProducer, final Command command) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(PRODUCERS);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            producers[p] = new Thread(() -> {
+                Random random = new Random(producer);
+                await(barrier);
+                for (int i = 0; i < perProducer; i++) {
+                    command.run(random, i);
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+    }
+
+    // 等事件循环执行完已提交的命令
+    private void drain() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        loop.execute(done::countDown);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+    }
+
+    // 关机后的调度器不再有周期任务
+    private void assertNoPeriodicWork() {
+        for (VirtualScheduler scheduler : schedulers) {
+            scheduler.runPending();
+            assertEquals(0, scheduler.getPendingTaskCount());
+        }
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != state && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(state, thread.getState());
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.*;
+
+public class EcgFilterChainTest {
+    private static final int RATE = 500;
+
+    @Test
+    public void notch_removesMainsHum() {
+        EcgFilterChain chain = new EcgFilterChain();
+        chain.setMainsFrequency(EcgFilterChain.MAINS_60_HZ);
+        float[] samples = sine(RATE * 4, 60f, 1f);
+        processInBlocks(chain, samples, 20);
+        // 跳过前 2 秒的建立过程
+        assertTrue(peak(samples, RATE * 2) < 0.05f);
+    }
+
+    @Test
+    public void highPass_removesBaselineOffset() {
+        EcgFilterChain chain = new EcgFilterChain();
+        float[] samples = new float[RATE * 10];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 2f;
+        }
+        processInBlocks(chain, samples, 20);
+        assertTrue(peak(samples, RATE * 8) < 0.01f);
+    }
+
+    @Test
+    public void passband_keepsQrsFrequencies() {
+        EcgFilterChain chain = new EcgFilterChain();
+        float[] samples = sine(RATE * 4, 10f, 1f);
+        processInBlocks(chain, samples, 20);
+        assertEquals(1f, peak(samples, RATE * 2), 0.1f);
+    }
+
+    @Test
+    public void disabledChain_passesSamplesThrough() {
+        EcgFilterChain chain = new EcgFilterChain();
+        for (EcgFilterChain.Filter filter : EcgFilterChain.Filter.values()) {
+            chain.setEnabled(filter, false);
+        }
+        chain.reset();
+        float[] samples = sine(RATE, 60f, 1f);
+        float[] original = samples.clone();
+        processInBlocks(chain, samples, 20);
+        assertArrayEquals(original, samples, 0f);
+    }
+
+    @Test
+    public void toggling_doesNotStepTheOutput() {
+        EcgFilterChain chain = new EcgFilterChain();
+        // 带直流偏置的慢变信号，关闭高通时输出会从 0 附近移动到偏置值
+        float[] samples = new float[RATE * 12];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 1f + 0.1f * (float) Math.sin(2 * Math.PI * 1.0 * i / RATE);
+        }
+        int block = 20;
+        for (int offset = 0; offset < samples.length; offset += block) {
+            if (offset == RATE * 6) {
+                chain.setEnabled(EcgFilterChain.Filter.HIGH_PASS, false);
+            } else if (offset == RATE * 9) {
+                chain.setEnabled(EcgFilterChain.Filter.HIGH_PASS, true);
+            }
+            chain.process(samples, offset, block, RATE);
+        }
+        // 相邻采样的最大变化量不应超过信号本身的斜率加上淡入淡出步长
+        float maxStep = 0f;
+        for (int i = RATE * 5 + 1; i < samples.length; i++) {
+            maxStep = Math.max(maxStep, Math.abs(samples[i] - samples[i - 1]));
+        }
+        assertTrue("max step " + maxStep, maxStep < 0.05f);
+        // 旁路期间输出等于输入（低通的相位延迟可以忽略）
+        assertEquals(1.1f, samples[RATE * 8 + RATE / 4], 0.02f);
+    }
+
+    @Test
+    public void process_allocatesNothing() throws Exception {
+        final EcgFilterChain chain = new EcgFilterChain();
+        final float[] samples = sine(RATE / 25, 10f, 1f);
+        // 每 1000 个数据块切换一次陷波器，切换本身也不分配
+        AllocationMeter.assertWithinBudget("EcgFilterChain", 0, 20, 20, 1000L * samples.length, iteration -> {
+            chain.setEnabled(EcgFilterChain.Filter.NOTCH, iteration % 2 == 0);
+            for (int i = 0; i < 1000; i++) {
+                chain.process(samples, 0, samples.length, RATE);
+            }
+        });
+    }
+
+    private static float[] sine(int count, float frequency, float amplitude) {
+        float[] samples = new float[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = amplitude * (float) Math.sin(2 * Math.PI * frequency * i / RATE);
+        }
+        return samples;
+    }
+
+    private static void processInBlocks(EcgFilterChain chain, float[] samples, int block) {
+        for (int offset = 0; offset < samples.length; offset += block) {
+            chain.process(samples, offset, Math.min(block, samples.length - offset), RATE);
+        }
+    }
+
+    private static float peak(float[] samples, int from) {
+        float peak = 0f;
+        for (int i = from; i < samples.length; i++) {
+            peak = Math.max(peak, Math.abs(samples[i]));
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EcgReplayTest {
+    @Test
+    public void mit212_decodesInterleavedChannels() throws Exception {
+        File dir = Files.createTempDirectory("mit").toFile();
+        int frames = 1001;
+        int[][] adu = new int[2][frames];
+        for (int i = 0; i < frames; i++) {
+            adu[0][i] = 1024 + (i % 400) - 200;     // 基线为 ADC 零点 1024
+            adu[1][i] = -2048 + (i * 7) % 4096;     // 覆盖整个 12 位范围
+        }
+        File header = writeRecord(dir, "100", 360, adu,
+                new String[]{"200 12 1024", "100(-5)/mV 12 0"});
+
+        Mit212EcgSource lead0 = Mit212EcgSource.open(header, 0);
+        Mit212EcgSource lead1 = Mit212EcgSource.open(header, 1);
+        assertEquals(360, lead0.getSampleRate());
+        assertEquals(frames, lead0.getFrameCount());
+
+        EcgBlock block = new EcgBlock(64);
+        int index = 0;
+        int read;
+        while ((read = lead0.read(block, 64)) > 0) {
+            assertEquals(index * 1000L / 360, block.getStartTimestamp());
+            for (int i = 0; i < read; i++) {
+                assertEquals((adu[0][index + i] - 1024) / 200f, block.getSamples()[i], 1e-6f);
+            }
+            index += read;
+        }
+        assertEquals(frames, index);
+
+        lead1.read(block, 64);
+        for (int i = 0; i < 64; i++) {
+            assertEquals((adu[1][i] + 5) / 100f, block.getSamples()[i], 1e-6f);
+        }
+        lead1.reset();
+        lead1.read(block, 1);
+        assertEquals(0L, block.getStartTimestamp());
+    }
+
+    @Test(expected = IOException.class)
+    public void mit212_rejectsOtherFormats() throws Exception {
+        File dir = Files.createTempDirectory("mit").toFile();
+        File header = new File(dir, "x.hea");
+        try (FileWriter out = new FileWriter(header)) {
+            out.write("x 1 250 10\nx.dat 16 200 16 0 0 0 0 ECG\n");
+        }
+        Mit212EcgSource.open(header, 0);
+    }
+
+    @Test
+    public void recordedSession_replaysEcgWithOriginalTimestamps() throws Exception {
+        File dir = Files.createTempDirectory("replay").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 5000L, 256, 50, 1000);
+        recorder.start();
+        EcgBlock block = new EcgBlock(100);
+        block.setSampleRate(500);
+        for (int b = 0; b < 20; b++) {
+            for (int i = 0; i < 100; i++) {
+                block.getSamples()[i] = b * 100 + i;
+            }
+            block.setLength(100);
+            block.setStartTimestamp(5000L + b * 200);
+            recorder.onEcgBlock(block);
+            recorder.onHealthFrame(Module.TEMP, new HealthData());
+            recorder.onBeat(5000L + b * 200, 800);
+        }
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(5000));
+        assertEquals(0, recorder.getDroppedRecords());
+
+        RecordedEcgSource source = new RecordedEcgSource(dir, 5000L);
+        assertEquals(500, source.getSampleRate());
+        EcgBlock out = new EcgBlock(30);
+        int total = 0;
+        int read;
+        while ((read = source.read(out, 30)) > 0) {
+            assertEquals(500, out.getSampleRate());
+            assertEquals(5000L + total * 2L, out.getStartTimestamp());
+            for (int i = 0; i < read; i++) {
+                assertEquals(total + i, out.getSamples()[i], 0f);
+            }
+            total += read;
+        }
+        assertEquals(2000, total);
+        source.reset();
+        assertEquals(30, source.read(out, 30));
+        assertEquals(0f, out.getSamples()[0], 0f);
+    }
+
+    // 回放一条 360 Hz 记录，经过滤波、QRS 检测和分发；回放速度见 EcgReplayBenchmark
+    @Test
+    public void pipeline_replaysRecordAtAnySpeed() throws Exception {
+        File dir = Files.createTempDirectory("mit").toFile();
+        int rate = 360;
+        int frames = rate * 600;
+        int[][] adu = new int[1][frames];
+        EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(3));
+        EcgBlock block = new EcgBlock(rate);
+        for (int offset = 0; offset < frames; offset += rate) {
+            generator.fill(block, rate, rate, 0L);
+            for (int i = 0; i < rate; i++) {
+                adu[0][offset + i] = Math.round(block.getSamples()[i] * 200);
+            }
+        }
+        File header = writeRecord(dir, "synthetic", rate, adu, new String[]{"200 12 0"});
+
+        final long[] received = {0};
+        EcgStage stage = new EcgStage(Mit212EcgSource.open(header, 0), new HealthSnapshotBuffer(), () -> { });
+        stage.addListener(b -> received[0] += b.getLength());
+
+        // 1 倍速：每个周期 360 * 0.04 = 14.4 个采样
+        for (int i = 0; i < 250; i++) {
+            stage.tick();
+        }
+        assertEquals(rate * 10, received[0], 1);
+
+        stage.setPlaybackSpeed(EcgStage.AS_FAST_AS_POSSIBLE);
+        for (int i = 0; i < 20; i++) {
+            stage.tick();
+        }
+        // 全速时每个周期读取的采样多于 1 倍速
+        long before = stage.getSamplesProduced();
+        stage.tick();
+        assertTrue(stage.getSamplesProduced() - before > rate * EcgStage.BLOCK_PERIOD_MS / 1000 + 1);
+        assertTrue(stage.getHeartRate() >= 60 && stage.getHeartRate() <= 100);
+    }
+
+    // 按格式 212 写出记录，signalSpecs 为每路信号的 "增益 分辨率 零点"
+    private static File writeRecord(File dir, String name, int rate, int[][] adu, String[] signalSpecs)
+            throws IOException {
+        int signals = adu.length;
+        int frames = adu[0].length;
+        int total = signals * frames;
+        byte[] bytes = new byte[(total + 1) / 2 * 3];
+        for (int k = 0; k < total; k += 2) {
+            int a = adu[k % signals][k / signals] & 0xFFF;
+            int b = k + 1 < total ? adu[(k + 1) % signals][(k + 1) / signals] & 0xFFF : 0;
+            int p = k / 2 * 3;
+            bytes[p] = (byte) a;
+            bytes[p + 1] = (byte) (((a >> 8) & 0x0F) | ((b >> 4) & 0xF0));
+            bytes[p + 2] = (byte) b;
+        }
+        try (FileOutputStream out = new FileOutputStream(new File(dir, name + ".dat"))) {
+            out.write(bytes);
+        }
+        File header = new File(dir, name + ".hea");
+        try (FileWriter out = new FileWriter(header)) {
+            out.write("# synthetic record\n");
+            out.write(name + " " + signals + " " + rate + " " + frames + "\n");
+            for (int s = 0; s < signals; s++) {
+                out.write(name + ".dat 212 " + signalSpecs[s] + " 0 0 0 lead" + s + "\n");
+            }
+        }
+        return header;
+    }
+}
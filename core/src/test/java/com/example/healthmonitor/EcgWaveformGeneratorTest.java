@@ -0,0 +1,189 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EcgWaveformGeneratorTest {
+    private static final int TOLERANCE_MS = 50;
+
+    @Test
+    public void qrsDetector_findsEveryGeneratedBeat() {
+        for (int rate : new int[]{250, 500, 1000}) {
+            EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(rate));
+            generator.setHeartRateRange(50, 140);
+            generator.setHeartRateVariability(0.1f);
+            generator.setNoise(0.03f, 0.2f);
+            final long[] truth = new long[1024];
+            final int[] truthCount = {0};
+            generator.setBeatListener((timestamp, rr) -> truth[truthCount[0]++] = timestamp);
+            final long[] detected = new long[1024];
+            final int[] detectedCount = {0};
+            QrsDetector detector = new QrsDetector(rate, (timestamp, rr) -> detected[detectedCount[0]++] = timestamp);
+
+            EcgBlock block = new EcgBlock(rate / 25);
+            for (int i = 0; i < 120 * 25; i++) {
+                generator.fill(block, block.getCapacity(), rate, 0L);
+                detector.process(block);
+            }
+
+            // 学习阶段之后每个 R 波都要被检测到，且没有多余的检测
+            int expected = 0;
+            int matched = 0;
+            for (int i = 0; i < truthCount[0]; i++) {
+                if (truth[i] < 2500) {
+                    continue;
+                }
+                expected++;
+                if (nearest(detected, detectedCount[0], truth[i]) <= TOLERANCE_MS) {
+                    matched++;
+                }
+            }
+            int falsePositives = 0;
+            for (int j = 0; j < detectedCount[0]; j++) {
+                if (detected[j] >= 2500 && nearest(truth, truthCount[0], detected[j]) > TOLERANCE_MS) {
+                    falsePositives++;
+                }
+            }
+            assertTrue(rate + " Hz sensitivity " + matched + "/" + expected, matched >= expected * 99 / 100);
+            assertTrue(rate + " Hz false positives " + falsePositives, falsePositives <= expected / 100);
+        }
+    }
+
+    @Test
+    public void fixedHeartRate_isReportedByDetector() {
+        int rate = 500;
+        EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(1));
+        generator.setHeartRateRange(120, 120);
+        generator.setHeartRateVariability(0);
+        QrsDetector detector = new QrsDetector(rate, null);
+        EcgBlock block = new EcgBlock(rate / 25);
+        for (int i = 0; i < 30 * 25; i++) {
+            generator.fill(block, block.getCapacity(), rate, 0L);
+            detector.process(block);
+        }
+        assertEquals(120, generator.getHeartRate(), 0.01f);
+        assertEquals(120, detector.getHeartRate(), 1);
+    }
+
+    @Test
+    public void template_shortensQtButKeepsQrsWidth() {
+        float[] slow = EcgBeatTemplates.forHeartRate(60);
+        float[] fast = EcgBeatTemplates.forHeartRate(120);
+        // R 波都在相位 0.5，幅度不随心率变化
+        int peak = (int) (EcgBeatTemplates.R_PEAK_PHASE * EcgBeatTemplates.TABLE_SIZE);
+        assertEquals(slow[peak], fast[peak], 0.01f);
+        assertTrue(slow[peak] > 1.2f);
+
+        // 换算成毫秒：60 bpm 一拍 1000 ms，120 bpm 一拍 500 ms
+        float slowQrs = widthAbove(slow, 0.5f) * 1000f;
+        float fastQrs = widthAbove(fast, 0.5f) * 500f;
+        float slowRt = tPeakPhase(slow) * 1000f;
+        float fastRt = tPeakPhase(fast) * 500f;
+        assertEquals(slowQrs, fastQrs, slowQrs * 0.1f);
+        // Bazett：RR 减半时 RT 间期约缩短为 1/sqrt(2)
+        assertEquals(slowRt / Math.sqrt(2), fastRt, slowRt * 0.05f);
+    }
+
+    @Test
+    public void artifacts_addEnergyOnlyWhileActive() {
+        int rate = 500;
+        EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(2));
+        generator.setNoise(0f, 0f);
+        generator.setArtifacts(0f, 1f);
+        EcgWaveformGenerator clean = new EcgWaveformGenerator(new Random(2));
+        clean.setNoise(0f, 0f);
+        EcgBlock block = new EcgBlock(rate);
+        EcgBlock reference = new EcgBlock(rate);
+
+        generator.fill(block, rate, rate, 0L);
+        clean.fill(reference, rate, rate, 0L);
+        assertEquals(0f, difference(block, reference), 1e-6f);
+
+        generator.injectArtifact(400);
+        generator.fill(block, rate, rate, 0L);
+        clean.fill(reference, rate, rate, 0L);
+        assertTrue(difference(block, reference) > 0.1f);
+
+        generator.fill(block, rate, rate, 0L);
+        clean.fill(reference, rate, rate, 0L);
+        assertEquals(0f, difference(block, reference), 1e-6f);
+    }
+
+    @Test
+    public void sameSeed_producesIdenticalSamples() {
+        EcgWaveformGenerator a = new EcgWaveformGenerator(new Random(7));
+        EcgWaveformGenerator b = new EcgWaveformGenerator(new Random(7));
+        a.setArtifacts(6f, 0.5f);
+        b.setArtifacts(6f, 0.5f);
+        EcgBlock blockA = new EcgBlock(1000);
+        EcgBlock blockB = new EcgBlock(1000);
+        for (int i = 0; i < 600; i++) {
+            a.fill(blockA, 1000, 1000, 0L);
+            b.fill(blockB, 1000, 1000, 0L);
+            for (int j = 0; j < 1000; j++) {
+                assertEquals(Float.floatToIntBits(blockA.getSamples()[j]), Float.floatToIntBits(blockB.getSamples()[j]));
+            }
+        }
+    }
+
+    @Test
+    public void fill_allocatesNothing() throws Exception {
+        int patients = 64;
+        final int rate = 1000;
+        final EcgWaveformGenerator[] generators = new EcgWaveformGenerator[patients];
+        for (int p = 0; p < patients; p++) {
+            generators[p] = new EcgWaveformGenerator(new Random(p));
+            generators[p].setArtifacts(2f, 0.5f);
+        }
+        final EcgBlock block = new EcgBlock(rate / 25);
+        // 每次迭代为所有病人各生成一个 40 ms 的数据块，以采样为单位
+        AllocationMeter.assertWithinBudget("EcgWaveformGenerator", 0, 10 * 25, 60 * 25,
+                (long) patients * block.getCapacity(), iteration -> {
+                    for (EcgWaveformGenerator generator : generators) {
+                        generator.fill(block, block.getCapacity(), rate, 0L);
+                    }
+                });
+    }
+
+    private static long nearest(long[] times, int count, long t) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            best = Math.min(best, Math.abs(times[i] - t));
+        }
+        return best;
+    }
+
+    // 模板中高于 level 的 R 波部分占的相位宽度
+    private static float widthAbove(float[] table, float level) {
+        int count = 0;
+        for (int i = 0; i < EcgBeatTemplates.TABLE_SIZE; i++) {
+            if (table[i] > level) {
+                count++;
+            }
+        }
+        return count / (float) EcgBeatTemplates.TABLE_SIZE;
+    }
+
+    // R 波到 T 波峰的相位距离
+    private static float tPeakPhase(float[] table) {
+        int from = (int) ((EcgBeatTemplates.R_PEAK_PHASE + 0.1f) * EcgBeatTemplates.TABLE_SIZE);
+        int best = from;
+        for (int i = from; i < EcgBeatTemplates.TABLE_SIZE; i++) {
+            if (table[i] > table[best]) {
+                best = i;
+            }
+        }
+        return best / (float) EcgBeatTemplates.TABLE_SIZE - EcgBeatTemplates.R_PEAK_PHASE;
+    }
+
+    private static float difference(EcgBlock a, EcgBlock b) {
+        float max = 0f;
+        for (int i = 0; i < a.getLength(); i++) {
+            max = Math.max(max, Math.abs(a.getSamples()[i] - b.getSamples()[i]));
+        }
+        return max;
+    }
+}
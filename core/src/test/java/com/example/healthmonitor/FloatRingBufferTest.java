@@ -0,0 +1,57 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FloatRingBufferTest {
+    @Test
+    public void add_overwritesOldestWhenFull() {
+        FloatRingBuffer buffer = new FloatRingBuffer(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(3f, buffer.get(0), 0f);
+        assertEquals(4f, buffer.get(1), 0f);
+        assertEquals(5f, buffer.get(2), 0f);
+        assertEquals(5f, buffer.getLatest(), 0f);
+    }
+
+    @Test
+    public void addBlock_wrapsAroundAndKeepsLatest() {
+        FloatRingBuffer buffer = new FloatRingBuffer(4);
+        buffer.add(new float[]{1, 2, 3}, 0, 3);
+        buffer.add(new float[]{4, 5, 6, 7, 8, 9}, 0, 6);
+        assertEquals(4, buffer.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(6f + i, buffer.get(i), 0f);
+        }
+    }
+
+    @Test
+    public void resize_keepsNewestSamples() {
+        FloatRingBuffer buffer = new FloatRingBuffer(5);
+        for (int i = 0; i < 7; i++) {
+            buffer.add(i);
+        }
+        buffer.resize(3);
+        assertEquals(3, buffer.size());
+        assertEquals(4f, buffer.get(0), 0f);
+        assertEquals(6f, buffer.get(2), 0f);
+
+        buffer.resize(6);
+        buffer.add(7f);
+        assertEquals(4, buffer.size());
+        assertEquals(7f, buffer.getLatest(), 0f);
+    }
+
+    @Test
+    public void fill_makesBufferFull() {
+        FloatRingBuffer buffer = new FloatRingBuffer(10);
+        buffer.add(1f);
+        buffer.fill(0f);
+        assertTrue(buffer.isFull());
+        assertEquals(0f, buffer.get(9), 0f);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HealthSnapshotBufferTest {
+    @Test
+    public void acquire_returnsLatestPublishedFrame() {
+        HealthSnapshotBuffer buffer = new HealthSnapshotBuffer();
+        for (int i = 1; i <= 3; i++) {
+            HealthData data = buffer.beginWrite();
+            data.setHeartRate(60 + i);
+            buffer.publish();
+        }
+        assertTrue(buffer.hasNewFrame());
+        assertEquals(63, buffer.acquire().getHeartRate());
+        assertFalse(buffer.hasNewFrame());
+        // 没有新帧时返回同一个对象
+        assertSame(buffer.acquire(), buffer.acquire());
+    }
+
+    @Test
+    public void beginWrite_carriesForwardPreviousFrame() {
+        HealthSnapshotBuffer buffer = new HealthSnapshotBuffer();
+        HealthData data = buffer.beginWrite();
+        data.setTemperature(36.8f);
+        data.setBloodOxygen(97);
+        buffer.publish();
+        HealthData reader = buffer.acquire();
+
+        data = buffer.beginWrite();
+        assertNotSame(reader, data);
+        assertEquals(36.8f, data.getTemperature(), 0f);
+        assertEquals(97, data.getBloodOxygen());
+        data.setBloodOxygen(99);
+        buffer.publish();
+
+        // 读者持有的帧不受写端影响
+        assertEquals(97, reader.getBloodOxygen());
+        assertEquals(99, buffer.acquire().getBloodOxygen());
+    }
+
+    @Test
+    public void publishTick_allocatesNothing() throws Exception {
+        final HealthSnapshotBuffer buffer = new HealthSnapshotBuffer();
+        final VitalsSimulator simulator = new VitalsSimulator(new Random(42));
+        // 以每次发布为单位
+        AllocationMeter.assertWithinBudget("HealthSnapshotBuffer", 0, 20, 100, 1000,
+                iteration -> runTicks(buffer, simulator, 1000));
+    }
+
+    private static void runTicks(HealthSnapshotBuffer buffer, VitalsSimulator simulator, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            HealthData data = buffer.beginWrite();
+            simulator.generate(data);
+            data.setTimestamp(i);
+            buffer.publish();
+            if ((i & 3) == 0) {
+                buffer.acquire();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void counters_areExactUnderContention() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(true);
+        final Counter counter = registry.counter("test.count");
+        final LatencyHistogram histogram = registry.histogram("test.latency");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    counter.increment();
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, counter.get());
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(99_999, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void histogram_bucketsAndPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry(true);
+        LatencyHistogram histogram = registry.histogram("test.latency");
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+        // 90 次 100 微秒，10 次 10 毫秒
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(10_000_000);
+        }
+        histogram.record(-5);
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(90, histogram.getBucketCount(LatencyHistogram.bucketOf(100_000)));
+
+        // 估计值落在真实值所在的桶内：不小于真实值，不超过真实值的两倍
+        long p50 = histogram.getPercentileNanos(0.5);
+        assertTrue("p50 " + p50, p50 >= 100_000 && p50 <= 200_000);
+        assertEquals(10_000_000, histogram.getPercentileNanos(0.99));
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertEquals((90 * 100_000 + 10 * 10_000_000) / 101.0, histogram.getMeanNanos(), 1);
+
+        // 超出范围的值进最后一个桶
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(1, histogram.getBucketCount(LatencyHistogram.BUCKET_COUNT - 1));
+        assertEquals(Long.MAX_VALUE / 2, histogram.getPercentileNanos(1));
+    }
+
+    @Test
+    public void disabledRegistry_recordsNothingAndNothingAllocates() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(false);
+        final Counter counter = registry.counter("test.count");
+        final Gauge gauge = registry.gauge("test.gauge");
+        final LatencyHistogram histogram = registry.histogram("test.latency");
+        AllocationMeter.Workload workload = iteration -> record(counter, gauge, histogram);
+        AllocationMeter.assertWithinBudget("metrics disabled", 0, 1, 1, 100_000, workload);
+        assertEquals(0, counter.get());
+        assertEquals(0, gauge.get());
+        assertEquals(0, histogram.getCount());
+
+        // 打开后记录同样不分配
+        registry.setEnabled(true);
+        AllocationMeter.assertWithinBudget("metrics enabled", 0, 1, 1, 100_000, workload);
+        registry.reset();
+        record(counter, gauge, histogram);
+        assertEquals(100_000, counter.get());
+        assertEquals(99_999, gauge.get());
+        assertEquals(100_000, histogram.getCount());
+
+        registry.reset();
+        assertEquals(0, counter.get());
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void dump_listsEveryMetricInRegistrationOrder() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(true);
+        registry.counter("a.count").add(3);
+        registry.gauge("b.gauge").set(-2);
+        registry.histogram("c.latency").record(1_500_000);
+        try {
+            registry.counter("a.count");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        File file = File.createTempFile("metrics", ".txt");
+        try {
+            registry.dump(file);
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                assertEquals("a.count count=3", reader.readLine());
+                assertEquals("b.gauge value=-2", reader.readLine());
+                String line = reader.readLine();
+                assertTrue(line, line.startsWith("c.latency count=1 mean=1500.0us"));
+                assertTrue(line, line.endsWith("max=1500us"));
+                assertNull(reader.readLine());
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+        assertEquals(3, registry.dump().split("\n").length);
+    }
+
+    @Test
+    public void pipeline_reportsTicksAndBusDrops() {
+        HealthMetrics.REGISTRY.reset();
+        HealthMetrics.REGISTRY.setEnabled(true);
+        try {
+            VirtualScheduler scheduler = new VirtualScheduler(0);
+            PatientMonitor monitor = new PatientMonitor("bed", new Random(1));
+            SampleBus.Subscription stalled = monitor.getSampleBus().subscribeFullRate(1024);
+            monitor.start(scheduler);
+            monitor.setModules(Module.ECG.mask() | Module.TEMP.mask());
+            scheduler.advanceBy(10_000);
+            monitor.stop();
+
+            // 虚拟时间下每次 tick 都准时执行
+            assertTrue(HealthMetrics.STAGE_TICKS.get() >= 10_000 / EcgStage.BLOCK_PERIOD_MS);
+            assertEquals(HealthMetrics.STAGE_TICKS.get() - 2, HealthMetrics.STAGE_TICK_LATENESS.getCount());
+            assertEquals(0, HealthMetrics.STAGE_TICK_LATENESS.getMaxNanos());
+            assertEquals(stalled.getDropped(), HealthMetrics.BUS_DROPPED.get());
+            assertTrue(stalled.getDropped() > 0);
+        } finally {
+            HealthMetrics.REGISTRY.setEnabled(false);
+            HealthMetrics.REGISTRY.reset();
+        }
+    }
+
+    private static void record(Counter counter, Gauge gauge, LatencyHistogram histogram) {
+        for (int i = 0; i < 100_000; i++) {
+            counter.increment();
+            gauge.set(i);
+            histogram.record(i * 1000L);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MinMaxDecimatorTest {
+    @Test
+    public void narrowPeak_survivesDecimation() {
+        MinMaxDecimator decimator = new MinMaxDecimator();
+        // 30 秒 500 Hz 的窗口压缩到 600 列，每列 25 个采样
+        decimator.configure(600, 15000);
+        for (int i = 0; i < 15000; i++) {
+            decimator.add(i == 7012 ? 1.5f : 0f);
+        }
+        long peakColumn = (long) (7012 / decimator.getSamplesPerColumn());
+        assertEquals(1.5f, decimator.getMax(peakColumn), 0f);
+        assertEquals(0f, decimator.getMax(peakColumn + 2), 0f);
+        assertEquals(599, decimator.getCurrentColumn());
+        assertEquals(0, decimator.getOldestColumn());
+    }
+
+    @Test
+    public void columns_connectToPreviousColumn() {
+        MinMaxDecimator decimator = new MinMaxDecimator();
+        decimator.configure(4, 8);
+        decimator.add(new float[]{0f, 1f, 3f, 3f}, 0, 4);
+        // 第 1 列从上一列的最后一个采样 1 开始
+        assertEquals(1f, decimator.getMin(1), 0f);
+        assertEquals(3f, decimator.getMax(1), 0f);
+    }
+
+    @Test
+    public void window_keepsOnlyLatestColumns() {
+        MinMaxDecimator decimator = new MinMaxDecimator();
+        decimator.configure(10, 20);
+        for (int i = 0; i < 100; i++) {
+            decimator.add(i);
+        }
+        assertEquals(49, decimator.getCurrentColumn());
+        assertEquals(40, decimator.getOldestColumn());
+        assertEquals(99f, decimator.getMax(49), 0f);
+        assertEquals(79f, decimator.getMin(40), 0f);
+    }
+}
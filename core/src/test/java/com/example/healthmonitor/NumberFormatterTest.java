@@ -0,0 +1,75 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NumberFormatterTest {
+
+    @Test
+    public void formatFixed_matchesStringFormat() {
+        char[] buffer = new char[32];
+        Random random = new Random(3);
+        float[] fixed = {0f, 1f, -1f, 0.5f, 9.995f, 36.549f, 36.55f, 99.999f, -0.35f, 1234.5678f};
+        for (int decimals = 0; decimals <= 3; decimals++) {
+            for (float value : fixed) {
+                check(value, decimals, buffer);
+            }
+            for (int i = 0; i < 10_000; i++) {
+                check((random.nextFloat() - 0.3f) * 200f, decimals, buffer);
+            }
+        }
+    }
+
+    @Test
+    public void formatInt_andAppend() {
+        char[] buffer = new char[32];
+        int[] values = {0, 7, -7, 60, 100, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int value : values) {
+            int end = NumberFormatter.formatInt(value, buffer, 0);
+            end = NumberFormatter.append(" bpm", buffer, end);
+            assertEquals(value + " bpm", new String(buffer, 0, end));
+        }
+        // 从中间位置开始写入
+        int end = NumberFormatter.formatFixed(36.57f, 1, buffer, 3);
+        assertEquals("36.6", new String(buffer, 3, end - 3));
+    }
+
+    @Test
+    public void quantize_decidesWhetherTextChanges() {
+        assertEquals(NumberFormatter.quantize(36.54f, 1), NumberFormatter.quantize(36.51f, 1));
+        assertNotEquals(NumberFormatter.quantize(36.54f, 1), NumberFormatter.quantize(36.56f, 1));
+        try {
+            NumberFormatter.quantize(1f, NumberFormatter.MAX_DECIMALS + 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void format_allocatesNothing() throws Exception {
+        final char[] buffer = new char[32];
+        final int[] sink = new int[1];
+        // 预热和测量执行同样的调用，两个方法都编译完后再测量
+        AllocationMeter.assertWithinBudget("NumberFormatter", 0, 100, 100, 2000, iteration -> {
+            for (int i = 0; i < 1000; i++) {
+                int value = iteration * 1000 + i;
+                sink[0] += NumberFormatter.formatFixed(value * 0.01f, 2, buffer, 0);
+                sink[0] += NumberFormatter.formatInt(value, buffer, 0);
+            }
+        });
+        assertTrue(sink[0] > 0);
+    }
+
+    private static void check(float value, int decimals, char[] buffer) {
+        String expected = String.format(Locale.US, "%." + decimals + "f", value);
+        if (expected.startsWith("-") && Double.parseDouble(expected) == 0) {
+            expected = expected.substring(1);
+        }
+        int end = NumberFormatter.formatFixed(value, decimals, buffer, 0);
+        assertEquals(value + " / " + decimals, expected, new String(buffer, 0, end));
+    }
+}
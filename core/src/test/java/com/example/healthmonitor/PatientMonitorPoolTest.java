@@ -0,0 +1,104 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PatientMonitorPoolTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final int ALL_MODULES = Module.ECG.mask() | Module.TEMP.mask() | Module.HR.mask() | Module.OX.mask();
+
+    @Test
+    public void beds_spreadEvenlyAcrossShards() {
+        List<VirtualScheduler> schedulers = new ArrayList<>();
+        PatientMonitorPool pool = new PatientMonitorPool(3, () -> add(schedulers, new VirtualScheduler(START)), 1);
+        for (int i = 0; i < 12; i++) {
+            pool.addPatient("bed-" + i);
+        }
+        int[] perShard = new int[3];
+        for (String id : pool.getPatientIds()) {
+            perShard[pool.shardOf(id)]++;
+        }
+        assertArrayEquals(new int[]{4, 4, 4}, perShard);
+        try {
+            pool.addPatient("bed-0");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        pool.start();
+        assertEquals(3, schedulers.size());
+        for (String id : pool.getPatientIds()) {
+            pool.getPatient(id).setModules(ALL_MODULES);
+        }
+        for (VirtualScheduler scheduler : schedulers) {
+            scheduler.advanceBy(60_000);
+        }
+        for (String id : pool.getPatientIds()) {
+            HealthData data = pool.getPatient(id).getSnapshots().acquire();
+            assertTrue(id, data.isDeviceOn());
+            assertTrue(id, data.getHeartRate() >= 55 && data.getHeartRate() <= 105);
+            assertEquals(START + 60_000, data.getTimestamp(), 1000);
+        }
+
+        // 移除的病人不再占用所在分片
+        VirtualScheduler shard = schedulers.get(pool.shardOf("bed-5"));
+        int pending = shard.getPendingTaskCount();
+        assertTrue(pool.removePatient("bed-5"));
+        assertFalse(pool.removePatient("bed-5"));
+        assertNull(pool.getPatient("bed-5"));
+        assertEquals(pending - 4, shard.getPendingTaskCount());
+        // 新病人补到病人最少的分片
+        pool.addPatient("bed-12");
+        assertEquals(schedulers.indexOf(shard), pool.shardOf("bed-12"));
+
+        pool.stop();
+        for (VirtualScheduler scheduler : schedulers) {
+            scheduler.runPending();
+            assertEquals(0, scheduler.getPendingTaskCount());
+        }
+    }
+
+    @Test
+    public void bedOutput_doesNotDependOnShardCount() {
+        long[] oneShard = run(1, 8);
+        long[] fourShards = run(4, 8);
+        assertArrayEquals(oneShard, fourShards);
+        for (int i = 1; i < oneShard.length; i++) {
+            assertNotEquals(oneShard[0], oneShard[i]);
+        }
+    }
+
+    // 运行 beds 个病人 10 分钟，返回每个病人心电数据的哈希值
+    private static long[] run(int shards, int beds) {
+        List<VirtualScheduler> schedulers = new ArrayList<>();
+        PatientMonitorPool pool = new PatientMonitorPool(shards, () -> add(schedulers, new VirtualScheduler(START)), 3);
+        final long[] hashes = new long[beds];
+        for (int i = 0; i < beds; i++) {
+            final int bed = i;
+            PatientMonitor monitor = pool.addPatient("bed-" + i);
+            monitor.getEcgStage().addListener(block -> {
+                for (int j = 0; j < block.getLength(); j++) {
+                    hashes[bed] = hashes[bed] * 31 + Float.floatToIntBits(block.getSamples()[j]);
+                }
+            });
+        }
+        pool.start();
+        for (String id : pool.getPatientIds()) {
+            pool.getPatient(id).setModules(ALL_MODULES);
+        }
+        for (VirtualScheduler scheduler : schedulers) {
+            scheduler.advanceBy(600_000);
+        }
+        pool.stop();
+        return hashes;
+    }
+
+    private static VirtualScheduler add(List<VirtualScheduler> schedulers, VirtualScheduler scheduler) {
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QrsDetectorTest {
+    private static final int TOLERANCE_MS = 30;
+
+    @Test
+    public void detectsKnownBeats_500Hz() {
+        assertDetectsKnownBeats(500);
+    }
+
+    @Test
+    public void detectsKnownBeats_1000Hz() {
+        assertDetectsKnownBeats(1000);
+    }
+
+    @Test
+    public void heartRate_followsRrIntervals() {
+        int sampleRate = 500;
+        float[] trace = new float[sampleRate * 30];
+        long[] beats = new long[64];
+        int beatCount = 0;
+        // 固定 750 ms 的 RR 间期，对应 80 bpm
+        for (long t = 400; t < 30_000 - 400; t += 750) {
+            beats[beatCount++] = t;
+        }
+        synthesize(trace, sampleRate, beats, beatCount, new Random(3), 0.01f);
+
+        QrsDetector detector = new QrsDetector(sampleRate, null);
+        feed(detector, trace, sampleRate, 20);
+        assertEquals(80, detector.getHeartRate(), 1);
+    }
+
+    private void assertDetectsKnownBeats(int sampleRate) {
+        Random random = new Random(sampleRate);
+        int seconds = 120;
+        float[] trace = new float[sampleRate * seconds];
+        long[] beats = new long[512];
+        int beatCount = 0;
+        // RR 间期在 500-1100 ms 之间随机变化
+        for (long t = 500; t < seconds * 1000L - 1200; t += 500 + random.nextInt(600)) {
+            beats[beatCount++] = t;
+        }
+        synthesize(trace, sampleRate, beats, beatCount, random, 0.03f);
+
+        final long[] detected = new long[1024];
+        final int[] detectedCount = {0};
+        QrsDetector detector = new QrsDetector(sampleRate, (timestamp, rr) -> detected[detectedCount[0]++] = timestamp);
+        feed(detector, trace, sampleRate, sampleRate / 25);
+
+        // 学习阶段之后的每个心跳都必须在容差内被检测到，且没有多余的检测
+        int matched = 0;
+        int expected = 0;
+        for (int i = 0; i < beatCount; i++) {
+            if (beats[i] < 2500) {
+                continue;
+            }
+            expected++;
+            for (int j = 0; j < detectedCount[0]; j++) {
+                if (Math.abs(detected[j] - beats[i]) <= TOLERANCE_MS) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        int falsePositives = 0;
+        for (int j = 0; j < detectedCount[0]; j++) {
+            if (detected[j] < 2500) {
+                continue;
+            }
+            boolean found = false;
+            for (int i = 0; i < beatCount; i++) {
+                if (Math.abs(detected[j] - beats[i]) <= TOLERANCE_MS) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                falsePositives++;
+            }
+        }
+        assertTrue("sensitivity " + matched + "/" + expected, matched >= expected * 99 / 100);
+        assertTrue("false positives " + falsePositives, falsePositives <= expected / 100);
+    }
+
+    private static void feed(QrsDetector detector, float[] trace, int sampleRate, int blockSize) {
+        EcgBlock block = new EcgBlock(blockSize);
+        for (int offset = 0; offset < trace.length; offset += blockSize) {
+            int length = Math.min(blockSize, trace.length - offset);
+            System.arraycopy(trace, offset, block.getSamples(), 0, length);
+            block.setLength(length);
+            block.setSampleRate(sampleRate);
+            block.setStartTimestamp(offset * 1000L / sampleRate);
+            detector.process(block);
+        }
+    }
+
+    // 在已知时刻放置 P、QRS、T 波，叠加基线漂移和白噪声
+    private static void synthesize(float[] trace, int sampleRate, long[] beats, int beatCount,
+                                   Random random, float noise) {
+        for (int i = 0; i < trace.length; i++) {
+            double t = i * 1000.0 / sampleRate;
+            trace[i] = (float) (0.2 * Math.sin(2 * Math.PI * 0.3 * t / 1000)
+                    + noise * random.nextGaussian());
+        }
+        for (int b = 0; b < beatCount; b++) {
+            addWave(trace, sampleRate, beats[b] - 160, 25, 0.15f);
+            addWave(trace, sampleRate, beats[b] - 20, 8, -0.15f);
+            addWave(trace, sampleRate, beats[b], 10, 1.2f);
+            addWave(trace, sampleRate, beats[b] + 25, 8, -0.25f);
+            addWave(trace, sampleRate, beats[b] + 250, 40, 0.3f);
+        }
+    }
+
+    private static void addWave(float[] trace, int sampleRate, long centerMs, double sigmaMs, float amplitude) {
+        int from = (int) Math.max(0, (centerMs - 5 * sigmaMs) * sampleRate / 1000);
+        int to = (int) Math.min(trace.length - 1, (centerMs + 5 * sigmaMs) * sampleRate / 1000);
+        for (int i = from; i <= to; i++) {
+            double dt = i * 1000.0 / sampleRate - centerMs;
+            trace[i] += amplitude * Math.exp(-dt * dt / (2 * sigmaMs * sigmaMs));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SampleBusTest {
+    private static final int RATE = 1000;
+    private static final int BLOCK = 40;
+
+    @Test
+    public void subscribers_readAtTheirOwnPolicy() {
+        SampleBus bus = new SampleBus();
+        SampleBus.Subscription full = bus.subscribeFullRate(4096);
+        SampleBus.Subscription display = bus.subscribeDecimated(250, 1024);
+        SampleBus.Subscription latest = bus.subscribeLatest();
+        EcgBlock block = new EcgBlock(BLOCK);
+        for (int i = 0; i < 50; i++) {
+            publish(bus, block, i * BLOCK);
+        }
+        assertEquals(2000, bus.getPublished());
+
+        // 全速订阅者按顺序收到每个采样
+        EcgBlock out = new EcgBlock(256);
+        int expected = 0;
+        while (full.read(out) > 0) {
+            assertEquals(RATE, out.getSampleRate());
+            assertEquals(expected, out.getStartTimestamp());
+            for (int j = 0; j < out.getLength(); j++) {
+                assertEquals(expected++, out.getSamples()[j], 0f);
+            }
+        }
+        assertEquals(2000, expected);
+        assertEquals(2000, full.getDelivered());
+
+        // 抽取订阅者每 4 个采样取 1 个
+        int count = 0;
+        while (display.read(out) > 0) {
+            assertEquals(250, out.getSampleRate());
+            for (int j = 0; j < out.getLength(); j++) {
+                assertEquals(count++ * 4, out.getSamples()[j], 0f);
+            }
+        }
+        assertEquals(500, count);
+        assertEquals(0, display.getDropped());
+
+        // 只取最新值的订阅者只看到最后一个采样，其余计为跳过
+        assertEquals(1, latest.available());
+        assertEquals(1, latest.read(out));
+        assertEquals(1999f, out.getSamples()[0], 0f);
+        assertEquals(1999, out.getStartTimestamp());
+        assertEquals(1999, latest.getSkipped());
+        assertEquals(0, latest.read(out));
+
+        bus.unsubscribe(display);
+        assertEquals(2, bus.getSubscriberCount());
+    }
+
+    @Test
+    public void slowSubscriber_dropsAreCountedAndDoNotAffectOthers() {
+        SampleBus bus = new SampleBus();
+        SampleBus.Subscription fast = bus.subscribeFullRate(256);
+        SampleBus.Subscription slow = bus.subscribeFullRate(256);
+        EcgBlock block = new EcgBlock(BLOCK);
+        EcgBlock out = new EcgBlock(BLOCK);
+        for (int i = 0; i < 100; i++) {
+            publish(bus, block, i * BLOCK);
+            while (fast.read(out) > 0) {
+                // 跟得上的订阅者不丢数据
+            }
+        }
+        assertEquals(4000, fast.getDelivered());
+        assertEquals(0, fast.getDropped());
+
+        // 慢订阅者保留最早的一整个缓冲区，之后的采样计为丢弃
+        assertEquals(256, slow.available());
+        assertEquals(4000 - 256, slow.getDropped());
+        assertEquals(BLOCK, slow.read(out));
+        assertEquals(0f, out.getSamples()[0], 0f);
+
+        slow.clear();
+        assertEquals(256 - BLOCK, slow.getSkipped());
+        publish(bus, block, 4000);
+        assertEquals(BLOCK, slow.read(out));
+        assertEquals(4000f, out.getSamples()[0], 0f);
+        assertEquals(4000 - 256, slow.getDropped());
+    }
+
+    @Test
+    public void sampleRateChange_splitsReads() {
+        SampleBus bus = new SampleBus();
+        SampleBus.Subscription display = bus.subscribeDecimated(250, 1024);
+        EcgBlock block = new EcgBlock(BLOCK);
+        publish(bus, block, 0);
+        block.setSampleRate(200);
+        block.setLength(10);
+        bus.onEcgBlock(block);
+
+        EcgBlock out = new EcgBlock(1024);
+        assertEquals(10, display.read(out));
+        assertEquals(250, out.getSampleRate());
+        assertEquals(10, display.read(out));
+        assertEquals(200, out.getSampleRate());
+        assertEquals(0, display.read(out));
+    }
+
+    @Test
+    public void concurrentConsumers_seeOrderedSamplesWithExactAccounting() throws Exception {
+        final SampleBus bus = new SampleBus();
+        final int blocks = 20_000;
+        final SampleBus.Subscription[] subscriptions = {
+                bus.subscribeFullRate(1 << 16), bus.subscribeFullRate(512), bus.subscribeDecimated(250, 512)};
+        final String[] errors = new String[subscriptions.length];
+        final long[] received = new long[subscriptions.length];
+        final boolean[] done = {false};
+        Thread[] consumers = new Thread[subscriptions.length];
+        for (int c = 0; c < subscriptions.length; c++) {
+            final int consumer = c;
+            consumers[c] = new Thread(() -> {
+                SampleBus.Subscription subscription = subscriptions[consumer];
+                EcgBlock out = new EcgBlock(64);
+                Random random = new Random(consumer);
+                float last = -1;
+                while (true) {
+                    boolean finished;
+                    synchronized (done) {
+                        finished = done[0];
+                    }
+                    int read = subscription.read(out);
+                    for (int j = 0; j < read; j++) {
+                        float sample = out.getSamples()[j];
+                        if (sample <= last) {
+                            errors[consumer] = String.format(Locale.US, "%.0f after %.0f", sample, last);
+                        }
+                        last = sample;
+                    }
+                    received[consumer] += read;
+                    if (read == 0 && finished) {
+                        return;
+                    }
+                    if (random.nextInt(8) == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            consumers[c].start();
+        }
+        EcgBlock block = new EcgBlock(BLOCK);
+        for (int i = 0; i < blocks; i++) {
+            publish(bus, block, (long) i * BLOCK);
+        }
+        synchronized (done) {
+            done[0] = true;
+        }
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+        for (int c = 0; c < subscriptions.length; c++) {
+            assertNull(errors[c], errors[c]);
+            SampleBus.Subscription subscription = subscriptions[c];
+            long offered = subscription.getPolicy() == SampleBus.Policy.DECIMATED ? blocks * BLOCK / 4 : blocks * BLOCK;
+            // 每个采样要么送达要么计为丢弃
+            assertEquals(offered, received[c] + subscription.getDropped());
+            assertEquals(received[c], subscription.getDelivered());
+        }
+    }
+
+    // 发布一个 1000 Hz 的数据块，采样值等于其序号
+    private static void publish(SampleBus bus, EcgBlock block, long start) {
+        block.setSampleRate(RATE);
+        block.setStartTimestamp(start);
+        for (int j = 0; j < BLOCK; j++) {
+            block.getSamples()[j] = start + j;
+        }
+        block.setLength(BLOCK);
+        bus.onEcgBlock(block);
+    }
+}
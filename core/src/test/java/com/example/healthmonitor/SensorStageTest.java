@@ -0,0 +1,48 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SensorStageTest {
+    @Test
+    public void stop_leavesNoPeriodicWork() throws Exception {
+        ExecutorTaskScheduler scheduler = new ExecutorTaskScheduler();
+        AtomicInteger starts = new AtomicInteger();
+        CountDownLatch ticked = new CountDownLatch(3);
+        SensorStage stage = new SensorStage(5) {
+            @Override
+            protected void onStart() {
+                starts.incrementAndGet();
+            }
+
+            @Override
+            protected void tick() {
+                ticked.countDown();
+            }
+        };
+
+        try {
+            stage.start(scheduler);
+            stage.start(scheduler); // 重复启动无效
+            assertTrue(ticked.await(2, TimeUnit.SECONDS));
+            // 周期任务执行期间不在队列中，等它放回队列
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (scheduler.getPendingTaskCount() == 0 && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            assertEquals(1, scheduler.getPendingTaskCount());
+
+            stage.stop();
+            assertFalse(stage.isRunning());
+            assertEquals(0, scheduler.getPendingTaskCount());
+            assertEquals(1, starts.get());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SessionCodecTest {
+    @Test
+    public void varInt_roundTripsEdgeValues() {
+        long[] values = {0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE};
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * VarInt.MAX_LONG_BYTES);
+        for (long v : values) {
+            VarInt.putSigned(buffer, v);
+        }
+        buffer.flip();
+        for (long v : values) {
+            assertEquals(v, VarInt.getSigned(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+
+        // 小的绝对值只占一个字节
+        buffer.clear();
+        VarInt.putSigned(buffer, -64);
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void ecgBlock_roundTripsWithinHalfResolution() {
+        EcgSampleCodec codec = new EcgSampleCodec();
+        EcgBlock block = new EcgBlock(500);
+        new EcgWaveformGenerator(new Random(1)).fill(block, 500, 500, 123_456L);
+        ByteBuffer buffer = ByteBuffer.allocate(EcgSampleCodec.maxEncodedSize(500) + 32);
+        codec.encode(block, buffer);
+        buffer.flip();
+
+        EcgBlock decoded = new EcgBlock(500);
+        codec.decode(buffer, decoded);
+        assertEquals(block.getStartTimestamp(), decoded.getStartTimestamp());
+        assertEquals(500, decoded.getSampleRate());
+        assertEquals(500, decoded.getLength());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(block.getSamples()[i], decoded.getSamples()[i], codec.getResolution() / 2 + 1e-6f);
+        }
+    }
+
+    @Test
+    public void vitalsColumns_decodeOneColumnWithoutTheOthers() {
+        VitalsColumns columns = new VitalsColumns(100);
+        for (int i = 0; i < 100; i++) {
+            columns.add(1_000_000L + i * 1000L, 36.5f + (i / 10) * 0.1f, 70 + (i % 3), 98);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(columns.maxEncodedSize());
+        columns.encode(buffer);
+        buffer.flip();
+
+        float[] oxygen = new float[100];
+        assertEquals(100, VitalsColumns.decodeColumn(buffer, VitalsColumns.Column.BLOOD_OXYGEN, oxygen));
+        assertEquals(0, buffer.position());
+        for (float v : oxygen) {
+            assertEquals(98f, v, 0f);
+        }
+        float[] temperature = new float[100];
+        VitalsColumns.decodeColumn(buffer, VitalsColumns.Column.TEMPERATURE, temperature);
+        assertEquals(37.4f, temperature[99], 0.005f);
+        float[] heartRate = new float[100];
+        VitalsColumns.decodeColumn(buffer, VitalsColumns.Column.HEART_RATE, heartRate);
+        assertEquals(72f, heartRate[2], 0f);
+        long[] timestamps = new long[100];
+        VitalsColumns.decodeTimestamps(buffer, timestamps);
+        assertEquals(1_099_000L, timestamps[99]);
+    }
+
+    @Test
+    public void deltaRunLength_collapsesRegularTimestamps() {
+        long[] timestamps = new long[3600];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 1000L;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        DeltaRunLengthCodec.encode(timestamps, 0, timestamps.length, buffer);
+        // 第一个绝对值 + 一段恒定差值
+        assertTrue("bytes " + buffer.position(), buffer.position() <= 16);
+    }
+
+    // 10 分钟 500 Hz 合成心电，经过与设备相同的滤波链
+    @Test
+    public void syntheticEcg_compressesWithinResolution() {
+        float[] trace = syntheticEcg(500, 600, 7);
+        assertCompresses(trace);
+    }
+
+    // 先经过会话记录器写入文件，再读回编码，与设备上回放记录的路径一致
+    @Test
+    public void replayedEcgAndVitals_compress() throws Exception {
+        File dir = Files.createTempDirectory("codec").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 0L, 4096, SessionRecorder.DEFAULT_SEGMENT_RECORDS,
+                SessionRecorder.DEFAULT_FLUSH_INTERVAL_MS);
+        recorder.start();
+        float[] source = syntheticEcg(500, 120, 11);
+        EcgBlock block = new EcgBlock(20);
+        block.setSampleRate(500);
+        VitalsSimulator simulator = new VitalsSimulator(new Random(11));
+        HealthData frame = new HealthData();
+        for (int offset = 0; offset < source.length; offset += 20) {
+            System.arraycopy(source, offset, block.getSamples(), 0, 20);
+            block.setLength(20);
+            block.setStartTimestamp(offset * 2L);
+            recorder.onEcgBlock(block);
+            if (offset % 500 == 0) {
+                simulator.generate(frame);
+                frame.setTimestamp(offset * 2L);
+                recorder.onHealthFrame(Module.TEMP, frame);
+            }
+            if (offset % 20_000 == 0) {
+                Thread.sleep(1);
+            }
+        }
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(5000));
+        assertEquals(0, recorder.getDroppedRecords());
+
+        float[] replayed = new float[source.length];
+        int ecgCount = 0;
+        VitalsColumns vitals = new VitalsColumns(1024);
+        try (SessionLogReader reader = SessionLogReader.open(dir, 0L, 0)) {
+            while (reader.next()) {
+                if (reader.getType() == SessionLog.TYPE_ECG) {
+                    ecgCount += reader.getValues(replayed, ecgCount);
+                } else if (reader.getType() == SessionLog.TYPE_VITALS) {
+                    vitals.add(reader.getTimestamp(), reader.getValue(SessionLog.VITAL_TEMPERATURE),
+                            reader.getValue(SessionLog.VITAL_HEART_RATE),
+                            reader.getValue(SessionLog.VITAL_BLOOD_OXYGEN));
+                }
+            }
+        }
+        assertEquals(source.length, ecgCount);
+        assertCompresses(replayed);
+
+        ByteBuffer buffer = ByteBuffer.allocate(vitals.maxEncodedSize());
+        vitals.encode(buffer);
+        // 原始记录每行 8 字节时间戳 + 3 个 float
+        double ratio = vitals.size() * 20.0 / buffer.position();
+        assertTrue("vitals ratio " + ratio, ratio > 2.5);
+    }
+
+    // 编码后解码，误差不超过半个分辨率，压缩比大于 3；编解码速度见 SessionEncodingBenchmark
+    private static void assertCompresses(float[] trace) {
+        EcgSampleCodec codec = new EcgSampleCodec();
+        ByteBuffer buffer = ByteBuffer.allocate(EcgSampleCodec.maxEncodedSize(trace.length));
+        float[] decoded = new float[trace.length];
+        codec.encode(trace, 0, trace.length, buffer);
+        int encodedBytes = buffer.position();
+        buffer.flip();
+        codec.decode(buffer, decoded, 0, trace.length);
+
+        double ratio = trace.length * 4.0 / encodedBytes;
+        for (int i = 0; i < trace.length; i++) {
+            assertEquals(trace[i], decoded[i], codec.getResolution() / 2 + 1e-5f);
+        }
+        assertTrue("ecg ratio " + ratio, ratio > 3);
+    }
+
+    private static float[] syntheticEcg(int sampleRate, int seconds, long seed) {
+        float[] trace = new float[sampleRate * seconds];
+        EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(seed));
+        EcgFilterChain filters = new EcgFilterChain();
+        EcgBlock block = new EcgBlock(sampleRate / 25);
+        for (int offset = 0; offset < trace.length; offset += block.getCapacity()) {
+            generator.fill(block, block.getCapacity(), sampleRate, 0L);
+            filters.process(block);
+            System.arraycopy(block.getSamples(), 0, trace, offset, block.getLength());
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SessionCompactorTest {
+    private static final long START = 9000L;
+    private static final int RATE = 500;
+
+    @Test
+    public void compactSegment_readsBackSameRecords() throws Exception {
+        File raw = record(false);
+        File compacted = record(true);
+        assertTrue(SessionLog.segmentFile(raw, START, 0).exists());
+        assertFalse(SessionLog.segmentFile(compacted, START, 0).exists());
+        File compactFile = SessionLog.compactFile(compacted, START, 0);
+        assertTrue(compactFile.exists());
+
+        // 10 分钟 500 Hz 心电和每秒的体征：心电约 1 字节/采样，整体至少缩小到四分之一
+        long rawBytes = SessionLog.segmentFile(raw, START, 0).length();
+        assertTrue("raw " + rawBytes + ", compact " + compactFile.length(), compactFile.length() * 4 < rawBytes);
+
+        float resolution = EcgSampleCodec.DEFAULT_RESOLUTION_MV;
+        try (SessionLogReader expected = SessionLogReader.open(raw, START, 0);
+             SessionLogReader actual = SessionLogReader.open(compacted, START, 0)) {
+            assertFalse(expected.isCompact());
+            assertTrue(actual.isCompact());
+            assertEquals(expected.getRecordCount(), actual.getRecordCount());
+            assertEquals(SessionLog.TYPE_SEGMENT, actual.getType());
+            assertEquals(START, actual.getTimestamp());
+            while (expected.next()) {
+                assertTrue(actual.next());
+                assertEquals(expected.getRecordIndex(), actual.getRecordIndex());
+                assertEquals(expected.getType(), actual.getType());
+                assertEquals(expected.getCount(), actual.getCount());
+                assertEquals(expected.getArg(), actual.getArg());
+                assertEquals(expected.getTimestamp(), actual.getTimestamp());
+                if (expected.getType() == SessionLog.TYPE_ECG) {
+                    for (int i = 0; i < expected.getCount(); i++) {
+                        assertEquals(expected.getValue(i), actual.getValue(i), resolution / 2 + 1e-5f);
+                    }
+                } else if (expected.getType() == SessionLog.TYPE_VITALS) {
+                    assertEquals(expected.getValue(SessionLog.VITAL_HEART_RATE),
+                            actual.getValue(SessionLog.VITAL_HEART_RATE), 0f);
+                    assertEquals(expected.getValue(SessionLog.VITAL_BLOOD_OXYGEN),
+                            actual.getValue(SessionLog.VITAL_BLOOD_OXYGEN), 0f);
+                    assertEquals(expected.getValue(SessionLog.VITAL_TEMPERATURE),
+                            actual.getValue(SessionLog.VITAL_TEMPERATURE), 0.005f + 1e-4f);
+                    assertEquals(expected.getValue(SessionLog.VITAL_HEART_RATE_STD_DEV),
+                            actual.getValue(SessionLog.VITAL_HEART_RATE_STD_DEV), 0.005f + 1e-4f);
+                } else {
+                    // 事件数值按位保存
+                    assertEquals(expected.getValue(0), actual.getValue(0), 0f);
+                }
+            }
+            assertFalse(actual.next());
+        }
+    }
+
+    @Test
+    public void compactSegment_seeksByOriginalRecordIndex() throws Exception {
+        File dir = record(true);
+        SessionIndex index = SessionIndex.rebuild(dir, START);
+        try (SessionLogReader reader = SessionLogReader.open(dir, START, 0)) {
+            long target = START + 300_000L;
+            long position = index.seek(target);
+            reader.seek(TimeIndex.recordOf(position));
+            assertTrue(reader.next());
+            assertEquals(TimeIndex.recordOf(position), reader.getRecordIndex());
+            assertTrue(reader.getTimestamp() <= target);
+            assertTrue(reader.getTimestamp() > target - 2 * SessionIndex.INDEX_INTERVAL_MS);
+
+            // 跨块往回定位
+            reader.seek(1);
+            assertTrue(reader.next());
+            assertEquals(1, reader.getRecordIndex());
+        }
+    }
+
+    @Test
+    public void recordedEcgSource_replaysCompactedSession() throws Exception {
+        File dir = record(true);
+        RecordedEcgSource source = new RecordedEcgSource(dir, START);
+        assertEquals(RATE, source.getSampleRate());
+        EcgBlock block = new EcgBlock(100);
+        long total = 0;
+        int read;
+        while ((read = source.read(block, 100)) > 0) {
+            assertEquals(START + total * 1000 / RATE, block.getStartTimestamp());
+            total += read;
+        }
+        assertNull(source.getFailure());
+        assertEquals(RATE * 600L, total);
+    }
+
+    // 10 分钟的会话：40 ms 的心电块、每秒一帧体征、每次心跳和报警一个事件
+    private static File record(boolean compaction) throws Exception {
+        File dir = Files.createTempDirectory("compact").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, START, 4096, SessionRecorder.DEFAULT_SEGMENT_RECORDS,
+                SessionRecorder.DEFAULT_FLUSH_INTERVAL_MS);
+        recorder.setCompaction(compaction);
+        recorder.start();
+        EcgWaveformGenerator generator = new EcgWaveformGenerator(new Random(5));
+        EcgFilterChain filters = new EcgFilterChain();
+        VitalsSimulator simulator = new VitalsSimulator(new Random(5));
+        HealthData frame = new HealthData();
+        EcgBlock block = new EcgBlock(RATE / 25);
+        for (int tick = 0; tick < 600 * 25; tick++) {
+            long t = START + tick * 40L;
+            generator.fill(block, block.getCapacity(), RATE, START);
+            filters.process(block);
+            recorder.onEcgBlock(block);
+            if (tick % 25 == 0) {
+                simulator.generate(frame);
+                frame.setTimestamp(t);
+                recorder.onHealthFrame(Module.HR, frame);
+            }
+            if (tick % 20 == 0) {
+                recorder.onBeat(t, 790 + tick % 7 * 5);
+            }
+            if (tick % 1000 == 0) {
+                recorder.recordEvent(SessionLog.EVENT_ALARM, t, 1.25f);
+            }
+            if (tick % 500 == 0) {
+                Thread.sleep(1);
+            }
+        }
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(10_000));
+        assertNull(recorder.getFailure());
+        assertEquals(0, recorder.getDroppedRecords());
+        return dir;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.healthmonitor;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SessionIndexTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final int HOURS = 3;
+    private static final int RATE = 250;
+    private static final int RR_MS = 800;
+
+    private static File dir;
+
+    // 3 小时的记录：每秒一个 250 采样的心电块，每 800 ms 一次 R 波，每 10 分钟切换一次模块
+    @BeforeClass
+    public static void record() throws Exception {
+        dir = Files.createTempDirectory("index").toFile();
+        int ring = 4096;
+        SessionRecorder recorder = new SessionRecorder(dir, START, ring, 10_000, 1000);
+        recorder.start();
+        recorder.recordEvent(SessionLog.EVENT_DEVICE_POWER, START, 1f);
+        EcgBlock block = new EcgBlock(RATE);
+        block.setSampleRate(RATE);
+        block.setLength(RATE);
+        long produced = 1;
+        long samples = 0;
+        long nextBeat = START;
+        for (int second = 0; second < HOURS * 3600; second++) {
+            long t = START + second * 1000L;
+            block.setStartTimestamp(t);
+            recorder.onEcgBlock(block);
+            samples += RATE;
+            while (nextBeat < t + 1000) {
+                recorder.onBeat(nextBeat, RR_MS);
+                nextBeat += RR_MS;
+                produced++;
+            }
+            if (second % 600 == 0) {
+                recorder.recordEvent(SessionLog.EVENT_MODULE, t, second / 600);
+                produced++;
+            }
+            // 不让环形缓冲区溢出
+            while (produced + samples / SessionLog.PAYLOAD_VALUES - recorder.getWrittenRecords() > ring / 2) {
+                Thread.yield();
+            }
+        }
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(10_000));
+        assertNull(recorder.getFailure());
+        assertEquals(0, recorder.getDroppedRecords());
+    }
+
+    @Test
+    public void savedIndex_holdsEventsAndSparseEntries() throws Exception {
+        assertTrue(SessionLog.indexFile(dir, START).exists());
+        SessionIndex index = SessionIndex.open(dir, START);
+        // 心电记录跨块拼接，索引项间隔在 1 秒到 1 秒加一条记录的时长（64 个采样）之间
+        int entries = index.getTimeIndex().size();
+        long recordMs = SessionLog.PAYLOAD_VALUES * 1000L / RATE;
+        assertTrue("entries " + entries, entries <= HOURS * 3600
+                && entries >= HOURS * 3600_000L / (SessionIndex.INDEX_INTERVAL_MS + recordMs));
+        assertEquals(HOURS * 3600 * 1000 / RR_MS, index.getEvents(SessionLog.EVENT_R_PEAK).size());
+        assertEquals(HOURS * 6, index.getEvents(SessionLog.EVENT_MODULE).size());
+        assertEquals(1, index.getEvents(SessionLog.EVENT_DEVICE_POWER).size());
+
+        // 范围查询：第二个小时内的 R 波
+        AnnotationStore beats = index.getEvents(SessionLog.EVENT_R_PEAK);
+        assertEquals(3600 * 1000 / RR_MS, beats.countInRange(START + 3600_000L, START + 7200_000L));
+        int first = beats.firstAtOrAfter(START + 3600_000L);
+        assertEquals(START + 3600_000L, beats.getTime(first));
+        assertEquals(RR_MS, beats.getValue(first), 0f);
+        // 跳到下一次模块切换
+        AnnotationStore modules = index.getEvents(SessionLog.EVENT_MODULE);
+        int next = modules.firstAfter(START + 601_000L);
+        assertEquals(START + 1200_000L, modules.getTime(next));
+    }
+
+    @Test
+    public void seek_landsOnRequestedTime() throws Exception {
+        SessionIndex index = SessionIndex.open(dir, START);
+        int segments = 0;
+        while (SessionLog.segmentExists(dir, START, segments)) {
+            segments++;
+        }
+        assertTrue(segments > 1);
+        SessionLogReader[] readers = new SessionLogReader[segments];
+        for (int i = 0; i < segments; i++) {
+            readers[i] = SessionLogReader.open(dir, START, i);
+        }
+        try {
+            // 定位耗时见 SessionIndexBenchmark
+            Random random = new Random(9);
+            for (int i = 0; i < 2000; i++) {
+                long target = START + (long) (random.nextDouble() * (HOURS * 3600_000L - 1000));
+                long found = seek(index, readers, target);
+                // 心电块每秒一个，目标时间之后 1 秒内必然有一条心电记录
+                assertTrue(found >= target && found < target + 1000);
+            }
+        } finally {
+            for (SessionLogReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    @Test
+    public void missingOrCorruptIndex_isRebuiltFromLog() throws Exception {
+        File copy = Files.createTempDirectory("rebuild").toFile();
+        for (File f : dir.listFiles()) {
+            Files.copy(f.toPath(), new File(copy, f.getName()).toPath());
+        }
+        SessionIndex expected = SessionIndex.open(copy, START);
+
+        File indexFile = SessionLog.indexFile(copy, START);
+        try (FileOutputStream out = new FileOutputStream(indexFile)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        assertSameIndex(expected, SessionIndex.open(copy, START));
+
+        assertTrue(indexFile.delete());
+        assertSameIndex(expected, SessionIndex.open(copy, START));
+        assertSameIndex(expected, SessionIndex.rebuild(copy, START));
+    }
+
+    // 返回目标时间之后第一条心电记录的时间
+    private static long seek(SessionIndex index, SessionLogReader[] readers, long target) throws Exception {
+        long position = index.seek(target);
+        int segment = TimeIndex.segmentOf(position);
+        long record = TimeIndex.recordOf(position);
+        for (; segment < readers.length; segment++, record = 1) {
+            SessionLogReader reader = readers[segment];
+            reader.seek(record);
+            while (reader.next()) {
+                if (reader.getType() == SessionLog.TYPE_ECG && reader.getTimestamp() >= target) {
+                    return reader.getTimestamp();
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static void assertSameIndex(SessionIndex expected, SessionIndex actual) {
+        assertEquals(expected.getTimeIndex().size(), actual.getTimeIndex().size());
+        for (int i = 0; i < expected.getTimeIndex().size(); i += 97) {
+            assertEquals(expected.getTimeIndex().getTime(i), actual.getTimeIndex().getTime(i));
+            assertEquals(expected.getTimeIndex().getPosition(i), actual.getTimeIndex().getPosition(i));
+        }
+        for (int type = 0; type < SessionLog.EVENT_TYPE_COUNT; type++) {
+            assertEquals(expected.getEvents(type).size(), actual.getEvents(type).size());
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionRecorderTest {
+    @Test
+    public void records_roundTripThroughSegments() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        // 每个分段 1 个头 + 7 条记录，强制多次切换分段
+        SessionRecorder recorder = new SessionRecorder(dir, 1000L, 64, 8, 10);
+        recorder.start();
+
+        EcgBlock block = new EcgBlock(100);
+        block.setSampleRate(1000);
+        for (int b = 0; b < 10; b++) {
+            for (int i = 0; i < 100; i++) {
+                block.getSamples()[i] = b * 100 + i;
+            }
+            block.setLength(100);
+            block.setStartTimestamp(1000L + b * 100);
+            recorder.onEcgBlock(block);
+
+            HealthData frame = new HealthData();
+            frame.setTimestamp(1000L + b * 100);
+            frame.setHeartRate(60 + b);
+            frame.setTemperature(36.5f);
+            recorder.onHealthFrame(Module.HR, frame);
+            // 避免超出 64 条记录的缓冲区
+            Thread.sleep(5);
+        }
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(5000));
+        assertNull(recorder.getFailure());
+        assertEquals(0, recorder.getDroppedRecords());
+        // 连续的 1000 个采样跨块拼成 15 条满记录，剩下 40 个在 stop() 时写入
+        assertEquals(26, recorder.getWrittenRecords());
+
+        float[] ecg = new float[1000];
+        int ecgCount = 0;
+        int vitals = 0;
+        int segment = 0;
+        while (SessionLog.segmentExists(dir, 1000L, segment)) {
+            // 关闭的分段都已压缩，原分段已删除
+            assertFalse(SessionLog.segmentFile(dir, 1000L, segment).exists());
+            try (SessionLogReader reader = SessionLogReader.open(dir, 1000L, segment)) {
+                assertTrue(reader.isCompact());
+                while (reader.next()) {
+                    if (reader.getType() == SessionLog.TYPE_ECG) {
+                        assertEquals(1000, reader.getArg());
+                        assertEquals(1000L + ecgCount, reader.getTimestamp());
+                        ecgCount += reader.getValues(ecg, ecgCount);
+                    } else {
+                        assertEquals(SessionLog.TYPE_VITALS, reader.getType());
+                        assertEquals(Module.HR.ordinal(), reader.getArg());
+                        assertEquals(60 + vitals, reader.getValue(SessionLog.VITAL_HEART_RATE), 0f);
+                        assertEquals(36.5f, reader.getValue(SessionLog.VITAL_TEMPERATURE), 0f);
+                        vitals++;
+                    }
+                }
+            }
+            segment++;
+        }
+        assertEquals(4, segment);
+        assertEquals(1000, ecgCount);
+        assertEquals(10, vitals);
+        for (int i = 0; i < ecgCount; i++) {
+            assertEquals(i, ecg[i], 0f);
+        }
+    }
+
+    @Test
+    public void ecg_breaksRecordOnGapAndRateChange() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 4000L);
+        recorder.start();
+        EcgBlock block = new EcgBlock(10);
+        block.setLength(10);
+        block.setSampleRate(250);
+        // 两个相接的块拼成一条记录
+        block.setStartTimestamp(4000L);
+        recorder.onEcgBlock(block);
+        block.setStartTimestamp(4040L);
+        recorder.onEcgBlock(block);
+        // 模块关闭过一段时间，开始新的记录
+        block.setStartTimestamp(5000L);
+        recorder.onEcgBlock(block);
+        // 采样率变化
+        block.setSampleRate(500);
+        block.setStartTimestamp(5040L);
+        recorder.onEcgBlock(block);
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(5000));
+
+        long[] timestamps = new long[3];
+        int[] counts = new int[3];
+        int records = 0;
+        try (SessionLogReader reader = SessionLogReader.open(dir, 4000L, 0)) {
+            while (reader.next()) {
+                timestamps[records] = reader.getTimestamp();
+                counts[records] = reader.getCount();
+                records++;
+            }
+        }
+        assertEquals(3, records);
+        assertArrayEquals(new long[]{4000L, 5000L, 5040L}, timestamps);
+        assertArrayEquals(new int[]{20, 10, 10}, counts);
+    }
+
+    @Test
+    public void ecg_pendingSamplesFlushedAfterInterval() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 6000L, 64, 1024, 100);
+        recorder.start();
+        EcgBlock block = new EcgBlock(10);
+        block.setLength(10);
+        block.setSampleRate(250);
+        block.setStartTimestamp(6000L);
+        recorder.onEcgBlock(block);
+        HealthData frame = new HealthData();
+        frame.setTimestamp(6050L);
+        recorder.onHealthFrame(Module.TEMP, frame);
+        frame.setTimestamp(6100L);
+        recorder.onHealthFrame(Module.TEMP, frame);
+        frame.setTimestamp(6150L);
+        recorder.onHealthFrame(Module.TEMP, frame);
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(5000));
+
+        // 暂存的采样在采样时间超过刷新间隔的那一帧之前提交，而不是等到 stop()
+        StringBuilder types = new StringBuilder();
+        try (SessionLogReader reader = SessionLogReader.open(dir, 6000L, 0)) {
+            while (reader.next()) {
+                types.append(reader.getType() == SessionLog.TYPE_ECG ? 'E' : 'V');
+            }
+        }
+        assertEquals("VEVV", types.toString());
+    }
+
+    @Test
+    public void writer_sleepsUntilRecordsArrive() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 7000L, 64, 1024, 10);
+        Set<Thread> existing = Thread.getAllStackTraces().keySet();
+        recorder.start();
+        try {
+            Thread writer = null;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("session-recorder") && !existing.contains(thread)) {
+                    writer = thread;
+                }
+            }
+            assertNotNull(writer);
+            assertTrue(writer.isDaemon());
+            // 没有记录时不定时唤醒
+            awaitState(writer, Thread.State.WAITING);
+
+            // 提交记录即唤醒写线程，落盘后重新无限期挂起
+            recorder.onHealthFrame(Module.TEMP, new HealthData());
+            long deadline = System.currentTimeMillis() + 5000;
+            while (recorder.getWrittenRecords() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, recorder.getWrittenRecords());
+            awaitState(writer, Thread.State.WAITING);
+        } finally {
+            recorder.stop();
+            assertTrue(recorder.awaitTermination(5000));
+        }
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != state && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(state, thread.getState());
+    }
+
+    @Test
+    public void rotation_keepsDrainingWhileSegmentIsCompacted() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        final CountDownLatch compacting = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        // 每个分段 1 个头 + 63 条记录，环形缓冲区只有 16 条
+        SessionRecorder recorder = new SessionRecorder(dir, 9000L, 16, 64, 10);
+        recorder.setCompactor(new SessionCompactor() {
+            @Override
+            public File compact(File directory, long sessionStart, int segment) throws IOException {
+                compacting.countDown();
+                try {
+                    // 第一个分段的压缩一直持续到生产者又写完两个多分段
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return super.compact(directory, sessionStart, segment);
+            }
+        });
+        recorder.start();
+
+        int total = 63 + 10 * 16;
+        HealthData frame = new HealthData();
+        try {
+            for (int i = 0; i < total; i++) {
+                frame.setTimestamp(9000L + i);
+                recorder.onHealthFrame(Module.TEMP, frame);
+                // 连续写入，缓冲区中最多留 8 条；写线程在压缩期间必须继续写出记录
+                awaitWritten(recorder, i + 1 - 8);
+            }
+            assertTrue(compacting.await(0, TimeUnit.MILLISECONDS));
+        } finally {
+            release.countDown();
+            recorder.stop();
+        }
+        assertTrue(recorder.awaitTermination(5000));
+
+        assertNull(recorder.getFailure());
+        assertEquals(0, recorder.getDroppedRecords());
+        assertEquals(total, recorder.getWrittenRecords());
+        for (int segment = 0; segment < 4; segment++) {
+            assertTrue(SessionLog.segmentExists(dir, 9000L, segment));
+            assertFalse(SessionLog.segmentFile(dir, 9000L, segment).exists());
+        }
+    }
+
+    private static void awaitWritten(SessionRecorder recorder, long records) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (recorder.getWrittenRecords() < records) {
+            assertTrue("writer stalled at " + recorder.getWrittenRecords(), System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void reader_ignoresTruncatedTailRecord() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 2000L);
+        recorder.setCompaction(false);
+        recorder.start();
+        HealthData frame = new HealthData();
+        for (int i = 0; i < 3; i++) {
+            frame.setTimestamp(2000L + i);
+            recorder.onHealthFrame(Module.TEMP, frame);
+        }
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(5000));
+
+        // 模拟写入最后一条记录时崩溃
+        File file = SessionLog.segmentFile(dir, 2000L, 0);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+        int records = 0;
+        try (SessionLogReader reader = new SessionLogReader(file)) {
+            while (reader.next()) {
+                records++;
+            }
+        }
+        assertEquals(2, records);
+    }
+
+    @Test
+    public void writerFailure_reportedOnceWhenWriterEnds() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        // 分段文件的位置被目录占用，打开分段失败
+        assertTrue(SessionLog.segmentFile(dir, 8000L, 0).mkdir());
+        SessionRecorder recorder = new SessionRecorder(dir, 8000L, 64, 1024, 10);
+        final List<Throwable> reported = new CopyOnWriteArrayList<>();
+        recorder.setFailureListener((failed, failure) -> {
+            assertSame(recorder, failed);
+            reported.add(failure);
+        });
+        recorder.start();
+        recorder.onHealthFrame(Module.TEMP, new HealthData());
+        assertTrue(recorder.awaitTermination(5000));
+
+        assertEquals(1, reported.size());
+        assertSame(recorder.getFailure(), reported.get(0));
+        recorder.stop();
+        assertEquals(1, reported.size());
+    }
+
+    @Test
+    public void compactionError_reportedWhenWriterEnds() throws Exception {
+        File dir = Files.createTempDirectory("session").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 8500L, 64, 4, 10);
+        final Error error = new OutOfMemoryError("test");
+        recorder.setCompactor(new SessionCompactor() {
+            @Override
+            public File compact(File directory, long sessionStart, int segment) {
+                throw error;
+            }
+        });
+        final List<Throwable> reported = new CopyOnWriteArrayList<>();
+        recorder.setFailureListener((failed, failure) -> reported.add(failure));
+        recorder.start();
+        HealthData frame = new HealthData();
+        for (int i = 0; i < 5; i++) {
+            frame.setTimestamp(8500L + i);
+            recorder.onHealthFrame(Module.TEMP, frame);
+        }
+        recorder.stop();
+        assertTrue(recorder.awaitTermination(5000));
+
+        // 压缩线程因 Error 结束，写线程仍写完所有记录，结束时通知一次
+        assertEquals(5, recorder.getWrittenRecords());
+        assertEquals(Collections.singletonList(error), reported);
+        assertSame(error, recorder.getFailure());
+    }
+
+    @Test
+    public void startFailure_reportedOnCallingThread() throws Exception {
+        File file = File.createTempFile("session", ".rec");
+        SessionRecorder recorder = new SessionRecorder(file, 8000L);
+        final List<Throwable> reported = new CopyOnWriteArrayList<>();
+        recorder.setFailureListener((failed, failure) -> reported.add(failure));
+        recorder.start();
+        assertEquals(1, reported.size());
+        assertNotNull(recorder.getFailure());
+        assertTrue(recorder.awaitTermination(0));
+    }
+
+    @Test
+    public void producer_dropsInsteadOfBlockingWhenNotRecording() throws IOException {
+        File dir = Files.createTempDirectory("session").toFile();
+        SessionRecorder recorder = new SessionRecorder(dir, 3000L);
+        recorder.onHealthFrame(Module.OX, new HealthData());
+        assertEquals(1, recorder.getDroppedRecords());
+        assertFalse(SessionLog.segmentFile(dir, 3000L, 0).exists());
+    }
+
+    @Test(expected = IOException.class)
+    public void reader_rejectsForeignFile() throws IOException {
+        File file = File.createTempFile("foreign", ".rec");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(SessionLog.RECORD_SIZE);
+        }
+        new SessionLogReader(file).close();
+    }
+}
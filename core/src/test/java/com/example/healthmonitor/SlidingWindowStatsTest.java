@@ -0,0 +1,71 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SlidingWindowStatsTest {
+    @Test
+    public void matchesBruteForceOverWindow() {
+        long windowMs = 60_000;
+        SlidingWindowStats stats = new SlidingWindowStats(windowMs, 200);
+        Random random = new Random(7);
+        int n = 2000;
+        long[] times = new long[n];
+        float[] values = new float[n];
+        long t = 0;
+        for (int i = 0; i < n; i++) {
+            t += 200 + random.nextInt(800);
+            times[i] = t;
+            values[i] = 60 + random.nextInt(40);
+            stats.add(t, values[i]);
+
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            double sum = 0;
+            int count = 0;
+            for (int j = i; j >= 0 && times[j] > t - windowMs; j--) {
+                min = Math.min(min, values[j]);
+                max = Math.max(max, values[j]);
+                sum += values[j];
+                count++;
+            }
+            double mean = sum / count;
+            double variance = 0;
+            for (int j = i; j > i - count; j--) {
+                variance += (values[j] - mean) * (values[j] - mean);
+            }
+            variance /= count;
+
+            assertEquals(count, stats.getCount());
+            assertEquals(min, stats.getMin(), 0f);
+            assertEquals(max, stats.getMax(), 0f);
+            assertEquals(mean, stats.getMean(), 1e-3);
+            assertEquals(variance, stats.getVariance(), 1e-2);
+        }
+    }
+
+    @Test
+    public void capacity_dropsOldestSamples() {
+        SlidingWindowStats stats = new SlidingWindowStats(1_000_000, 3);
+        stats.add(1, 100);
+        stats.add(2, 1);
+        stats.add(3, 2);
+        stats.add(4, 3);
+        assertEquals(3, stats.getCount());
+        assertEquals(3f, stats.getMax(), 0f);
+        assertEquals(1f, stats.getMin(), 0f);
+    }
+
+    @Test
+    public void expire_emptiesWindow() {
+        SlidingWindowStats stats = new SlidingWindowStats(1000, 10);
+        stats.add(0, 5);
+        stats.add(500, 7);
+        stats.expire(1600);
+        assertEquals(0, stats.getCount());
+        assertEquals(0f, stats.getMean(), 0f);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.healthmonitor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StartupTimerTest {
+    private VirtualScheduler clock;
+    private MetricsRegistry registry;
+    private Gauge frameGauge;
+    private StartupTimer timer;
+    private int reports;
+
+    @Before
+    public void setUp() {
+        clock = new VirtualScheduler(0);
+        registry = new MetricsRegistry(true);
+        frameGauge = registry.gauge("frame");
+        timer = new StartupTimer(clock, registry.gauge("ui"), registry.gauge("sample"), frameGauge);
+        timer.setListener(t -> reports++);
+    }
+
+    @Test
+    public void marks_measureFromBegin() {
+        timer.begin(clock.nanoTime() - 50_000_000L, true);
+        clock.advanceBy(100);
+        timer.markUiReady();
+        clock.advanceBy(100);
+        timer.markFirstSample();
+        clock.advanceBy(16);
+        timer.markFirstFrame();
+        // 重复的标记不生效
+        clock.advanceBy(100);
+        timer.markFirstFrame();
+
+        assertTrue(timer.isComplete());
+        assertTrue(timer.isCold());
+        assertFalse(timer.isFromPowerOn());
+        assertEquals(150, timer.getUiReadyMillis());
+        assertEquals(250, timer.getFirstSampleMillis());
+        assertEquals(266, timer.getFirstFrameMillis());
+        assertEquals(266, frameGauge.get());
+        assertEquals(1, reports);
+        assertEquals("cold start: ui 150 ms, first sample 250 ms, first frame 266 ms", timer.toString());
+    }
+
+    @Test
+    public void frameBeforeFirstSample_isIgnored() {
+        timer.begin(clock.nanoTime(), false);
+        timer.markUiReady();
+        clock.advanceBy(10);
+        timer.markFirstFrame();
+        assertEquals(-1, timer.getFirstFrameMillis());
+        clock.advanceBy(10);
+        timer.markFirstSample();
+        clock.advanceBy(10);
+        timer.markFirstFrame();
+        assertEquals(30, timer.getFirstFrameMillis());
+        assertEquals(1, reports);
+    }
+
+    @Test
+    public void powerOn_rebasesSampleAndFrame() {
+        timer.begin(clock.nanoTime(), true);
+        clock.advanceBy(200);
+        timer.markUiReady();
+        // 用户 5 秒后才开机
+        clock.advanceBy(5000);
+        timer.markPowerOn();
+        clock.advanceBy(120);
+        timer.markFirstSample();
+        clock.advanceBy(20);
+        timer.markFirstFrame();
+
+        assertTrue(timer.isFromPowerOn());
+        assertEquals(200, timer.getUiReadyMillis());
+        assertEquals(120, timer.getFirstSampleMillis());
+        assertEquals(140, timer.getFirstFrameMillis());
+    }
+
+    @Test
+    public void cancel_ignoresLaterMarks() {
+        timer.begin(clock.nanoTime(), false);
+        timer.markUiReady();
+        timer.cancel();
+        timer.markFirstSample();
+        timer.markFirstFrame();
+        assertFalse(timer.isComplete());
+        assertEquals(0, reports);
+
+        // 下一次启动重新开始
+        timer.begin(clock.nanoTime(), false);
+        assertEquals(-1, timer.getUiReadyMillis());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SweepTraceTest {
+    @Test
+    public void samples_connectAcrossCalls() {
+        SweepTrace trace = new SweepTrace();
+        float[] points = new float[64];
+        // 第一次没有上次的终点，4 个采样只有 3 条线段
+        assertEquals(12, trace.appendSamples(new float[]{0f, 0f, 0f, 0f}, 4, 0, 10, 100f, 100f, points));
+        // 第二次与上次终点相连
+        assertEquals(8, trace.appendSamples(new float[]{1f, 1f}, 2, 4, 10, 100f, 100f, points));
+        assertEquals(30f, points[0], 0f);
+        assertEquals(50f, points[1], 0f);
+        assertEquals(40f, points[2], 0f);
+        assertEquals(SweepTrace.toY(1f, 50f, 100f), points[3], 0f);
+        assertEquals(30f, trace.getDirtyLeft(), 0f);
+        assertEquals(50f, trace.getDirtyRight(), 0f);
+        assertFalse(trace.isWrapped());
+    }
+
+    @Test
+    public void samples_wrapAtRightEdge() {
+        SweepTrace trace = new SweepTrace();
+        float[] points = new float[64];
+        trace.appendSamples(new float[]{0f, 0f}, 2, 7, 10, 100f, 100f, points);
+        int n = trace.appendSamples(new float[]{0f, 0f, 0f}, 3, 9, 10, 100f, 100f, points);
+        // 跨过右边缘的那一段不画，避免一条横穿屏幕的线
+        assertEquals(8, n);
+        assertTrue(trace.isWrapped());
+        assertEquals(10f, trace.getDirtyRight(), 0f);
+    }
+
+    @Test
+    public void reset_startsNewSegment() {
+        SweepTrace trace = new SweepTrace();
+        float[] points = new float[64];
+        trace.appendSamples(new float[]{0f, 0f}, 2, 0, 10, 100f, 100f, points);
+        trace.reset();
+        assertEquals(0, trace.appendSamples(new float[]{0f}, 1, 2, 10, 100f, 100f, points));
+    }
+
+    @Test
+    public void columns_flatSegmentIsOnePixelHigh() {
+        SweepTrace trace = new SweepTrace();
+        float[] points = new float[64];
+        int n = trace.appendColumns(new float[]{0.5f, 0.5f, -1f, 1f}, 2, 3, 4, 40f, 100f, points);
+        assertEquals(8, n);
+        assertEquals(35f, points[0], 0f);
+        assertEquals(1f, points[3] - points[1], 1e-4f);
+        assertEquals(2 * 100f * SweepTrace.VERTICAL_SCALE, points[7] - points[5], 1e-4f);
+        // 第 3、4 列中第 4 列回到左边缘
+        assertEquals(30f, trace.getDirtyLeft(), 0f);
+        assertEquals(10f, trace.getDirtyRight(), 0f);
+        assertTrue(trace.isWrapped());
+    }
+}
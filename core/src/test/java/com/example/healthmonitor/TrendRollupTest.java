@@ -0,0 +1,87 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrendRollupTest {
+    private static final long T0 = 1_700_000_000_000L - 1_700_000_000_000L % 3_600_000L;
+
+    @Test
+    public void shortRange_usesSecondBuckets() {
+        TrendRollup rollup = filledRollup(2 * 3600);
+        TrendSeries series = new TrendSeries(600);
+        long to = T0 + 2 * 3600_000L;
+        assertEquals(600, rollup.query(to - 600_000L, to, series));
+        assertEquals(TrendResolution.ONE_SECOND, series.getResolution());
+        assertEquals(to - 600_000L, series.getStart(0));
+        assertEquals(valueAt(2 * 3600 - 1), series.getMean(599), 0f);
+        assertEquals(1, series.getCount(599));
+    }
+
+    @Test
+    public void longRange_fallsBackToCoarserResolution() {
+        TrendRollup rollup = filledRollup(2 * 3600);
+        TrendSeries series = new TrendSeries(100);
+        // 1 秒桶只保留 1 小时，1 分钟桶有 120 个超出容量，选择 15 分钟
+        assertEquals(8, rollup.query(T0 - 86_400_000L, T0 + 86_400_000L, series));
+        assertEquals(TrendResolution.FIFTEEN_MINUTES, series.getResolution());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(T0 + i * 900_000L, series.getStart(i));
+            assertEquals(900, series.getCount(i));
+            assertEquals(60f, series.getMin(i), 0f);
+            assertEquals(99f, series.getMax(i), 0f);
+        }
+    }
+
+    @Test
+    public void minuteBuckets_aggregateCorrectly() {
+        TrendRollup rollup = new TrendRollup();
+        for (int i = 0; i < 120; i++) {
+            rollup.add(T0 + i * 1000L, i < 60 ? 36.5f : 37.5f);
+        }
+        TrendSeries series = new TrendSeries(2);
+        assertEquals(2, rollup.query(T0, T0 + 120_000L, series));
+        assertEquals(TrendResolution.ONE_MINUTE, series.getResolution());
+        assertEquals(36.5f, series.getMean(0), 1e-4f);
+        assertEquals(37.5f, series.getMean(1), 1e-4f);
+        assertEquals(60, series.getCount(1));
+    }
+
+    @Test
+    public void tooManyBuckets_returnsNewestAtCoarsestResolution() {
+        TrendRollup rollup = filledRollup(30 * 3600);
+        TrendSeries series = new TrendSeries(2);
+        assertEquals(2, rollup.query(T0, T0 + 30 * 3600_000L, series));
+        assertEquals(TrendResolution.ONE_HOUR, series.getResolution());
+        assertEquals(T0 + 29 * 3600_000L, series.getStart(1));
+    }
+
+    @Test
+    public void emptyRollup_returnsNothing() {
+        TrendSeries series = new TrendSeries(10);
+        assertEquals(0, new TrendRollup().query(T0, T0 + 1000, series));
+        assertNull(series.getResolution());
+    }
+
+    @Test
+    public void reset_dropsHistory() {
+        TrendRollup rollup = filledRollup(100);
+        rollup.reset();
+        TrendSeries series = new TrendSeries(10);
+        assertEquals(0, rollup.query(T0, T0 + 100_000L, series));
+    }
+
+    private static float valueAt(int second) {
+        return 60 + second % 40;
+    }
+
+    // 每秒一个采样，持续 seconds 秒
+    private static TrendRollup filledRollup(int seconds) {
+        TrendRollup rollup = new TrendRollup();
+        for (int i = 0; i < seconds; i++) {
+            rollup.add(T0 + i * 1000L, valueAt(i));
+        }
+        return rollup;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.healthmonitor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class VirtualSchedulerTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final long DAY_MS = 24 * 3600_000L;
+
+    @Test
+    public void tasksRunInTimeOrderAtFixedRate() {
+        VirtualScheduler scheduler = new VirtualScheduler(START);
+        List<String> runs = new ArrayList<>();
+        TaskScheduler.Cancellable fast = scheduler.scheduleAtFixedRate(
+                () -> runs.add("a" + (scheduler.currentTimeMillis() - START)), 40);
+        scheduler.scheduleAtFixedRate(() -> runs.add("b" + (scheduler.currentTimeMillis() - START)), 100);
+        scheduler.execute(() -> runs.add("c"));
+
+        scheduler.advanceBy(100);
+        assertEquals("[a0, b0, c, a40, a80, b100]", runs.toString());
+        assertEquals(START + 100, scheduler.currentTimeMillis());
+        assertEquals(scheduler.currentTimeMillis() * 1_000_000L, scheduler.nanoTime());
+
+        fast.cancel();
+        assertEquals(1, scheduler.getPendingTaskCount());
+        runs.clear();
+        scheduler.advanceBy(250);
+        assertEquals("[b200, b300]", runs.toString());
+
+        // 关闭后周期任务取消，已提交的一次性任务照常执行
+        scheduler.execute(() -> runs.add("d"));
+        scheduler.shutdown();
+        assertEquals(1, scheduler.getPendingTaskCount());
+        scheduler.runPending();
+        assertEquals("[b200, b300, d]", runs.toString());
+        try {
+            scheduler.execute(() -> { });
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+
+    @Test
+    public void sameSeed_producesBitIdenticalDays() {
+        Simulation first = new Simulation(42);
+        first.run(2 * DAY_MS);
+
+        Simulation second = new Simulation(42);
+        second.run(2 * DAY_MS);
+        assertEquals(first.ecgSamples, second.ecgSamples);
+        assertEquals(2 * DAY_MS / 1000 * EcgSource.ECG_RATE_250, first.ecgSamples);
+        long periods = 2 * DAY_MS / VitalStage.DEFAULT_PERIOD_MS;
+        assertEquals(2 * periods, first.frames - first.heartRateFrames);
+        // QRS 检测得到第一个心率之前的几个周期没有心率帧
+        assertTrue(first.heartRateFrames < periods && first.heartRateFrames > periods - 10);
+        assertEquals(first.beats, second.beats);
+        assertEquals(first.hash, second.hash);
+
+        // 趋势汇总覆盖完整的两天
+        TrendSeries trend = new TrendSeries(48);
+        int buckets = first.statistics.getRollup(Module.HR).query(START, START + 2 * DAY_MS, trend);
+        assertEquals(48, buckets);
+        assertTrue(trend.getMean(47) >= 60 && trend.getMean(47) <= 100);
+
+        Simulation other = new Simulation(43);
+        other.run(DAY_MS / 24);
+        Simulation same = new Simulation(42);
+        same.run(DAY_MS / 24);
+        assertNotEquals(same.hash, other.hash);
+    }
+
+    // 与 DataRepository 相同的阶段组合，运行在虚拟时间上，把所有输出折叠成一个哈希值
+    private static final class Simulation implements EcgStreamListener, HealthFrameListener, QrsDetector.Listener {
+        final VirtualScheduler scheduler = new VirtualScheduler(START);
+        final VitalStatistics statistics = new VitalStatistics(1000f / VitalStage.DEFAULT_PERIOD_MS);
+        final List<SensorStage> stages = new ArrayList<>();
+        long hash = 17;
+        long ecgSamples;
+        long frames;
+        long heartRateFrames;
+        long beats;
+
+        Simulation(long seed) {
+            Random random = new Random(seed);
+            HealthSnapshotBuffer snapshots = new HealthSnapshotBuffer();
+            SimulatedEcgSource ecg = new SimulatedEcgSource(random, scheduler);
+            ecg.setSampleRate(EcgSource.ECG_RATE_250);
+            EcgStage ecgStage = new EcgStage(ecg, snapshots, () -> { });
+            ecgStage.addListener(this);
+            ecgStage.setBeatListener(this);
+            VitalsSimulator simulator = new VitalsSimulator(random);
+            simulator.setEcgStage(ecgStage);
+            stages.add(ecgStage);
+            for (Module module : new Module[]{Module.TEMP, Module.HR, Module.OX}) {
+                VitalStage stage = new VitalStage(module, simulator, statistics, snapshots, () -> { });
+                stage.setFrameListener(this);
+                stages.add(stage);
+            }
+        }
+
+        void run(long millis) {
+            for (SensorStage stage : stages) {
+                stage.start(scheduler);
+            }
+            scheduler.advanceBy(millis - 1);
+            for (SensorStage stage : stages) {
+                stage.stop();
+            }
+            assertEquals(0, scheduler.getPendingTaskCount());
+        }
+
+        @Override
+        public void onEcgBlock(EcgBlock block) {
+            float[] samples = block.getSamples();
+            for (int i = 0; i < block.getLength(); i++) {
+                hash = hash * 31 + Float.floatToIntBits(samples[i]);
+            }
+            hash = hash * 31 + block.getStartTimestamp();
+            ecgSamples += block.getLength();
+        }
+
+        @Override
+        public void onHealthFrame(Module module, HealthData data) {
+            hash = hash * 31 + data.getTimestamp();
+            hash = hash * 31 + Float.floatToIntBits(data.getTemperature());
+            hash = hash * 31 + data.getHeartRate();
+            hash = hash * 31 + data.getBloodOxygen();
+            hash = hash * 31 + Float.floatToIntBits(data.getHeartRateStdDev());
+            frames++;
+            if (module == Module.HR) {
+                heartRateFrames++;
+            }
+        }
+
+        @Override
+        public void onBeat(long timestamp, int rrMs) {
+            hash = hash * 31 + timestamp;
+            hash = hash * 31 + rrMs;
+            beats++;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.healthmonitor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VitalStageTest {
+    private static final long START = 1_700_000_000_000L - 1_700_000_000_000L % 3_600_000L;
+
+    private final VirtualScheduler scheduler = new VirtualScheduler(START);
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    // QRS 检测到两次 R 波之前心率为 0，这段时间不能发布心率，也不能进入极值、均值和趋势
+    @Test
+    public void heartRate_ignoresStartupBeforeFirstReading() {
+        PatientMonitor monitor = new PatientMonitor("bed", new Random(5));
+        monitor.setModules(Module.HR.mask());
+        final int[] frames = new int[1];
+        monitor.setFrameListener((module, data) -> {
+            assertEquals(Module.HR, module);
+            assertTrue("published heart rate " + data.getHeartRate(), data.getHeartRate() > 0);
+            frames[0]++;
+        });
+        monitor.start(scheduler);
+
+        scheduler.advanceBy(20_000);
+        // 心电滤波和 QRS 学习占去最初几秒
+        assertTrue("frames " + frames[0], frames[0] > 10 && frames[0] < 20);
+
+        HealthData data = monitor.getSnapshots().acquire();
+        assertTrue("heart rate " + data.getHeartRate(), data.getHeartRate() >= 40);
+        assertTrue("min " + data.getHeartRateMin(), data.getHeartRateMin() >= 40);
+        assertTrue("mean " + data.getHeartRateMean(), data.getHeartRateMean() >= 40);
+        assertTrue(data.getHeartRateMax() >= data.getHeartRateMin());
+
+        TrendSeries series = new TrendSeries(60);
+        int buckets = monitor.queryTrend(Module.HR, START, START + 21_000, series);
+        assertEquals(frames[0], buckets);
+        for (int i = 0; i < buckets; i++) {
+            assertTrue("trend min " + series.getMin(i), series.getMin(i) >= 40);
+        }
+        monitor.stop();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.healthmonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class WaveformSnapshotTest {
+    private File file;
+    private WaveformSnapshot snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("waveform", ".snapshot");
+        file.delete();
+        snapshot = WaveformSnapshot.open(file, 100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        snapshot.close();
+        file.delete();
+    }
+
+    @Test
+    public void newFile_isEmpty() {
+        assertEquals(100, snapshot.getCapacity());
+        assertEquals(0, snapshot.getSampleRate());
+        assertEquals(0, snapshot.getRestorableCount());
+        assertFalse(snapshot.isPowered());
+        assertFalse(snapshot.restoreVitals(new HealthData()));
+    }
+
+    @Test
+    public void append_keepsLatestCapacitySamples() {
+        snapshot.reset(250);
+        float[] samples = ramp(150);
+        snapshot.append(samples, 0, 60, 1000);
+        snapshot.append(samples, 60, 90, 2000);
+        assertEquals(100, snapshot.getRestorableCount());
+        assertEquals(2000, snapshot.getLastTimestamp());
+
+        FloatRingBuffer out = new FloatRingBuffer(100);
+        assertEquals(100, snapshot.restore(out));
+        // 保存的是最新的 100 个采样，量化误差在 1 µV 以内
+        for (int i = 0; i < 100; i++) {
+            assertEquals(samples[50 + i], out.get(i), 0.001f);
+        }
+    }
+
+    @Test
+    public void reopen_restoresSamplesAndDeviceState() throws Exception {
+        snapshot.reset(500);
+        snapshot.append(ramp(30), 0, 30, 1234);
+        snapshot.putDeviceState(true, Module.ECG.mask() | Module.HR.mask());
+        snapshot.close();
+
+        snapshot = WaveformSnapshot.open(file, 100);
+        assertEquals(500, snapshot.getSampleRate());
+        assertEquals(30, snapshot.getRestorableCount());
+        assertEquals(1234, snapshot.getLastTimestamp());
+        assertTrue(snapshot.isPowered());
+        assertEquals(Module.ECG.mask() | Module.HR.mask(), snapshot.getModules());
+
+        // 继续写入接在已有采样之后
+        snapshot.append(ramp(10), 0, 10, 1300);
+        assertEquals(40, snapshot.getRestorableCount());
+    }
+
+    @Test
+    public void reopen_withOtherCapacity_startsEmpty() throws Exception {
+        snapshot.reset(250);
+        snapshot.append(ramp(30), 0, 30, 100);
+        snapshot.close();
+
+        snapshot = WaveformSnapshot.open(file, 200);
+        assertEquals(0, snapshot.getSampleRate());
+        assertEquals(0, snapshot.getRestorableCount());
+    }
+
+    @Test
+    public void tornAppend_excludesOverwrittenSamples() throws Exception {
+        snapshot.reset(250);
+        snapshot.append(ramp(100), 0, 100, 100);
+        snapshot.close();
+        // 模拟下一批 40 个采样写到一半时进程被杀死：intent 已更新，written 没有
+        writeLong(WaveformSnapshot.OFFSET_INTENT, 140);
+
+        snapshot = WaveformSnapshot.open(file, 100);
+        assertEquals(60, snapshot.getRestorableCount());
+        FloatRingBuffer out = new FloatRingBuffer(100);
+        assertEquals(60, snapshot.restore(out));
+        assertEquals(ramp(100)[99], out.getLatest(), 0.001f);
+    }
+
+    @Test
+    public void reset_dropsSamples() {
+        snapshot.reset(250);
+        snapshot.append(ramp(20), 0, 20, 100);
+        snapshot.reset(1000);
+        assertEquals(1000, snapshot.getSampleRate());
+        assertEquals(0, snapshot.getRestorableCount());
+    }
+
+    @Test
+    public void vitals_latestCompleteSlotWins() throws Exception {
+        HealthData data = new HealthData();
+        data.setDeviceOn(true);
+        data.setHeartRate(72);
+        data.setTemperature(36.6f);
+        snapshot.putVitals(data);
+        data.setHeartRate(75);
+        snapshot.putVitals(data);
+
+        HealthData out = new HealthData();
+        assertTrue(snapshot.restoreVitals(out));
+        assertEquals(75, out.getHeartRate());
+        assertEquals(36.6f, out.getTemperature(), 0f);
+        assertTrue(out.isDeviceOn());
+
+        // 第三次写入中途被杀死：该槽位序号为 -1，回退到上一帧
+        snapshot.close();
+        writeInt(WaveformSnapshot.OFFSET_VITALS, -1);
+        snapshot = WaveformSnapshot.open(file, 100);
+        assertTrue(snapshot.restoreVitals(out));
+        assertEquals(75, out.getHeartRate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void open_rejectsBadCapacity() throws Exception {
+        WaveformSnapshot.open(file, 0);
+    }
+
+    private static float[] ramp(int length) {
+        float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (i - length / 2) * 0.01f;
+        }
+        return samples;
+    }
+
+    private void writeLong(int offset, long value) throws Exception {
+        writeInt(offset, (int) value);
+        writeInt(offset + 4, (int) (value >>> 32));
+    }
+
+    // 文件按小端序保存
+    private void writeInt(int offset, int value) throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(offset);
+            raf.writeInt(Integer.reverseBytes(value));
+        } finally {
+            raf.close();
+        }
+    }
+}